@@ -0,0 +1,186 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.up.fe.comp.ProgramGenerator;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2025.backend.JasminGenerator;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+import pt.up.fe.comp2025.optimization.JmmOptimizationImpl;
+import pt.up.fe.comp2025.optimization.RegisterAllocation;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of each compiler stage on its own, over inputs from the test resources and over generated programs.
+ * <p>
+ * Generated inputs are named 'generated:&lt;lines&gt;'. Larger ones can be selected from the command line, e.g.
+ * -Pjmh='-p resource=generated:1000,generated:10000,generated:100000,generated:1000000'.
+ * <p>
+ * Every stage starts from the output of the previous stages, prepared outside of the measurement. Stages that change
+ * their input in place (AST optimizations and register allocation) get a fresh input before each invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StageBenchmark {
+
+    private static final String GENERATED_PREFIX = "generated:";
+    private static final long GENERATOR_SEED = 42;
+
+    @State(Scope.Benchmark)
+    public static class Input {
+
+        @Param({
+                "pt/up/fe/comp/cp2/ollir/basic/BasicClassWithFields.jmm",
+                "pt/up/fe/comp/cp2/ollir/control_flow/ComplexNestedControl.jmm",
+                "pt/up/fe/comp/cp2/optimizations/const_prop_fold/PropWithLoop.jmm",
+                "pt/up/fe/comp/cp3/jasmin/arrays/ArrayAsArg.jmm",
+                "pt/up/fe/comp/cp3/jasmin/control_flow/SwitchStat.jmm",
+                "generated:1000",
+                "generated:10000"
+        })
+        public String resource;
+
+        String code;
+        Map<String, String> config;
+
+        JmmParserImpl parser;
+        JmmAnalysisImpl analysis;
+        JmmOptimizationImpl optimization;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            code = resource.startsWith(GENERATED_PREFIX)
+                    ? new ProgramGenerator(GENERATOR_SEED)
+                            .lines(Integer.parseInt(resource.substring(GENERATED_PREFIX.length())))
+                            .generate()
+                    : SpecsIo.getResource(resource);
+
+            config = new HashMap<>();
+            config.put(ConfigOptions.getOptimize(), "true");
+            config.put(ConfigOptions.getRegister(), "0");
+
+            parser = new JmmParserImpl();
+            analysis = new JmmAnalysisImpl();
+            optimization = new JmmOptimizationImpl();
+        }
+
+        JmmParserResult parse() {
+            return parser.parse(code, config);
+        }
+
+        JmmSemanticsResult analyse() {
+            return analysis.semanticAnalysis(parse());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Parsed {
+
+        JmmParserResult parserResult;
+
+        @Setup(Level.Trial)
+        public void setup(Input input) {
+            parserResult = input.parse();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Analysed {
+
+        JmmSemanticsResult semanticsResult;
+
+        @Setup(Level.Invocation)
+        public void setup(Input input) {
+            semanticsResult = input.analyse();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Optimized {
+
+        JmmSemanticsResult semanticsResult;
+
+        @Setup(Level.Trial)
+        public void setup(Input input) {
+            semanticsResult = input.optimization.optimize(input.analyse());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Generated {
+
+        String ollirCode;
+        OllirResult ollirResult;
+
+        @Setup(Level.Trial)
+        public void setup(Input input, Optimized optimized) {
+            ollirCode = input.optimization.toOllir(optimized.semanticsResult).getOllirCode();
+            ollirResult = new OllirResult(ollirCode, input.config);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Unallocated {
+
+        OllirResult ollirResult;
+
+        @Setup(Level.Invocation)
+        public void setup(Input input, Generated generated) {
+            ollirResult = new OllirResult(generated.ollirCode, input.config);
+        }
+    }
+
+    @Benchmark
+    public JmmParserResult parse(Input input) {
+        return input.parse();
+    }
+
+    @Benchmark
+    public JmmSemanticsResult semanticAnalysis(Input input, Parsed parsed) {
+        return input.analysis.semanticAnalysis(parsed.parserResult);
+    }
+
+    @Benchmark
+    public JmmSemanticsResult optimize(Input input, Analysed analysed) {
+        return input.optimization.optimize(analysed.semanticsResult);
+    }
+
+    @Benchmark
+    public OllirResult toOllir(Input input, Optimized optimized) {
+        return input.optimization.toOllir(optimized.semanticsResult);
+    }
+
+    @Benchmark
+    public List<Report> allocateRegisters(Unallocated unallocated) {
+        return new RegisterAllocation(unallocated.ollirResult, 0, Diagnostics.none()).allocateRegisters();
+    }
+
+    @Benchmark
+    public String jasmin(Generated generated) {
+        return new JasminGenerator(generated.ollirResult).build();
+    }
+}
@@ -0,0 +1,149 @@
+package pt.up.fe.comp2025;
+
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.instrumentation.CompilationProfile;
+import pt.up.fe.comp2025.optimization.OllirPrinter;
+import pt.up.fe.comp2025.utils.ReportUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Results of running a single input through the compiler pipeline.
+ * <p>
+ * Stages that were not reached (because a previous stage reported errors) have no result. Results loaded from the
+ * artifact cache only have the symbol table, the OLLIR code and the Jasmin result.
+ */
+public class CompilationResult {
+
+    private final JmmParserResult parserResult;
+    private final JmmSemanticsResult semanticsResult;
+    private final OllirResult ollirResult;
+    private final JasminResult jasminResult;
+    private final List<Report> extraReports;
+
+    // Set when the result comes from the artifact cache, in which case the stages did not run
+    private SymbolTable cachedSymbolTable;
+    private String cachedOllirCode;
+
+    private CompilationProfile profile;
+
+    public CompilationResult(JmmParserResult parserResult,
+                             JmmSemanticsResult semanticsResult,
+                             OllirResult ollirResult,
+                             JasminResult jasminResult,
+                             List<Report> extraReports) {
+        this.parserResult = parserResult;
+        this.semanticsResult = semanticsResult;
+        this.ollirResult = ollirResult;
+        this.jasminResult = jasminResult;
+        this.extraReports = extraReports;
+    }
+
+    public static CompilationResult fromCache(SymbolTable symbolTable, String ollirCode, JasminResult jasminResult) {
+        var result = new CompilationResult(null, null, null, jasminResult, new ArrayList<>());
+        result.cachedSymbolTable = symbolTable;
+        result.cachedOllirCode = ollirCode;
+
+        return result;
+    }
+
+    public boolean isCached() {
+        return cachedSymbolTable != null;
+    }
+
+    /**
+     * @return the time and memory spent in each stage, if profiling was enabled ('-p')
+     */
+    public Optional<CompilationProfile> getProfile() {
+        return Optional.ofNullable(profile);
+    }
+
+    void setProfile(CompilationProfile profile) {
+        this.profile = profile;
+    }
+
+    public Optional<JmmParserResult> getParserResult() {
+        return Optional.ofNullable(parserResult);
+    }
+
+    public Optional<JmmSemanticsResult> getSemanticsResult() {
+        return Optional.ofNullable(semanticsResult);
+    }
+
+    public Optional<OllirResult> getOllirResult() {
+        return Optional.ofNullable(ollirResult);
+    }
+
+    public Optional<JasminResult> getJasminResult() {
+        return Optional.ofNullable(jasminResult);
+    }
+
+    public Optional<SymbolTable> getSymbolTable() {
+        if (isCached()) {
+            return Optional.of(cachedSymbolTable);
+        }
+
+        return getSemanticsResult().map(JmmSemanticsResult::getSymbolTable);
+    }
+
+    /**
+     * With '-o' or '-r', the optimizations and the register allocation rewrite the class unit of the OLLIR result in
+     * place, so its code is printed from the class unit when asked for instead of being the code the class unit was
+     * parsed from.
+     */
+    public Optional<String> getOllirCode() {
+        if (isCached()) {
+            return Optional.of(cachedOllirCode);
+        }
+
+        return getOllirResult().map(result -> isRewritten(result.getConfig())
+                ? OllirPrinter.print(result.getOllirClass())
+                : result.getOllirCode());
+    }
+
+    private static boolean isRewritten(Map<String, String> config) {
+        return CompilerConfig.getOptimize(config) || CompilerConfig.getRegisterAllocation(config) >= 0;
+    }
+
+    /**
+     * Reports accumulate from stage to stage, so the reports of the last stage that ran are the reports of the whole
+     * compilation.
+     *
+     * @return all reports generated while compiling
+     */
+    public List<Report> getReports() {
+        List<Report> stageReports;
+        if (jasminResult != null) {
+            stageReports = jasminResult.getReports();
+        } else if (ollirResult != null) {
+            stageReports = ollirResult.getReports();
+        } else if (semanticsResult != null) {
+            stageReports = semanticsResult.getReports();
+        } else if (parserResult != null) {
+            stageReports = parserResult.getReports();
+        } else {
+            stageReports = Collections.emptyList();
+        }
+
+        if (extraReports.isEmpty()) {
+            return stageReports;
+        }
+
+        var reports = new ArrayList<>(stageReports);
+        reports.addAll(extraReports);
+        return reports;
+    }
+
+    public boolean isSuccess() {
+        return jasminResult != null && !ReportUtils.anyError(getReports());
+    }
+}
@@ -1,15 +1,33 @@
 package pt.up.fe.comp2025;
 
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+
 import java.io.File;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public class CompilerConfig {
 
     private static final String INPUT_FILE = "inputFile";
     private static final String OPTIMIZE = "optimize";
     private static final String REGISTER = "registerAllocation";
+    private static final String SERVER = "server";
+    private static final String BATCH = "batch";
+    private static final String OUTPUT_DIR = "outputDir";
+    private static final String THREADS = "threads";
+    private static final String CACHE = "cache";
+    private static final String PROFILE = "profile";
+    private static final String PARALLEL_METHODS = "parallelMethods";
+    private static final String DIAGNOSTICS = "diagnostics";
+    private static final String COMPACT_AST = "compactAst";
+    private static final String REGISTER_ALLOCATOR = "registerAllocator";
+
+    public static final int DEFAULT_SERVER_PORT = 4404;
+    public static final String DEFAULT_CACHE_DIR = ".jmm-cache";
+    public static final String DEFAULT_PROFILE_FILE = "jmm-profile.json";
 
 
     static Map<String, String> shortToLong = new HashMap<>();
@@ -18,6 +36,16 @@ public class CompilerConfig {
         shortToLong.put("i", CompilerConfig.INPUT_FILE);
         shortToLong.put("o", CompilerConfig.OPTIMIZE);
         shortToLong.put("r", CompilerConfig.REGISTER);
+        shortToLong.put("s", CompilerConfig.SERVER);
+        shortToLong.put("b", CompilerConfig.BATCH);
+        shortToLong.put("d", CompilerConfig.OUTPUT_DIR);
+        shortToLong.put("t", CompilerConfig.THREADS);
+        shortToLong.put("c", CompilerConfig.CACHE);
+        shortToLong.put("p", CompilerConfig.PROFILE);
+        shortToLong.put("m", CompilerConfig.PARALLEL_METHODS);
+        shortToLong.put("v", CompilerConfig.DIAGNOSTICS);
+        shortToLong.put("a", CompilerConfig.COMPACT_AST);
+        shortToLong.put("l", CompilerConfig.REGISTER_ALLOCATOR);
     }
 
 
@@ -40,6 +68,142 @@ public class CompilerConfig {
         return Integer.parseInt(config.getOrDefault(REGISTER, "-1"));
     }
 
+    /**
+     * How '-r' chooses the registers: 'coloring', 'linear' (scan) or 'auto', the default, which uses linear scan on
+     * very large methods only.
+     */
+    public static RegisterAllocator getRegisterAllocator(Map<String, String> config) {
+        return RegisterAllocator.fromOption(config.getOrDefault(REGISTER_ALLOCATOR, RegisterAllocator.AUTO.getOption()));
+    }
+
+
+    public static boolean isServer(Map<String, String> config) {
+        return config.containsKey(SERVER);
+    }
+
+    /**
+     * The port of the compile server. The option can be given without a value ('-s'), in which case the default port
+     * is used.
+     */
+    public static int getServerPort(Map<String, String> config) {
+        var port = config.getOrDefault(SERVER, "true");
+
+        if (port.equals("true")) {
+            return DEFAULT_SERVER_PORT;
+        }
+
+        return Integer.parseInt(port);
+    }
+
+    /**
+     * A directory (every '.jmm' file below it is compiled) or a glob such as 'inputs/**&#47;*.jmm'.
+     */
+    public static Optional<String> getBatchInputs(Map<String, String> config) {
+        return Optional.ofNullable(config.get(BATCH));
+    }
+
+    public static Optional<File> getOutputDir(Map<String, String> config) {
+        var outputDir = config.get(OUTPUT_DIR);
+
+        if (outputDir == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new File(outputDir));
+    }
+
+    /**
+     * The folder of the artifact cache. The option can be given without a value ('-c'), in which case the default
+     * folder is used.
+     */
+    public static Optional<File> getCacheDir(Map<String, String> config) {
+        var cacheDir = config.get(CACHE);
+
+        if (cacheDir == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new File(cacheDir.equals("true") ? DEFAULT_CACHE_DIR : cacheDir));
+    }
+
+    /**
+     * The JSON file where the time and memory spent in each stage is written. The option can be given without a value
+     * ('-p'), in which case the default file is used.
+     */
+    public static Optional<File> getProfileFile(Map<String, String> config) {
+        var profileFile = config.get(PROFILE);
+
+        if (profileFile == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new File(profileFile.equals("true") ? DEFAULT_PROFILE_FILE : profileFile));
+    }
+
+    /**
+     * If true, semantic analysis checks the methods of the class in parallel, and its reports are sorted by position.
+     */
+    public static boolean isParallelMethods(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(PARALLEL_METHODS, "false"));
+    }
+
+    /**
+     * If true, the parser builds a {@link pt.up.fe.comp2025.ast.CompactAst}, which uses much less memory on large
+     * inputs.
+     */
+    public static boolean isCompactAst(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(COMPACT_AST, "false"));
+    }
+
+    /**
+     * The debug output to print, a comma-separated list of levels such as 'ast,ollir'. The option can be given without
+     * a value ('-v'), in which case every level is printed.
+     */
+    public static Set<Diagnostics.Level> getDiagnostics(Map<String, String> config) {
+        var levels = config.get(DIAGNOSTICS);
+
+        if (levels == null) {
+            return EnumSet.noneOf(Diagnostics.Level.class);
+        }
+
+        if (levels.equals("true")) {
+            return EnumSet.allOf(Diagnostics.Level.class);
+        }
+
+        var enabled = EnumSet.noneOf(Diagnostics.Level.class);
+        for (var level : levels.split(",")) {
+            if (!level.isBlank()) {
+                enabled.add(Diagnostics.Level.fromOption(level.trim()));
+            }
+        }
+
+        return enabled;
+    }
+
+    /**
+     * Number of files compiled at the same time in batch mode, defaults to the number of available processors.
+     */
+    public static int getThreads(Map<String, String> config) {
+        var threads = Integer.parseInt(config.getOrDefault(THREADS,
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        if (threads < 1) {
+            throw new RuntimeException("Option '-t' expects a positive number of threads, got " + threads);
+        }
+
+        return threads;
+    }
+
+    /**
+     * Copy of the given config that compiles the given file instead.
+     */
+    public static Map<String, String> withInputFile(Map<String, String> config, File inputFile) {
+        var fileConfig = new HashMap<>(config);
+        fileConfig.remove(BATCH);
+        fileConfig.put(INPUT_FILE, inputFile.getAbsolutePath());
+
+        return fileConfig;
+    }
 
     public static Map<String, String> getDefault() {
 
@@ -89,6 +253,23 @@ public class CompilerConfig {
             config.put(getLongOpt(shortOption), value);
         }
 
+        // The server receives the input files with each request
+        if (isServer(config)) {
+            getServerPort(config);
+            getDiagnostics(config);
+            return config;
+        }
+
+        // Batch mode collects its own input files
+        if (config.containsKey(BATCH)) {
+            getOptimize(config);
+            getRegisterAllocation(config);
+            getRegisterAllocator(config);
+            getThreads(config);
+            getDiagnostics(config);
+            return config;
+        }
+
         if (!config.containsKey(INPUT_FILE)) {
 
             throw new RuntimeException("Expected an input file, use '-i=<PATH_TO_FILE>'");
@@ -106,6 +287,8 @@ public class CompilerConfig {
         // Verify if values are valid
         getOptimize(config);
         getRegisterAllocation(config);
+        getRegisterAllocator(config);
+        getDiagnostics(config);
 
         return config;
     }
@@ -11,6 +11,11 @@ public class ConfigOptions {
     private static final String OPTIMIZE = "optimize";
     private static final String REGISTER = "registerAllocation";
     private static final String EXTRA = "extra";
+    private static final String PARALLEL_METHODS = "parallelMethods";
+    private static final String DIAGNOSTICS = "diagnostics";
+    private static final String COMPACT_AST = "compactAst";
+    private static final String REGISTER_ALLOCATOR = "registerAllocator";
+    private static final String THREADS = "threads";
 
     // These methods should be on CompilerConfig, but to avoid rewriting a file
     // that is in the src folder, this new class was added
@@ -31,6 +36,26 @@ public class ConfigOptions {
         return EXTRA;
     }
 
+    public static String getParallelMethods() {
+        return PARALLEL_METHODS;
+    }
+
+    public static String getDiagnostics() {
+        return DIAGNOSTICS;
+    }
+
+    public static String getCompactAst() {
+        return COMPACT_AST;
+    }
+
+    public static String getRegisterAllocator() {
+        return REGISTER_ALLOCATOR;
+    }
+
+    public static String getThreads() {
+        return THREADS;
+    }
+
     public static Optional<File> getInputFile(Map<String, String> config) {
         var inputFile = config.get(INPUT_FILE);
 
@@ -0,0 +1,153 @@
+package pt.up.fe.comp2025;
+
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2025.backend.JasminBackendImpl;
+import pt.up.fe.comp2025.cache.ArtifactCache;
+import pt.up.fe.comp2025.instrumentation.CompilationProfile;
+import pt.up.fe.comp2025.instrumentation.StageProfiler;
+import pt.up.fe.comp2025.optimization.JmmOptimizationImpl;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.comp2025.utils.ReportUtils;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Runs the complete compiler pipeline (parse, semantics, OLLIR, Jasmin) over a single input.
+ * <p>
+ * The stage implementations are stateless between calls, so one instance can be kept alive and shared by several
+ * threads (e.g. by the compile server).
+ */
+public class JmmCompiler {
+
+    private final JmmParserImpl parser;
+    private final JmmAnalysisImpl analysis;
+    private final JmmOptimizationImpl optimization;
+    private final JasminBackendImpl backend;
+
+    public JmmCompiler() {
+        this.parser = new JmmParserImpl();
+        this.analysis = new JmmAnalysisImpl();
+        this.optimization = new JmmOptimizationImpl();
+        this.backend = new JasminBackendImpl();
+    }
+
+    /**
+     * Compiles the given code, stopping at the first stage that reports errors.
+     * <p>
+     * If the artifact cache is enabled ('-c') and has an entry for the code, no stage runs and the cached artifacts
+     * are returned instead. If profiling is enabled ('-p'), the result has the time and memory spent in each stage.
+     *
+     * @param code   Java-- source code
+     * @param config compiler options, as returned by {@link CompilerConfig#parseArgs(String[])}
+     * @return the results of every stage that ran
+     */
+    public CompilationResult compile(String code, Map<String, String> config) {
+        return profiled(config, () -> compileCached(code, config));
+    }
+
+    /**
+     * Compiles the given source file. The file is lexed straight from a memory mapping, unless the artifact cache is
+     * enabled, which needs the code to look for an entry.
+     *
+     * @see #compile(String, Map)
+     */
+    public CompilationResult compile(File inputFile, Map<String, String> config) {
+        if (CompilerConfig.getCacheDir(config).isPresent()) {
+            return compile(SpecsIo.read(inputFile), config);
+        }
+
+        return profiled(config, () -> compileStages(() -> parser.parse(inputFile, config)));
+    }
+
+    private CompilationResult profiled(Map<String, String> config, Supplier<CompilationResult> compilation) {
+        if (CompilerConfig.getProfileFile(config).isEmpty()) {
+            return compilation.get();
+        }
+
+        var input = CompilerConfig.getInputFile(config).map(File::getPath).orElse("<code>");
+        StageProfiler.start(input);
+
+        CompilationResult result;
+        CompilationProfile profile;
+        try {
+            result = compilation.get();
+        } finally {
+            profile = StageProfiler.stop();
+        }
+
+        result.setProfile(profile);
+        return result;
+    }
+
+    private CompilationResult compileCached(String code, Map<String, String> config) {
+        var cache = CompilerConfig.getCacheDir(config).map(ArtifactCache::new);
+        if (cache.isEmpty()) {
+            return compileStages(() -> parser.parse(code, config));
+        }
+
+        var cached = StageProfiler.measure("cacheLoad", () -> cache.get().load(code, config));
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        var result = compileStages(() -> parser.parse(code, config));
+        StageProfiler.measure("cacheStore", () -> cache.get().store(code, config, result));
+
+        return result;
+    }
+
+    private CompilationResult compileStages(Supplier<JmmParserResult> parse) {
+        JmmParserResult parserResult = null;
+        JmmSemanticsResult semanticsResult = null;
+        OllirResult ollirResult = null;
+        JasminResult jasminResult = null;
+        List<Report> extraReports = new ArrayList<>();
+
+        try {
+            // Parsing stage
+            parserResult = StageProfiler.measure("parse", parse);
+            if (ReportUtils.anyError(parserResult.getReports())) {
+                return new CompilationResult(parserResult, null, null, null, extraReports);
+            }
+
+            // Semantic Analysis stage
+            var parsed = parserResult;
+            semanticsResult = StageProfiler.measure("semantics", () -> analysis.semanticAnalysis(parsed));
+            if (ReportUtils.anyError(semanticsResult.getReports())) {
+                return new CompilationResult(parserResult, semanticsResult, null, null, extraReports);
+            }
+
+            // Optimization stage
+            var analysed = semanticsResult;
+            semanticsResult = StageProfiler.measure("optimizeAst", () -> optimization.optimize(analysed));
+
+            var optimized = semanticsResult;
+            ollirResult = StageProfiler.measure("ollir", () -> optimization.toOllir(optimized));
+
+            var generated = ollirResult;
+            ollirResult = StageProfiler.measure("optimizeOllir", () -> optimization.optimize(generated, extraReports));
+            if (ReportUtils.anyError(ollirResult.getReports()) || ReportUtils.anyError(extraReports)) {
+                return new CompilationResult(parserResult, semanticsResult, ollirResult, null, extraReports);
+            }
+
+            // Code generation stage
+            var allocated = ollirResult;
+            jasminResult = StageProfiler.measure("jasmin", () -> backend.toJasmin(allocated));
+        } catch (RuntimeException e) {
+            extraReports.add(Report.newError(Stage.OTHER, -1, -1, "Exception during compilation", e));
+        }
+
+        return new CompilationResult(parserResult, semanticsResult, ollirResult, jasminResult, extraReports);
+    }
+}
@@ -1,63 +1,72 @@
 package pt.up.fe.comp2025;
 
 import pt.up.fe.comp.TestUtils;
-import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
-import pt.up.fe.comp.jmm.jasmin.JasminResult;
-import pt.up.fe.comp.jmm.ollir.OllirResult;
-import pt.up.fe.comp.jmm.parser.JmmParserResult;
-import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
-import pt.up.fe.comp2025.backend.JasminBackendImpl;
-import pt.up.fe.comp2025.optimization.JmmOptimizationImpl;
-import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.comp2025.batch.BatchCompiler;
+import pt.up.fe.comp2025.instrumentation.CompilationProfile;
+import pt.up.fe.comp2025.server.CompileServer;
 import pt.up.fe.specs.util.SpecsIo;
 import pt.up.fe.specs.util.SpecsSystem;
 
+import java.io.File;
+import java.util.List;
 import java.util.Map;
 
 public class Launcher {
 
+    private static final String DEFAULT_BATCH_OUTPUT_DIR = "out";
+
     public static void main(String[] args) {
         SpecsSystem.programStandardInit();
 
         Map<String, String> config = CompilerConfig.parseArgs(args);
 
+        // Keep the compiler warm and answer compile requests (see 'jmmc')
+        if (CompilerConfig.isServer(config)) {
+            new CompileServer(CompilerConfig.getServerPort(config)).run();
+            return;
+        }
+
+        // Compile every file of a folder or glob in parallel
+        var batchInputs = CompilerConfig.getBatchInputs(config);
+        if (batchInputs.isPresent()) {
+            var outputDir = CompilerConfig.getOutputDir(config).orElse(new File(DEFAULT_BATCH_OUTPUT_DIR));
+            var summary = new BatchCompiler(config).compile(batchInputs.get(), outputDir);
+            System.out.println(summary.getTotals() + ", summary written to " + outputDir);
+
+            if (summary.getFailures() > 0) {
+                throw new RuntimeException(summary.getFailures() + " files did not compile, see the batch summary");
+            }
+            return;
+        }
+
         var inputFile = CompilerConfig.getInputFile(config).orElseThrow();
         if (!inputFile.isFile()) {
             throw new RuntimeException("Option '-i' expects a path to an existing input file, got '" + args[0] + "'.");
         }
-        String code = SpecsIo.read(inputFile);
-
-        // Parsing stage
-        JmmParserImpl parser = new JmmParserImpl();
-        JmmParserResult parserResult = parser.parse(code, config);
-        TestUtils.noErrors(parserResult.getReports());
+        // Parse, analyse, optimize and generate Jasmin, stopping at the first stage with errors
+        CompilationResult result = new JmmCompiler().compile(inputFile, config);
 
-        // Print AST
-        //System.out.println("AST:");
-        //System.out.println(parserResult.getRootNode().toTree());
+        // Written before checking for errors, the profile of a failed compilation is still useful
+        CompilerConfig.getProfileFile(config).ifPresent(profileFile ->
+                SpecsIo.write(profileFile, CompilationProfile.toJson(List.of(result.getProfile().orElseThrow()))));
 
+        TestUtils.noErrors(result.getReports());
 
-        // Semantic Analysis stage
-        JmmAnalysisImpl sema = new JmmAnalysisImpl();
-        JmmSemanticsResult semanticsResult = sema.semanticAnalysis(parserResult);
-        TestUtils.noErrors(semanticsResult.getReports());
+        if (result.isCached()) {
+            System.out.println("Input unchanged, using cached artifacts for " + inputFile.getName());
+        }
 
+        CompilerConfig.getOutputDir(config).ifPresent(outputDir -> OutputWriter.write(result, outputDir));
 
-        // Optimization stage
-        JmmOptimizationImpl ollirGen = new JmmOptimizationImpl();
-        OllirResult ollirResult = ollirGen.toOllir(semanticsResult);
-        TestUtils.noErrors(ollirResult.getReports());
+        // Print AST
+        //System.out.println("AST:");
+        //System.out.println(result.getParserResult().orElseThrow().getRootNode().toTree());
 
         // Print OLLIR code
-        //System.out.println(ollirResult.getOllirCode());
-
-        // Code generation stage
-        JasminBackendImpl jasminGen = new JasminBackendImpl();
-        JasminResult jasminResult = jasminGen.toJasmin(ollirResult);
-        TestUtils.noErrors(jasminResult.getReports());
+        //System.out.println(result.getOllirResult().orElseThrow().getOllirCode());
 
         // Print Jasmin code
-        //System.out.println(jasminResult.getJasminCode());
+        //System.out.println(result.getJasminResult().orElseThrow().getJasminCode());
     }
 
 }
@@ -0,0 +1,41 @@
+package pt.up.fe.comp2025;
+
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.jasmin.JasminUtils;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Writes the Jasmin code of a compilation and the class file assembled from it.
+ */
+public class OutputWriter {
+
+    // The Jasmin assembler keeps state in static fields, so only one class can be assembled at a time
+    private static final Object ASSEMBLER_LOCK = new Object();
+
+    /**
+     * Writes '&lt;class&gt;.j' and '&lt;class&gt;.class' to the given folder.
+     *
+     * @return the written files, or an empty list if the compilation did not reach the Jasmin stage
+     */
+    public static List<File> write(CompilationResult result, File outputDir) {
+        if (!result.isSuccess()) {
+            return List.of();
+        }
+
+        JasminResult jasminResult = result.getJasminResult().orElseThrow();
+
+        SpecsIo.mkdir(outputDir);
+        var jasminFile = new File(outputDir, jasminResult.getClassName() + ".j");
+        SpecsIo.write(jasminFile, jasminResult.getJasminCode());
+
+        File classFile;
+        synchronized (ASSEMBLER_LOCK) {
+            classFile = JasminUtils.assemble(jasminFile, outputDir);
+        }
+
+        return List.of(jasminFile, classFile);
+    }
+}
@@ -0,0 +1,39 @@
+package pt.up.fe.comp2025;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * How the registers are chosen, set with the option '-l' (see {@link CompilerConfig#getRegisterAllocator(Map)}).
+ */
+public enum RegisterAllocator {
+    // Colors the interference graph, the fewest registers
+    COLORING("coloring"),
+    // Scans the live intervals in instruction order, much faster on large methods
+    LINEAR_SCAN("linear"),
+    // Linear scan on methods with at least RegisterAllocation.LINEAR_SCAN_THRESHOLD variables, coloring otherwise,
+    // and coloring whenever linear scan needs more registers than allowed
+    AUTO("auto");
+
+    private final String option;
+
+    RegisterAllocator(String option) {
+        this.option = option;
+    }
+
+    public String getOption() {
+        return option;
+    }
+
+    public static RegisterAllocator fromOption(String option) {
+        for (var allocator : values()) {
+            if (allocator.option.equals(option)) {
+                return allocator;
+            }
+        }
+
+        throw new RuntimeException("Unrecognized register allocator '" + option + "', expected one of "
+                + Arrays.stream(values()).map(RegisterAllocator::getOption).collect(Collectors.joining(", ")));
+    }
+}
@@ -20,4 +20,13 @@ public interface AnalysisPass {
      */
     List<Report> analyze(JmmNode root, SymbolTable table);
 
+    /**
+     * Passes that must run before this one. If one of them reports errors, this pass does not run.
+     *
+     * @return the classes of the passes this pass depends on
+     */
+    default List<Class<? extends AnalysisPass>> getDependencies() {
+        return List.of();
+    }
+
 }
\ No newline at end of file
@@ -2,23 +2,53 @@ package pt.up.fe.comp2025.analysis;
 
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
-import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.ast.KindDispatchVisitor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiFunction;
 
 /**
  * Implementation of AnalysisPass that automatically visits nodes using preorder traversal.
+ * <p>
+ * The visits registered by a pass are also its per-kind callbacks in a {@link FusedAnalysis}, which runs several
+ * passes in a single traversal.
  */
-public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Void> implements AnalysisPass {
+public abstract class AnalysisVisitor extends KindDispatchVisitor<SymbolTable, Void> implements AnalysisPass {
 
-    private List<Report> reports;
+    // Nodes of kinds the pass does not register are only traversed
+    private static final BiFunction<JmmNode, SymbolTable, Void> NO_VISIT = (node, table) -> null;
 
-    public AnalysisVisitor() {
-        reports = new ArrayList<>();
-        setDefaultValue(() -> null);
+    private final List<Report> reports = new ArrayList<>();
+
+    @Override
+    protected BiFunction<JmmNode, SymbolTable, Void> getVisit(JmmNode node) {
+        var visit = getRegisteredVisit(node);
+        return visit != null ? visit : NO_VISIT;
+    }
+
+    /**
+     * Visits the node, then its children, in preorder.
+     */
+    @Override
+    public Void visit(JmmNode node, SymbolTable table) {
+        getVisit(node).apply(node, table);
+        for (var child : node.getChildren()) {
+            visit(child, table);
+        }
+
+        return null;
+    }
+
+    /**
+     * The visit registered for the given node, following the hierarchy of the node like the visitor itself does.
+     *
+     * @return the callback, or null if the pass has nothing to do for nodes of this kind
+     */
+    BiFunction<JmmNode, SymbolTable, Void> getCallback(JmmNode node) {
+        return getRegisteredVisit(node);
     }
 
     protected void addReport(Report report) {
@@ -0,0 +1,197 @@
+package pt.up.fe.comp2025.analysis;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.instrumentation.StageProfiler;
+import pt.up.fe.comp2025.utils.ReportUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * Runs several analysis passes in a single preorder traversal of the AST.
+ * <p>
+ * At each node, the visits the passes registered for its kind run in pass order, so every pass sees the nodes in the
+ * same order as if it had traversed the AST on its own. A pass that throws stops receiving nodes, the other passes
+ * are not affected.
+ * <p>
+ * If a compilation is being profiled on the thread that creates the instance, the wall time of each pass is measured,
+ * even if {@link #analyze(JmmNode)} runs on another thread.
+ */
+public class FusedAnalysis {
+
+    private final List<AnalysisVisitor> passes;
+    private final SymbolTable table;
+
+    // Kind ordinal -> visits of the passes interested in that kind, in pass order
+    private final List<List<PassVisit>> dispatch;
+    // Same, for kinds that are not in the enum
+    private final Map<String, List<PassVisit>> otherDispatch;
+
+    private final RuntimeException[] failures;
+    private final long[] passNanos;
+    private final boolean profiling;
+
+    public FusedAnalysis(List<AnalysisVisitor> passes, SymbolTable table) {
+        this.passes = passes;
+        this.table = table;
+        this.dispatch = new ArrayList<>(Collections.nCopies(Kind.values().length, null));
+        this.otherDispatch = new HashMap<>();
+        this.failures = new RuntimeException[passes.size()];
+        this.passNanos = new long[passes.size()];
+        this.profiling = StageProfiler.isActive();
+    }
+
+    /**
+     * Traverses the AST once, running every pass.
+     *
+     * @return the result of each pass, in pass order
+     */
+    public List<PassResult> analyze(JmmNode root) {
+        return analyze(List.of(root), node -> false);
+    }
+
+    /**
+     * Traverses the given subtrees one after the other, running every pass.
+     *
+     * @param roots subtrees to traverse, in order
+     * @param skip  nodes below the roots for which it holds are not visited, and neither are their subtrees
+     * @return the result of each pass, in pass order
+     */
+    public List<PassResult> analyze(List<JmmNode> roots, Predicate<JmmNode> skip) {
+        for (var root : roots) {
+            visit(root, skip);
+        }
+
+        var results = new ArrayList<PassResult>(passes.size());
+        for (int i = 0; i < passes.size(); i++) {
+            var pass = passes.get(i);
+            results.add(new PassResult(pass, pass.getReports(), failures[i], passNanos[i]));
+        }
+
+        return results;
+    }
+
+    private void visit(JmmNode node, Predicate<JmmNode> skip) {
+        for (var passVisit : getVisits(node)) {
+            if (failures[passVisit.index] == null) {
+                run(passVisit, node);
+            }
+        }
+
+        for (var child : node.getChildren()) {
+            if (!skip.test(child)) {
+                visit(child, skip);
+            }
+        }
+    }
+
+    private void run(PassVisit passVisit, JmmNode node) {
+        var start = profiling ? System.nanoTime() : 0;
+
+        try {
+            passVisit.visit.apply(node, table);
+        } catch (RuntimeException e) {
+            failures[passVisit.index] = e;
+        }
+
+        if (profiling) {
+            passNanos[passVisit.index] += System.nanoTime() - start;
+        }
+    }
+
+    private List<PassVisit> getVisits(JmmNode node) {
+        var kind = Kind.of(node);
+        var visits = kind != null ? dispatch.get(kind.ordinal()) : otherDispatch.get(node.getKind());
+        if (visits != null) {
+            return visits;
+        }
+
+        visits = new ArrayList<>();
+        for (int i = 0; i < passes.size(); i++) {
+            var visit = passes.get(i).getCallback(node);
+            if (visit != null) {
+                visits.add(new PassVisit(i, visit));
+            }
+        }
+
+        if (kind != null) {
+            dispatch.set(kind.ordinal(), visits);
+        } else {
+            otherDispatch.put(node.getKind(), visits);
+        }
+
+        return visits;
+    }
+
+    private static class PassVisit {
+        private final int index;
+        private final BiFunction<JmmNode, SymbolTable, Void> visit;
+
+        private PassVisit(int index, BiFunction<JmmNode, SymbolTable, Void> visit) {
+            this.index = index;
+            this.visit = visit;
+        }
+    }
+
+    /**
+     * Reports of a pass, and the exception that stopped it, if any.
+     */
+    public static class PassResult {
+        private final AnalysisVisitor pass;
+        private final List<Report> reports;
+        private final RuntimeException failure;
+        private final long wallNanos;
+
+        PassResult(AnalysisVisitor pass, List<Report> reports, RuntimeException failure, long wallNanos) {
+            this.pass = pass;
+            this.reports = reports;
+            this.failure = failure;
+            this.wallNanos = wallNanos;
+        }
+
+        /**
+         * Result of a pass that did not run.
+         */
+        static PassResult skipped(AnalysisVisitor pass) {
+            return new PassResult(pass, List.of(), null, -1);
+        }
+
+        public boolean isSkipped() {
+            return wallNanos < 0;
+        }
+
+        /**
+         * @return true if the pass completed and reported errors
+         */
+        public boolean hasErrors() {
+            return failure == null && ReportUtils.anyError(reports);
+        }
+
+        public AnalysisVisitor getPass() {
+            return pass;
+        }
+
+        public List<Report> getReports() {
+            return reports;
+        }
+
+        public RuntimeException getFailure() {
+            return failure;
+        }
+
+        /**
+         * @return the time spent in the visits of the pass, 0 if the compilation is not being profiled
+         */
+        public long getWallNanos() {
+            return wallNanos;
+        }
+    }
+}
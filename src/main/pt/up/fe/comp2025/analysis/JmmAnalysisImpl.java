@@ -9,13 +9,17 @@ import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.ReportType;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.CompilerConfig;
 import pt.up.fe.comp2025.analysis.passes.*;
 import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+import pt.up.fe.comp2025.instrumentation.StageProfiler;
 import pt.up.fe.comp2025.symboltable.JmmSymbolTableBuilder;
 import pt.up.fe.comp2025.analysis.passes.MethodVerificationVisitor;
 
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -23,6 +27,7 @@ import java.util.List;
  */
 public class JmmAnalysisImpl implements JmmAnalysis {
 
+    private final PassScheduler scheduler = new PassScheduler();
 
     /**
      * Analysis passes that will be applied to the AST.
@@ -56,10 +61,12 @@ public class JmmAnalysisImpl implements JmmAnalysis {
         JmmNode rootNode = parserResult.getRootNode();
 
         JmmSymbolTableBuilder builder = new JmmSymbolTableBuilder();
-        SymbolTable table = builder.build(rootNode);
+        SymbolTable table = StageProfiler.measure("symbolTable", () -> builder.build(rootNode));
 
         List<Report> reports = builder.getReports();
 
+        Diagnostics.of(parserResult.getConfig()).print(Diagnostics.Level.SYMBOL_TABLE, table::print);
+
         return new JmmSemanticsResult(parserResult, table, reports);
     }
 
@@ -68,42 +75,57 @@ public class JmmAnalysisImpl implements JmmAnalysis {
 
         var table = semanticsResult.getSymbolTable();
 
-        var analysisVisitors = buildPasses(table);
-
         var rootNode = semanticsResult.getRootNode();
 
         var reports = new ArrayList<Report>();
 
-        for (var analysisVisitor : analysisVisitors) {
-            try {
-                var passReports = analysisVisitor.analyze(rootNode, table);
-
-                var hasSymbolTableErrors = passReports.stream()
-                        .anyMatch(report -> report.getType() == ReportType.ERROR);
-
-
-                reports.addAll(passReports);
+        // Either methods or independent passes run in parallel, the results are merged as if the passes had run one
+        // after the other
+        var parallelMethods = CompilerConfig.isParallelMethods(semanticsResult.getConfig());
+        var passResults = parallelMethods
+                ? new MethodParallelAnalysis(() -> buildPasses(table)).run(rootNode, table)
+                : scheduler.run(buildPasses(table), rootNode, table);
 
-                if (hasSymbolTableErrors) {
-                    System.out.println("Found errors: " + reports);
-                    return new JmmSemanticsResult(semanticsResult, reports);
-                }
-
-            } catch (Exception e) {
+        for (var passResult : passResults) {
+            if (passResult.getFailure() != null) {
                 reports.add(Report.newError(Stage.SEMANTIC,
                         -1,
                         -1,
-                        "Problem while executing analysis pass '" + analysisVisitor.getClass() + "'",
-                        e)
+                        "Problem while executing analysis pass '" + passResult.getPass().getClass() + "'",
+                        passResult.getFailure())
                 );
-                System.out.println("Exception: " + reports);
+                continue;
             }
 
+            var passReports = passResult.getReports();
+
+            var hasSymbolTableErrors = passReports.stream()
+                    .anyMatch(report -> report.getType() == ReportType.ERROR);
+
+
+            reports.addAll(passReports);
+
+            if (hasSymbolTableErrors) {
+                if (parallelMethods) {
+                    sortByPosition(reports);
+                }
+                return new JmmSemanticsResult(semanticsResult, reports);
+            }
         }
 
+        if (parallelMethods) {
+            sortByPosition(reports);
+        }
 
         return new JmmSemanticsResult(semanticsResult, reports);
     }
 
+    /**
+     * Reports without a position (e.g. of a pass that threw) come first, the sort is stable.
+     */
+    private static void sortByPosition(List<Report> reports) {
+        reports.sort(Comparator.comparingInt(Report::getLine).thenComparingInt(Report::getColumn));
+    }
+
 
 }
@@ -0,0 +1,118 @@
+package pt.up.fe.comp2025.analysis;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.analysis.FusedAnalysis.PassResult;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.instrumentation.StageProfiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * Runs the analysis passes over the methods of the class in parallel.
+ * <p>
+ * Once the symbol table is built, the bodies of the methods can be checked independently. The AST is split in work
+ * units: everything outside the methods, and chunks of consecutive methods. Each unit is analysed by its own instances
+ * of the passes, in a single traversal (see {@link FusedAnalysis}), and the results of the units are then combined
+ * pass by pass.
+ */
+public class MethodParallelAnalysis {
+
+    // More chunks than threads, so that a few long methods do not leave the other threads idle
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final Supplier<List<AnalysisVisitor>> passFactory;
+    private final ForkJoinPool pool;
+
+    public MethodParallelAnalysis(Supplier<List<AnalysisVisitor>> passFactory) {
+        this(passFactory, ForkJoinPool.commonPool());
+    }
+
+    public MethodParallelAnalysis(Supplier<List<AnalysisVisitor>> passFactory, ForkJoinPool pool) {
+        this.passFactory = passFactory;
+        this.pool = pool;
+    }
+
+    /**
+     * @return the result of each pass over the whole AST, in pass order
+     */
+    public List<PassResult> run(JmmNode root, SymbolTable table) {
+        var methods = root.getChildren(Kind.CLASS_DECL).stream()
+                .flatMap(classDecl -> classDecl.getChildren(Kind.METHOD_DECL).stream())
+                .toList();
+
+        // Created on this thread, which is the one being profiled
+        var outsideMethods = new FusedAnalysis(passFactory.get(), table);
+        var chunks = new ArrayList<FusedAnalysis>();
+        var chunkMethods = split(methods, pool.getParallelism() * CHUNKS_PER_THREAD);
+        for (int i = 0; i < chunkMethods.size(); i++) {
+            chunks.add(new FusedAnalysis(passFactory.get(), table));
+        }
+
+        var tasks = new ArrayList<ForkJoinTask<List<PassResult>>>();
+        for (int i = 0; i < chunks.size(); i++) {
+            var chunk = chunks.get(i);
+            var chunkRoots = chunkMethods.get(i);
+            tasks.add(pool.submit(() -> chunk.analyze(chunkRoots, node -> false)));
+        }
+
+        var unitResults = new ArrayList<List<PassResult>>();
+        unitResults.add(outsideMethods.analyze(List.of(root), Kind.METHOD_DECL::check));
+        tasks.forEach(task -> unitResults.add(task.join()));
+
+        var results = combine(unitResults);
+
+        if (StageProfiler.isActive()) {
+            results.forEach(result ->
+                    StageProfiler.record(result.getPass().getClass().getSimpleName(), result.getWallNanos()));
+        }
+
+        return results;
+    }
+
+    /**
+     * Reports of a pass are concatenated in unit order. A pass that failed in any unit has failed.
+     */
+    private static List<PassResult> combine(List<List<PassResult>> unitResults) {
+        var numPasses = unitResults.get(0).size();
+        var results = new ArrayList<PassResult>(numPasses);
+
+        for (int i = 0; i < numPasses; i++) {
+            var reports = new ArrayList<Report>();
+            RuntimeException failure = null;
+            long wallNanos = 0;
+
+            for (var unit : unitResults) {
+                var unitResult = unit.get(i);
+                reports.addAll(unitResult.getReports());
+                wallNanos += unitResult.getWallNanos();
+                if (failure == null) {
+                    failure = unitResult.getFailure();
+                }
+            }
+
+            // The instance of the first unit stands for the pass
+            results.add(new PassResult(unitResults.get(0).get(i).getPass(), reports, failure, wallNanos));
+        }
+
+        return results;
+    }
+
+    private static List<List<JmmNode>> split(List<JmmNode> methods, int maxChunks) {
+        var numChunks = Math.min(methods.size(), maxChunks);
+        var chunks = new ArrayList<List<JmmNode>>();
+
+        for (int i = 0; i < numChunks; i++) {
+            var from = methods.size() * i / numChunks;
+            var to = methods.size() * (i + 1) / numChunks;
+            chunks.add(methods.subList(from, to));
+        }
+
+        return chunks;
+    }
+}
@@ -0,0 +1,162 @@
+package pt.up.fe.comp2025.analysis;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.analysis.FusedAnalysis.PassResult;
+import pt.up.fe.comp2025.instrumentation.StageProfiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs analysis passes in parallel, respecting the dependencies they declare.
+ * <p>
+ * Passes are grouped in levels: a pass is one level above the deepest of its dependencies. The passes of a level are
+ * split among the threads of a fork-join pool, and each thread runs its share in a single traversal of the AST (see
+ * {@link FusedAnalysis}). The results are always returned in pass order, whatever thread ran each pass.
+ */
+public class PassScheduler {
+
+    private final ForkJoinPool pool;
+
+    public PassScheduler() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public PassScheduler(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Runs the given passes over the AST.
+     * <p>
+     * A pass whose dependencies reported errors is skipped, since the first pass with errors ends the analysis anyway.
+     * So are the passes that depend on a skipped pass. A pass that threw an exception does not end the analysis, only
+     * its failure is reported, so the passes that depend on it still run.
+     *
+     * @param passes passes in the order their reports are merged, dependencies must come before their dependents
+     * @return the result of each pass, in pass order
+     */
+    public List<PassResult> run(List<AnalysisVisitor> passes, JmmNode root, SymbolTable table) {
+        var levels = getLevels(passes);
+        var results = new PassResult[passes.size()];
+
+        for (var level : levels) {
+            var runnable = new ArrayList<Integer>();
+            for (var index : level) {
+                if (dependsOnEndingPass(passes.get(index), passes, results)) {
+                    results[index] = PassResult.skipped(passes.get(index));
+                } else {
+                    runnable.add(index);
+                }
+            }
+
+            runLevel(runnable, passes, root, table, results);
+        }
+
+        // Recorded on the thread of the compilation, in pass order
+        if (StageProfiler.isActive()) {
+            for (var result : results) {
+                if (!result.isSkipped()) {
+                    StageProfiler.record(result.getPass().getClass().getSimpleName(), result.getWallNanos());
+                }
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private void runLevel(List<Integer> indexes, List<AnalysisVisitor> passes, JmmNode root, SymbolTable table,
+                          PassResult[] results) {
+
+        var numGroups = Math.min(pool.getParallelism(), indexes.size());
+        if (numGroups == 0) {
+            return;
+        }
+
+        // Round-robin, so that the cheap and expensive passes of a level are spread among the groups
+        var groups = new ArrayList<List<Integer>>();
+        for (int i = 0; i < numGroups; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 0; i < indexes.size(); i++) {
+            groups.get(i % numGroups).add(indexes.get(i));
+        }
+
+        // Created on this thread, which is the one being profiled
+        var analyses = groups.stream()
+                .map(group -> new FusedAnalysis(group.stream().map(passes::get).toList(), table))
+                .toList();
+
+        List<List<PassResult>> groupResults;
+        if (numGroups == 1) {
+            groupResults = List.of(analyses.get(0).analyze(root));
+        } else {
+            var tasks = analyses.stream()
+                    .map(analysis -> pool.submit(() -> analysis.analyze(root)))
+                    .toList();
+            groupResults = tasks.stream().map(ForkJoinTask::join).toList();
+        }
+
+        for (int i = 0; i < numGroups; i++) {
+            var group = groups.get(i);
+            for (int j = 0; j < group.size(); j++) {
+                results[group.get(j)] = groupResults.get(i).get(j);
+            }
+        }
+    }
+
+    private static boolean dependsOnEndingPass(AnalysisVisitor pass, List<AnalysisVisitor> passes, PassResult[] results) {
+        for (var dependency : pass.getDependencies()) {
+            for (int i = 0; i < passes.size(); i++) {
+                if (passes.get(i).getClass() == dependency && endsAnalysis(results[i])) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return true if the reports of the given pass end the analysis, or the pass was skipped because of an earlier one
+     */
+    private static boolean endsAnalysis(PassResult result) {
+        return result.isSkipped() || result.hasErrors();
+    }
+
+    /**
+     * @return indexes of the passes, grouped by level, from the first level to run to the last
+     */
+    private static List<List<Integer>> getLevels(List<AnalysisVisitor> passes) {
+        Map<Class<?>, Integer> passLevels = new HashMap<>();
+        var levels = new ArrayList<List<Integer>>();
+
+        for (int i = 0; i < passes.size(); i++) {
+            var pass = passes.get(i);
+
+            var level = 0;
+            for (var dependency : pass.getDependencies()) {
+                var dependencyLevel = passLevels.get(dependency);
+                if (dependencyLevel == null) {
+                    throw new RuntimeException("Analysis pass '" + pass.getClass().getSimpleName()
+                            + "' depends on '" + dependency.getSimpleName() + "', which must come before it");
+                }
+                level = Math.max(level, dependencyLevel + 1);
+            }
+
+            passLevels.put(pass.getClass(), level);
+            while (levels.size() <= level) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(level).add(i);
+        }
+
+        return levels;
+    }
+}
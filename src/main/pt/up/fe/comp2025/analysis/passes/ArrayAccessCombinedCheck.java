@@ -5,10 +5,13 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisPass;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
 
+import java.util.List;
+
 /**
  * Combined check for array access expressions.
  * It verifies that:
@@ -32,6 +35,11 @@ public class ArrayAccessCombinedCheck extends AnalysisVisitor {
 
     }
 
+    @Override
+    public List<Class<? extends AnalysisPass>> getDependencies() {
+        return UndeclaredVariable.DECLARED_IDENTIFIERS;
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         String name = methodDecl.get("name");
         currentMethod = name.equals("args") ? "main" : name;
@@ -69,7 +77,7 @@ public class ArrayAccessCombinedCheck extends AnalysisVisitor {
                     null));
         }
 
-        if ("IntegerLiteral".equals(indexExpr.getKind())) {
+        if (Kind.INTEGER_LITERAL.check(indexExpr)) {
             String valueStr = indexExpr.get("value");
             try {
                 int value = Integer.parseInt(valueStr);
@@ -1,14 +1,16 @@
 package pt.up.fe.comp2025.analysis.passes;
 
-import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisPass;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.symboltable.SymbolLookup;
+import pt.up.fe.comp2025.symboltable.ScopedSymbol;
 
 import java.util.List;
 
@@ -25,6 +27,11 @@ public class ArrayInitializerUsageCheck extends AnalysisVisitor {
         addVisit(Kind.METHOD_CALL_EXPR, this::visitMethodCallExpr);
     }
 
+    @Override
+    public List<Class<? extends AnalysisPass>> getDependencies() {
+        return UndeclaredVariable.DECLARED_IDENTIFIERS;
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         this.currentMethod = methodDecl.get("name").equals("args") ? "main" : methodDecl.get("name");
         this.typeUtils = new TypeUtils(table);
@@ -42,34 +49,9 @@ public class ArrayInitializerUsageCheck extends AnalysisVisitor {
         }
 
         String varName = left.get("value");
-        Type expected = null;
-
-        List<Symbol> locals = table.getLocalVariables(currentMethod);
-        List<Symbol> params = table.getParameters(currentMethod);
-        List<Symbol> fields = table.getFields();
-
-        for (Symbol s : locals) {
-            if (s.getName().equals(varName)) {
-                expected = s.getType();
-                break;
-            }
-        }
-        if (expected == null) {
-            for (Symbol s : params) {
-                if (s.getName().equals(varName)) {
-                    expected = s.getType();
-                    break;
-                }
-            }
-        }
-        if (expected == null) {
-            for (Symbol s : fields) {
-                if (s.getName().equals(varName)) {
-                    expected = s.getType();
-                    break;
-                }
-            }
-        }
+        Type expected = SymbolLookup.resolve(table, currentMethod, varName)
+                .map(ScopedSymbol::getType)
+                .orElse(null);
 
         if (expected == null) {
             return null;
@@ -1,14 +1,16 @@
 package pt.up.fe.comp2025.analysis.passes;
 
-import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisPass;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.TypeUtils;
 import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.SymbolLookup;
+import pt.up.fe.comp2025.symboltable.ScopedSymbol;
 
 import java.util.List;
 
@@ -22,6 +24,11 @@ public class AssignmentTypeCheck extends AnalysisVisitor {
         addVisit(pt.up.fe.comp2025.ast.Kind.ASSIGN_STMT, this::visitAssignStmt);
     }
 
+    @Override
+    public List<Class<? extends AnalysisPass>> getDependencies() {
+        return UndeclaredVariable.DECLARED_IDENTIFIERS;
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         String name = methodDecl.get("name");
         currentMethod = name.equals("args") ? "main" : name;
@@ -129,22 +136,9 @@ public class AssignmentTypeCheck extends AnalysisVisitor {
 
 
     private Type lookupVariableType(String varName, SymbolTable table, String currentMethod) {
-        for (Symbol symbol : table.getLocalVariables(currentMethod)) {
-            if (symbol.getName().equals(varName)) {
-                return symbol.getType();
-            }
-        }
-        for (Symbol symbol : table.getParameters(currentMethod)) {
-            if (symbol.getName().equals(varName)) {
-                return symbol.getType();
-            }
-        }
-        for (Symbol symbol : table.getFields()) {
-            if (symbol.getName().equals(varName)) {
-                return symbol.getType();
-            }
-        }
-        return null;
+        return SymbolLookup.resolve(table, currentMethod, varName)
+                .map(ScopedSymbol::getType)
+                .orElse(null);
     }
 
     private boolean isTypeCompatible(Type left, Type right, SymbolTable table) {
@@ -5,10 +5,13 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisPass;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
 
+import java.util.List;
+
 /**
  * Checks binary arithmetic operations for type compatibility.
  * In particular, it ensures that arithmetic operators (such as '*', '/', '+' and '-')
@@ -26,6 +29,11 @@ public class BinaryOperationCheck extends AnalysisVisitor {
         addVisit(Kind.BINARY_EXPR, this::visitBinaryExpr);
     }
 
+    @Override
+    public List<Class<? extends AnalysisPass>> getDependencies() {
+        return UndeclaredVariable.DECLARED_IDENTIFIERS;
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         String name = methodDecl.get("name");
         currentMethod = name.equals("args") ? "main" : name;
@@ -3,12 +3,15 @@ package pt.up.fe.comp2025.analysis.passes;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.analysis.AnalysisPass;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2025.ast.TypeUtils;
 import pt.up.fe.comp2025.ast.Kind;
 
+import java.util.List;
+
 public class ConditionCheck extends AnalysisVisitor {
 
     private String currentMethod;
@@ -20,6 +23,11 @@ public class ConditionCheck extends AnalysisVisitor {
         addVisit(Kind.WHILE_STMT, this::visitWhileStmt);
     }
 
+    @Override
+    public List<Class<? extends AnalysisPass>> getDependencies() {
+        return UndeclaredVariable.DECLARED_IDENTIFIERS;
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         String name = methodDecl.get("name");
         currentMethod = name.equals("args") ? "main" : name;
@@ -6,6 +6,7 @@ import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
+import pt.up.fe.comp2025.ast.Kind;
 
 import java.util.*;
 
@@ -14,7 +15,7 @@ public class DuplicateCheck extends AnalysisVisitor {
     @Override
     public void buildVisitor() {
         // Check duplicates at the root level
-        addVisit("Program", this::checkDuplicates);
+        addVisit(Kind.PROGRAM, this::checkDuplicates);
     }
 
     private Void checkDuplicates(JmmNode node, SymbolTable table) {
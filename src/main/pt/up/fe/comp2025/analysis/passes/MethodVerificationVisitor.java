@@ -5,7 +5,9 @@ import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.analysis.AnalysisPass;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
+import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
 
 import java.util.List;
@@ -17,8 +19,13 @@ public class MethodVerificationVisitor extends AnalysisVisitor {
 
     @Override
     protected void buildVisitor() {
-        addVisit("MethodDecl", this::visitMethodDecl);
-        addVisit("MethodCallExpr", this::checkMethodCall);
+        addVisit(Kind.METHOD_DECL, this::visitMethodDecl);
+        addVisit(Kind.METHOD_CALL_EXPR, this::checkMethodCall);
+    }
+
+    @Override
+    public List<Class<? extends AnalysisPass>> getDependencies() {
+        return UndeclaredVariable.DECLARED_IDENTIFIERS;
     }
 
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
@@ -5,10 +5,13 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisPass;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
 
+import java.util.List;
+
 /**
  * Verifica se o tipo de retorno dos métodos está correto.
  * - Verifica se o tipo da expressão de retorno é compatível com o tipo declarado do método
@@ -26,6 +29,11 @@ public class ReturnTypeCheck extends AnalysisVisitor {
         addVisit(Kind.RETURN_STMT, this::visitReturnStmt);
     }
 
+    @Override
+    public List<Class<? extends AnalysisPass>> getDependencies() {
+        return UndeclaredVariable.DECLARED_IDENTIFIERS;
+    }
+
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         String name = methodDecl.get("name");
         currentMethod = name.equals("args") ? "main" : name;
@@ -113,7 +121,7 @@ public class ReturnTypeCheck extends AnalysisVisitor {
     }
 
     private boolean hasReturnStatementRecursive(JmmNode node) {
-        if (node.getKind().equals(Kind.RETURN_STMT.getNodeName())) {
+        if (Kind.RETURN_STMT.check(node)) {
             return true;
         }
 
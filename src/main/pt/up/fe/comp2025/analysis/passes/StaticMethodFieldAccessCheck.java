@@ -1,14 +1,14 @@
 package pt.up.fe.comp2025.analysis.passes;
 
-import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.symboltable.SymbolLookup;
+import pt.up.fe.comp2025.symboltable.ScopedSymbol;
 
-import java.util.List;
 
 /**
  * Checks that static methods do not access instance fields or use the "this" keyword.
@@ -83,33 +83,13 @@ public class StaticMethodFieldAccessCheck extends AnalysisVisitor {
      * 4. It is declared as a class field
      */
     private boolean isFieldAccess(String varName, SymbolTable table) {
-        // Check if it's a local variable
-        List<Symbol> locals = table.getLocalVariables(currentMethod);
-        if (locals != null && locals.stream()
-                .anyMatch(local -> local.getName().equals(varName))) {
+        // Locals and parameters shadow fields
+        var symbol = SymbolLookup.resolve(table, currentMethod, varName);
+        if (symbol.isEmpty() || symbol.get().getScope() != ScopedSymbol.Scope.FIELD) {
             return false;
         }
 
-        // Check if it's a method parameter
-        List<Symbol> parameters = table.getParameters(currentMethod);
-        if (parameters != null && parameters.stream()
-                .anyMatch(param -> param.getName().equals(varName))) {
-            return false;
-        }
-
-        // Check if it matches an imported class
-        List<String> imports = table.getImports();
-        if (imports != null && imports.stream().anyMatch(importStr -> {
-            int lastDot = importStr.lastIndexOf('.');
-            String simpleName = (lastDot >= 0) ? importStr.substring(lastDot + 1) : importStr;
-            return simpleName.equals(varName);
-        })) {
-            return false;
-        }
-
-        // Check if it's a class field
-        List<Symbol> fields = table.getFields();
-        return fields != null && fields.stream()
-                .anyMatch(field -> field.getName().equals(varName));
+        // Imported class names take precedence over fields
+        return !SymbolLookup.isImportedClass(table, varName);
     }
 }
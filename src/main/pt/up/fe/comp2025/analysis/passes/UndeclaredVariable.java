@@ -4,11 +4,12 @@ import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.analysis.AnalysisPass;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.symboltable.SymbolLookup;
 import pt.up.fe.specs.util.SpecsCheck;
 
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -18,6 +19,12 @@ import java.util.List;
  */
 public class UndeclaredVariable extends AnalysisVisitor {
 
+    /**
+     * Dependencies of the passes that compute the types of expressions, which can only be done once every identifier
+     * is known to be declared.
+     */
+    public static final List<Class<? extends AnalysisPass>> DECLARED_IDENTIFIERS = List.of(UndeclaredVariable.class);
+
     private String currentMethod;
 
     @Override
@@ -42,38 +49,13 @@ public class UndeclaredVariable extends AnalysisVisitor {
         // Get the identifier from the "value" attribute (per your grammar).
         String varRefName = varRefExpr.get("value");
 
-        // Check if it is declared as a method parameter.
-        List<pt.up.fe.comp.jmm.analysis.table.Symbol> parameters = table.getParameters(currentMethod);
-        if (parameters != null && parameters.stream()
-                .anyMatch(param -> param.getName().equals(varRefName))) {
-            return null;
-        }
-
-        // Check if it is declared as a local variable.
-        List<pt.up.fe.comp.jmm.analysis.table.Symbol> localVariables = table.getLocalVariables(currentMethod);
-        if (localVariables != null && localVariables.stream()
-                .anyMatch(local -> local.getName().equals(varRefName))) {
-            return null;
-        }
-
-        // Check if it is declared as a class field.
-        List<pt.up.fe.comp.jmm.analysis.table.Symbol> fields = table.getFields();
-        if (fields != null && fields.stream()
-                .anyMatch(field -> field.getName().equals(varRefName))) {
-            return null;
-        }
-
-        // Check if it matches an imported class.
-        List<String> imports = table.getImports();
-        if (imports != null && imports.stream().anyMatch(importStr -> {
-            int lastDot = importStr.lastIndexOf('.');
-            String simpleName = (lastDot >= 0) ? importStr.substring(lastDot + 1) : importStr;
-            return simpleName.equals(varRefName);
-        })) {
+        // Declared as a local variable, a method parameter or a class field, or an imported class
+        if (SymbolLookup.resolve(table, currentMethod, varRefName).isPresent()
+                || SymbolLookup.isImportedClass(table, varRefName)) {
             return null;
         }
 
-        if (parameters == null) {
+        if (table.getParameters(currentMethod) == null) {
             String message = String.format("Method '%s' not found in symbol table when checking variable '%s'.",
                     currentMethod, varRefName);
             addReport(Report.newError(Stage.SEMANTIC,
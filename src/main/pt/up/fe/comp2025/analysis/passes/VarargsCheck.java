@@ -23,7 +23,7 @@ public class VarargsCheck extends AnalysisVisitor {
 
         for (int i = 0; i < params.size(); i++) {
             JmmNode param = params.get(i);
-            if (param.getKind().equals(Kind.VAR_ARGS.getNodeName())) {
+            if (Kind.VAR_ARGS.check(param)) {
                 varargCount++;
                 if (i != params.size() - 1) {
                     addReport(Report.newError(Stage.SEMANTIC,
@@ -50,7 +50,7 @@ public class VarargsCheck extends AnalysisVisitor {
     }
 
     private Void checkVarDecl(JmmNode varDecl, SymbolTable table) {
-        if (varDecl.getKind().equals(Kind.VAR_ARGS.getNodeName())) {
+        if (Kind.VAR_ARGS.check(varDecl)) {
             addReport(Report.newError(Stage.SEMANTIC,
                     varDecl.getLine(), varDecl.getColumn(),
                     "Varargs cannot be used in variable or field declarations.", null));
@@ -6,6 +6,7 @@ import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.symboltable.SymbolLookup;
 
 import java.util.*;
 
@@ -140,30 +141,8 @@ public class VariableDeclarationOrderCheck extends AnalysisVisitor {
      * Check if a variable name corresponds to a method parameter, class field, or imported class
      */
     private boolean isParameterFieldOrImport(String varName, SymbolTable table) {
-        // Check if it's a method parameter
-        List<pt.up.fe.comp.jmm.analysis.table.Symbol> parameters = table.getParameters(currentMethod);
-        if (parameters != null && parameters.stream()
-                .anyMatch(param -> param.getName().equals(varName))) {
-            return true;
-        }
-        
-        // Check if it's a class field
-        List<pt.up.fe.comp.jmm.analysis.table.Symbol> fields = table.getFields();
-        if (fields != null && fields.stream()
-                .anyMatch(field -> field.getName().equals(varName))) {
-            return true;
-        }
-        
-        // Check if it matches an imported class
-        List<String> imports = table.getImports();
-        if (imports != null && imports.stream().anyMatch(importStr -> {
-            int lastDot = importStr.lastIndexOf('.');
-            String simpleName = (lastDot >= 0) ? importStr.substring(lastDot + 1) : importStr;
-            return simpleName.equals(varName);
-        })) {
-            return true;
-        }
-        
-        return false;
+        return SymbolLookup.getParameter(table, currentMethod, varName).isPresent()
+                || SymbolLookup.getField(table, varName).isPresent()
+                || SymbolLookup.isImportedClass(table, varName);
     }
 }
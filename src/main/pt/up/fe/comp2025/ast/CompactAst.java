@@ -0,0 +1,524 @@
+package pt.up.fe.comp2025.ast;
+
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.NodePosition;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AST stored in parallel primitive arrays instead of one object per node, for large inputs.
+ * <p>
+ * Nodes are numbered in preorder, so the descendants of a node are the nodes right after it, up to the end of its
+ * subtree. Kinds, attribute names and attribute values are interned: each node stores small ids instead of a map of
+ * strings. Existing code sees the nodes through {@link CompactNode}, a {@link JmmNode} view created on demand.
+ * <p>
+ * The structure of the tree cannot be changed, use {@link #toJmmNode()} to get a mutable copy. Attributes can still be
+ * added to the nodes.
+ */
+public class CompactAst {
+
+    private static final int NONE = -1;
+
+    private static final String[] POSITION_KEYS = {
+            NodePosition.LINE_START.getKey(),
+            NodePosition.COL_START.getKey(),
+            NodePosition.LINE_END.getKey(),
+            NodePosition.COL_END.getKey()
+    };
+
+    private static final VarHandle VIEWS = MethodHandles.arrayElementVarHandle(CompactNode[].class);
+
+    // Public fields of the parse tree classes, which become attributes of the nodes
+    static final ClassValue<List<Field>> ATTRIBUTE_FIELDS = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> nodeClass) {
+            var fields = new ArrayList<Field>();
+            for (var currentClass = nodeClass; !currentClass.equals(ParserRuleContext.class);
+                 currentClass = currentClass.getSuperclass()) {
+                for (var field : currentClass.getDeclaredFields()) {
+                    if (Modifier.isPublic(field.getModifiers())) {
+                        fields.add(field);
+                    }
+                }
+            }
+
+            return fields;
+        }
+    };
+
+    private final int size;
+
+    // Per node
+    private final int[] kinds;
+    private final int[] parents;
+    private final int[] firstChildren;
+    private final int[] nextSiblings;
+    private final int[] subtreeEnds;
+    private final int[] positions;
+    private final int[] attributeStarts;
+
+    // Per attribute, the attributes of node i are in [attributeStarts[i], attributeStarts[i + 1])
+    private final int[] attributeNames;
+    private final int[] attributeValues;
+
+    private final List<List<String>> hierarchies;
+    // Per hierarchy id, null for kinds that are not in the enum
+    private final Kind[] hierarchyKinds;
+    private final List<String> names;
+    private final List<Object> values;
+
+    // Attributes put after the tree was built
+    private final Map<Integer, Map<String, Object>> addedAttributes;
+
+    private final CompactNode[] views;
+
+    private CompactAst(Builder builder) {
+        this.size = builder.size;
+        this.kinds = Arrays.copyOf(builder.kinds, size);
+        this.parents = Arrays.copyOf(builder.parents, size);
+        this.firstChildren = Arrays.copyOf(builder.firstChildren, size);
+        this.nextSiblings = Arrays.copyOf(builder.nextSiblings, size);
+        this.subtreeEnds = Arrays.copyOf(builder.subtreeEnds, size);
+        this.positions = Arrays.copyOf(builder.positions, size * POSITION_KEYS.length);
+        this.attributeStarts = Arrays.copyOf(builder.attributeStarts, size + 1);
+        this.attributeNames = Arrays.copyOf(builder.attributeNames, builder.attributeCount);
+        this.attributeValues = Arrays.copyOf(builder.attributeValues, builder.attributeCount);
+        this.hierarchies = new ArrayList<>();
+        this.hierarchyKinds = new Kind[builder.hierarchies.getInterned().size()];
+        for (var hierarchy : builder.hierarchies.getInterned()) {
+            var canonical = new ArrayList<String>(hierarchy.size());
+            for (var kind : hierarchy) {
+                canonical.add(Kind.intern(kind));
+            }
+
+            hierarchyKinds[hierarchies.size()] = Kind.fromNodeName(canonical.get(0));
+            hierarchies.add(canonical);
+        }
+        this.names = builder.names.getInterned();
+        this.values = builder.values.getInterned();
+        this.addedAttributes = new ConcurrentHashMap<>();
+        this.views = new CompactNode[size];
+    }
+
+    /**
+     * Builds the AST straight from the parse tree, with the same nodes and attributes as
+     * {@link pt.up.fe.comp.jmm.ast.antlr.AntlrToJmmNodeConverter}.
+     */
+    public static CompactAst fromParseTree(ParseTree parseTree, Parser parser) {
+        var builder = new Builder();
+        builder.addParseTree(parseTree, parser, NONE);
+        return new CompactAst(builder);
+    }
+
+    /**
+     * Compacts an existing AST.
+     */
+    public static CompactAst fromJmmNode(JmmNode root) {
+        var builder = new Builder();
+        builder.addJmmNode(root, NONE);
+        return new CompactAst(builder);
+    }
+
+    public JmmNode getRoot() {
+        return getNode(0);
+    }
+
+    /**
+     * @return the view of the node with the given index, always the same object for the same index
+     */
+    public CompactNode getNode(int index) {
+        var view = (CompactNode) VIEWS.getAcquire(views, index);
+        if (view != null) {
+            return view;
+        }
+
+        var created = new CompactNode(this, index);
+        var existing = (CompactNode) VIEWS.compareAndExchangeRelease(views, index, null, created);
+
+        return existing != null ? existing : created;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getKindId(int index) {
+        return kinds[index];
+    }
+
+    /**
+     * @return the kind of the node, or null if it is not one of the kinds of {@link Kind}
+     */
+    public Kind getKind(int index) {
+        return hierarchyKinds[kinds[index]];
+    }
+
+    public List<String> getHierarchy(int index) {
+        return hierarchies.get(kinds[index]);
+    }
+
+    /**
+     * @return index of the parent, or -1 for the root
+     */
+    public int getParent(int index) {
+        return parents[index];
+    }
+
+    /**
+     * @return index of the first child, or -1 if the node has no children
+     */
+    public int getFirstChild(int index) {
+        return firstChildren[index];
+    }
+
+    /**
+     * @return index of the next sibling, or -1 if the node is the last child
+     */
+    public int getNextSibling(int index) {
+        return nextSiblings[index];
+    }
+
+    /**
+     * @return index after the last descendant of the node
+     */
+    public int getSubtreeEnd(int index) {
+        return subtreeEnds[index];
+    }
+
+    public int getLine(int index) {
+        return positions[index * POSITION_KEYS.length];
+    }
+
+    public int getColumn(int index) {
+        return positions[index * POSITION_KEYS.length + 1];
+    }
+
+    /**
+     * @return the names of the attributes of the node, positions first, in the order they were added
+     */
+    List<String> getAttributeNames(int index) {
+        var attributes = new ArrayList<String>(POSITION_KEYS.length + 2);
+        Collections.addAll(attributes, POSITION_KEYS);
+
+        for (int i = attributeStarts[index]; i < attributeStarts[index + 1]; i++) {
+            attributes.add(names.get(attributeNames[i]));
+        }
+
+        var added = addedAttributes.get(index);
+        if (added != null) {
+            for (var name : added.keySet()) {
+                if (!attributes.contains(name)) {
+                    attributes.add(name);
+                }
+            }
+        }
+
+        return attributes;
+    }
+
+    boolean hasAttribute(int index, String name) {
+        return findAttribute(index, name) != NONE || isPosition(name) || hasAddedAttribute(index, name);
+    }
+
+    /**
+     * @return the value of the attribute, or null if the node does not have it
+     */
+    Object getAttribute(int index, String name) {
+        if (!addedAttributes.isEmpty()) {
+            var added = addedAttributes.get(index);
+            if (added != null && added.containsKey(name)) {
+                return added.get(name);
+            }
+        }
+
+        var attribute = findAttribute(index, name);
+        if (attribute != NONE) {
+            return values.get(attributeValues[attribute]);
+        }
+
+        for (int i = 0; i < POSITION_KEYS.length; i++) {
+            if (POSITION_KEYS[i].equals(name)) {
+                return Integer.toString(positions[index * POSITION_KEYS.length + i]);
+            }
+        }
+
+        return null;
+    }
+
+    Object putAttribute(int index, String name, Object value) {
+        var previous = getAttribute(index, name);
+        addedAttributes.computeIfAbsent(index, key -> Collections.synchronizedMap(new HashMap<>())).put(name, value);
+        return previous;
+    }
+
+    private int findAttribute(int index, String name) {
+        for (int i = attributeStarts[index]; i < attributeStarts[index + 1]; i++) {
+            if (names.get(attributeNames[i]).equals(name)) {
+                return i;
+            }
+        }
+
+        return NONE;
+    }
+
+    private boolean hasAddedAttribute(int index, String name) {
+        if (addedAttributes.isEmpty()) {
+            return false;
+        }
+
+        var added = addedAttributes.get(index);
+        return added != null && added.containsKey(name);
+    }
+
+    private static boolean isPosition(String name) {
+        for (var key : POSITION_KEYS) {
+            if (key.equals(name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return a mutable copy of the AST, made of {@link KindNode}
+     */
+    public JmmNode toJmmNode() {
+        return toJmmNode(0);
+    }
+
+    JmmNode toJmmNode(int index) {
+        var node = new KindNode(getHierarchy(index), getKind(index));
+        for (var name : getAttributeNames(index)) {
+            node.putObject(name, getAttribute(index, name));
+        }
+
+        for (int child = firstChildren[index]; child != NONE; child = nextSiblings[child]) {
+            node.add(toJmmNode(child));
+        }
+
+        return node;
+    }
+
+    private static class Builder {
+        private int size;
+        private int[] kinds = new int[64];
+        private int[] parents = new int[64];
+        private int[] firstChildren = new int[64];
+        private int[] nextSiblings = new int[64];
+        private int[] subtreeEnds = new int[64];
+        // Only needed to link children while building
+        private int[] lastChildren = new int[64];
+        private int[] positions = new int[64 * POSITION_KEYS.length];
+        private int[] attributeStarts = new int[65];
+
+        private int attributeCount;
+        private int[] attributeNames = new int[64];
+        private int[] attributeValues = new int[64];
+
+        private final Interner<List<String>> hierarchies = new Interner<>();
+        private final Interner<String> names = new Interner<>();
+        private final Interner<Object> values = new Interner<>();
+
+        private void addParseTree(ParseTree tree, Parser parser, int parent) {
+            if (!(tree instanceof ParserRuleContext context)) {
+                throw new RuntimeException("Expected node to be of class '" + ParserRuleContext.class
+                        + "', but got '" + tree.getClass() + "'");
+            }
+
+            var node = addNode(getHierarchy(context.getClass()), parent);
+
+            var tokens = parser.getTokenStream();
+            var start = tokens.get(context.getSourceInterval().a);
+            var end = tokens.get(context.getSourceInterval().b);
+            setPosition(node, start.getLine(), start.getCharPositionInLine(), end.getLine(),
+                    end.getCharPositionInLine());
+
+            for (var field : ATTRIBUTE_FIELDS.get(context.getClass())) {
+                Object value;
+                try {
+                    value = field.get(context);
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException("Could not access field '" + field.getName() + "' from node " + tree);
+                }
+
+                // Token fields without a token are not attributes
+                if (value == null && Token.class.isAssignableFrom(field.getType())) {
+                    continue;
+                }
+
+                addAttribute(field.getName(), toAttributeValue(value));
+            }
+            attributeStarts[node + 1] = attributeCount;
+
+            for (int i = 0; i < context.getChildCount(); i++) {
+                var child = context.getChild(i);
+
+                // Tokens are attributes, not nodes
+                if (child instanceof TerminalNode) {
+                    continue;
+                }
+
+                addParseTree(child, parser, node);
+            }
+
+            subtreeEnds[node] = size;
+        }
+
+        private void addJmmNode(JmmNode jmmNode, int parent) {
+            var node = addNode(jmmNode.getHierarchy(), parent);
+
+            setPosition(node, jmmNode.getInteger(POSITION_KEYS[0], -1), jmmNode.getInteger(POSITION_KEYS[1], -1),
+                    jmmNode.getInteger(POSITION_KEYS[2], -1), jmmNode.getInteger(POSITION_KEYS[3], -1));
+
+            for (var name : jmmNode.getAttributes()) {
+                if (!isPosition(name)) {
+                    addAttribute(name, jmmNode.getObject(name));
+                }
+            }
+            attributeStarts[node + 1] = attributeCount;
+
+            for (var child : jmmNode.getChildren()) {
+                addJmmNode(child, node);
+            }
+
+            subtreeEnds[node] = size;
+        }
+
+        private int addNode(List<String> hierarchy, int parent) {
+            if (size == kinds.length) {
+                grow();
+            }
+
+            var node = size++;
+            kinds[node] = hierarchies.intern(hierarchy);
+            parents[node] = parent;
+            firstChildren[node] = NONE;
+            nextSiblings[node] = NONE;
+            lastChildren[node] = NONE;
+            attributeStarts[node] = attributeCount;
+
+            if (parent != NONE) {
+                if (lastChildren[parent] == NONE) {
+                    firstChildren[parent] = node;
+                } else {
+                    nextSiblings[lastChildren[parent]] = node;
+                }
+                lastChildren[parent] = node;
+            }
+
+            return node;
+        }
+
+        private void setPosition(int node, int lineStart, int colStart, int lineEnd, int colEnd) {
+            var offset = node * POSITION_KEYS.length;
+            positions[offset] = lineStart;
+            positions[offset + 1] = colStart;
+            positions[offset + 2] = lineEnd;
+            positions[offset + 3] = colEnd;
+        }
+
+        private void addAttribute(String name, Object value) {
+            if (attributeCount == attributeNames.length) {
+                attributeNames = Arrays.copyOf(attributeNames, attributeCount * 2);
+                attributeValues = Arrays.copyOf(attributeValues, attributeCount * 2);
+            }
+
+            attributeNames[attributeCount] = names.intern(name);
+            attributeValues[attributeCount] = values.intern(value);
+            attributeCount++;
+        }
+
+        private void grow() {
+            var capacity = kinds.length * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            subtreeEnds = Arrays.copyOf(subtreeEnds, capacity);
+            lastChildren = Arrays.copyOf(lastChildren, capacity);
+            positions = Arrays.copyOf(positions, capacity * POSITION_KEYS.length);
+            attributeStarts = Arrays.copyOf(attributeStarts, capacity + 1);
+        }
+    }
+
+    /**
+     * @return the kinds of a parse tree class, from its own rule up, like the hierarchy given by
+     * {@link pt.up.fe.comp.jmm.ast.antlr.AntlrToJmmNodeConverter}
+     */
+    static List<String> getHierarchy(Class<?> contextClass) {
+        var hierarchy = new ArrayList<String>();
+        for (Class<?> currentClass = contextClass; !currentClass.equals(ParserRuleContext.class);
+             currentClass = currentClass.getSuperclass()) {
+            var className = currentClass.getSimpleName();
+            if (!className.endsWith("Context")) {
+                throw new RuntimeException("Expected classname to end with 'Context' " + className);
+            }
+
+            hierarchy.add(className.substring(0, className.length() - "Context".length()));
+        }
+
+        return hierarchy;
+    }
+
+    /**
+     * @return the value of a parse tree field as a node attribute, tokens become their text
+     */
+    static Object toAttributeValue(Object value) {
+        if (value instanceof Token token) {
+            return token.getText();
+        }
+
+        if (value instanceof List<?> list) {
+            var elements = new ArrayList<>(list.size());
+            for (var element : list) {
+                elements.add(toAttributeValue(element));
+            }
+            return elements;
+        }
+
+        if (value instanceof ParseTree) {
+            throw new RuntimeException("Attributes that refer to other nodes are not supported");
+        }
+
+        return value;
+    }
+
+    /**
+     * Gives equal objects the same id.
+     */
+    private static class Interner<T> {
+        private final Map<T, Integer> ids = new HashMap<>();
+        private final List<T> interned = new ArrayList<>();
+
+        private int intern(T value) {
+            var id = ids.get(value);
+            if (id == null) {
+                id = interned.size();
+                ids.put(value, id);
+                interned.add(value);
+            }
+
+            return id;
+        }
+
+        private List<T> getInterned() {
+            return interned;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package pt.up.fe.comp2025.ast;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp.jmm.ast.NodePosition;
+import pt.up.fe.specs.util.SpecsCheck;
+import pt.up.fe.specs.util.SpecsEnums;
+import pt.up.fe.specs.util.SpecsSystem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@link JmmNode} view of a node of a {@link CompactAst}.
+ * <p>
+ * Views are created by the AST, one per node, so they can be compared by identity like other nodes. Changing the
+ * structure of the tree is not supported.
+ */
+public class CompactNode implements JmmNode {
+
+    private static final Set<String> POSITION_ATTRIBUTES = new HashSet<>(SpecsEnums.getKeys(NodePosition.class));
+
+    private final CompactAst ast;
+    private final int index;
+
+    CompactNode(CompactAst ast, int index) {
+        this.ast = ast;
+        this.index = index;
+    }
+
+    public CompactAst getAst() {
+        return ast;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String getKind() {
+        return ast.getHierarchy(index).get(0);
+    }
+
+    @Override
+    public List<String> getHierarchy() {
+        return ast.getHierarchy(index);
+    }
+
+    @Override
+    public boolean isInstance(String kind) {
+        return ast.getHierarchy(index).contains(kind);
+    }
+
+    // Kinds of the enum are checked with Kind.check instead of searching the hierarchy for the kind string
+
+    @Override
+    public boolean isInstance(Object kind) {
+        return kind instanceof Kind enumKind ? enumKind.check(this) : isInstance(kind.toString());
+    }
+
+    @Override
+    public List<JmmNode> getChildren(Object kind) {
+        return getChildrenStream().filter(child -> child.isInstance(kind)).toList();
+    }
+
+    @Override
+    public List<JmmNode> getDescendants(Object kind) {
+        return getDescendantsStream().filter(descendant -> descendant.isInstance(kind)).toList();
+    }
+
+    @Override
+    public Optional<JmmNode> getAncestor(Object kind) {
+        for (var ancestor = getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            if (ancestor.isInstance(kind)) {
+                return Optional.of(ancestor);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    @Override
+    public JmmNode getParent() {
+        var parent = ast.getParent(index);
+        return parent < 0 ? null : ast.getNode(parent);
+    }
+
+    @Override
+    public List<JmmNode> getChildren() {
+        var children = new ArrayList<JmmNode>();
+        for (int child = ast.getFirstChild(index); child >= 0; child = ast.getNextSibling(child)) {
+            children.add(ast.getNode(child));
+        }
+
+        return children;
+    }
+
+    @Override
+    public Stream<JmmNode> getChildrenStream() {
+        return getChildren().stream();
+    }
+
+    @Override
+    public int getNumChildren() {
+        int count = 0;
+        for (int child = ast.getFirstChild(index); child >= 0; child = ast.getNextSibling(child)) {
+            count++;
+        }
+
+        return count;
+    }
+
+    @Override
+    public JmmNode getChild(int childIndex) {
+        int child = ast.getFirstChild(index);
+        for (int i = 0; i < childIndex && child >= 0; i++) {
+            child = ast.getNextSibling(child);
+        }
+
+        if (childIndex < 0 || child < 0) {
+            throw new IndexOutOfBoundsException("Index " + childIndex + " out of bounds for " + getNumChildren()
+                    + " children");
+        }
+
+        return ast.getNode(child);
+    }
+
+    @Override
+    public int getIndexOfSelf() {
+        var parent = ast.getParent(index);
+        if (parent < 0) {
+            return -1;
+        }
+
+        int position = 0;
+        for (int child = ast.getFirstChild(parent); child != index; child = ast.getNextSibling(child)) {
+            position++;
+        }
+
+        return position;
+    }
+
+    // The descendants of a node come right after it
+    @Override
+    public Stream<JmmNode> getDescendantsAndSelfStream() {
+        return IntStream.range(index, ast.getSubtreeEnd(index)).mapToObj(ast::getNode);
+    }
+
+    @Override
+    public Stream<JmmNode> getDescendantsStream() {
+        return IntStream.range(index + 1, ast.getSubtreeEnd(index)).mapToObj(ast::getNode);
+    }
+
+    @Override
+    public int getLine() {
+        return ast.getLine(index);
+    }
+
+    @Override
+    public int getColumn() {
+        return ast.getColumn(index);
+    }
+
+    @Override
+    public Collection<String> getAttributes() {
+        // Same iteration order as the attribute map of JmmNodeImpl
+        return new HashSet<>(ast.getAttributeNames(index));
+    }
+
+    @Override
+    public boolean hasAttribute(String attribute) {
+        return ast.hasAttribute(index, attribute);
+    }
+
+    @Override
+    public Object getObject(String attribute) {
+        var value = ast.getAttribute(index, attribute);
+
+        SpecsCheck.checkNotNull(value, () -> "Node " + getKind() + " does not contain attribute '" + attribute + "'");
+
+        return value;
+    }
+
+    @Override
+    public Object putObject(String attribute, Object value) {
+        return ast.putAttribute(index, attribute, value);
+    }
+
+    @Override
+    public JmmNode copy(List<String> kindHierarchy) {
+        var copy = new JmmNodeImpl(kindHierarchy);
+
+        for (var attr : getAttributes()) {
+            copy.put(attr, get(attr));
+        }
+
+        return copy;
+    }
+
+    @Override
+    public void add(JmmNode child, int index) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setChild(JmmNode newNode, int index) {
+        throw readOnly();
+    }
+
+    @Override
+    public JmmNode removeChild(int index) {
+        throw readOnly();
+    }
+
+    @Override
+    public int removeChild(JmmNode node) {
+        throw readOnly();
+    }
+
+    @Override
+    public void delete() {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeParent() {
+        throw readOnly();
+    }
+
+    @Override
+    public void setParent(JmmNode parent) {
+        throw readOnly();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("The compact AST cannot be changed, use CompactAst.toJmmNode()");
+    }
+
+    /**
+     * Same format as {@link JmmNodeImpl#toString()}.
+     */
+    @Override
+    public String toString() {
+        var string = new StringBuilder(getKind());
+
+        var attrs = getAttributes().stream()
+                .filter(attr -> !POSITION_ATTRIBUTES.contains(attr))
+                .toList();
+
+        if (!attrs.isEmpty()) {
+            string.append(attrs.stream()
+                    .map(attr -> attr + ": " + get(attr))
+                    .collect(Collectors.joining(", ", " (", ")")));
+        }
+
+        if (SpecsSystem.isDebug()) {
+            string.append(" ").append(get(NodePosition.LINE_START.getKey()))
+                    .append(":").append(get(NodePosition.COL_START.getKey()))
+                    .append("->").append(get(NodePosition.LINE_END.getKey()))
+                    .append(":").append(get(NodePosition.COL_END.getKey()));
+        }
+
+        return string.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package pt.up.fe.comp2025.ast;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Side table with the type of each expression node, so that {@link TypeUtils#getExprType(JmmNode, String)} computes
+ * it only once, however many passes ask for it.
+ * <p>
+ * Nodes are keyed by identity. Code that rewrites the AST must {@link #invalidate(JmmNode)} the nodes it replaces.
+ * Passes may run in parallel, so the table is thread-safe.
+ */
+public class ExprTypeTable {
+
+    private final Map<JmmNode, TypedNode> types;
+
+    public ExprTypeTable() {
+        this.types = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return the type of the node in the given method, or null if it was not computed yet
+     */
+    public Type get(JmmNode node, String method) {
+        var typed = types.get(node);
+        if (typed == null || !typed.method.equals(method)) {
+            return null;
+        }
+
+        return typed.type;
+    }
+
+    public void put(JmmNode node, String method, Type type) {
+        types.put(node, new TypedNode(method, type));
+    }
+
+    /**
+     * Forgets the type of the node, of the nodes below it and of the nodes above it, whose types may depend on it.
+     * Call before replacing the node.
+     */
+    public void invalidate(JmmNode node) {
+        if (types.isEmpty()) {
+            return;
+        }
+
+        node.getDescendantsAndSelfStream().forEach(types::remove);
+
+        for (var ancestor = node.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            types.remove(ancestor);
+        }
+    }
+
+    public void clear() {
+        types.clear();
+    }
+
+    public int size() {
+        return types.size();
+    }
+
+    private static class TypedNode {
+        private final String method;
+        private final Type type;
+
+        private TypedNode(String method, Type type) {
+            this.method = method;
+            this.type = type;
+        }
+    }
+}
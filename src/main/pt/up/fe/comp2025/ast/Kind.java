@@ -2,9 +2,12 @@ package pt.up.fe.comp2025.ast;
 
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.specs.util.SpecsStrings;
+
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Enum that mirrors the nodes supported by the AST.
@@ -14,63 +17,131 @@ import java.util.List;
 public enum Kind {
     // Program structure
     PROGRAM,
-    IMPORT_STMT,      // from #ImportStmt in importDecl
+    IMPORT_DECL,
+    IMPORT_STMT(IMPORT_DECL),      // from #ImportStmt in importDecl
     CLASS_DECL,
     VAR_DECL,
     METHOD_DECL,
-    PARAM, // from #ParamExp in param
+    PARAM,
+    PARAM_EXP(PARAM), // from #ParamExp in param
 
     // Type nodes (from the type rule alternatives)
-    TYPE,             // from #Var in type
-    VAR_ARRAY,        // from #VarArray in type
-    VAR_ARGS,         // from #VarArgs in type
+    TYPE,
+    VAR(TYPE),                // from #Var in type
+    VAR_ARRAY(TYPE),          // from #VarArray in type
+    VAR_ARGS(TYPE),           // from #VarArgs in type
 
     // Statement nodes
     STMT,
-    ASSIGN_STMT,      // for assignment statements (#AssignStmt)
-    RETURN_STMT,      // for return statements (if distinct)
-    WHILE_STMT, // for while statements, e.g., 'while' '(' expr ')' stmt (#WhileStmt)
-    IF_ELSE_STMT, // from ifElse alternatives labeled #IfElseStmt
-    BLOCK_STMT,       // from other: '{' ( stmt )* '}' #BlockStmt
-    FOR_STMT,         // from other: 'for' '(' stmt expr ';' expr ')' stmt #ForStmt
-    EXPR_STMT,        // from other: expr ';' #ExprStmt
+    ASSIGN_STMT(STMT),        // for assignment statements (#AssignStmt)
+    RETURN_STMT(STMT),        // for return statements (if distinct)
+    WHILE_STMT(STMT), // for while statements, e.g., 'while' '(' expr ')' stmt (#WhileStmt)
+    IF_ELSE_STMT(STMT), // from ifElse alternatives labeled #IfElseStmt
+    BLOCK_STMT(STMT),         // from other: '{' ( stmt )* '}' #BlockStmt
+    FOR_STMT(STMT),           // from other: 'for' '(' stmt expr ';' expr ')' stmt #ForStmt
+    EXPR_STMT(STMT),          // from other: expr ';' #ExprStmt
+    ARRAY_ASSIGN_STMT(STMT),  // from #ArrayAssignStmt
 
     // Expression nodes
-    PARENTHESIZED_EXPR,   // from #ParenthesizedExpr
-    ARRAY_LITERAL_EXPR,   // from #ArrayLiteralExpr
-    INTEGER_LITERAL,      // from #IntegerLiteral
-    BOOLEAN_TRUE,         // from #BooleanTrue
-    BOOLEAN_FALSE,        // from #BooleanFalse
-    VAR_REF_EXPR,         // from #VarRefExpr
-    THIS_EXPR,            // from #ThisExpr
-    UNARY_EXPR,           // from #UnaryExpr
-    NEW_INT_ARRAY_EXPR,   // from #NewIntArrayExpr
-    NEW_OBJECT_EXPR,      // from #NewObjectExpr
-    POSTFIX_EXPR,         // from #PostfixExpr
-    ARRAY_ACCESS_EXPR,    // from #ArrayAccessExpr
-    ARRAY_LENGTH_EXPR,    // from #ArrayLengthExpr
-    METHOD_CALL_EXPR,     // from #MethodCallExpr
-    BINARY_EXPR,         // from all binary operations unified as #BinaryExpr
+    EXPR,
+    PARENTHESIZED_EXPR(EXPR),   // from #ParenthesizedExpr
+    ARRAY_LITERAL_EXPR(EXPR),   // from #ArrayLiteralExpr
+    INTEGER_LITERAL(EXPR),      // from #IntegerLiteral
+    BOOLEAN_TRUE(EXPR),         // from #BooleanTrue
+    BOOLEAN_FALSE(EXPR),        // from #BooleanFalse
+    VAR_REF_EXPR(EXPR),         // from #VarRefExpr
+    THIS_EXPR(EXPR),            // from #ThisExpr
+    UNARY_EXPR(EXPR),           // from #UnaryExpr
+    NEW_INT_ARRAY_EXPR(EXPR),   // from #NewIntArrayExpr
+    NEW_OBJECT_EXPR(EXPR),      // from #NewObjectExpr
+    POSTFIX_EXPR(EXPR),         // from #PostfixExpr
+    ARRAY_ACCESS_EXPR(EXPR),    // from #ArrayAccessExpr
+    ARRAY_LENGTH_EXPR(EXPR),    // from #ArrayLengthExpr
+    METHOD_CALL_EXPR(EXPR),     // from #MethodCallExpr
+    BINARY_EXPR(EXPR),         // from all binary operations unified as #BinaryExpr
 
     ARRAY_ASSIGN;
 
+    private static final Map<String, Kind> BY_NODE_NAME = new HashMap<>();
+
+    static {
+        for (var kind : values()) {
+            BY_NODE_NAME.put(kind.name, kind);
+        }
+    }
+
     private final String name;
+    private final Kind parent;
 
-    private Kind(String name) {
-        this.name = name;
+    private Kind(Kind parent) {
+        // Interned, so that node kinds written as literals are the same instance and compare by reference
+        this.name = SpecsStrings.toCamelCase(name(), "_", true).intern();
+        this.parent = parent;
     }
 
     private Kind() {
-        this.name = SpecsStrings.toCamelCase(name(), "_", true);
+        this(null);
     }
 
     public static Kind fromString(String kind) {
-        for (Kind k : Kind.values()) {
-            if (k.getNodeName().equals(kind)) {
-                return k;
-            }
+        var k = BY_NODE_NAME.get(kind);
+        if (k == null) {
+            throw new RuntimeException("Could not convert string '" + kind + "' to a Kind");
+        }
+        return k;
+    }
+
+    /**
+     * The kind of the node, for dispatching on the enum instead of on strings. Nodes of a {@link CompactAst} and
+     * {@link KindNode}s, which the parser creates, know their kind. Other nodes, e.g. the ones the optimizer creates,
+     * are looked up by their kind string.
+     *
+     * @return the kind of the node, or null if it is not one of the kinds of the enum
+     */
+    public static Kind of(JmmNode node) {
+        if (node instanceof KindNode kindNode) {
+            return kindNode.getKindEnum();
+        }
+
+        if (node instanceof CompactNode compactNode) {
+            return compactNode.getAst().getKind(compactNode.getIndex());
+        }
+
+        return BY_NODE_NAME.get(node.getKind());
+    }
+
+    /**
+     * @return the kind with the given node name, or null
+     */
+    static Kind fromNodeName(String nodeName) {
+        return BY_NODE_NAME.get(nodeName);
+    }
+
+    /**
+     * @return the instance of the name held by the enum, or the name itself if it is not the name of a kind
+     */
+    static String intern(String nodeName) {
+        var kind = BY_NODE_NAME.get(nodeName);
+        return kind != null ? kind.name : nodeName;
+    }
+
+    /**
+     * @return the kind this one specializes (e.g. {@link #EXPR} for {@link #BINARY_EXPR}), or null
+     */
+    public Kind getParent() {
+        return parent;
+    }
+
+    /**
+     * @return the hierarchy of a node of this kind, e.g. [BinaryExpr, Expr], for creating nodes
+     */
+    public List<String> getHierarchy() {
+        var hierarchy = new ArrayList<String>();
+        for (var kind = this; kind != null; kind = kind.parent) {
+            hierarchy.add(kind.name);
         }
-        throw new RuntimeException("Could not convert string '" + kind + "' to a Kind");
+
+        return hierarchy;
     }
 
     public static List<String> toNodeName(Kind firstKind, Kind... otherKinds) {
@@ -98,7 +169,18 @@ public enum Kind {
      * @return true if the node is an instance of this Kind.
      */
     public boolean check(JmmNode node) {
-        return node.isInstance(this);
+        var kind = of(node);
+        if (kind == null) {
+            return node.isInstance(name);
+        }
+
+        for (; kind != null; kind = kind.parent) {
+            if (kind == this) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -0,0 +1,96 @@
+package pt.up.fe.comp2025.ast;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Visit methods of a visitor indexed by {@link Kind} ordinal.
+ * <p>
+ * The method of each kind, following the parents of the kind up to the default visit, is resolved when the methods
+ * are registered, so finding the method of a node is an indexed access instead of hashing the strings of its hierarchy.
+ * Nodes whose kind is not in the enum are left to the string-keyed lookup of the visitor.
+ */
+public class KindDispatch<D, R> {
+
+    private final List<BiFunction<JmmNode, D, R>> registered;
+    private final List<BiFunction<JmmNode, D, R>> resolved;
+    // The same, without falling back to the default visit
+    private final List<BiFunction<JmmNode, D, R>> resolvedRegistered;
+    private final Map<String, BiFunction<JmmNode, D, R>> others;
+    private BiFunction<JmmNode, D, R> defaultVisit;
+
+    public KindDispatch() {
+        this.registered = new ArrayList<>(Collections.nCopies(Kind.values().length, null));
+        this.resolved = new ArrayList<>(Collections.nCopies(Kind.values().length, null));
+        this.resolvedRegistered = new ArrayList<>(Collections.nCopies(Kind.values().length, null));
+        this.others = new HashMap<>();
+    }
+
+    /**
+     * Registers the visit of a kind. Kinds that are not in the enum are only kept for {@link #getRegistered(JmmNode)}.
+     */
+    public void put(String kind, BiFunction<JmmNode, D, R> visit) {
+        var enumKind = Kind.fromNodeName(kind);
+        if (enumKind == null) {
+            others.put(kind, visit);
+            return;
+        }
+
+        registered.set(enumKind.ordinal(), visit);
+        resolve();
+    }
+
+    public void setDefault(BiFunction<JmmNode, D, R> defaultVisit) {
+        this.defaultVisit = defaultVisit;
+        resolve();
+    }
+
+    /**
+     * @return the visit of the node, or null if it must be found by the hierarchy of the node
+     */
+    public BiFunction<JmmNode, D, R> get(JmmNode node) {
+        var kind = Kind.of(node);
+        return kind == null ? null : resolved.get(kind.ordinal());
+    }
+
+    /**
+     * The visit registered for the first kind in the hierarchy of the node that has one, without the default visit.
+     * Like {@link #get(JmmNode)}, it is resolved in advance for kinds of the enum.
+     *
+     * @return the visit, or null if no kind in the hierarchy of the node has one
+     */
+    public BiFunction<JmmNode, D, R> getRegistered(JmmNode node) {
+        var nodeKind = Kind.of(node);
+        if (nodeKind != null) {
+            return resolvedRegistered.get(nodeKind.ordinal());
+        }
+
+        for (var kind : node.getHierarchy()) {
+            var enumKind = Kind.fromNodeName(kind);
+            var visit = enumKind != null ? registered.get(enumKind.ordinal()) : others.get(kind);
+            if (visit != null) {
+                return visit;
+            }
+        }
+
+        return null;
+    }
+
+    private void resolve() {
+        for (var kind : Kind.values()) {
+            BiFunction<JmmNode, D, R> visit = null;
+            for (var current = kind; current != null && visit == null; current = current.getParent()) {
+                visit = registered.get(current.ordinal());
+            }
+
+            resolvedRegistered.set(kind.ordinal(), visit);
+            resolved.set(kind.ordinal(), visit != null ? visit : defaultVisit);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package pt.up.fe.comp2025.ast;
+
+import pt.up.fe.comp.jmm.ast.AJmmVisitor;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+
+import java.util.function.BiFunction;
+
+/**
+ * Visitor that finds the visit of a node with a {@link KindDispatch}, falling back to the lookup by the hierarchy of
+ * the node for kinds that are not in the enum.
+ */
+public abstract class KindDispatchVisitor<D, R> extends AJmmVisitor<D, R> {
+
+    // Created on first use: buildVisitor() registers the visits from the constructor of AJmmVisitor, which runs before
+    // the field initializers of this class, and an initializer here would then replace the filled dispatch
+    private KindDispatch<D, R> dispatch;
+
+    @Override
+    public void addVisit(String kind, BiFunction<JmmNode, D, R> method) {
+        super.addVisit(kind, method);
+        getDispatch().put(kind, method);
+    }
+
+    @Override
+    public void setDefaultVisit(BiFunction<JmmNode, D, R> method) {
+        super.setDefaultVisit(method);
+        getDispatch().setDefault(method);
+    }
+
+    @Override
+    protected BiFunction<JmmNode, D, R> getVisit(JmmNode node) {
+        var visit = getDispatch().get(node);
+        return visit != null ? visit : super.getVisit(node);
+    }
+
+    /**
+     * The visit registered for the node, following the hierarchy of the node like {@link #getVisit(JmmNode)} does.
+     *
+     * @return the visit, or null if the node would get the default visit
+     */
+    protected BiFunction<JmmNode, D, R> getRegisteredVisit(JmmNode node) {
+        return getDispatch().getRegistered(node);
+    }
+
+    private KindDispatch<D, R> getDispatch() {
+        if (dispatch == null) {
+            dispatch = new KindDispatch<>();
+        }
+
+        return dispatch;
+    }
+}
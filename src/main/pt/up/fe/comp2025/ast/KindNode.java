@@ -0,0 +1,136 @@
+package pt.up.fe.comp2025.ast;
+
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp.jmm.ast.NodePosition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link JmmNodeImpl} that knows its {@link Kind}, resolved once when the node is created, so that
+ * {@link Kind#of(JmmNode)} reads a field instead of looking up the kind string.
+ * <p>
+ * Nodes created later as plain {@link JmmNodeImpl} (e.g. by the optimizer, or by {@link #copy(List)}) are still
+ * found by their kind string.
+ */
+public class KindNode extends JmmNodeImpl {
+
+    // Per parse tree class, its hierarchy with the strings held by Kind, and the kind of the class
+    private static final ClassValue<List<String>> HIERARCHIES = new ClassValue<>() {
+        @Override
+        protected List<String> computeValue(Class<?> nodeClass) {
+            var hierarchy = new ArrayList<String>();
+            for (var kind : CompactAst.getHierarchy(nodeClass)) {
+                hierarchy.add(Kind.intern(kind));
+            }
+
+            return List.copyOf(hierarchy);
+        }
+    };
+
+    private static final ClassValue<Kind> KINDS = new ClassValue<>() {
+        @Override
+        protected Kind computeValue(Class<?> nodeClass) {
+            return Kind.fromNodeName(HIERARCHIES.get(nodeClass).get(0));
+        }
+    };
+
+    private final Kind kind;
+
+    public KindNode(List<String> kindHierarchy, Kind kind) {
+        super(kindHierarchy);
+        this.kind = kind;
+    }
+
+    /**
+     * @return the kind of the node, or null if it is not one of the kinds of the enum
+     */
+    public Kind getKindEnum() {
+        return kind;
+    }
+
+    // Kinds of the enum are checked with Kind.check instead of searching the hierarchy for the kind string
+
+    @Override
+    public boolean isInstance(Object kind) {
+        return kind instanceof Kind enumKind ? enumKind.check(this) : isInstance(kind.toString());
+    }
+
+    @Override
+    public List<JmmNode> getChildren(Object kind) {
+        return getChildrenStream().filter(child -> child.isInstance(kind)).toList();
+    }
+
+    @Override
+    public List<JmmNode> getDescendants(Object kind) {
+        return getDescendantsStream().filter(descendant -> descendant.isInstance(kind)).toList();
+    }
+
+    @Override
+    public Optional<JmmNode> getAncestor(Object kind) {
+        for (var ancestor = getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            if (ancestor.isInstance(kind)) {
+                return Optional.of(ancestor);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Converts the parse tree, with the same nodes and attributes as
+     * {@link pt.up.fe.comp.jmm.ast.antlr.AntlrToJmmNodeConverter}.
+     */
+    public static KindNode fromParseTree(ParseTree tree, Parser parser) {
+        if (!(tree instanceof ParserRuleContext context)) {
+            throw new RuntimeException("Expected node to be of class '" + ParserRuleContext.class
+                    + "', but got '" + tree.getClass() + "'");
+        }
+
+        var node = new KindNode(HIERARCHIES.get(context.getClass()), KINDS.get(context.getClass()));
+
+        var tokens = parser.getTokenStream();
+        var start = tokens.get(context.getSourceInterval().a);
+        var end = tokens.get(context.getSourceInterval().b);
+        node.put(NodePosition.LINE_START.getKey(), Integer.toString(start.getLine()));
+        node.put(NodePosition.COL_START.getKey(), Integer.toString(start.getCharPositionInLine()));
+        node.put(NodePosition.LINE_END.getKey(), Integer.toString(end.getLine()));
+        node.put(NodePosition.COL_END.getKey(), Integer.toString(end.getCharPositionInLine()));
+
+        for (var field : CompactAst.ATTRIBUTE_FIELDS.get(context.getClass())) {
+            Object value;
+            try {
+                value = field.get(context);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Could not access field '" + field.getName() + "' from node " + tree);
+            }
+
+            // Token fields without a token are not attributes
+            if (value == null && Token.class.isAssignableFrom(field.getType())) {
+                continue;
+            }
+
+            node.putObject(field.getName(), CompactAst.toAttributeValue(value));
+        }
+
+        for (int i = 0; i < context.getChildCount(); i++) {
+            var child = context.getChild(i);
+
+            // Tokens are attributes, not nodes
+            if (child instanceof TerminalNode) {
+                continue;
+            }
+
+            node.add(fromParseTree(child, parser));
+        }
+
+        return node;
+    }
+}
@@ -1,19 +1,20 @@
 package pt.up.fe.comp2025.ast;
 
-import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
-
-import java.util.List;
+import pt.up.fe.comp2025.symboltable.SymbolLookup;
 
 public class TypeUtils {
 
-    private final JmmSymbolTable table;
+    private final SymbolTable table;
+    private final ExprTypeTable exprTypes;
 
     public TypeUtils(SymbolTable table) {
-        this.table = (JmmSymbolTable) table;
+        this.table = table;
+        // Other tables do not share the types, they are memoized for this instance only
+        this.exprTypes = table instanceof JmmSymbolTable jmmTable ? jmmTable.getExprTypes() : new ExprTypeTable();
     }
 
     public static Type newIntType() {
@@ -30,8 +31,7 @@ public class TypeUtils {
     public static Type convertType(JmmNode typeNode) {
         String typeName = typeNode.get("value");
         boolean isArray = false;
-        String kind = typeNode.getKind();
-        if ("VarArray".equals(kind) || "VarArgs".equals(kind)) {
+        if (Kind.check(typeNode, Kind.VAR_ARRAY, Kind.VAR_ARGS)) {
             isArray = true;
         }
         return new Type(typeName, isArray);
@@ -50,14 +50,29 @@ public class TypeUtils {
             currentMethod = "main";
         }
 
-        String kind = expr.getKind();
+        // Types of the operands are memoized too, so each node is typed once, bottom-up
+        var type = exprTypes.get(expr, currentMethod);
+        if (type == null) {
+            type = computeExprType(expr, currentMethod);
+            exprTypes.put(expr, currentMethod, type);
+        }
+
+        return type;
+    }
+
+    private Type computeExprType(JmmNode expr, String currentMethod) {
+        var kind = Kind.of(expr);
+        if (kind == null) {
+            throw new RuntimeException("Unsupported expression type: " + expr.getKind());
+        }
+
         switch (kind) {
-            case "IntegerLiteral":
+            case INTEGER_LITERAL:
                 return new Type("int", false);
-            case "BooleanTrue":
-            case "BooleanFalse":
+            case BOOLEAN_TRUE:
+            case BOOLEAN_FALSE:
                 return new Type("boolean", false);
-            case "VarRefExpr": {
+            case VAR_REF_EXPR: {
                 String id = expr.get("value");
                 
                 // Special case for "args" parameter in main method
@@ -65,82 +80,54 @@ public class TypeUtils {
                     return new Type("String", true); // args is always String[]
                 }
                 
-                // Check local variables.
-                List<Symbol> locals = table.getLocalVariables(currentMethod);
-                for (Symbol symbol : locals) {
-                    if (symbol.getName().equals(id)) {
-                        return symbol.getType();
-                    }
-                }
-                // Check method parameters.
-                List<Symbol> params = table.getParameters(currentMethod);
-                // Handle empty parameters list to avoid IndexOutOfBoundsException
-                if (params.isEmpty() && "main".equals(currentMethod) && "args".equals(id)) {
-                    return new Type("String", true); // Default for args in main
-                }
-                
-                for (Symbol symbol : params) {
-                    if (symbol.getName().equals(id)) {
-                        return symbol.getType();
-                    }
-                }
-                // Check class fields.
-                for (Symbol symbol : table.getFields()) {
-                    if (symbol.getName().equals(id)) {
-                        return symbol.getType();
-                    }
+                // Locals, then parameters, then fields
+                var symbol = SymbolLookup.resolve(table, currentMethod, id);
+                if (symbol.isPresent()) {
+                    return symbol.get().getType();
                 }
-                for (String imp : table.getImports()) {
-                    if (imp.endsWith("." + id) || imp.equals(id)) {
-                        return new Type(id, false);
-                    }
+
+                if (SymbolLookup.isImportedClass(table, id)) {
+                    return new Type(id, false);
                 }
 
                 throw new RuntimeException("Undefined identifier: " + id);
             }
-            case "ThisExpr":
+            case THIS_EXPR:
                 return new Type(table.getClassName(), false);
-            case "ParenthesizedExpr":
+            case PARENTHESIZED_EXPR:
                 return getExprType(expr.getChild(0), currentMethod);
-            case "UnaryExpr": {
+            case UNARY_EXPR: {
                 Type operandType = getExprType(expr.getChild(0), currentMethod);
                 if (!"boolean".equals(operandType.getName())) {
                     throw new RuntimeException("Unary operator '!' applied to non-boolean type");
                 }
                 return new Type("boolean", false);
             }
-            case "NewIntArrayExpr":
+            case NEW_INT_ARRAY_EXPR:
                 return new Type("int", true);
-            case "NewObjectExpr":
+            case NEW_OBJECT_EXPR:
                 return new Type(expr.get("value"), false);
-            case "PostfixExpr": {
+            case POSTFIX_EXPR: {
                 String id = expr.get("value");
-                List<Symbol> locals = table.getLocalVariables(currentMethod);
-                for (Symbol symbol : locals) {
-                    if (symbol.getName().equals(id)) return symbol.getType();
-                }
-                List<Symbol> params = table.getParameters(currentMethod);
-                for (Symbol symbol : params) {
-                    if (symbol.getName().equals(id)) return symbol.getType();
-                }
-                for (Symbol symbol : table.getFields()) {
-                    if (symbol.getName().equals(id)) return symbol.getType();
+                var symbol = SymbolLookup.resolve(table, currentMethod, id);
+                if (symbol.isPresent()) {
+                    return symbol.get().getType();
                 }
                 throw new RuntimeException("Undefined identifier in postfix expression: " + id);
             }
-            case "ArrayAccessExpr": {
+            case ARRAY_ACCESS_EXPR: {
                 Type arrayType = getExprType(expr.getChild(0), currentMethod);
                 if (!arrayType.isArray()) {
                     throw new RuntimeException("Array access on non-array type: " + arrayType.getName());
                 }
                 return new Type(arrayType.getName(), false);
             }
-            case "ArrayLengthExpr":
+            case ARRAY_LENGTH_EXPR:
                 return new Type("int", false);
-            case "MethodCallExpr": {
+            case METHOD_CALL_EXPR: {
                 String methodName = expr.get("method");
                 Type callerType = getExprType(expr.getChild(0), currentMethod);
-                String callerName = expr.getChild(0).getKind().equals("ThisExpr")
+                String callerName = Kind.THIS_EXPR.check(expr.getChild(0))
                         ? "this"
                         : expr.getChild(0).get("value");
 
@@ -166,7 +153,7 @@ public class TypeUtils {
 
                 return returnType;
             }
-            case "BinaryExpr": {
+            case BINARY_EXPR: {
                 String op = expr.get("op");
                 return switch (op) {
                     case "*", "/", "+", "-" -> new Type("int", false);
@@ -176,7 +163,7 @@ public class TypeUtils {
                     default -> throw new RuntimeException("Unsupported operator in BinaryExpr: " + op);
                 };
             }
-            case "ArrayLiteralExpr": {
+            case ARRAY_LITERAL_EXPR: {
                 if (expr.getChildren().isEmpty()) return new Type("int", true);
                 Type firstType = getExprType(expr.getChild(0), currentMethod);
                 for (int i = 1; i < expr.getNumChildren(); i++) {
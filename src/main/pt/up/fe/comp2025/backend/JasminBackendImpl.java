@@ -3,6 +3,8 @@ package pt.up.fe.comp2025.backend;
 import pt.up.fe.comp.jmm.jasmin.JasminBackend;
 import pt.up.fe.comp.jmm.jasmin.JasminResult;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+import pt.up.fe.comp2025.instrumentation.StageProfiler;
 
 /**
  * Implementation of the Jasmin backend.
@@ -12,12 +14,10 @@ public class JasminBackendImpl implements JasminBackend {
     @Override
     public JasminResult toJasmin(OllirResult ollirResult) {
 
-        //System.out.println("Converting OLLIR to Jasmin:\n" + ollirResult.getOllirCode());
-
         var jasminGenerator = new JasminGenerator(ollirResult);
-        var jasminCode = jasminGenerator.build();
+        var jasminCode = StageProfiler.measure("build", jasminGenerator::build);
 
-        //System.out.println("Generated Jasmin:\n" + jasminCode);
+        Diagnostics.of(ollirResult.getConfig()).print(Diagnostics.Level.JASMIN, () -> "Jasmin:\n\n" + jasminCode);
 
         return new JasminResult(ollirResult, jasminCode, jasminGenerator.getReports());
     }
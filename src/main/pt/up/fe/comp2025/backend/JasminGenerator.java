@@ -3,6 +3,7 @@ package pt.up.fe.comp2025.backend;
 import org.specs.comp.ollir.*;
 import org.specs.comp.ollir.inst.*;
 import org.specs.comp.ollir.tree.TreeNode;
+import org.specs.comp.ollir.type.ArrayType;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.specs.util.classmap.FunctionClassMap;
@@ -312,7 +313,8 @@ public class JasminGenerator {
                 AssignInstruction assign = (AssignInstruction) instr;
                 if (assign.getDest() instanceof ArrayOperand) {
                     ArrayOperand arrayDest = (ArrayOperand) assign.getDest();
-                    return 2 + arrayDest.getIndexOperands().size();
+                    // The array and its indexes stay below the value
+                    return 1 + arrayDest.getIndexOperands().size() + calculateInstructionStackUsage(assign.getRhs());
                 }
                 return calculateInstructionStackUsage(assign.getRhs());
                 
@@ -394,21 +396,8 @@ public class JasminGenerator {
         if (assign.getDest() instanceof ArrayOperand) {
             ArrayOperand arrayDest = (ArrayOperand) assign.getDest();
 
-            // Load array reference directly using the array variable name
-            var arrayReg = currentMethod.getVarTable().get(arrayDest.getName());
-            
-            // Load the array reference
-            int arrayRegNum = arrayReg.getVirtualReg();
-            if (arrayRegNum <= 3) {
-                code.append("aload_").append(arrayRegNum).append(NL);
-            } else {
-                code.append("aload ").append(arrayRegNum).append(NL);
-            }
-
-            // Load indices
-            for (Element index : arrayDest.getIndexOperands()) {
-                code.append(apply((TreeNode) index));
-            }
+            // Load the array and the index
+            generateArrayIndex(arrayDest, code);
 
             // Load value to store
             code.append(apply(assign.getRhs()));
@@ -438,6 +427,16 @@ public class JasminGenerator {
         var typeCode = types.getJasminType(lhs.getType());
         int regNum = reg.getVirtualReg();
 
+        // x := y + c where y is in the register of x, also after register allocation coalesced a copy into it
+        if (typeCode.equals("I") && assign.getRhs() instanceof BinaryOpInstruction binaryOp) {
+            Integer increment = getIncrement(binaryOp, regNum);
+            if (increment != null) {
+                code.append("iinc ").append(regNum).append(" ").append(increment).append(NL);
+                return code.toString();
+            }
+        }
+
+        // i := tmp where tmp := i + c, when the two are in different registers
         if (typeCode.equals("I") && assign.getRhs() instanceof SingleOpInstruction) {
             SingleOpInstruction singleOp = (SingleOpInstruction) assign.getRhs();
             
@@ -540,22 +539,8 @@ public class JasminGenerator {
             ArrayOperand arrayOp = (ArrayOperand) operand;
             var code = new StringBuilder();
 
-            // Load array reference directly using the array variable name
-            var arrayReg = currentMethod.getVarTable().get(arrayOp.getName());
-            var arrayTypeCode = types.getJasminType(arrayOp.getType());
-            
-            // Load the array reference (always an object reference)
-            int arrayRegNum = arrayReg.getVirtualReg();
-            if (arrayRegNum <= 3) {
-                code.append("aload_").append(arrayRegNum).append(NL);
-            } else {
-                code.append("aload ").append(arrayRegNum).append(NL);
-            }
-
-            // Load indices
-            for (Element index : arrayOp.getIndexOperands()) {
-                code.append(apply((TreeNode) index));
-            }
+            // Load the array and the index
+            var declaredType = generateArrayIndex(arrayOp, code);
 
             // Load from array
             var elementType = types.getJasminType(operand.getType());
@@ -563,6 +548,7 @@ public class JasminGenerator {
                 code.append("iaload").append(NL);
             } else {
                 code.append("aaload").append(NL);
+                code.append(generateCast(declaredType, elementType));
             }
 
             return code.toString();
@@ -592,6 +578,66 @@ public class JasminGenerator {
         return loadInst + NL;
     }
 
+    /**
+     * Loads the array of the access and its last index. With more than one index, the arrays the access goes through
+     * are read first, and cast if the array they are read from declares a more general element, as the Object array
+     * that spilled references are kept in does.
+     *
+     * @return the type the array of the last index declares for its elements
+     */
+    private String generateArrayIndex(ArrayOperand access, StringBuilder code) {
+        var arrayReg = currentMethod.getVarTable().get(access.getName());
+
+        // Load the array reference (always an object reference)
+        int arrayRegNum = arrayReg.getVirtualReg();
+        if (arrayRegNum <= 3) {
+            code.append("aload_").append(arrayRegNum).append(NL);
+        } else {
+            code.append("aload ").append(arrayRegNum).append(NL);
+        }
+
+        var indexes = access.getIndexOperands();
+        var arrayType = types.getJasminType(arrayReg.getVarType());
+
+        // Booleans are kept in int arrays, as iaload and iastore only take those
+        var elementType = types.getJasminType(access.getType());
+        if (elementType.equals("Z")) {
+            elementType = "I";
+        }
+
+        for (int i = 0; i < indexes.size() - 1; i++) {
+            code.append(apply((TreeNode) indexes.get(i)));
+            code.append("aaload").append(NL);
+
+            // An array of the dimensions left, of the elements the access reads
+            var readType = "[".repeat(indexes.size() - 1 - i) + elementType;
+            code.append(generateCast(arrayType.substring(1), readType));
+            arrayType = readType;
+        }
+
+        code.append(apply((TreeNode) indexes.get(indexes.size() - 1)));
+
+        return arrayType.substring(1);
+    }
+
+    /**
+     * @return a checkcast from the declared type to the type the value is used as, nothing if they are the same
+     */
+    private String generateCast(String declaredType, String usedType) {
+        if (declaredType.equals(usedType)) {
+            return "";
+        }
+
+        return "checkcast " + toClassName(usedType) + NL;
+    }
+
+    /**
+     * @return the name of the class in a descriptor, arrays keep their descriptor
+     */
+    private static String toClassName(String descriptor) {
+        return descriptor.startsWith("L") ? descriptor.substring(1, descriptor.length() - 1) : descriptor;
+    }
+
     private String generateBinaryOp(BinaryOpInstruction binaryOp) {
         var code = new StringBuilder();
 
@@ -744,6 +790,11 @@ public class JasminGenerator {
     private String generateInvokeSpecial(InvokeSpecialInstruction invoke) {
         var code = new StringBuilder();
 
+        // The object was initialized where it was created, see generateNew
+        if (isObjectInit(invoke)) {
+            return code.toString();
+        }
+
         code.append(apply(invoke.getCaller()));
 
         // Load all method arguments
@@ -793,7 +844,7 @@ public class JasminGenerator {
         // Get the return type
         var returnType = newInst.getReturnType();
 
-        if (returnType.toString().endsWith("[]")) {
+        if (returnType instanceof ArrayType) {
             // This is array creation
             if (!newInst.getArguments().isEmpty()) {
                 // Load the array size
@@ -801,28 +852,38 @@ public class JasminGenerator {
             }
 
             // Generate appropriate newarray
-            String typeStr = returnType.toString();
-            if (typeStr.startsWith("INT32") || typeStr.contains("int")) {
+            String elementType = types.getJasminType(returnType).substring(1);
+            if (elementType.equals("I")) {
                 code.append("newarray int").append(NL);
-            } else if (typeStr.startsWith("BOOLEAN") || typeStr.contains("boolean")) {
+            } else if (elementType.equals("Z")) {
                 code.append("newarray boolean").append(NL);
             } else {
-                // For object arrays, extract the object type
-                String objType = types.getJasminType(returnType).replaceAll("\\[", "");
-                code.append("anewarray ").append(objType).append(NL);
+                code.append("anewarray ").append(toClassName(elementType)).append(NL);
             }
             
             return code.toString();
         }
         
-        // Regular object creation
-        String className = types.getJasminType(returnType).replaceAll("^L|;$", "");
+        // Regular object creation, initialized right away: an object that is not initialized cannot be stored in an
+        // array, where it would be if the variable it is assigned to was spilled
+        String className = toClassName(types.getJasminType(returnType));
         code.append("new ").append(className).append(NL);
         code.append("dup").append(NL); // Duplicate reference for constructor call
+        code.append("invokespecial ").append(className).append("/<init>()V").append(NL);
 
         return code.toString();
     }
 
+    /**
+     * @return true if the call initializes an object created with 'new', which Java-- only does without arguments
+     */
+    private static boolean isObjectInit(InvokeSpecialInstruction invoke) {
+        var methodName = ((LiteralElement) invoke.getMethodName()).getLiteral().replace("\"", "");
+        var isThis = invoke.getCaller() instanceof Operand caller && caller.getName().equals("this");
+
+        return methodName.equals("<init>") && !isThis && invoke.getArguments().isEmpty();
+    }
+
     private String generateCall(CallInstruction call) {
         if (call instanceof InvokeVirtualInstruction) {
             return generateInvokeVirtual((InvokeVirtualInstruction) call);
@@ -916,6 +977,50 @@ public class JasminGenerator {
         return code.toString();
     }
 
+    /**
+     * @return the constant the operation adds to the variable in the given register, null if it does not or the
+     * constant does not fit in an iinc
+     */
+    private Integer getIncrement(BinaryOpInstruction binaryOp, int regNum) {
+        var opType = binaryOp.getOperation().getOpType();
+        var left = binaryOp.getLeftOperand();
+        var right = binaryOp.getRightOperand();
+
+        Element constant;
+        if (isInRegister(left, regNum) && (opType == OperationType.ADD || opType == OperationType.SUB)) {
+            constant = right;
+        } else if (isInRegister(right, regNum) && opType == OperationType.ADD) {
+            constant = left;
+        } else {
+            return null;
+        }
+
+        if (!(constant instanceof LiteralElement literal)) {
+            return null;
+        }
+
+        int increment;
+        try {
+            increment = Integer.parseInt(literal.getLiteral());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (opType == OperationType.SUB) {
+            increment = -increment;
+        }
+
+        return increment >= -128 && increment <= 127 ? increment : null;
+    }
+
+    private boolean isInRegister(Element element, int regNum) {
+        if (!(element instanceof Operand operand) || operand instanceof ArrayOperand) {
+            return false;
+        }
+
+        var descriptor = currentMethod.getVarTable().get(operand.getName());
+        return descriptor != null && descriptor.getVirtualReg() == regNum;
+    }
+
     /**
      * Find the previous assignment that defined a temporary variable.
      * This is used for iinc optimization to detect patterns like:
@@ -0,0 +1,228 @@
+package pt.up.fe.comp2025.batch;
+
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.CompilationResult;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.JmmCompiler;
+import pt.up.fe.comp2025.OutputWriter;
+import pt.up.fe.comp2025.instrumentation.CompilationProfile;
+import pt.up.fe.comp2025.parser.JavammParserFactory;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compiles many files at the same time.
+ * <p>
+ * Each input goes through its own pipeline (read, parse, semantics, OLLIR, Jasmin) on a bounded pool of workers. The
+ * finished compilations are handed to a single writer thread, which writes the '.j' files and assembles them. Both
+ * hand-offs are bounded, so neither the submission of inputs nor the workers can run ahead of the next stage by more
+ * than one queue of files.
+ */
+public class BatchCompiler {
+
+    private static final String JMM_EXTENSION = ".jmm";
+    private static final String SUMMARY_FILE = "batch-summary.txt";
+
+    private final JmmCompiler compiler;
+    private final Map<String, String> config;
+    private final int threads;
+
+    public BatchCompiler(Map<String, String> config) {
+        this(new JmmCompiler(), config);
+    }
+
+    public BatchCompiler(JmmCompiler compiler, Map<String, String> config) {
+        this.compiler = compiler;
+        this.config = config;
+        this.threads = CompilerConfig.getThreads(config);
+    }
+
+    /**
+     * Compiles every input below the given folder or matching the given glob, mirroring the folder structure of the
+     * inputs in the output folder.
+     */
+    public BatchSummary compile(String inputs, File outputDir) {
+        var baseDir = getBaseDir(inputs);
+        var files = collectInputs(inputs, baseDir);
+
+        var summary = compile(files, baseDir, outputDir);
+        SpecsIo.write(new File(outputDir, SUMMARY_FILE), summary.format());
+        CompilerConfig.getProfileFile(config)
+                .ifPresent(profileFile -> SpecsIo.write(profileFile, CompilationProfile.toJson(summary.getProfiles())));
+
+        return summary;
+    }
+
+    public BatchSummary compile(List<File> files, File baseDir, File outputDir) {
+        var start = System.currentTimeMillis();
+
+        // Otherwise the first file of every thread is parsed with cold prediction caches
+        JavammParserFactory.warmUp();
+
+        BlockingQueue<Compiled> toWrite = new ArrayBlockingQueue<>(threads);
+        var entries = new ArrayList<BatchSummary.Entry>();
+        var writer = new Thread(() -> writeAll(files.size(), toWrite, outputDir, entries), "jmm-batch-writer");
+        // Must not keep the JVM alive if the batch fails before every file reaches it
+        writer.setDaemon(true);
+        writer.start();
+
+        // When every worker is busy and the queue is full, the submitting thread compiles the file itself
+        var workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        try {
+            for (var file : files) {
+                workers.execute(() -> {
+                    var compiled = compileFile(file, baseDir);
+                    try {
+                        toWrite.put(compiled);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            writer.join();
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch compilation was interrupted", e);
+        } finally {
+            // Only alive here if the batch failed, the writer would wait for files that never come
+            if (writer.isAlive()) {
+                workers.shutdownNow();
+                writer.interrupt();
+            }
+        }
+
+        return new BatchSummary(entries, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Never throws, every file must reach the writer, which waits for exactly one compilation per file.
+     */
+    private Compiled compileFile(File file, File baseDir) {
+        var relativePath = baseDir.toPath().relativize(file.toPath()).toString();
+
+        try {
+            var result = compiler.compile(file, CompilerConfig.withInputFile(config, file));
+            return new Compiled(relativePath, result, null);
+        } catch (Throwable e) {
+            // Errors too, such as a stack overflow in the visitors on a deeply nested input
+            var report = Report.newError(Stage.OTHER, -1, -1, "Could not compile file",
+                    e instanceof Exception exception ? exception : new RuntimeException(e));
+            return new Compiled(relativePath, null, report);
+        }
+    }
+
+    private static void writeAll(int count, BlockingQueue<Compiled> toWrite, File outputDir,
+                                 List<BatchSummary.Entry> entries) {
+        try {
+            for (int i = 0; i < count; i++) {
+                var compiled = toWrite.take();
+                entries.add(write(compiled, outputDir));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static BatchSummary.Entry write(Compiled compiled, File outputDir) {
+        if (compiled.result == null) {
+            return new BatchSummary.Entry(compiled.relativePath, List.of(compiled.error), List.of(), null);
+        }
+
+        var reports = compiled.result.getReports();
+        var profile = compiled.result.getProfile().orElse(null);
+
+        // Outputs keep the sub-folder of their input
+        var parent = new File(compiled.relativePath).getParentFile();
+        var fileOutputDir = parent == null ? outputDir : new File(outputDir, parent.getPath());
+
+        try {
+            return new BatchSummary.Entry(compiled.relativePath, reports,
+                    OutputWriter.write(compiled.result, fileOutputDir), profile);
+        } catch (RuntimeException e) {
+            var withError = new ArrayList<>(reports);
+            withError.add(Report.newError(Stage.OTHER, -1, -1, "Could not write output", e));
+            return new BatchSummary.Entry(compiled.relativePath, withError, List.of(), profile);
+        }
+    }
+
+    /**
+     * The folder itself, or for a glob, the folders before the first segment with a wildcard.
+     */
+    static File getBaseDir(String inputs) {
+        var inputsFile = new File(inputs);
+        if (inputsFile.isDirectory()) {
+            return inputsFile;
+        }
+
+        var inputsPath = Path.of(inputs);
+        var baseDir = inputsPath.getRoot();
+        for (var segment : inputsPath) {
+            if (isGlob(segment.toString())) {
+                break;
+            }
+
+            baseDir = baseDir == null ? segment : baseDir.resolve(segment);
+        }
+
+        return baseDir == null ? new File(".") : baseDir.toFile();
+    }
+
+    static List<File> collectInputs(String inputs, File baseDir) {
+        if (!baseDir.isDirectory()) {
+            throw new RuntimeException("Option '-b' expects a folder or a glob, could not find folder '" + baseDir
+                    + "'");
+        }
+
+        var isFolder = new File(inputs).isDirectory();
+        var matcher = FileSystems.getDefault().getPathMatcher("glob:" + Path.of(inputs).normalize());
+
+        try (Stream<Path> paths = Files.walk(baseDir.toPath())) {
+            return paths
+                    .filter(Files::isRegularFile)
+                    .filter(path -> isFolder ? path.toString().endsWith(JMM_EXTENSION) : matcher.matches(path.normalize()))
+                    .sorted()
+                    .map(Path::toFile)
+                    .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not list input files in '" + baseDir + "'", e);
+        }
+    }
+
+    private static boolean isGlob(String segment) {
+        return segment.chars().anyMatch(c -> c == '*' || c == '?' || c == '[' || c == '{');
+    }
+
+    private static class Compiled {
+
+        private final String relativePath;
+        private final CompilationResult result;
+        private final Report error;
+
+        private Compiled(String relativePath, CompilationResult result, Report error) {
+            this.relativePath = relativePath;
+            this.result = result;
+            this.error = error;
+        }
+    }
+}
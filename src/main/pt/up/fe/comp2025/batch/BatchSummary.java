@@ -0,0 +1,107 @@
+package pt.up.fe.comp2025.batch;
+
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp2025.instrumentation.CompilationProfile;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Outcome of a batch compilation, one entry per input file.
+ */
+public class BatchSummary {
+
+    public static class Entry {
+
+        private final String input;
+        private final List<Report> reports;
+        private final List<File> outputs;
+        private final CompilationProfile profile;
+
+        public Entry(String input, List<Report> reports, List<File> outputs, CompilationProfile profile) {
+            this.input = input;
+            this.reports = reports;
+            this.outputs = outputs;
+            this.profile = profile;
+        }
+
+        /**
+         * @return the path of the input, relative to the batch folder
+         */
+        public String getInput() {
+            return input;
+        }
+
+        public List<Report> getReports() {
+            return reports;
+        }
+
+        public List<File> getOutputs() {
+            return outputs;
+        }
+
+        public boolean isSuccess() {
+            return !outputs.isEmpty();
+        }
+
+        /**
+         * @return the profile of the compilation, or null if profiling was not enabled
+         */
+        public CompilationProfile getProfile() {
+            return profile;
+        }
+    }
+
+    private final List<Entry> entries;
+    private final long elapsedMillis;
+
+    public BatchSummary(List<Entry> entries, long elapsedMillis) {
+        this.entries = new ArrayList<>(entries);
+        this.entries.sort(Comparator.comparing(Entry::getInput));
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public List<CompilationProfile> getProfiles() {
+        return entries.stream().map(Entry::getProfile).filter(Objects::nonNull).toList();
+    }
+
+    public long getFailures() {
+        return entries.stream().filter(entry -> !entry.isSuccess()).count();
+    }
+
+    public String getTotals() {
+        return "Compiled " + (entries.size() - getFailures()) + " of " + entries.size() + " files in "
+                + elapsedMillis + " ms";
+    }
+
+    /**
+     * One block per input file, with its status and every report it generated.
+     */
+    public String format() {
+        var summary = new StringBuilder();
+
+        for (var entry : entries) {
+            var errors = entry.getReports().stream().filter(report -> report.getType() == ReportType.ERROR).count();
+            summary.append(entry.isSuccess() ? "OK     " : "FAILED ")
+                    .append(entry.getInput())
+                    .append(" (").append(errors).append(" errors, ")
+                    .append(entry.getReports().size()).append(" reports)\n");
+
+            for (var report : entry.getReports()) {
+                summary.append("    ").append(report).append("\n");
+            }
+        }
+
+        summary.append(getTotals()).append("\n");
+
+        return summary.toString();
+    }
+}
@@ -0,0 +1,195 @@
+package pt.up.fe.comp2025.cache;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp2025.CompilationResult;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.JmmCompiler;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTableSerializer;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of the artifacts of successful compilations (symbol table, OLLIR and Jasmin code).
+ * <p>
+ * Entries are keyed by a hash of the source code, of the options that change the generated code and of the compiler
+ * version. Each entry also records a hash of the imported classes that could be found next to the input, and is only
+ * used while those files are unchanged.
+ */
+public class ArtifactCache {
+
+    private static final String ENTRY_EXTENSION = ".json";
+    private static final String JMM_EXTENSION = ".jmm";
+    private static final String MISSING_IMPORT = "";
+
+    private static String compilerVersion;
+
+    private final File cacheDir;
+
+    public ArtifactCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * @return the cached artifacts of the given code, if they exist and its imports did not change
+     */
+    public Optional<CompilationResult> load(String code, Map<String, String> config) {
+        var entryFile = getEntryFile(code, config);
+        if (!entryFile.isFile()) {
+            return Optional.empty();
+        }
+
+        try {
+            var entry = JsonParser.parseString(SpecsIo.read(entryFile)).getAsJsonObject();
+
+            var imports = entry.getAsJsonObject("imports");
+            for (var importName : imports.keySet()) {
+                if (!imports.get(importName).getAsString().equals(hashImport(importName, config))) {
+                    return Optional.empty();
+                }
+            }
+
+            var symbolTable = JmmSymbolTableSerializer.fromJson(entry.get("symbolTable").toString());
+            var jasminResult = new JasminResult(entry.get("className").getAsString(),
+                    entry.get("jasmin").getAsString(), new ArrayList<>(), config);
+
+            return Optional.of(CompilationResult.fromCache(symbolTable, entry.get("ollir").getAsString(),
+                    jasminResult));
+        } catch (RuntimeException e) {
+            // A damaged entry is the same as a missing one, it is replaced after compiling
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the artifacts of a compilation. Only compilations without any report are stored, so that a cache hit
+     * never hides a warning.
+     */
+    public void store(String code, Map<String, String> config, CompilationResult result) {
+        if (!result.isSuccess() || !result.getReports().isEmpty()) {
+            return;
+        }
+
+        var symbolTable = result.getSymbolTable().orElseThrow();
+        var jasminResult = result.getJasminResult().orElseThrow();
+
+        var imports = new JsonObject();
+        for (var importName : symbolTable.getImports()) {
+            imports.addProperty(importName, hashImport(importName, config));
+        }
+
+        var entry = new JsonObject();
+        entry.addProperty("className", jasminResult.getClassName());
+        entry.add("imports", imports);
+        entry.add("symbolTable", JsonParser.parseString(JmmSymbolTableSerializer.toJson(symbolTable)));
+        entry.addProperty("ollir", result.getOllirCode().orElseThrow());
+        entry.addProperty("jasmin", jasminResult.getJasminCode());
+
+        // Write to a temporary file first, so that concurrent compilations never read a partial entry
+        var entryFile = getEntryFile(code, config);
+        try {
+            SpecsIo.mkdir(entryFile.getParentFile());
+            var tempFile = Files.createTempFile(entryFile.getParentFile().toPath(), entryFile.getName(), ".tmp");
+            Files.writeString(tempFile, entry.toString(), StandardCharsets.UTF_8);
+            Files.move(tempFile, entryFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write cache entry '" + entryFile + "'", e);
+        }
+    }
+
+    private File getEntryFile(String code, Map<String, String> config) {
+        var key = hash(getCompilerVersion(),
+                String.valueOf(CompilerConfig.getOptimize(config)),
+                String.valueOf(CompilerConfig.getRegisterAllocation(config)),
+                CompilerConfig.getRegisterAllocator(config).getOption(),
+                code);
+
+        // Spread the entries over sub-folders, to keep folders small
+        return new File(new File(cacheDir, key.substring(0, 2)), key + ENTRY_EXTENSION);
+    }
+
+    /**
+     * Imports are looked up next to the input file, either following the package ('a.b.C' as 'a/b/C.jmm') or by
+     * class name alone ('C.jmm'). Imports that are not found (e.g. library classes) hash to an empty string.
+     */
+    private static String hashImport(String importName, Map<String, String> config) {
+        var inputFile = CompilerConfig.getInputFile(config);
+        if (inputFile.isEmpty()) {
+            return MISSING_IMPORT;
+        }
+
+        var inputDir = inputFile.get().getAbsoluteFile().getParentFile();
+        var segments = importName.split("\\.");
+        var candidates = List.of(
+                new File(inputDir, String.join(File.separator, segments) + JMM_EXTENSION),
+                new File(inputDir, segments[segments.length - 1] + JMM_EXTENSION));
+
+        return candidates.stream()
+                .filter(File::isFile)
+                .findFirst()
+                .map(file -> hash(SpecsIo.read(file)))
+                .orElse(MISSING_IMPORT);
+    }
+
+    /**
+     * The version of the compiler jar, together with the time of the last build, so that rebuilding the compiler
+     * invalidates the cache.
+     */
+    static synchronized String getCompilerVersion() {
+        if (compilerVersion == null) {
+            var version = JmmCompiler.class.getPackage().getImplementationVersion();
+            compilerVersion = (version == null ? "dev" : version) + "@" + getBuildTime();
+        }
+
+        return compilerVersion;
+    }
+
+    private static long getBuildTime() {
+        try {
+            var location = Path.of(JmmCompiler.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (!Files.isDirectory(location)) {
+                return Files.getLastModifiedTime(location).toMillis();
+            }
+
+            // Running from a folder of classes, e.g. from the IDE or the tests
+            try (Stream<Path> files = Files.walk(location)) {
+                return files.mapToLong(file -> file.toFile().lastModified()).max().orElse(0);
+            }
+        } catch (URISyntaxException | IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static String hash(String... parts) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            for (var part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                // Separator, so that moving text from one part to the next changes the hash
+                digest.update((byte) 0);
+            }
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package pt.up.fe.comp2025.instrumentation;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wall time, CPU time and allocated bytes of every stage measured while compiling one input.
+ * <p>
+ * Stages nest, and each one is identified by its path (e.g. 'semantics/DuplicateCheck'). Stages are kept in the order
+ * they started.
+ */
+public class CompilationProfile {
+
+    public static class StageTiming {
+
+        private final String path;
+        private final int depth;
+        private final long wallNanos;
+        private final long cpuNanos;
+        private final long allocatedBytes;
+
+        StageTiming(String path, int depth, long wallNanos, long cpuNanos, long allocatedBytes) {
+            this.path = path;
+            this.depth = depth;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        /**
+         * @return the CPU time of the stage, or -1 if the JVM cannot measure it
+         */
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        /**
+         * @return the bytes allocated by the stage, or -1 if the JVM cannot measure it
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+
+    private final String input;
+    private final List<StageTiming> stages;
+
+    CompilationProfile(String input) {
+        this.input = input;
+        this.stages = new ArrayList<>();
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public List<StageTiming> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    void add(int index, StageTiming timing) {
+        stages.add(index, timing);
+    }
+
+    int size() {
+        return stages.size();
+    }
+
+    public JsonObject toJson() {
+        var json = new JsonObject();
+        json.addProperty("input", input);
+
+        var stagesJson = new JsonArray();
+        for (var stage : stages) {
+            var stageJson = new JsonObject();
+            stageJson.addProperty("stage", stage.getPath());
+            stageJson.addProperty("depth", stage.getDepth());
+            stageJson.addProperty("wallNanos", stage.getWallNanos());
+            stageJson.addProperty("cpuNanos", stage.getCpuNanos());
+            stageJson.addProperty("allocatedBytes", stage.getAllocatedBytes());
+            stagesJson.add(stageJson);
+        }
+        json.add("stages", stagesJson);
+
+        return json;
+    }
+
+    /**
+     * A JSON document with the profiles of several compilations.
+     */
+    public static String toJson(List<CompilationProfile> profiles) {
+        var compilations = new JsonArray();
+        profiles.forEach(profile -> compilations.add(profile.toJson()));
+
+        var json = new JsonObject();
+        json.add("compilations", compilations);
+
+        return json.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package pt.up.fe.comp2025.instrumentation;
+
+import pt.up.fe.comp2025.CompilerConfig;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Debug output of the compiler, such as the AST or the OLLIR code, enabled per level with the option
+ * '-v=ast,ollir,...' (see {@link CompilerConfig#getDiagnostics(Map)}).
+ * <p>
+ * Messages are given as suppliers, so that a disabled level costs a single check: the message, and whatever it takes
+ * to build it, is only computed when the level is enabled. Code that prints in a loop should check
+ * {@link #isEnabled(Level)} once instead.
+ */
+public class Diagnostics {
+
+    public enum Level {
+        AST("ast"),
+        SYMBOL_TABLE("symtab"),
+        OLLIR("ollir"),
+        JASMIN("jasmin"),
+        REGALLOC("regalloc"),
+        OPTIMIZER("opt");
+
+        private final String option;
+
+        Level(String option) {
+            this.option = option;
+        }
+
+        public String getOption() {
+            return option;
+        }
+
+        public static Level fromOption(String option) {
+            for (var level : values()) {
+                if (level.option.equals(option)) {
+                    return level;
+                }
+            }
+
+            throw new RuntimeException("Unrecognized diagnostics level '" + option + "', expected one of "
+                    + Arrays.stream(values()).map(Level::getOption).collect(Collectors.joining(", ")));
+        }
+    }
+
+    private static final Diagnostics NONE = new Diagnostics(Collections.emptySet(), null);
+
+    // Diagnostics by their enabled levels, so that there is at most one for each combination of levels
+    private static final Map<Set<Level>, Diagnostics> BY_LEVELS = new ConcurrentHashMap<>();
+
+    // Diagnostics of the compilation running on each thread, when it has its own (see using)
+    private static final ThreadLocal<Diagnostics> CURRENT = new ThreadLocal<>();
+
+    private final Set<Level> levels;
+    // Null for the standard output, looked up when printing since the diagnostics of a config are kept across runs
+    private final PrintStream out;
+
+    private Diagnostics(Set<Level> levels, PrintStream out) {
+        this.levels = levels;
+        this.out = out;
+    }
+
+    /**
+     * @return the diagnostics of the compilation running on the current thread, if it has its own, otherwise
+     * diagnostics with the levels enabled in the config, printed to the standard output
+     */
+    public static Diagnostics of(Map<String, String> config) {
+        var current = CURRENT.get();
+        if (current != null) {
+            return current;
+        }
+
+        var levels = CompilerConfig.getDiagnostics(config);
+        if (levels.isEmpty()) {
+            return NONE;
+        }
+
+        return BY_LEVELS.computeIfAbsent(levels, key -> new Diagnostics(key, null));
+    }
+
+    public static Diagnostics of(Set<Level> levels, PrintStream out) {
+        return new Diagnostics(levels.isEmpty() ? Collections.emptySet() : EnumSet.copyOf(levels), out);
+    }
+
+    /**
+     * Runs a compilation on the current thread with the given diagnostics, which every stage then gets from
+     * {@link #of(Map)} instead of the ones of its config, e.g. to print them to the client of a compile server.
+     */
+    public static <T> T using(Diagnostics diagnostics, Supplier<T> compilation) {
+        var previous = CURRENT.get();
+        CURRENT.set(diagnostics);
+        try {
+            return compilation.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * @return diagnostics with every level disabled
+     */
+    public static Diagnostics none() {
+        return NONE;
+    }
+
+    public boolean isEnabled(Level level) {
+        return levels.contains(level);
+    }
+
+    public void print(Level level, Supplier<String> message) {
+        if (levels.contains(level)) {
+            (out != null ? out : System.out).println(message.get());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package pt.up.fe.comp2025.instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one measured stage, so that compiler stages can be lined up with the samples of a recording.
+ */
+@Name("pt.up.fe.comp2025.Stage")
+@Label("Compiler Stage")
+@Category("Java-- Compiler")
+@Description("A stage of the Java-- compiler, as measured by the stage profiler")
+class StageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Input")
+    String input;
+}
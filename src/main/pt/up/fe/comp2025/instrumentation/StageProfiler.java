@@ -0,0 +1,133 @@
+package pt.up.fe.comp2025.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+/**
+ * Measures the stages of the compilation running on the current thread.
+ * <p>
+ * A compilation is profiled between {@link #start(String)} and {@link #stop()}. Stages call {@link #measure} wherever
+ * they are, and measurements outside of a profiled compilation run the stage without any bookkeeping. Every measured
+ * stage is also emitted as a JFR event.
+ */
+public class StageProfiler {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final ThreadLocal<StageProfiler> CURRENT = new ThreadLocal<>();
+
+    private final CompilationProfile profile;
+    private final Deque<String> openStages;
+
+    private StageProfiler(String input) {
+        this.profile = new CompilationProfile(input);
+        this.openStages = new ArrayDeque<>();
+    }
+
+    /**
+     * Starts profiling a compilation on the current thread.
+     */
+    public static void start(String input) {
+        CURRENT.set(new StageProfiler(input));
+    }
+
+    /**
+     * Stops profiling the compilation on the current thread.
+     *
+     * @return the stages measured since {@link #start(String)}
+     */
+    public static CompilationProfile stop() {
+        var profiler = CURRENT.get();
+        CURRENT.remove();
+
+        if (profiler == null) {
+            throw new IllegalStateException("No compilation is being profiled on this thread");
+        }
+
+        return profiler.profile;
+    }
+
+    /**
+     * @return true if a compilation is being profiled on the current thread
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Records a stage whose time was accumulated by the caller, e.g. a pass interleaved with other passes. Only the
+     * wall time is known for such stages.
+     */
+    public static void record(String stage, long wallNanos) {
+        var profiler = CURRENT.get();
+        if (profiler == null) {
+            return;
+        }
+
+        var openStages = profiler.openStages;
+        var path = openStages.isEmpty() ? stage : openStages.peek() + "/" + stage;
+        profiler.profile.add(profiler.profile.size(),
+                new CompilationProfile.StageTiming(path, openStages.size(), wallNanos, -1, -1));
+    }
+
+    public static void measure(String stage, Runnable action) {
+        measure(stage, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public static <T> T measure(String stage, Supplier<T> action) {
+        var profiler = CURRENT.get();
+        if (profiler == null) {
+            return action.get();
+        }
+
+        return profiler.measureStage(stage, action);
+    }
+
+    private <T> T measureStage(String stage, Supplier<T> action) {
+        var path = openStages.isEmpty() ? stage : openStages.peek() + "/" + stage;
+        var depth = openStages.size();
+        // Nested stages finish first, the stage is inserted before them to keep the start order
+        var index = profile.size();
+
+        var event = new StageEvent();
+        event.stage = path;
+        event.input = profile.getInput();
+        event.begin();
+
+        openStages.push(path);
+        var cpuStart = getCpuTime();
+        var allocatedStart = getAllocatedBytes();
+        var wallStart = System.nanoTime();
+
+        try {
+            return action.get();
+        } finally {
+            var wallNanos = System.nanoTime() - wallStart;
+            var cpuNanos = cpuStart < 0 ? -1 : getCpuTime() - cpuStart;
+            var allocatedBytes = allocatedStart < 0 ? -1 : getAllocatedBytes() - allocatedStart;
+            openStages.pop();
+
+            event.commit();
+            profile.add(index, new CompilationProfile.StageTiming(path, depth, wallNanos, cpuNanos, allocatedBytes));
+        }
+    }
+
+    private static long getCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long getAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean sunThreads
+                && sunThreads.isThreadAllocatedMemorySupported()) {
+            return sunThreads.getCurrentThreadAllocatedBytes();
+        }
+
+        return -1;
+    }
+}
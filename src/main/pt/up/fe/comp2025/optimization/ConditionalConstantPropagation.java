@@ -0,0 +1,453 @@
+package pt.up.fe.comp2025.optimization;
+
+import org.specs.comp.ollir.ArrayOperand;
+import org.specs.comp.ollir.Element;
+import org.specs.comp.ollir.LiteralElement;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.OperationType;
+import org.specs.comp.ollir.inst.AssignInstruction;
+import org.specs.comp.ollir.inst.BinaryOpInstruction;
+import org.specs.comp.ollir.inst.CallInstruction;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import org.specs.comp.ollir.inst.GotoInstruction;
+import org.specs.comp.ollir.inst.Instruction;
+import org.specs.comp.ollir.inst.PutFieldInstruction;
+import org.specs.comp.ollir.inst.ReturnInstruction;
+import org.specs.comp.ollir.inst.SingleOpInstruction;
+import org.specs.comp.ollir.inst.UnaryOpInstruction;
+import org.specs.comp.ollir.type.BuiltinKind;
+import org.specs.comp.ollir.type.BuiltinType;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+import pt.up.fe.comp2025.optimization.dataflow.DataflowSolver;
+import pt.up.fe.comp2025.optimization.dataflow.DataflowSolver.Direction;
+import pt.up.fe.comp2025.optimization.dataflow.Lattice;
+import pt.up.fe.comp2025.optimization.dataflow.OllirFlowGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static pt.up.fe.comp2025.instrumentation.Diagnostics.Level.OPTIMIZER;
+
+/**
+ * Conditional constant propagation of an OLLIR method, in the style of Wegman and Zadeck.
+ * <p>
+ * Reachability and the values of the variables are found together: the facts of an instruction are either
+ * unreachable or the values of the int and boolean variables, and a branch whose condition is a constant only lets
+ * the facts flow along the edge it takes. Values in loops start as the constants assigned before the loop and only
+ * become unknown if the loop assigns them something else, and code behind branches that are never taken does not
+ * spoil the values after it.
+ * <p>
+ * The method is then rewritten: uses of constant variables become literals, operations on constants become copies of
+ * literals, branches with a constant condition become gotos or are removed, and unreachable instructions are removed.
+ * <p>
+ * This is the dense form of the analysis, one value per variable and instruction. The sparse form needs the method in
+ * SSA form.
+ */
+public class ConditionalConstantPropagation {
+
+    // Value of a variable that may hold different values
+    private static final Object NOT_CONSTANT = new Object() {
+        @Override
+        public String toString() {
+            return "NAC";
+        }
+    };
+
+    private final Method method;
+    private final Diagnostics diagnostics;
+    private final OllirFlowGraph graph;
+
+    // Tracked variable -> index in the facts
+    private final Map<String, Integer> variables;
+
+    private boolean replacedOperands;
+
+    public ConditionalConstantPropagation(Method method, Diagnostics diagnostics) {
+        this.method = method;
+        this.diagnostics = diagnostics;
+        this.graph = OllirFlowGraph.build(method);
+        this.variables = new HashMap<>();
+
+        for (var entry : method.getVarTable().entrySet()) {
+            var type = entry.getValue().getVarType();
+            if (!entry.getKey().equals("this")
+                    && (BuiltinType.is(type, BuiltinKind.INT32) || BuiltinType.is(type, BuiltinKind.BOOLEAN))) {
+                variables.put(entry.getKey(), variables.size());
+            }
+        }
+    }
+
+    /**
+     * @return true if the method changed
+     */
+    public boolean apply() {
+        var lattice = new ValuesLattice();
+
+        // Parameters are not known, and the locals are not assumed to start at zero
+        var entry = new Object[variables.size()];
+        Arrays.fill(entry, NOT_CONSTANT);
+
+        var solver = new DataflowSolver<>(graph, Direction.FORWARD, lattice, new Values(entry), this::transfer,
+                this::transferEdge).solve();
+
+        diagnostics.print(OPTIMIZER, () -> "Conditional constant propagation of " + method.getMethodName()
+                + " solved " + graph.getNumBlocks() + " instructions with " + solver.getTransferCount()
+                + " instruction visits");
+
+        return rewrite(solver);
+    }
+
+    private Values transfer(int block, Values input) {
+        if (input.isUnreachable() || !graph.isInstruction(block)) {
+            return input;
+        }
+
+        if (!(graph.getInstruction(block) instanceof AssignInstruction assign)) {
+            return input;
+        }
+
+        var index = getTrackedIndex(assign.getDest());
+        if (index == null) {
+            return input;
+        }
+
+        var values = input.copy();
+        values[index] = evaluate(assign.getRhs(), input.values);
+        return new Values(values);
+    }
+
+    /**
+     * Facts only flow along the edges of a branch its condition can take.
+     */
+    private Values transferEdge(int from, int to, Values output) {
+        if (output.isUnreachable() || !graph.isInstruction(from)
+                || !(graph.getInstruction(from) instanceof CondBranchInstruction branch)) {
+            return output;
+        }
+
+        // Both edges go to the same instruction
+        if (graph.getTarget(from) == graph.getFallthrough(from)) {
+            return output;
+        }
+
+        var condition = evaluate(branch.getCondition(), output.values);
+        if (!(condition instanceof Integer value)) {
+            return output;
+        }
+
+        var taken = value != 0 ? graph.getTarget(from) : graph.getFallthrough(from);
+        return to == taken ? output : Values.UNREACHABLE;
+    }
+
+    /**
+     * @return the value of the right-hand side of an assignment or of a condition: a constant or {@link #NOT_CONSTANT}
+     */
+    private Object evaluate(Instruction inst, Object[] values) {
+        if (inst instanceof SingleOpInstruction singleOp) {
+            return evaluate(singleOp.getSingleOperand(), values);
+        }
+
+        if (inst instanceof BinaryOpInstruction binaryOp) {
+            return fold(binaryOp.getOperation().getOpType(), evaluate(binaryOp.getLeftOperand(), values),
+                    evaluate(binaryOp.getRightOperand(), values));
+        }
+
+        if (inst instanceof UnaryOpInstruction unaryOp
+                && unaryOp.getOperation().getOpType() == OperationType.NOTB
+                && evaluate(unaryOp.getOperand(), values) instanceof Integer operand) {
+            return operand == 0 ? 1 : 0;
+        }
+
+        return NOT_CONSTANT;
+    }
+
+    private Object evaluate(Element element, Object[] values) {
+        if (element instanceof LiteralElement literal) {
+            if (!BuiltinType.is(literal.getType(), BuiltinKind.INT32)
+                    && !BuiltinType.is(literal.getType(), BuiltinKind.BOOLEAN)) {
+                return NOT_CONSTANT;
+            }
+
+            try {
+                return Integer.parseInt(literal.getLiteral());
+            } catch (NumberFormatException e) {
+                return NOT_CONSTANT;
+            }
+        }
+
+        var index = getTrackedIndex(element);
+        return index != null ? values[index] : NOT_CONSTANT;
+    }
+
+    private static Object fold(OperationType op, Object left, Object right) {
+        // Boolean operations with an operand that decides the result
+        if (op == OperationType.ANDB && (Integer.valueOf(0).equals(left) || Integer.valueOf(0).equals(right))) {
+            return 0;
+        }
+        if (op == OperationType.ORB && (Integer.valueOf(1).equals(left) || Integer.valueOf(1).equals(right))) {
+            return 1;
+        }
+
+        if (!(left instanceof Integer lhs) || !(right instanceof Integer rhs)) {
+            return NOT_CONSTANT;
+        }
+
+        int l = lhs;
+        int r = rhs;
+        return switch (op) {
+            case ADD -> l + r;
+            case SUB -> l - r;
+            case MUL -> l * r;
+            case DIV -> r != 0 ? l / r : NOT_CONSTANT;
+            case REM -> r != 0 ? l % r : NOT_CONSTANT;
+            case SHL -> l << r;
+            case SHR -> l >> r;
+            case SHRR -> l >>> r;
+            case AND, ANDB -> l & r;
+            case OR, ORB -> l | r;
+            case XOR -> l ^ r;
+            case LTH -> l < r ? 1 : 0;
+            case GTH -> l > r ? 1 : 0;
+            case LTE -> l <= r ? 1 : 0;
+            case GTE -> l >= r ? 1 : 0;
+            case EQ -> l == r ? 1 : 0;
+            case NEQ -> l != r ? 1 : 0;
+            default -> NOT_CONSTANT;
+        };
+    }
+
+    private Integer getTrackedIndex(Element element) {
+        // Elements of arrays are not tracked, only the variables themselves
+        if (!(element instanceof Operand operand) || element instanceof ArrayOperand) {
+            return null;
+        }
+
+        return variables.get(operand.getName());
+    }
+
+    /**
+     * Rewrites the instructions with the facts found, keeping the labels on the instructions that replace them.
+     */
+    private boolean rewrite(DataflowSolver<Values> solver) {
+        var instructions = method.getInstructions();
+        var rewritten = new ArrayList<Instruction>(instructions.size());
+
+        // Instruction -> its replacement, null if removed
+        var replacements = new IdentityHashMap<Instruction, Instruction>();
+
+        for (int block = 0; block < instructions.size(); block++) {
+            var inst = instructions.get(block);
+            var facts = solver.getIn(block);
+
+            Instruction replacement;
+            if (facts.isUnreachable()) {
+                replacement = null;
+                diagnostics.print(OPTIMIZER, () -> "Removing unreachable instruction: " + inst);
+            } else {
+                replacement = rewrite(inst, block, facts.values);
+            }
+
+            if (replacement != inst) {
+                replacements.put(inst, replacement);
+            }
+            if (replacement != null) {
+                rewritten.add(replacement);
+            }
+        }
+
+        if (replacements.isEmpty() && !replacedOperands) {
+            return false;
+        }
+
+        moveLabels(replacements);
+
+        instructions.clear();
+        instructions.addAll(rewritten);
+        return true;
+    }
+
+    /**
+     * @return the instruction that takes the place of the given one, null to remove it
+     */
+    private Instruction rewrite(Instruction inst, int block, Object[] values) {
+        if (inst instanceof CondBranchInstruction branch) {
+            var condition = evaluate(branch.getCondition(), values);
+            if (condition instanceof Integer value) {
+                diagnostics.print(OPTIMIZER, () -> "Branch to " + branch.getLabel() + " is "
+                        + (value != 0 ? "always" : "never") + " taken");
+                return value != 0 ? new GotoInstruction(branch.getLabel()) : null;
+            }
+
+            replaceOperands(branch.getCondition(), values);
+            return inst;
+        }
+
+        if (inst instanceof AssignInstruction assign) {
+            var dest = assign.getDest();
+            if (dest instanceof ArrayOperand arrayDest) {
+                replaceAll(arrayDest.getIndexOperands(), values);
+            }
+
+            var rhs = assign.getRhs();
+            if (rhs instanceof BinaryOpInstruction || rhs instanceof UnaryOpInstruction) {
+                if (evaluate(rhs, values) instanceof Integer value) {
+                    var literal = new LiteralElement(value.toString(), assign.getTypeOfAssign());
+                    diagnostics.print(OPTIMIZER, () -> "Folding: " + rhs + " -> " + value);
+                    return new AssignInstruction(dest, assign.getTypeOfAssign(), new SingleOpInstruction(literal));
+                }
+            }
+
+            replaceOperands(rhs, values);
+            return inst;
+        }
+
+        replaceOperands(inst, values);
+        return inst;
+    }
+
+    private void replaceOperands(Instruction inst, Object[] values) {
+        if (inst instanceof SingleOpInstruction singleOp) {
+            var operand = singleOp.getSingleOperand();
+            if (operand instanceof ArrayOperand arrayOperand) {
+                replaceAll(arrayOperand.getIndexOperands(), values);
+            } else {
+                singleOp.setSingleOperand(replace(operand, values));
+            }
+        } else if (inst instanceof BinaryOpInstruction binaryOp) {
+            binaryOp.setLeftOperand(replace(binaryOp.getLeftOperand(), values));
+            binaryOp.setRightOperand(replace(binaryOp.getRightOperand(), values));
+        } else if (inst instanceof UnaryOpInstruction unaryOp) {
+            unaryOp.setOperand(replace(unaryOp.getOperand(), values));
+        } else if (inst instanceof ReturnInstruction returnInst) {
+            returnInst.getOperand().ifPresent(operand -> returnInst.setOperand(replace(operand, values)));
+        } else if (inst instanceof CallInstruction call) {
+            replaceAll(call.getArguments(), values);
+        } else if (inst instanceof PutFieldInstruction putField) {
+            var operands = new ArrayList<>(putField.getOperands());
+            operands.set(2, replace(operands.get(2), values));
+            putField.setOperands(operands);
+        }
+    }
+
+    private void replaceAll(List<Element> elements, Object[] values) {
+        for (int i = 0; i < elements.size(); i++) {
+            var element = elements.get(i);
+            var replacement = replace(element, values);
+            if (replacement != element) {
+                elements.set(i, replacement);
+            }
+        }
+    }
+
+    /**
+     * @return a literal if the element is a variable with a constant value, the element otherwise
+     */
+    private Element replace(Element element, Object[] values) {
+        var index = getTrackedIndex(element);
+        if (index == null || !(values[index] instanceof Integer value)) {
+            return element;
+        }
+
+        diagnostics.print(OPTIMIZER, () -> "Propagating constant: " + ((Operand) element).getName() + " -> " + value);
+        replacedOperands = true;
+        return new LiteralElement(value.toString(), element.getType());
+    }
+
+    /**
+     * Moves the labels of the replaced instructions to their replacements, and the labels of the removed ones to the
+     * next instruction that is kept.
+     */
+    private void moveLabels(Map<Instruction, Instruction> replacements) {
+        var labels = method.getLabels();
+
+        for (var entry : labels.entrySet()) {
+            var inst = entry.getValue();
+            if (!replacements.containsKey(inst)) {
+                continue;
+            }
+
+            var replacement = replacements.get(inst);
+            for (int next = indexOf(inst) + 1; replacement == null && next < graph.getExit(); next++) {
+                var nextInst = graph.getInstruction(next);
+                replacement = replacements.containsKey(nextInst) ? replacements.get(nextInst) : nextInst;
+            }
+
+            entry.setValue(replacement);
+        }
+
+        // Labels after the last instruction that is kept
+        labels.values().removeIf(inst -> inst == null);
+    }
+
+    private int indexOf(Instruction inst) {
+        for (int block = 0; block < graph.getExit(); block++) {
+            if (graph.getInstruction(block) == inst) {
+                return block;
+            }
+        }
+
+        throw new RuntimeException("Instruction is not in method " + method.getMethodName() + ": " + inst);
+    }
+
+    /**
+     * Values of the tracked variables at an instruction, or unreachable.
+     */
+    private static class Values {
+        private static final Values UNREACHABLE = new Values(null);
+
+        private final Object[] values;
+
+        private Values(Object[] values) {
+            this.values = values;
+        }
+
+        private boolean isUnreachable() {
+            return values == null;
+        }
+
+        private Object[] copy() {
+            return values.clone();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Values other && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+
+    private static class ValuesLattice implements Lattice<Values> {
+
+        @Override
+        public Values top() {
+            return Values.UNREACHABLE;
+        }
+
+        @Override
+        public Values meet(Values left, Values right) {
+            if (left.isUnreachable()) {
+                return right;
+            }
+
+            if (right.isUnreachable()) {
+                return left;
+            }
+
+            var values = new Object[left.values.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = left.values[i].equals(right.values[i]) ? left.values[i] : NOT_CONSTANT;
+            }
+
+            return new Values(values);
+        }
+    }
+}
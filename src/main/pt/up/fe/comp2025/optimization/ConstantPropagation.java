@@ -0,0 +1,364 @@
+package pt.up.fe.comp2025.optimization;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+import pt.up.fe.comp2025.optimization.dataflow.AstFlowGraph;
+import pt.up.fe.comp2025.optimization.dataflow.DataflowSolver;
+import pt.up.fe.comp2025.optimization.dataflow.DataflowSolver.Direction;
+import pt.up.fe.comp2025.optimization.dataflow.Lattice;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static pt.up.fe.comp2025.ast.Kind.*;
+import static pt.up.fe.comp2025.instrumentation.Diagnostics.Level.OPTIMIZER;
+
+/**
+ * Constant propagation and folding of a method, as a forward analysis on the {@link DataflowSolver}.
+ * <p>
+ * The facts are the values of the local variables and parameters of the method: unknown yet, a constant, or not a
+ * constant. The transfer function evaluates the expressions of a block, folding the operations on constants, so the
+ * facts already account for everything folding finds and a single solve reaches the fixed point. Each block is then
+ * rewritten once, replacing the uses of constant variables and the constant expressions with literals.
+ * <p>
+ * Fields are not tracked. Variables changed by '++', '--' or compound assignments are not constants from then on.
+ */
+public class ConstantPropagation {
+
+    // Value of a variable that may hold different values
+    private static final Object NOT_CONSTANT = new Object() {
+        @Override
+        public String toString() {
+            return "NAC";
+        }
+    };
+
+    private static final Set<String> COMPOUND_ASSIGNMENTS = Set.of("+=", "-=", "*=", "/=");
+
+    private final SymbolTable table;
+    private final Diagnostics diagnostics;
+    private final AstFlowGraph graph;
+
+    // Tracked variable -> index in the facts
+    private final Map<String, Integer> variables;
+
+    private boolean changed;
+
+    public ConstantPropagation(JmmNode methodDecl, SymbolTable table, Diagnostics diagnostics) {
+        this.table = table;
+        this.diagnostics = diagnostics;
+        this.graph = AstFlowGraph.build(methodDecl);
+        this.variables = new HashMap<>();
+
+        for (var child : methodDecl.getChildren()) {
+            if (PARAM.check(child) || VAR_DECL.check(child)) {
+                variables.putIfAbsent(child.get("name"), variables.size());
+            }
+        }
+    }
+
+    /**
+     * @return true if the method changed
+     */
+    public boolean apply() {
+        // Nothing is known at the entry, not even the zero locals are initialized with
+        var entry = new Object[variables.size()];
+        Arrays.fill(entry, NOT_CONSTANT);
+
+        var solver = new DataflowSolver<>(graph, Direction.FORWARD, new ValuesLattice(variables.size()),
+                new Values(entry), this::transfer).solve();
+
+        diagnostics.print(OPTIMIZER, () -> "Constant propagation solved " + graph.getNumBlocks() + " blocks with "
+                + solver.getTransferCount() + " block visits");
+
+        for (int block = 0; block < graph.getNumBlocks(); block++) {
+            var values = solver.getIn(block).copy();
+            for (var element : graph.getElements(block)) {
+                evaluateElement(element, values, true);
+            }
+        }
+
+        return changed;
+    }
+
+    private Values transfer(int block, Values input) {
+        var values = input.copy();
+        for (var element : graph.getElements(block)) {
+            evaluateElement(element, values, false);
+        }
+
+        return new Values(values);
+    }
+
+    /**
+     * Evaluates a statement or a condition, updating the values of the variables it assigns.
+     *
+     * @param rewrite if true, replaces the constant expressions with literals
+     */
+    private void evaluateElement(JmmNode element, Object[] values, boolean rewrite) {
+        if (EXPR.check(element)) {
+            evaluate(element, values, rewrite);
+            return;
+        }
+
+        if (Kind.of(element) != ASSIGN_STMT) {
+            evaluateChildren(element, values, rewrite);
+            return;
+        }
+
+        var lhs = element.getChild(0);
+        if (Kind.of(lhs) != VAR_REF_EXPR) {
+            evaluateChildren(element, values, rewrite);
+            return;
+        }
+
+        var value = evaluate(element.getChild(1), values, rewrite);
+
+        var index = variables.get(lhs.get("value"));
+        if (index != null) {
+            values[index] = value;
+        }
+    }
+
+    /**
+     * @return the value of the expression: null if unknown yet, a constant, or {@link #NOT_CONSTANT}. Expressions
+     * with a constant value have no side effects.
+     */
+    private Object evaluate(JmmNode expr, Object[] values, boolean rewrite) {
+        var kind = Kind.of(expr);
+        if (kind == null) {
+            evaluateChildren(expr, values, rewrite);
+            return NOT_CONSTANT;
+        }
+
+        Object value;
+        switch (kind) {
+            case INTEGER_LITERAL:
+                return parseInteger(expr.get("value"));
+            case BOOLEAN_TRUE:
+                return true;
+            case BOOLEAN_FALSE:
+                return false;
+            case VAR_REF_EXPR:
+                var index = variables.get(expr.get("value"));
+                value = index != null ? values[index] : NOT_CONSTANT;
+                break;
+            case PARENTHESIZED_EXPR:
+                value = evaluate(expr.getChild(0), values, rewrite);
+                break;
+            case UNARY_EXPR:
+                var operand = evaluate(expr.getChild(0), values, rewrite);
+                value = operand instanceof Boolean bool && expr.get("op").equals("!") ? !bool : join(operand);
+                break;
+            case BINARY_EXPR:
+                if (COMPOUND_ASSIGNMENTS.contains(expr.get("op"))) {
+                    evaluateCompoundAssignment(expr, values, rewrite);
+                    return NOT_CONSTANT;
+                }
+
+                var left = evaluate(expr.getChild(0), values, rewrite);
+                var right = evaluate(expr.getChild(1), values, rewrite);
+                value = fold(expr.get("op"), left, right);
+                break;
+            case POSTFIX_EXPR:
+                kill(expr.get("value"), values);
+                return NOT_CONSTANT;
+            default:
+                evaluateChildren(expr, values, rewrite);
+                return NOT_CONSTANT;
+        }
+
+        if (rewrite && (value instanceof Integer || value instanceof Boolean)) {
+            replace(expr, value);
+        }
+
+        return value;
+    }
+
+    private void evaluateCompoundAssignment(JmmNode expr, Object[] values, boolean rewrite) {
+        var lhs = expr.getChild(0);
+        if (Kind.of(lhs) != VAR_REF_EXPR) {
+            evaluate(lhs, values, rewrite);
+        }
+
+        evaluate(expr.getChild(1), values, rewrite);
+
+        if (Kind.of(lhs) == VAR_REF_EXPR) {
+            kill(lhs.get("value"), values);
+        }
+    }
+
+    private void evaluateChildren(JmmNode node, Object[] values, boolean rewrite) {
+        // Copy, rewriting replaces children
+        for (var child : node.getChildren().toArray(JmmNode[]::new)) {
+            evaluate(child, values, rewrite);
+        }
+    }
+
+    private void kill(String variable, Object[] values) {
+        var index = variables.get(variable);
+        if (index != null) {
+            values[index] = NOT_CONSTANT;
+        }
+    }
+
+    private static Object parseInteger(String literal) {
+        try {
+            return Integer.parseInt(literal);
+        } catch (NumberFormatException e) {
+            return NOT_CONSTANT;
+        }
+    }
+
+    /**
+     * Value of an operation whose operands are not both constants: unknown if an operand is unknown.
+     */
+    private static Object join(Object... operands) {
+        for (var operand : operands) {
+            if (operand == NOT_CONSTANT) {
+                return NOT_CONSTANT;
+            }
+        }
+
+        for (var operand : operands) {
+            if (operand == null) {
+                return null;
+            }
+        }
+
+        return NOT_CONSTANT;
+    }
+
+    private static Object fold(String op, Object left, Object right) {
+        // The right operand is not evaluated
+        if (left instanceof Boolean bool && (op.equals("&&") && !bool || op.equals("||") && bool)) {
+            return bool;
+        }
+
+        if (left instanceof Integer lhs && right instanceof Integer rhs) {
+            return switch (op) {
+                case "+" -> lhs + rhs;
+                case "-" -> lhs - rhs;
+                case "*" -> lhs * rhs;
+                case "/" -> rhs != 0 ? lhs / rhs : NOT_CONSTANT;
+                case "<" -> lhs < rhs;
+                case ">" -> lhs > rhs;
+                case "<=" -> lhs <= rhs;
+                case ">=" -> lhs >= rhs;
+                case "==" -> lhs.intValue() == rhs.intValue();
+                case "!=" -> lhs.intValue() != rhs.intValue();
+                default -> NOT_CONSTANT;
+            };
+        }
+
+        if (left instanceof Boolean lhs && right instanceof Boolean rhs) {
+            return switch (op) {
+                case "&&" -> lhs && rhs;
+                case "||" -> lhs || rhs;
+                case "==" -> lhs.booleanValue() == rhs.booleanValue();
+                case "!=" -> lhs.booleanValue() != rhs.booleanValue();
+                default -> NOT_CONSTANT;
+            };
+        }
+
+        return join(left, right);
+    }
+
+    /**
+     * Replaces the expression with a literal, forgetting the types computed for it and for the expressions that
+     * contain it.
+     */
+    private void replace(JmmNode expr, Object value) {
+        JmmNode literal;
+        if (value instanceof Boolean bool) {
+            literal = new JmmNodeImpl((bool ? BOOLEAN_TRUE : BOOLEAN_FALSE).getHierarchy());
+        } else {
+            literal = new JmmNodeImpl(INTEGER_LITERAL.getHierarchy());
+        }
+        literal.put("value", value.toString());
+
+        if (Kind.of(expr) == VAR_REF_EXPR) {
+            diagnostics.print(OPTIMIZER, () -> "Propagating constant: " + expr.get("value") + " -> " + value);
+        } else {
+            diagnostics.print(OPTIMIZER, () -> "Folding: " + expr.getKind() + " at line " + expr.getLine()
+                    + " -> " + value);
+        }
+
+        if (table instanceof JmmSymbolTable jmmTable) {
+            jmmTable.getExprTypes().invalidate(expr);
+        }
+        expr.replace(literal);
+        changed = true;
+    }
+
+    /**
+     * Values of the tracked variables at a point of the method.
+     */
+    private static class Values {
+        private final Object[] values;
+
+        private Values(Object[] values) {
+            this.values = values;
+        }
+
+        private Object[] copy() {
+            return values.clone();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Values other && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+
+    private static class ValuesLattice implements Lattice<Values> {
+        private final Values top;
+
+        private ValuesLattice(int numVariables) {
+            this.top = new Values(new Object[numVariables]);
+        }
+
+        @Override
+        public Values top() {
+            return top;
+        }
+
+        @Override
+        public Values meet(Values left, Values right) {
+            if (left == top) {
+                return right;
+            }
+
+            if (right == top) {
+                return left;
+            }
+
+            var values = new Object[left.values.length];
+            for (int i = 0; i < values.length; i++) {
+                var leftValue = left.values[i];
+                var rightValue = right.values[i];
+
+                if (leftValue == null) {
+                    values[i] = rightValue;
+                } else if (rightValue == null || leftValue.equals(rightValue)) {
+                    values[i] = leftValue;
+                } else {
+                    values[i] = NOT_CONSTANT;
+                }
+            }
+
+            return new Values(values);
+        }
+    }
+}
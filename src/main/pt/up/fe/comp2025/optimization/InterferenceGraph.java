@@ -0,0 +1,230 @@
+package pt.up.fe.comp2025.optimization;
+
+import pt.up.fe.comp2025.optimization.dataflow.DataflowSolver.Direction;
+import pt.up.fe.comp2025.optimization.dataflow.LiveVariables;
+import pt.up.fe.comp2025.optimization.dataflow.ReversePostorder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Variables that cannot share a register because both hold a value that is still needed at the same time.
+ * <p>
+ * Variables are nodes numbered from 0. Edges are kept twice: in a triangular bit matrix, one bit per pair of nodes, to
+ * tell in constant time whether two nodes interfere, and in an array of neighbors per node, to visit them. The copies
+ * between nodes are kept too, as candidates to share a register.
+ */
+public class InterferenceGraph {
+
+    private final List<String> names;
+    private final Map<String, Integer> nodes;
+
+    // Bit a * (a - 1) / 2 + b tells whether a and b interfere, for a > b
+    private final long[] matrix;
+
+    private final int[][] neighbors;
+    private final int[] degrees;
+
+    // Destination and source of each copy between nodes
+    private final List<int[]> moves;
+
+    public InterferenceGraph(List<String> names) {
+        this.names = new ArrayList<>(names);
+        this.nodes = new HashMap<>();
+        for (int node = 0; node < names.size(); node++) {
+            nodes.put(names.get(node), node);
+        }
+
+        var numNodes = (long) names.size();
+        this.matrix = new long[(int) ((numNodes * (numNodes - 1) / 2 + 63) / 64)];
+        this.neighbors = new int[names.size()][];
+        this.degrees = new int[names.size()];
+        Arrays.fill(neighbors, new int[0]);
+        this.moves = new ArrayList<>();
+    }
+
+    /**
+     * Builds the graph of the given variables: a variable assigned interferes with every variable live after the
+     * assignment, and variables live together where the method starts interfere with each other. Any two variables
+     * live at the same time are then connected, the last of them assigned before that point interferes with the
+     * others.
+     * <p>
+     * A copy does not make its destination interfere with its source, both hold the same value until one of them is
+     * assigned again (Chaitin).
+     * <p>
+     * Instructions the entry does not reach have no assignment before them to rely on, all the variables assigned
+     * or live after each of them interfere with each other.
+     */
+    public static InterferenceGraph build(LiveVariables liveness, List<String> variables) {
+        var graph = new InterferenceGraph(variables);
+
+        // Node of each variable of the liveness, -1 if it is not in the graph
+        var nodeOf = new int[liveness.getVariables().size()];
+        Arrays.fill(nodeOf, -1);
+        for (int node = 0; node < variables.size(); node++) {
+            var id = liveness.getId(variables.get(node));
+            if (id >= 0) {
+                nodeOf[id] = node;
+            }
+        }
+
+        var blocks = liveness.getGraph();
+        var reached = new BitSet(blocks.getNumBlocks());
+        for (var block : ReversePostorder.compute(blocks, Direction.FORWARD)) {
+            reached.set(block);
+        }
+
+        var live = new int[variables.size() + 1];
+        for (int block = 0; block < blocks.getExit(); block++) {
+            var isReached = reached.get(block);
+
+            liveness.forEachInstruction(block, (instruction, liveIn, liveOut) -> {
+                var numLive = toNodes(liveOut, nodeOf, live);
+
+                var definition = liveness.getDefinition(instruction);
+                var defined = definition >= 0 ? nodeOf[definition] : -1;
+
+                var copySource = liveness.getCopySource(instruction);
+                var copied = copySource >= 0 ? nodeOf[copySource] : -1;
+                if (defined >= 0 && copied >= 0 && defined != copied) {
+                    graph.moves.add(new int[]{defined, copied});
+                }
+
+                if (isReached) {
+                    if (defined >= 0) {
+                        for (int i = 0; i < numLive; i++) {
+                            if (live[i] != copied) {
+                                graph.addEdge(defined, live[i]);
+                            }
+                        }
+                    }
+                    return;
+                }
+
+                if (defined >= 0) {
+                    live[numLive++] = defined;
+                }
+                graph.addEdges(live, numLive);
+            });
+        }
+
+        var entry = blocks.getSuccessors(blocks.getEntry())[0];
+        graph.addEdges(live, toNodes(liveness.getIn(entry), nodeOf, live));
+
+        return graph;
+    }
+
+    private static int toNodes(long[] set, int[] nodeOf, int[] result) {
+        var count = 0;
+        for (int variable = LiveVariables.nextVariable(set, 0); variable >= 0;
+             variable = LiveVariables.nextVariable(set, variable + 1)) {
+            if (nodeOf[variable] >= 0) {
+                result[count++] = nodeOf[variable];
+            }
+        }
+        return count;
+    }
+
+    public int getNumNodes() {
+        return names.size();
+    }
+
+    public String getName(int node) {
+        return names.get(node);
+    }
+
+    /**
+     * @return the node of the variable, -1 if it is not in the graph
+     */
+    public int getNode(String name) {
+        return nodes.getOrDefault(name, -1);
+    }
+
+    public void addEdge(int a, int b) {
+        if (a == b) {
+            return;
+        }
+
+        var bit = getBit(a, b);
+        var word = (int) (bit >>> 6);
+        if ((matrix[word] & 1L << bit) != 0) {
+            return;
+        }
+
+        matrix[word] |= 1L << bit;
+        addNeighbor(a, b);
+        addNeighbor(b, a);
+    }
+
+    public boolean interferes(int a, int b) {
+        if (a == b) {
+            return false;
+        }
+
+        var bit = getBit(a, b);
+        return (matrix[(int) (bit >>> 6)] & 1L << bit) != 0;
+    }
+
+    /**
+     * @return the copies between nodes, destination then source
+     */
+    public List<int[]> getMoves() {
+        return moves;
+    }
+
+    public int getDegree(int node) {
+        return degrees[node];
+    }
+
+    /**
+     * @return the neighbors of the node, only the first {@link #getDegree(int)} are valid, not to be changed
+     */
+    public int[] getNeighbors(int node) {
+        return neighbors[node];
+    }
+
+    /**
+     * @return each variable with the variables it interferes with, sorted, for debugging
+     */
+    public Map<String, Set<String>> toMap() {
+        var map = new TreeMap<String, Set<String>>();
+        for (int node = 0; node < getNumNodes(); node++) {
+            var nodeNeighbors = new TreeSet<String>();
+            for (int i = 0; i < degrees[node]; i++) {
+                nodeNeighbors.add(names.get(neighbors[node][i]));
+            }
+            map.put(names.get(node), nodeNeighbors);
+        }
+        return map;
+    }
+
+    private void addEdges(int[] nodes, int count) {
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                addEdge(nodes[i], nodes[j]);
+            }
+        }
+    }
+
+    private static long getBit(int a, int b) {
+        long high = Math.max(a, b);
+        long low = Math.min(a, b);
+        return high * (high - 1) / 2 + low;
+    }
+
+    private void addNeighbor(int node, int neighbor) {
+        var nodeNeighbors = neighbors[node];
+        if (degrees[node] == nodeNeighbors.length) {
+            nodeNeighbors = Arrays.copyOf(nodeNeighbors, Math.max(4, nodeNeighbors.length * 2));
+            neighbors[node] = nodeNeighbors;
+        }
+        nodeNeighbors[degrees[node]++] = neighbor;
+    }
+}
@@ -3,20 +3,36 @@ package pt.up.fe.comp2025.optimization;
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
 import pt.up.fe.comp.jmm.ollir.JmmOptimization;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.CompilerConfig;
 import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.ast.CompactNode;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+import pt.up.fe.comp2025.instrumentation.StageProfiler;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.utils.ReportUtils;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static pt.up.fe.comp2025.ast.Kind.METHOD_DECL;
+import static pt.up.fe.comp2025.instrumentation.Diagnostics.Level.OLLIR;
+import static pt.up.fe.comp2025.instrumentation.Diagnostics.Level.OPTIMIZER;
+import static pt.up.fe.comp2025.instrumentation.Diagnostics.Level.REGALLOC;
 
 public class JmmOptimizationImpl implements JmmOptimization {
 
     @Override
     public OllirResult toOllir(JmmSemanticsResult semanticsResult) {
 
-        var visitor = new OllirGeneratorVisitor(semanticsResult.getSymbolTable());
+        var diagnostics = Diagnostics.of(semanticsResult.getConfig());
+        var visitor = new OllirGeneratorVisitor(semanticsResult.getSymbolTable(), diagnostics);
 
         var ollirCode = visitor.visit(semanticsResult.getRootNode());
 
-        //System.out.println("\nOLLIR:\n\n" + ollirCode);
+        diagnostics.print(OLLIR, () -> "OLLIR:\n\n" + ollirCode);
 
         return new OllirResult(semanticsResult, ollirCode, Collections.emptyList());
     }
@@ -24,64 +40,104 @@ public class JmmOptimizationImpl implements JmmOptimization {
     @Override
     public JmmSemanticsResult optimize(JmmSemanticsResult semanticsResult) {
         var config = semanticsResult.getConfig();
+        var diagnostics = Diagnostics.of(config);
 
         boolean optimizeEnabled = ConfigOptions.getOptimize(config);
 
-        System.out.println("Optimization flag (-o) enabled: " + optimizeEnabled);
+        diagnostics.print(OPTIMIZER, () -> "Optimization flag (-o) enabled: " + optimizeEnabled);
 
         if (!optimizeEnabled) {
             return semanticsResult;
         }
 
-        var root = semanticsResult.getRootNode();
-        var table = semanticsResult.getSymbolTable();
-
-        boolean globalChanged;
-        int iterations = 0;
-
-        do {
-            globalChanged = false;
-            iterations++;
-            
-            System.out.println("--- Optimization iteration " + iterations + " ---");
+        // The optimizations rewrite the AST, which the compact AST does not allow
+        if (semanticsResult.getRootNode() instanceof CompactNode compactRoot) {
+            semanticsResult = new JmmSemanticsResult(compactRoot.getAst().toJmmNode(),
+                    semanticsResult.getSymbolTable(), semanticsResult.getReports(), config);
 
-            ConstantPropagationVisitor propagation = new ConstantPropagationVisitor(table);
-            propagation.visit(root);
-            boolean propagationChanged = propagation.didChange();
-            globalChanged |= propagationChanged;
-            System.out.println("Constant propagation changed: " + propagationChanged);
-
-            ConstantFoldingVisitor folder = new ConstantFoldingVisitor(table);
-            folder.visit(root);
-            boolean foldingChanged = folder.didChange();
-            globalChanged |= foldingChanged;
-            System.out.println("Constant folding changed: " + foldingChanged);
+            // Types memoized for the compact nodes would keep the compact AST alive
+            if (semanticsResult.getSymbolTable() instanceof JmmSymbolTable jmmTable) {
+                jmmTable.getExprTypes().clear();
+            }
+        }
 
-            System.out.println("Total changed in iteration " + iterations + ": " + globalChanged);
+        var root = semanticsResult.getRootNode();
+        var table = semanticsResult.getSymbolTable();
 
-        } while (globalChanged);
+        // Each method is solved once, the solver only revisits the blocks whose inputs changed
+        var changed = StageProfiler.measure("constantPropagation", () -> {
+            boolean anyChanged = false;
+            for (var method : root.getDescendants(METHOD_DECL)) {
+                anyChanged |= new ConstantPropagation(method, table, diagnostics).apply();
+            }
+            return anyChanged;
+        });
 
-        System.out.println("Optimization completed after " + iterations + " iterations");
+        diagnostics.print(OPTIMIZER, () -> "Constant propagation and folding changed: " + changed);
         return semanticsResult;
     }
 
+    /**
+     * An OLLIR result only takes reports when it is parsed, so a failed register allocation cannot be added to it.
+     *
+     * @throws IllegalStateException if register allocation fails, see {@link #optimize(OllirResult, List)}
+     */
     @Override
     public OllirResult optimize(OllirResult ollirResult) {
+        List<Report> reports = new ArrayList<>();
+        var optimized = optimize(ollirResult, reports);
+
+        if (ReportUtils.anyError(reports)) {
+            throw new IllegalStateException(reports.stream().map(Report::getMessage)
+                    .collect(Collectors.joining("\n")));
+        }
+
+        return optimized;
+    }
+
+    /**
+     * Optimizes the class unit of the OLLIR result in place.
+     *
+     * @param reports where the errors of the methods that register allocation ('-r') could not fit are added
+     * @return the given OLLIR result
+     */
+    public OllirResult optimize(OllirResult ollirResult, List<Report> reports) {
         var config = ollirResult.getConfig();
+        var diagnostics = Diagnostics.of(config);
+
+        if (ConfigOptions.getOptimize(config)) {
+            // Rewrites the instructions of the class unit
+            var changed = StageProfiler.measure("conditionalConstantPropagation", () -> {
+                boolean anyChanged = false;
+                for (var method : ollirResult.getOllirClass().getMethods()) {
+                    anyChanged |= new ConditionalConstantPropagation(method, diagnostics).apply();
+                }
+                return anyChanged;
+            });
+
+            diagnostics.print(OPTIMIZER, () -> "Conditional constant propagation changed: " + changed);
+
+            // The class unit is rewritten in place, its code is only printed where it is needed
+            if (changed) {
+                diagnostics.print(OLLIR, () -> "OLLIR after conditional constant propagation:\n\n"
+                        + OllirPrinter.print(ollirResult.getOllirClass()));
+            }
+        }
 
         // Check if register allocation is enabled
         int registerAllocation = ConfigOptions.getRegisterAllocation(config);
+        var allocator = CompilerConfig.getRegisterAllocator(config);
 
-        System.out.println("Register allocation (-r) setting: " + registerAllocation);
+        diagnostics.print(REGALLOC, () -> "Register allocation (-r) setting: " + registerAllocation
+                + ", allocator (-l): " + allocator.getOption());
 
         if (registerAllocation >= 0) {
             // Apply register allocation
-            RegisterAllocation regAlloc = new RegisterAllocation(ollirResult, registerAllocation);
-            return regAlloc.allocateRegisters();
+            RegisterAllocation regAlloc = new RegisterAllocation(ollirResult, registerAllocation, allocator,
+                    diagnostics);
+            reports.addAll(StageProfiler.measure("registerAllocation", regAlloc::allocateRegisters));
         }
 
         return ollirResult;
     }
-
-
 }
@@ -0,0 +1,68 @@
+package pt.up.fe.comp2025.optimization;
+
+import pt.up.fe.comp2025.optimization.dataflow.FlowGraph;
+import pt.up.fe.comp2025.optimization.ssa.DominatorTree;
+
+import java.util.BitSet;
+
+/**
+ * How many loops each block of a {@link FlowGraph} is in.
+ * <p>
+ * A loop is found from its back edges, the edges to a block that dominates their source, the header. Its body is the
+ * header and the blocks that reach the source of one of them without going through the header. Back edges to the
+ * same header make one loop.
+ */
+public class LoopDepth {
+
+    private LoopDepth() {
+    }
+
+    /**
+     * @return the depth of each block, 0 outside loops and for the blocks the entry does not reach
+     */
+    public static int[] compute(FlowGraph graph) {
+        var dominators = DominatorTree.build(graph);
+        var numBlocks = graph.getNumBlocks();
+        var depths = new int[numBlocks];
+
+        var body = new BitSet(numBlocks);
+        var stack = new int[numBlocks];
+
+        for (int header = 0; header < numBlocks; header++) {
+            body.clear();
+            body.set(header);
+            var size = 0;
+            var isHeader = false;
+
+            for (var source : graph.getPredecessors(header)) {
+                if (dominators.dominates(header, source)) {
+                    isHeader = true;
+                    if (!body.get(source)) {
+                        body.set(source);
+                        stack[size++] = source;
+                    }
+                }
+            }
+
+            if (!isHeader) {
+                continue;
+            }
+
+            while (size > 0) {
+                var block = stack[--size];
+                for (var predecessor : graph.getPredecessors(block)) {
+                    if (dominators.isReachable(predecessor) && !body.get(predecessor)) {
+                        body.set(predecessor);
+                        stack[size++] = predecessor;
+                    }
+                }
+            }
+
+            for (int block = body.nextSetBit(0); block >= 0; block = body.nextSetBit(block + 1)) {
+                depths[block]++;
+            }
+        }
+
+        return depths;
+    }
+}
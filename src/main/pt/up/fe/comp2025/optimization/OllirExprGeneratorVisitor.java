@@ -4,7 +4,8 @@ import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
-import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.KindDispatchVisitor;
 import pt.up.fe.comp2025.ast.TypeUtils;
 
 import java.util.List;
@@ -13,8 +14,11 @@ import static pt.up.fe.comp2025.ast.Kind.*;
 
 /**
  * Generates OLLIR code from JmmNodes that are expressions.
+ * <p>
+ * Each visit method visits the children it needs itself, so the visitor must not traverse the children again
+ * afterwards (doing so doubles the work at every level of an expression).
  */
-public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExprResult> {
+public class OllirExprGeneratorVisitor extends KindDispatchVisitor<Void, OllirExprResult> {
 
     private static final String SPACE = " ";
     private static final String ASSIGN = ":=";
@@ -54,7 +58,6 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         setDefaultVisit(this::defaultVisit);
     }
 
-
     private OllirExprResult visitInteger(JmmNode node, Void unused) {
         var intType = TypeUtils.newIntType();
         String ollirIntType = ollirTypes.toOllirType(intType);
@@ -101,7 +104,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         computation.append(leftResult.getComputation());
         computation.append(rightResult.getComputation());
 
-        Type resultType = types.getExprType(node);
+        Type resultType = types.getExprType(node, getMethodName(node));
         String ollirType = ollirTypes.toOllirType(resultType);
 
         String resultVar = ollirTypes.nextTemp() + ollirType;
@@ -132,7 +135,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
     private OllirExprResult visitVarRef(JmmNode node, Void unused) {
         var id = node.get("value");
 
-        String methodName = node.getAncestor(METHOD_DECL.getNodeName())
+        String methodName = node.getAncestor(METHOD_DECL)
                 .map(m -> m.get("name"))
                 .orElse("main");
 
@@ -209,7 +212,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
     private OllirExprResult visitBoolean(JmmNode node, Void unused) {
         Type boolType = new Type("boolean", false);
         String ollirBoolType = ollirTypes.toOllirType(boolType);
-        String value = node.getKind().equals(BOOLEAN_TRUE.getNodeName()) ? "1" : "0";
+        String value = Kind.of(node) == BOOLEAN_TRUE ? "1" : "0";
         String code = value + ollirBoolType;
         return new OllirExprResult(code);
     }
@@ -232,7 +235,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         StringBuilder computation = new StringBuilder();
         computation.append(operand.getComputation());
 
-        Type resType = types.getExprType(node);
+        Type resType = types.getExprType(node, getMethodName(node));
         String resOllirType = ollirTypes.toOllirType(resType);
         String code = ollirTypes.nextTemp() + resOllirType;
 
@@ -291,7 +294,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         JmmNode indexNode = node.getChild(1);
 
         // Get the method name from ancestors
-        String methodName = node.getAncestor(METHOD_DECL.getNodeName())
+        String methodName = node.getAncestor(METHOD_DECL)
                 .map(m -> m.get("name"))
                 .orElse("main");
 
@@ -307,7 +310,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         Type arrayType;
         try {
             arrayType = types.getExprType(arrayNode, methodName);
-            if (arrayNode.getKind().equals(VAR_REF_EXPR.getNodeName()) && 
+            if (Kind.of(arrayNode) == VAR_REF_EXPR && 
                 arrayNode.get("value").equals("args") && 
                 methodName.equals("main")) {
                 if (!arrayType.isArray()) {
@@ -319,7 +322,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
                 throw new RuntimeException("Expression is not an array: " + arrayNode);
             }
         } catch (Exception e) {
-            if (arrayNode.getKind().equals(VAR_REF_EXPR.getNodeName()) && 
+            if (Kind.of(arrayNode) == VAR_REF_EXPR && 
                 arrayNode.get("value").equals("args") && 
                 methodName.equals("main")) {
                 arrayType = new Type("String", true);
@@ -381,16 +384,16 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         Type returnType;
         try {
             JmmNode caller = node.getChild(0);
-            if (caller.getKind().equals(THIS_EXPR.getNodeName()) ||
-                    (caller.getKind().equals(VAR_REF_EXPR.getNodeName()) && caller.get("value").equals(table.getClassName()))) {
+            if (Kind.of(caller) == THIS_EXPR ||
+                    (Kind.of(caller) == VAR_REF_EXPR && caller.get("value").equals(table.getClassName()))) {
                 returnType = table.getReturnType(methodName);
             } else {
                 JmmNode parent = node.getParent();
-                if (parent != null && parent.getKind().equals("AssignStmt") && parent.getChild(1) == node) {
+                if (parent != null && Kind.of(parent) == ASSIGN_STMT && parent.getChild(1) == node) {
                     JmmNode lhs = parent.getChild(0);
-                    if (lhs.getKind().equals(VAR_REF_EXPR.getNodeName())) {
+                    if (Kind.of(lhs) == VAR_REF_EXPR) {
                         String varName = lhs.get("value");
-                        String currentMethod = node.getAncestor("MethodDecl").map(m -> m.get("name")).orElse("main");
+                        String currentMethod = node.getAncestor(Kind.METHOD_DECL).map(m -> m.get("name")).orElse("main");
                         if ("args".equals(currentMethod)) currentMethod = "main";
                         
                         try {
@@ -403,7 +406,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
                         returnType = TypeUtils.newIntType();
                     }
                 } else {
-                    if (caller.getKind().equals(VAR_REF_EXPR.getNodeName())) {
+                    if (Kind.of(caller) == VAR_REF_EXPR) {
                         String callerName = caller.get("value");
                         try {
                             Type callerType = types.getExprType(caller);
@@ -432,7 +435,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         String ollirReturnType = ollirTypes.toOllirType(returnType);
         String code = ollirTypes.nextTemp() + ollirReturnType;
 
-        boolean isInExprStmt = node.getParent() != null && node.getParent().getKind().equals(EXPR_STMT.getNodeName());
+        boolean isInExprStmt = node.getParent() != null && Kind.of(node.getParent()) == EXPR_STMT;
 
         if (!isInExprStmt) {
             computation.append(code).append(SPACE)
@@ -443,7 +446,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         final String callerIdFinal;
         boolean isStaticCall = false;
 
-        if (node.getChild(0).getKind().equals(VAR_REF_EXPR.getNodeName())) {
+        if (Kind.of(node.getChild(0)) == VAR_REF_EXPR) {
             callerIdFinal = node.getChild(0).get("value");
             isStaticCall = table.getImports().stream().anyMatch(imp -> imp.endsWith("." + callerIdFinal) || imp.equals(callerIdFinal));
         } else {
@@ -473,7 +476,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         String varName = node.get("value");
         String op = node.get("op");
 
-        String methodName = node.getAncestor(METHOD_DECL.getNodeName())
+        String methodName = node.getAncestor(METHOD_DECL)
                 .map(m -> m.get("name"))
                 .orElse("main");
 
@@ -515,7 +518,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
     private OllirExprResult visitArrayLiteralExpr(JmmNode node, Void unused) {
         StringBuilder computation = new StringBuilder();
 
-        String methodName = node.getAncestor("MethodDecl").map(m -> m.get("name")).orElse("main");
+        String methodName = node.getAncestor(Kind.METHOD_DECL).map(m -> m.get("name")).orElse("main");
         if ("args".equals(methodName)) methodName = "main";
 
         Type elemType = node.getNumChildren() > 0
@@ -554,4 +557,13 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         }
         return OllirExprResult.EMPTY;
     }
-}
\ No newline at end of file
+
+    /**
+     * Name of the method that contains the node, as used by the symbol table.
+     */
+    private static String getMethodName(JmmNode node) {
+        return node.getAncestor(METHOD_DECL)
+                .map(method -> method.get("name"))
+                .orElse("main");
+    }
+}
@@ -2,18 +2,21 @@ package pt.up.fe.comp2025.optimization;
 
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
-import pt.up.fe.comp.jmm.ast.AJmmVisitor;
 import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.KindDispatchVisitor;
 import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
 
 import java.util.stream.Collectors;
 
 import static pt.up.fe.comp2025.ast.Kind.*;
+import static pt.up.fe.comp2025.instrumentation.Diagnostics.Level.OLLIR;
 
 /**
  * Generates OLLIR code from JmmNodes that are not expressions.
  */
-public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
+public class OllirGeneratorVisitor extends KindDispatchVisitor<Void, String> {
 
     private static final String SPACE = " ";
     private static final String ASSIGN = ":=";
@@ -31,8 +34,15 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
 
     private final OllirExprGeneratorVisitor exprVisitor;
 
+    private final Diagnostics diagnostics;
+
     public OllirGeneratorVisitor(SymbolTable table) {
+        this(table, Diagnostics.none());
+    }
+
+    public OllirGeneratorVisitor(SymbolTable table, Diagnostics diagnostics) {
         this.table = table;
+        this.diagnostics = diagnostics;
         this.types = new TypeUtils(table);
         this.ollirTypes = new OptUtils(types);
         exprVisitor = new OllirExprGeneratorVisitor(table);
@@ -56,13 +66,12 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         setDefaultVisit(this::defaultVisit);
     }
 
-
     private String visitAssignStmt(JmmNode node, Void unused) {
         StringBuilder code = new StringBuilder();
 
 
         if (node.getNumChildren() != 2) {
-            System.out.println("[visitAssignStmt] Unexpected child count in AssignStmt: " + node.getNumChildren());
+            diagnostics.print(OLLIR, () -> "[visitAssignStmt] Unexpected child count in AssignStmt: " + node.getNumChildren());
             return "// Unexpected assign format\n";
         }
 
@@ -72,10 +81,10 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         var rhsResult = exprVisitor.visit(rhsNode);
         code.append(rhsResult.getComputation());
 
-        String methodName = node.getAncestor("MethodDecl").map(m -> m.get("name")).orElse("main");
+        String methodName = node.getAncestor(Kind.METHOD_DECL).map(m -> m.get("name")).orElse("main");
         if ("args".equals(methodName)) methodName = "main";
 
-        if (lhs.getKind().equals("ArrayAccessExpr")) {
+        if (Kind.of(lhs) == ARRAY_ACCESS_EXPR) {
             var arrayExpr = exprVisitor.visit(lhs.getChild(0)); // array name (e.g., a)
             var indexExpr = exprVisitor.visit(lhs.getChild(1)); // index (e.g., i)
 
@@ -96,13 +105,13 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
 
         JmmNode effectiveLhs = lhs;
 
-        if (lhs.getKind().equals("ParenthesizedExpr")) {
+        if (Kind.of(lhs) == PARENTHESIZED_EXPR) {
             effectiveLhs = lhs.getChild(0);
         }
 
         final String lhsName;
-        if (effectiveLhs.getKind().equals("VarRefExpr") || 
-            effectiveLhs.getKind().equals("PostfixExpr") || 
+        if (Kind.of(effectiveLhs) == VAR_REF_EXPR || 
+            Kind.of(effectiveLhs) == POSTFIX_EXPR || 
             effectiveLhs.hasAttribute("value")) {
             lhsName = effectiveLhs.get("value");
         } else {
@@ -137,7 +146,7 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         StringBuilder code = new StringBuilder();
 
         JmmNode methodNode = node;
-        while (methodNode != null && !methodNode.getKind().equals(METHOD_DECL.getNodeName())) {
+        while (methodNode != null && Kind.of(methodNode) != METHOD_DECL) {
             methodNode = methodNode.getParent();
         }
 
@@ -208,25 +217,27 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
 
         code.append(" {\n");
 
-        // Local variables
+        // Local variables, where only ints and booleans have a 0 to start from (OLLIR has no null literal)
         for (var varDecl : node.getChildren(VAR_DECL)) {
             JmmNode typeNode = varDecl.getChild(0);
             String varName = varDecl.get("name");
             Type varType = types.convertType(typeNode);
+            if (varType.isArray() || !(varType.getName().equals("int") || varType.getName().equals("boolean"))) {
+                continue;
+            }
+
             String ollirType = ollirTypes.toOllirType(varType);
             code.append("    ").append(varName).append(ollirType).append(" :=").append(ollirType)
                     .append(" 0").append(ollirType).append(";\n");
         }
 
         for (var child : node.getChildren()) {
-            String kind = child.getKind();
-
-            if (kind.endsWith("Stmt") || kind.contains("Stmt")) {
+            if (STMT.check(child)) {
                 String stmtCode = visit(child);
                 if (!stmtCode.isEmpty()) {
                     code.append("    ").append(stmtCode);
                 }
-            } else if (kind.equals(VAR_REF_EXPR.getNodeName()) || kind.endsWith("Expr")) {
+            } else if (EXPR.check(child)) {
                 var exprResult = exprVisitor.visit(child);
 
                 if (!exprResult.getComputation().isBlank()) {
@@ -246,7 +257,7 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
             }
         }
 
-        boolean hasReturn = node.getChildren().stream().anyMatch(child -> child.getKind().equals("ReturnStmt"));
+        boolean hasReturn = node.getChildren().stream().anyMatch(child -> Kind.of(child) == RETURN_STMT);
         if (!hasReturn) {
             if (returnType.getName().equals("void")) {
                 code.append("    ret.V;\n");
@@ -0,0 +1,348 @@
+package pt.up.fe.comp2025.optimization;
+
+import org.specs.comp.ollir.AccessModifier;
+import org.specs.comp.ollir.ArrayOperand;
+import org.specs.comp.ollir.ClassUnit;
+import org.specs.comp.ollir.Element;
+import org.specs.comp.ollir.Field;
+import org.specs.comp.ollir.LiteralElement;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.Operation;
+import org.specs.comp.ollir.inst.ArrayLengthInstruction;
+import org.specs.comp.ollir.inst.AssignInstruction;
+import org.specs.comp.ollir.inst.BinaryOpInstruction;
+import org.specs.comp.ollir.inst.CallInstruction;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import org.specs.comp.ollir.inst.GetFieldInstruction;
+import org.specs.comp.ollir.inst.GotoInstruction;
+import org.specs.comp.ollir.inst.Instruction;
+import org.specs.comp.ollir.inst.InvokeSpecialInstruction;
+import org.specs.comp.ollir.inst.InvokeStaticInstruction;
+import org.specs.comp.ollir.inst.InvokeVirtualInstruction;
+import org.specs.comp.ollir.inst.LdcInstruction;
+import org.specs.comp.ollir.inst.NewInstruction;
+import org.specs.comp.ollir.inst.PutFieldInstruction;
+import org.specs.comp.ollir.inst.ReturnInstruction;
+import org.specs.comp.ollir.inst.SingleOpInstruction;
+import org.specs.comp.ollir.inst.UnaryOpInstruction;
+import org.specs.comp.ollir.tree.TreeNode;
+import org.specs.comp.ollir.type.ArrayType;
+import org.specs.comp.ollir.type.BuiltinType;
+import org.specs.comp.ollir.type.ClassType;
+import org.specs.comp.ollir.type.Type;
+import pt.up.fe.specs.util.classmap.FunctionClassMap;
+import pt.up.fe.specs.util.exceptions.NotImplementedException;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Prints a class unit back to OLLIR code, for the passes that rewrite the class unit instead of the code it was
+ * parsed from.
+ * <p>
+ * Parsing the printed code gives back the same class unit.
+ */
+public class OllirPrinter {
+
+    private static final String NL = "\n";
+    private static final String TAB = "    ";
+
+    private final FunctionClassMap<TreeNode, String> printers;
+
+    // Labels of the instructions of the method being printed
+    private Map<Instruction, List<String>> labels;
+
+    private OllirPrinter() {
+        this.printers = new FunctionClassMap<>();
+        printers.put(ClassUnit.class, this::printClassUnit);
+        printers.put(Field.class, this::printField);
+        printers.put(Method.class, this::printMethod);
+        printers.put(AssignInstruction.class, this::printAssign);
+        printers.put(SingleOpInstruction.class, this::printSingleOp);
+        printers.put(BinaryOpInstruction.class, this::printBinaryOp);
+        printers.put(UnaryOpInstruction.class, this::printUnaryOp);
+        printers.put(GetFieldInstruction.class, this::printGetField);
+        printers.put(PutFieldInstruction.class, this::printPutField);
+        printers.put(InvokeStaticInstruction.class, this::printInvokeStatic);
+        printers.put(InvokeSpecialInstruction.class, this::printInvokeSpecial);
+        printers.put(InvokeVirtualInstruction.class, this::printInvokeVirtual);
+        printers.put(NewInstruction.class, this::printNew);
+        printers.put(ArrayLengthInstruction.class, this::printArrayLength);
+        printers.put(LdcInstruction.class, this::printLdc);
+        printers.put(CondBranchInstruction.class, this::printCondBranch);
+        printers.put(GotoInstruction.class, this::printGoto);
+        printers.put(ReturnInstruction.class, this::printReturn);
+        printers.put(ArrayOperand.class, this::printArrayOperand);
+        printers.put(Operand.class, this::printOperand);
+        printers.put(LiteralElement.class, this::printLiteral);
+    }
+
+    /**
+     * @return the OLLIR code of the class unit
+     */
+    public static String print(ClassUnit classUnit) {
+        return new OllirPrinter().apply(classUnit);
+    }
+
+    private String apply(TreeNode node) {
+        return printers.apply(node);
+    }
+
+    private String printClassUnit(ClassUnit classUnit) {
+        var code = new StringBuilder();
+
+        if (classUnit.getPackage() != null) {
+            code.append("package ").append(classUnit.getPackage()).append(";").append(NL);
+        }
+
+        for (var importName : classUnit.getImports()) {
+            code.append("import ").append(importName).append(";").append(NL);
+        }
+        code.append(NL);
+
+        code.append(printAccess(classUnit.getClassAccessModifier()));
+        if (classUnit.isStaticClass()) {
+            code.append("static ");
+        }
+        if (classUnit.isFinalClass()) {
+            code.append("final ");
+        }
+        code.append(classUnit.getClassName());
+        if (classUnit.getSuperClass() != null) {
+            code.append(" extends ").append(classUnit.getSuperClass());
+        }
+        code.append(" {").append(NL);
+
+        for (var field : classUnit.getFields()) {
+            code.append(NL).append(apply(field));
+        }
+
+        for (var method : classUnit.getMethods()) {
+            code.append(NL).append(apply(method));
+        }
+
+        code.append("}").append(NL);
+
+        return code.toString();
+    }
+
+    private String printField(Field field) {
+        var code = new StringBuilder(TAB + ".field ");
+
+        code.append(printAccess(field.getFieldAccessModifier()));
+        if (field.isStaticField()) {
+            code.append("static ");
+        }
+        if (field.isFinalField()) {
+            code.append("final ");
+        }
+        code.append(field.getFieldName()).append(printType(field.getFieldType()));
+        if (field.isInitialized()) {
+            code.append(" := ").append(field.getInitialValue());
+        }
+
+        return code.append(";").append(NL).toString();
+    }
+
+    private String printMethod(Method method) {
+        var code = new StringBuilder(TAB);
+
+        code.append(method.isConstructMethod() ? ".construct " : ".method ");
+        code.append(printAccess(method.getMethodAccessModifier()));
+        if (method.isStaticMethod()) {
+            code.append("static ");
+        }
+        if (method.isFinalMethod()) {
+            code.append("final ");
+        }
+        if (method.isVarargs()) {
+            code.append("varargs ");
+        }
+
+        var params = method.getParams().stream()
+                .map(this::apply)
+                .collect(Collectors.joining(", "));
+        code.append(method.getMethodName()).append("(").append(params).append(")")
+                .append(printType(method.getReturnType())).append(" {").append(NL);
+
+        // Built here rather than with getLabels(Instruction), which keeps the labels from before any rewrite
+        labels = new IdentityHashMap<>();
+        for (var entry : method.getLabels().entrySet()) {
+            labels.computeIfAbsent(entry.getValue(), key -> new ArrayList<>()).add(entry.getKey());
+        }
+
+        for (var inst : method.getInstructions()) {
+            var instLabels = labels.getOrDefault(inst, List.of());
+            instLabels.stream().sorted().forEach(label -> code.append(TAB).append(label).append(":").append(NL));
+
+            code.append(TAB + TAB).append(apply(inst)).append(";").append(NL);
+        }
+
+        code.append(TAB).append("}").append(NL);
+
+        return code.toString();
+    }
+
+    private String printAssign(AssignInstruction assign) {
+        return apply(assign.getDest()) + " :=" + printType(assign.getTypeOfAssign()) + " " + apply(assign.getRhs());
+    }
+
+    private String printSingleOp(SingleOpInstruction singleOp) {
+        return apply(singleOp.getSingleOperand());
+    }
+
+    private String printBinaryOp(BinaryOpInstruction binaryOp) {
+        return apply(binaryOp.getLeftOperand()) + " " + printOperation(binaryOp.getOperation()) + " "
+                + apply(binaryOp.getRightOperand());
+    }
+
+    private String printUnaryOp(UnaryOpInstruction unaryOp) {
+        return printOperation(unaryOp.getOperation()) + " " + apply(unaryOp.getOperand());
+    }
+
+    private String printGetField(GetFieldInstruction getField) {
+        return "getfield(" + apply(getField.getObject()) + ", " + apply(getField.getField()) + ")"
+                + printType(getField.getFieldType());
+    }
+
+    private String printPutField(PutFieldInstruction putField) {
+        return "putfield(" + apply(putField.getObject()) + ", " + apply(putField.getField()) + ", "
+                + apply(putField.getValue()) + ")" + printType(putField.getFieldType());
+    }
+
+    private String printInvokeStatic(InvokeStaticInstruction invoke) {
+        return printCall("invokestatic", ((Operand) invoke.getCaller()).getName(), invoke);
+    }
+
+    private String printInvokeSpecial(InvokeSpecialInstruction invoke) {
+        return printCall("invokespecial", apply(invoke.getCaller()), invoke);
+    }
+
+    private String printInvokeVirtual(InvokeVirtualInstruction invoke) {
+        return printCall("invokevirtual", apply(invoke.getCaller()), invoke);
+    }
+
+    private String printCall(String kind, String caller, CallInstruction call) {
+        var code = new StringBuilder(kind).append("(").append(caller);
+
+        code.append(", ").append(printString(((LiteralElement) call.getMethodName()).getLiteral()));
+        if (call instanceof InvokeSpecialInstruction invokeSpecial) {
+            invokeSpecial.getSuperClass().ifPresent(superClass -> code.append(", ").append(printString(superClass)));
+        }
+        for (var arg : call.getArguments()) {
+            code.append(", ").append(apply(arg));
+        }
+
+        return code.append(")").append(printType(call.getReturnType())).toString();
+    }
+
+    private String printNew(NewInstruction newInst) {
+        // Either the name of the class or 'array', without a type
+        var code = new StringBuilder("new(").append(((Operand) newInst.getCaller()).getName());
+
+        for (var arg : newInst.getArguments()) {
+            code.append(", ").append(apply(arg));
+        }
+
+        return code.append(")").append(printType(newInst.getReturnType())).toString();
+    }
+
+    private String printArrayLength(ArrayLengthInstruction arrayLength) {
+        return "arraylength(" + apply(arrayLength.getCaller()) + ")" + printType(arrayLength.getReturnType());
+    }
+
+    private String printLdc(LdcInstruction ldc) {
+        return "ldc(" + printString(ldc.getElement().getLiteral()) + ").String";
+    }
+
+    private String printCondBranch(CondBranchInstruction condBranch) {
+        return "if (" + apply(condBranch.getCondition()) + ") goto " + condBranch.getLabel();
+    }
+
+    private String printGoto(GotoInstruction gotoInst) {
+        return "goto " + gotoInst.getLabel();
+    }
+
+    private String printReturn(ReturnInstruction returnInst) {
+        var code = "ret" + printType(returnInst.getReturnType());
+        return returnInst.getOperand().map(operand -> code + " " + apply(operand)).orElse(code);
+    }
+
+    private String printArrayOperand(ArrayOperand operand) {
+        var indexes = operand.getIndexOperands().stream()
+                .map(index -> "[" + apply(index) + "]")
+                .collect(Collectors.joining());
+
+        return operand.getName() + indexes + printType(operand.getType());
+    }
+
+    private String printOperand(Operand operand) {
+        return operand.getName() + printType(operand.getType());
+    }
+
+    private String printLiteral(LiteralElement literal) {
+        return literal.getLiteral() + printType(literal.getType());
+    }
+
+    private String printAccess(AccessModifier access) {
+        return access == AccessModifier.DEFAULT ? "" : access.name().toLowerCase() + " ";
+    }
+
+    private String printString(String string) {
+        return "\"" + string + "\"";
+    }
+
+    private String printOperation(Operation operation) {
+        var symbol = switch (operation.getOpType()) {
+            case ADD -> "+";
+            case SUB -> "-";
+            case MUL -> "*";
+            case DIV -> "/";
+            case REM -> "%";
+            case AND -> "&";
+            case OR -> "|";
+            case XOR -> "^";
+            case LTH -> "<";
+            case GTH -> ">";
+            case LTE -> "<=";
+            case GTE -> ">=";
+            case EQ -> "==";
+            case NEQ -> "!=";
+            case ANDB -> "&&";
+            case ORB -> "||";
+            case NOTB -> "!";
+            case NOT -> "~";
+            default -> throw new NotImplementedException(operation.getOpType());
+        };
+
+        return symbol + printType(operation.getTypeInfo());
+    }
+
+    /**
+     * @return the type with its leading dot, as it follows names and operators in OLLIR
+     */
+    private String printType(Type type) {
+        if (type instanceof ArrayType arrayType) {
+            return ".array".repeat(arrayType.getNumDimensions()) + printType(arrayType.getElementType());
+        }
+
+        if (type instanceof ClassType classType) {
+            return "." + classType.getName();
+        }
+
+        if (type instanceof BuiltinType builtinType) {
+            return switch (builtinType.getKind()) {
+                case INT32 -> ".i32";
+                case BOOLEAN -> ".bool";
+                case STRING -> ".String";
+                case VOID -> ".V";
+            };
+        }
+
+        throw new NotImplementedException(type);
+    }
+}
@@ -6,29 +6,55 @@ import org.specs.comp.ollir.inst.*;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.RegisterAllocator;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+import pt.up.fe.comp2025.optimization.dataflow.LiveVariables;
+import pt.up.fe.comp2025.optimization.dataflow.OllirOperands;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static pt.up.fe.comp2025.instrumentation.Diagnostics.Level.REGALLOC;
+
 public class RegisterAllocation {
 
+    /**
+     * Methods with at least this many local variables are allocated with linear scan by {@link RegisterAllocator#AUTO},
+     * the interference graph grows with the square of the variables.
+     */
+    public static final int LINEAR_SCAN_THRESHOLD = 256;
+
     private final OllirResult ollirResult;
     private final int maxRegisters;
+    private final RegisterAllocator allocator;
     private final boolean optimize;
+    private final Diagnostics diagnostics;
+
+    public RegisterAllocation(OllirResult ollirResult, int maxRegisters, Diagnostics diagnostics) {
+        this(ollirResult, maxRegisters, RegisterAllocator.AUTO, diagnostics);
+    }
 
-    public RegisterAllocation(OllirResult ollirResult, int maxRegisters) {
+    public RegisterAllocation(OllirResult ollirResult, int maxRegisters, RegisterAllocator allocator,
+                              Diagnostics diagnostics) {
         this.ollirResult = ollirResult;
         this.maxRegisters = maxRegisters;
+        this.allocator = allocator;
+        this.diagnostics = diagnostics;
         this.optimize = maxRegisters >= 0; // -1 means no optimization
     }
 
-    public OllirResult allocateRegisters() {
+    /**
+     * Rewrites the methods of the class unit in place. A method that cannot be allocated is left as it was.
+     *
+     * @return an error for each method that could not be allocated
+     */
+    public List<Report> allocateRegisters() {
         if (!optimize) {
-            return ollirResult;
+            return Collections.emptyList();
         }
 
         ClassUnit classUnit = ollirResult.getOllirClass();
-        List<Report> reports = new ArrayList<>(ollirResult.getReports());
+        List<Report> reports = new ArrayList<>();
 
         classUnit.buildCFGs();
 
@@ -36,67 +62,123 @@ public class RegisterAllocation {
             try {
                 allocateRegistersForMethod(method);
             } catch (RegisterAllocationException e) {
-                reports.add(Report.newError(
-                        Stage.OPTIMIZATION,
-                        -1, -1,
-                        "Register allocation failed for method " + method.getMethodName() +
-                                ": " + e.getMessage(),
-                        null
-                ));
+                String message = "Register allocation failed for method " + method.getMethodName() + ": "
+                        + e.getMessage();
+                diagnostics.print(REGALLOC, () -> message);
+                reports.add(Report.newError(Stage.OPTIMIZATION, -1, -1, message, null));
             }
         }
 
-        if (!reports.equals(ollirResult.getReports())) {
-            if (reports.size() > ollirResult.getReports().size()) {
-                System.err.println("Register allocation errors occurred:");
-                for (int i = ollirResult.getReports().size(); i < reports.size(); i++) {
-                    System.err.println(reports.get(i));
-                }
-            }
-        }
-
-        return ollirResult;
+        return reports;
     }
 
     private void allocateRegistersForMethod(Method method) throws RegisterAllocationException {
-        System.out.println("=== Allocating registers for method: " + method.getMethodName() + " ===");
+        diagnostics.print(REGALLOC, () -> "=== Allocating registers for method: " + method.getMethodName() + " ===");
 
         Set<String> localVariables = getLocalVariablesToAllocate(method);
         if (localVariables.isEmpty()) {
-            System.out.println("No local variables to allocate for method " + method.getMethodName());
-            System.out.println("=== End register allocation ===");
+            diagnostics.print(REGALLOC, () -> "No local variables to allocate for method " + method.getMethodName()
+                    + "\n=== End register allocation ===");
             return;
         }
 
-        System.out.println("Original variable table:");
-        for (Map.Entry<String, Descriptor> entry : method.getVarTable().entrySet()) {
-            System.out.println("  " + entry.getKey() + " -> register " + entry.getValue().getVirtualReg() +
-                    " (scope: " + entry.getValue().getScope() + ")");
+        diagnostics.print(REGALLOC, () -> "Original variable table:\n" + formatVarTable(method, true));
+
+        Map<String, Integer> allocation = allocateSpilling(method);
+
+        updateVarTable(method, allocation);
+
+        int removedCopies = removeSelfMoves(method);
+        diagnostics.print(REGALLOC, () -> "Removed " + removedCopies + " copies within the same register");
+
+        diagnostics.print(REGALLOC, () -> "Final variable table after allocation:\n" + formatVarTable(method, false)
+                + RegisterAllocationUtils.generateAllocationReport(method, allocation) + "\n"
+                + "Total unique registers: " + RegisterAllocationUtils.countUniqueRegisters(method) + "\n"
+                + "=== End register allocation ===");
+    }
+
+    /**
+     * Allocates the registers, each time variables are spilled the method changes and is allocated again.
+     */
+    private Map<String, Integer> allocateSpilling(Method method) throws RegisterAllocationException {
+        SpillCode spillCode = new SpillCode(method, diagnostics);
+
+        while (true) {
+            LiveVariables liveness = LiveVariables.analyze(method);
+            diagnostics.print(REGALLOC, () -> RegisterAllocationUtils.formatLivenessAnalysis(method, liveness));
+
+            Map<String, Integer> allocation = allocate(method, getLocalVariablesToAllocate(method), liveness,
+                    spillCode);
+            if (allocation != null) {
+                if (spillCode.getNumElements() > 0) {
+                    diagnostics.print(REGALLOC, () -> "Spilled variables take " + spillCode.getNumElements()
+                            + " elements of the spill arrays");
+                }
+                return allocation;
+            }
         }
+    }
 
-        LivenessAnalysis liveness = new LivenessAnalysis(method);
-        liveness.analyze();
+    /**
+     * @return the register of each variable, null if some were spilled and the method must be allocated again
+     */
+    private Map<String, Integer> allocate(Method method, Set<String> localVariables, LiveVariables liveness,
+                                          SpillCode spillCode) throws RegisterAllocationException {
+        if (allocator == RegisterAllocator.LINEAR_SCAN) {
+            diagnostics.print(REGALLOC, () -> "Allocating " + localVariables.size() + " variables with linear scan");
+
+            // Chosen with '-l', so it spills on its own rather than falling back to coloring
+            LinearScan linearScan = new LinearScan(method, liveness, maxRegisters, spillCode, diagnostics);
+            Map<String, Integer> allocation = linearScan.allocate();
+            if (linearScan.getSpilled().isEmpty()) {
+                return allocation;
+            }
+
+            spillCode.spill(linearScan.getSpilled(), liveness);
+            return null;
+        }
+
+        if (allocator == RegisterAllocator.AUTO && localVariables.size() >= LINEAR_SCAN_THRESHOLD) {
+            diagnostics.print(REGALLOC, () -> "Allocating " + localVariables.size() + " variables with linear scan");
+
+            try {
+                return new LinearScan(method, liveness, maxRegisters, null, diagnostics).allocate();
+            } catch (RegisterAllocationException e) {
+                // Intervals overestimate the interferences, coloring may still fit in the registers, or else spill
+                diagnostics.print(REGALLOC, () -> e.getMessage() + " Falling back to graph coloring.");
+            }
+        }
 
-        InterferenceGraph interferenceGraph = new InterferenceGraph(method, liveness);
-        interferenceGraph.build();
+        // Sorted, so that the allocation does not depend on the order of the variable table
+        List<String> variables = new ArrayList<>(localVariables);
+        Collections.sort(variables);
+        InterferenceGraph interferenceGraph = InterferenceGraph.build(liveness, variables);
 
-        System.out.println("Variables for interference graph: " + interferenceGraph.getVariables());
+        diagnostics.print(REGALLOC, () -> RegisterAllocationUtils.formatInterferenceGraph(interferenceGraph.toMap()));
 
-        GraphColoring coloring = new GraphColoring(interferenceGraph, method, maxRegisters);
+        double[] spillCosts = spillCode.getCosts(liveness, variables);
+        GraphColoring coloring = new GraphColoring(interferenceGraph, method, maxRegisters, spillCosts, diagnostics);
         Map<String, Integer> allocation = coloring.color();
+        if (coloring.getSpilled().isEmpty()) {
+            return allocation;
+        }
 
-        updateVarTable(method, allocation);
+        spillCode.spill(coloring.getSpilled(), liveness);
+        return null;
+    }
 
-        System.out.println("Final variable table after allocation:");
+    private static String formatVarTable(Method method, boolean withScope) {
+        StringBuilder builder = new StringBuilder();
         for (Map.Entry<String, Descriptor> entry : method.getVarTable().entrySet()) {
-            System.out.println("  " + entry.getKey() + " -> register " + entry.getValue().getVirtualReg());
+            builder.append("  ").append(entry.getKey()).append(" -> register ")
+                    .append(entry.getValue().getVirtualReg());
+            if (withScope) {
+                builder.append(" (scope: ").append(entry.getValue().getScope()).append(")");
+            }
+            builder.append("\n");
         }
 
-        String report = RegisterAllocationUtils.generateAllocationReport(method, allocation);
-        System.out.println(report);
-
-        System.out.println("Total unique registers: " + RegisterAllocationUtils.countUniqueRegisters(method));
-        System.out.println("=== End register allocation ===");
+        return builder.toString();
     }
 
     private Set<String> getLocalVariablesToAllocate(Method method) {
@@ -123,7 +205,7 @@ public class RegisterAllocation {
             if (varTable.containsKey(varName)) {
                 Descriptor descriptor = varTable.get(varName);
                 if (descriptor.getScope() == VarScope.LOCAL && !"this".equals(varName)) {
-                    System.out.println("Updating " + varName + " from register " +
+                    diagnostics.print(REGALLOC, () -> "Updating " + varName + " from register " +
                             descriptor.getVirtualReg() + " to register " + register);
                     descriptor.setVirtualReg(register);
                 }
@@ -131,415 +213,680 @@ public class RegisterAllocation {
         }
     }
 
+    /**
+     * Removes the copies between variables that ended up in the same register, their labels move to the next
+     * instruction. The last instruction is kept, for the labels.
+     *
+     * @return how many copies were removed
+     */
+    private static int removeSelfMoves(Method method) {
+        List<Instruction> instructions = method.getInstructions();
+        Map<String, Descriptor> varTable = method.getVarTable();
+
+        // Instruction removed -> the next one kept
+        Map<Instruction, Instruction> replacements = new IdentityHashMap<>();
+        Instruction nextKept = null;
+        for (int i = instructions.size() - 1; i >= 0; i--) {
+            Instruction inst = instructions.get(i);
+            Operand source = OllirOperands.getCopySource(inst);
+            if (nextKept != null && source != null
+                    && isSameRegister(varTable, OllirOperands.getDefinition(inst).getName(), source.getName())) {
+                replacements.put(inst, nextKept);
+            } else {
+                nextKept = inst;
+            }
+        }
+
+        if (replacements.isEmpty()) {
+            return 0;
+        }
+
+        for (Map.Entry<String, Instruction> entry : method.getLabels().entrySet()) {
+            entry.setValue(replacements.getOrDefault(entry.getValue(), entry.getValue()));
+        }
+        instructions.removeIf(replacements::containsKey);
+
+        return replacements.size();
+    }
+
+    private static boolean isSameRegister(Map<String, Descriptor> varTable, String a, String b) {
+        Descriptor aDesc = varTable.get(a);
+        Descriptor bDesc = varTable.get(b);
+        return aDesc != null && bDesc != null && aDesc.getVirtualReg() == bDesc.getVirtualReg();
+    }
+
     private static class RegisterAllocationException extends Exception {
         public RegisterAllocationException(String message) {
             super(message);
         }
     }
 
-    private static class LivenessAnalysis {
+    /**
+     * Graph coloring (Chaitin): nodes with fewer neighbors than registers are removed one by one, and then given, in
+     * the reverse order, the lowest register none of their neighbors has.
+     * <p>
+     * Before that, the two sides of each copy are merged into one node when they do not interfere and the merged node
+     * can still be removed as above (Briggs, George), so that they share a register and the copy can be dropped.
+     * Merging changes the interference graph.
+     * <p>
+     * When every node left has as many neighbors as registers, the one that costs the least to spill for its neighbors
+     * is removed anyway. It may still get a register, since its neighbors may share some (Briggs); if it does not, it
+     * is spilled, see {@link #getSpilled()}.
+     * <p>
+     * The nodes left are kept in buckets by how many neighbors they have left, so the next node to remove is found
+     * without looking at the others.
+     */
+    private static class GraphColoring {
+        private static final int NONE = -1;
+
+        private final InterferenceGraph graph;
         private final Method method;
-        private final Map<Instruction, Set<String>> defSets;
-        private final Map<Instruction, Set<String>> useSets;
-        private final Map<Instruction, Set<String>> liveIns;
-        private final Map<Instruction, Set<String>> liveOuts;
-        private boolean analyzed = false;
+        private final int maxColors;
+        private final double[] spillCosts;
+        private final Diagnostics diagnostics;
 
-        public LivenessAnalysis(Method method) {
+        // Node each node was merged into, itself if none
+        private final int[] alias;
+
+        // Nodes left, in doubly linked lists by degree
+        private final int[] degrees;
+        private final int[] heads;
+        private final int[] next;
+        private final int[] previous;
+
+        private final boolean[] removed;
+        private final int[] removalStack;
+        private int numRemoved;
+
+        // Neighbors of the node being merged, marked with the node
+        private final int[] marks;
+
+        private final List<String> spilled;
+
+        /**
+         * @param spillCosts of each node, infinite for the nodes that cannot be spilled
+         */
+        public GraphColoring(InterferenceGraph graph, Method method, int maxColors, double[] spillCosts,
+                             Diagnostics diagnostics) {
+            this.graph = graph;
+            this.diagnostics = diagnostics;
             this.method = method;
-            this.defSets = new HashMap<>();
-            this.useSets = new HashMap<>();
-            this.liveIns = new HashMap<>();
-            this.liveOuts = new HashMap<>();
-        }
-
-        public LivenessAnalysis analyze() {
-            if (analyzed) return this;
-
-            for (Instruction inst : method.getInstructions()) {
-                defSets.put(inst, new HashSet<>());
-                useSets.put(inst, new HashSet<>());
-                liveIns.put(inst, new HashSet<>());
-                liveOuts.put(inst, new HashSet<>());
-            }
-
-            calculateDefUseSets();
-
-            calculateLiveInOut();
-
-            if (System.getProperty("debug.regalloc") != null) {
-                RegisterAllocationUtils.printLivenessAnalysis(method, liveIns, liveOuts, defSets, useSets);
-            }
-
-            analyzed = true;
-            return this;
-        }
-
-        private void calculateDefUseSets() {
-            for (Instruction inst : method.getInstructions()) {
-                Set<String> defs = defSets.get(inst);
-                Set<String> uses = useSets.get(inst);
-
-                switch (inst.getInstType()) {
-                    case ASSIGN:
-                        AssignInstruction assign = (AssignInstruction) inst;
-                        Element dest = assign.getDest();
-                        if (dest instanceof Operand) {
-                            String varName = ((Operand) dest).getName();
-                            if (!"this".equals(varName)) {
-                                defs.add(varName);
-                            }
-                        }
-                        addOperandsToUseSet(assign.getRhs(), uses);
-                        break;
-
-                    case CALL:
-                        CallInstruction call = (CallInstruction) inst;
-                        if (call.getArguments() != null) {
-                            for (Element arg : call.getArguments()) {
-                                if (arg instanceof Operand) {
-                                    String varName = ((Operand) arg).getName();
-                                    if (!"this".equals(varName)) {
-                                        uses.add(varName);
-                                    }
-                                }
-                            }
-                        }
-                        if (call.getCaller() instanceof Operand) {
-                            String varName = ((Operand) call.getCaller()).getName();
-                            if (!"this".equals(varName)) {
-                                uses.add(varName);
-                            }
-                        }
-                        break;
-
-                    case RETURN:
-                        ReturnInstruction ret = (ReturnInstruction) inst;
-                        if (ret.getOperand().isPresent() && ret.getOperand().get() instanceof Operand) {
-                            String varName = ((Operand) ret.getOperand().get()).getName();
-                            if (!"this".equals(varName)) {
-                                uses.add(varName);
-                            }
-                        }
-                        break;
-
-                    case BRANCH:
-                        if (inst instanceof CondBranchInstruction) {
-                            CondBranchInstruction branch = (CondBranchInstruction) inst;
-                            for (Element operand : branch.getOperands()) {
-                                if (operand instanceof Operand) {
-                                    String varName = ((Operand) operand).getName();
-                                    if (!"this".equals(varName)) {
-                                        uses.add(varName);
-                                    }
-                                }
-                            }
-                        }
-                        break;
-
-                    default:
-                        break;
-                }
-            }
+            this.maxColors = maxColors == 0 ? Integer.MAX_VALUE : maxColors;
+            this.spillCosts = spillCosts.clone();
+            this.spilled = new ArrayList<>();
+
+            int numNodes = graph.getNumNodes();
+            this.alias = new int[numNodes];
+            this.degrees = new int[numNodes];
+            this.heads = new int[numNodes];
+            this.next = new int[numNodes];
+            this.previous = new int[numNodes];
+            this.removed = new boolean[numNodes];
+            this.removalStack = new int[numNodes];
+            this.marks = new int[numNodes];
         }
 
-        private void addOperandsToUseSet(Instruction inst, Set<String> uses) {
-            switch (inst.getInstType()) {
-                case BINARYOPER:
-                    BinaryOpInstruction binOp = (BinaryOpInstruction) inst;
-                    if (binOp.getLeftOperand() instanceof Operand) {
-                        String varName = ((Operand) binOp.getLeftOperand()).getName();
-                        if (!"this".equals(varName)) {
-                            uses.add(varName);
-                        }
-                    }
-                    if (binOp.getRightOperand() instanceof Operand) {
-                        String varName = ((Operand) binOp.getRightOperand()).getName();
-                        if (!"this".equals(varName)) {
-                            uses.add(varName);
-                        }
-                    }
-                    break;
-
-                case UNARYOPER:
-                    UnaryOpInstruction unOp = (UnaryOpInstruction) inst;
-                    if (unOp.getOperand() instanceof Operand) {
-                        String varName = ((Operand) unOp.getOperand()).getName();
-                        if (!"this".equals(varName)) {
-                            uses.add(varName);
-                        }
-                    }
-                    break;
-
-                case NOPER:
-                    SingleOpInstruction singleOp = (SingleOpInstruction) inst;
-                    if (singleOp.getSingleOperand() instanceof Operand) {
-                        String varName = ((Operand) singleOp.getSingleOperand()).getName();
-                        if (!"this".equals(varName)) {
-                            uses.add(varName);
-                        }
-                    }
-                    break;
-
-                case CALL:
-                    CallInstruction call = (CallInstruction) inst;
-                    if (call.getArguments() != null) {
-                        for (Element arg : call.getArguments()) {
-                            if (arg instanceof Operand) {
-                                String varName = ((Operand) arg).getName();
-                                if (!"this".equals(varName)) {
-                                    uses.add(varName);
-                                }
-                            }
-                        }
-                    }
-                    if (call.getCaller() instanceof Operand) {
-                        String varName = ((Operand) call.getCaller()).getName();
-                        if (!"this".equals(varName)) {
-                            uses.add(varName);
-                        }
-                    }
-                    break;
+        /**
+         * @return the register of each variable, except the spilled ones
+         */
+        public Map<String, Integer> color() throws RegisterAllocationException {
+            int numNodes = graph.getNumNodes();
+            if (numNodes == 0) {
+                return new HashMap<>();
+            }
 
-                default:
-                    break;
+            for (int node = 0; node < numNodes; node++) {
+                alias[node] = node;
             }
-        }
 
-        private void calculateLiveInOut() {
-            boolean changed = true;
+            // Without a limit, merging must not need more registers than the graph does as it is
+            int colors = maxColors != Integer.MAX_VALUE ? maxColors : simplify();
+            int coalesced = coalesce(colors);
+            diagnostics.print(REGALLOC, () -> "Coalesced " + coalesced + " of " + graph.getMoves().size() + " copies");
 
-            while (changed) {
-                changed = false;
+            // Spilling a merged node spills all the variables in it
+            for (int node = 0; node < numNodes; node++) {
+                if (find(node) != node) {
+                    spillCosts[find(node)] += spillCosts[node];
+                }
+            }
+
+            simplify();
 
-                for (Instruction inst : method.getInstructions()) {
-                    Set<String> oldLiveIn = new HashSet<>(liveIns.get(inst));
-                    Set<String> oldLiveOut = new HashSet<>(liveOuts.get(inst));
+            Set<Integer> reservedRegisters = getReservedRegisters();
+            int startRegister = 0;
+            while (reservedRegisters.contains(startRegister)) {
+                startRegister++;
+            }
 
-                    Set<String> newLiveOut = new HashSet<>();
-                    for (Node successor : inst.getSuccessors()) {
-                        if (successor instanceof Instruction) {
-                            newLiveOut.addAll(liveIns.get((Instruction) successor));
-                        }
+            var firstRegister = startRegister;
+            diagnostics.print(REGALLOC, () -> "Reserved registers: " + reservedRegisters
+                    + "\nStarting register allocation from register: " + firstRegister);
+
+            // Colors are numbered from 0, color c is the c-th register that is not reserved
+            int[] colorOf = new int[numNodes];
+            Arrays.fill(colorOf, NONE);
+            // Colors taken by the neighbors of the node being colored, marked with the node
+            int[] taken = new int[numNodes + 1];
+            Arrays.fill(taken, NONE);
+
+            for (int count = numRemoved - 1; count >= 0; count--) {
+                int node = removalStack[count];
+
+                int[] neighbors = graph.getNeighbors(node);
+                for (int i = 0; i < graph.getDegree(node); i++) {
+                    int color = colorOf[neighbors[i]];
+                    if (color != NONE) {
+                        taken[color] = node;
                     }
+                }
 
-                    Set<String> newLiveIn = new HashSet<>(useSets.get(inst));
-                    Set<String> liveOutMinusDef = new HashSet<>(newLiveOut);
-                    liveOutMinusDef.removeAll(defSets.get(inst));
-                    newLiveIn.addAll(liveOutMinusDef);
+                int color = 0;
+                while (taken[color] == node) {
+                    color++;
+                }
 
-                    liveIns.put(inst, newLiveIn);
-                    liveOuts.put(inst, newLiveOut);
+                if (color < maxColors) {
+                    colorOf[node] = color;
+                }
+            }
 
-                    if (!oldLiveIn.equals(newLiveIn) || !oldLiveOut.equals(newLiveOut)) {
-                        changed = true;
+            List<Integer> registers = new ArrayList<>();
+            Map<String, Integer> allocation = new HashMap<>();
+            for (int node = 0; node < numNodes; node++) {
+                int color = colorOf[find(node)];
+                if (color == NONE) {
+                    spilled.add(graph.getName(node));
+                    continue;
+                }
+
+                while (registers.size() <= color) {
+                    int register = registers.isEmpty() ? startRegister : registers.get(registers.size() - 1) + 1;
+                    while (reservedRegisters.contains(register)) {
+                        register++;
                     }
+                    registers.add(register);
                 }
+                allocation.put(graph.getName(node), registers.get(color));
             }
-        }
 
-        public Set<String> getLiveIn(Instruction inst) {
-            return liveIns.get(inst);
+            return allocation;
         }
 
-        public Set<String> getLiveOut(Instruction inst) {
-            return liveOuts.get(inst);
+        /**
+         * @return the variables that got no register, sorted
+         */
+        public List<String> getSpilled() {
+            return spilled;
         }
 
-        public Set<String> getDef(Instruction inst) {
-            return defSets.get(inst);
-        }
-    }
+        /**
+         * Removes the nodes that were not merged, one with the fewest neighbors left each time, onto the removal
+         * stack.
+         *
+         * @return how many registers coloring them needs at most
+         */
+        private int simplify() throws RegisterAllocationException {
+            int numNodes = graph.getNumNodes();
+
+            Arrays.fill(heads, NONE);
+            int numLeft = 0;
+            for (int node = 0; node < numNodes; node++) {
+                removed[node] = alias[node] != node;
+                if (!removed[node]) {
+                    degrees[node] = countNeighbors(node);
+                    link(node);
+                    numLeft++;
+                }
+            }
 
-    private static class InterferenceGraph {
-        private final Method method;
-        private final LivenessAnalysis liveness;
-        private final Map<String, Set<String>> adjacencyList;
-        private final Set<String> variables;
+            numRemoved = 0;
+            int minDegree = 0;
+            int maxDegree = 0;
 
-        public InterferenceGraph(Method method, LivenessAnalysis liveness) {
-            this.method = method;
-            this.liveness = liveness;
-            this.adjacencyList = new HashMap<>();
-            this.variables = new HashSet<>();
-        }
+            while (numRemoved < numLeft) {
+                while (heads[minDegree] == NONE) {
+                    minDegree++;
+                }
 
-        public InterferenceGraph build() {
-            collectVariables();
+                int node = heads[minDegree];
+                if (minDegree >= maxColors) {
+                    node = chooseSpill(minDegree);
+                }
+                maxDegree = Math.max(maxDegree, degrees[node]);
+
+                unlink(node);
+                removed[node] = true;
+                removalStack[numRemoved++] = node;
+
+                int[] neighbors = graph.getNeighbors(node);
+                for (int i = 0; i < graph.getDegree(node); i++) {
+                    int neighbor = neighbors[i];
+                    if (!removed[neighbor]) {
+                        unlink(neighbor);
+                        degrees[neighbor]--;
+                        link(neighbor);
+                    }
+                }
 
-            for (String var : variables) {
-                adjacencyList.put(var, new HashSet<>());
+                // Removing a node lowers the degree of its neighbors by one at most
+                minDegree = Math.max(0, minDegree - 1);
             }
 
-            for (Instruction inst : method.getInstructions()) {
-                Set<String> interferingVars = new HashSet<>(liveness.getDef(inst));
-                interferingVars.addAll(liveness.getLiveOut(inst));
-
-                List<String> varList = new ArrayList<>(interferingVars);
-                for (int i = 0; i < varList.size(); i++) {
-                    for (int j = i + 1; j < varList.size(); j++) {
-                        String var1 = varList.get(i);
-                        String var2 = varList.get(j);
+            return maxDegree + 1;
+        }
 
-                        if (variables.contains(var1) && variables.contains(var2)) {
-                            adjacencyList.get(var1).add(var2);
-                            adjacencyList.get(var2).add(var1);
-                        }
+        /**
+         * @return the node left with the lowest spill cost for its degree, all of them have at least the given degree
+         */
+        private int chooseSpill(int minDegree) throws RegisterAllocationException {
+            int chosen = NONE;
+            for (int degree = minDegree; degree < heads.length; degree++) {
+                for (int node = heads[degree]; node != NONE; node = next[node]) {
+                    if (spillCosts[node] != Double.POSITIVE_INFINITY && (chosen == NONE
+                            || spillCosts[node] / degree < spillCosts[chosen] / degrees[chosen])) {
+                        chosen = node;
                     }
                 }
             }
 
-            if (System.getProperty("debug.regalloc") != null) {
-                RegisterAllocationUtils.printInterferenceGraph(adjacencyList);
+            if (chosen == NONE) {
+                throw new RegisterAllocationException(
+                        "Cannot allocate with " + maxColors + " registers. Need at least " +
+                                calculateMinimumRegisters() + " registers, none of the variables left can be spilled."
+                );
             }
 
-            return this;
+            int spill = chosen;
+            diagnostics.print(REGALLOC, () -> "Potential spill: " + graph.getName(spill));
+            return chosen;
         }
 
-        private void collectVariables() {
-            Map<String, Descriptor> varTable = method.getVarTable();
+        /**
+         * Merges the nodes of each copy that do not interfere, while the merged node passes the test of Briggs (it has
+         * fewer than k neighbors of degree k or more) or of George (each neighbor of one node either interferes with
+         * the other or has degree less than k). Either way, the nodes can still be removed with k colors.
+         *
+         * @return how many copies were coalesced
+         */
+        private int coalesce(int colors) {
+            for (int node = 0; node < graph.getNumNodes(); node++) {
+                degrees[node] = countNeighbors(node);
+            }
+            Arrays.fill(marks, NONE);
+
+            int coalesced = 0;
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+
+                for (int[] move : graph.getMoves()) {
+                    int a = find(move[0]);
+                    int b = find(move[1]);
+                    if (a == b || graph.interferes(a, b)) {
+                        continue;
+                    }
 
-            for (String varName : varTable.keySet()) {
-                Descriptor desc = varTable.get(varName);
-                if (desc.getScope() == VarScope.LOCAL && !"this".equals(varName)) {
-                    variables.add(varName);
+                    if (isBriggsSafe(a, b, colors) || isGeorgeSafe(a, b, colors) || isGeorgeSafe(b, a, colors)) {
+                        merge(Math.min(a, b), Math.max(a, b));
+                        coalesced++;
+                        changed = true;
+                    }
                 }
             }
 
+            return coalesced;
         }
 
-        public Set<String> getVariables() {
-            return new HashSet<>(variables);
-        }
+        private boolean isBriggsSafe(int a, int b, int colors) {
+            int significant = 0;
+
+            int[] neighbors = graph.getNeighbors(a);
+            for (int i = 0; i < graph.getDegree(a); i++) {
+                int neighbor = neighbors[i];
+                if (alias[neighbor] == neighbor) {
+                    marks[neighbor] = a;
+                    // A neighbor of both loses one of them
+                    int degree = graph.interferes(neighbor, b) ? degrees[neighbor] - 1 : degrees[neighbor];
+                    if (degree >= colors) {
+                        significant++;
+                    }
+                }
+            }
 
-        public Set<String> getNeighbors(String variable) {
-            return adjacencyList.getOrDefault(variable, new HashSet<>());
-        }
+            neighbors = graph.getNeighbors(b);
+            for (int i = 0; i < graph.getDegree(b); i++) {
+                int neighbor = neighbors[i];
+                if (alias[neighbor] == neighbor && marks[neighbor] != a && degrees[neighbor] >= colors) {
+                    significant++;
+                }
+            }
 
-        public int getDegree(String variable) {
-            return adjacencyList.getOrDefault(variable, new HashSet<>()).size();
+            return significant < colors;
         }
 
-        public void removeVariable(String variable) {
-            Set<String> neighbors = adjacencyList.remove(variable);
-            if (neighbors != null) {
-                for (String neighbor : neighbors) {
-                    adjacencyList.get(neighbor).remove(variable);
+        /**
+         * @return whether merging 'from' into 'into' leaves every neighbor of 'from' as easy to remove as before
+         */
+        private boolean isGeorgeSafe(int from, int into, int colors) {
+            int[] neighbors = graph.getNeighbors(from);
+            for (int i = 0; i < graph.getDegree(from); i++) {
+                int neighbor = neighbors[i];
+                if (alias[neighbor] == neighbor && degrees[neighbor] >= colors
+                        && !graph.interferes(neighbor, into)) {
+                    return false;
                 }
             }
-            variables.remove(variable);
+
+            return true;
         }
-    }
 
-    // Graph Coloring Implementation
-    private static class GraphColoring {
-        private final InterferenceGraph graph;
-        private final Method method;
-        private final int maxColors;
-        private final Stack<String> removalStack;
+        private void merge(int kept, int gone) {
+            alias[gone] = kept;
 
-        public GraphColoring(InterferenceGraph graph, Method method, int maxColors) {
-            this.graph = graph;
-            this.method = method;
-            this.maxColors = maxColors == 0 ? Integer.MAX_VALUE : maxColors;
-            this.removalStack = new Stack<>();
-        }
+            int[] neighbors = graph.getNeighbors(gone);
+            for (int i = 0; i < graph.getDegree(gone); i++) {
+                int neighbor = neighbors[i];
+                if (alias[neighbor] != neighbor) {
+                    continue;
+                }
 
-        public Map<String, Integer> color() throws RegisterAllocationException {
-            if (graph.getVariables().isEmpty()) {
-                return new HashMap<>();
+                if (graph.interferes(kept, neighbor)) {
+                    degrees[neighbor]--;
+                } else {
+                    graph.addEdge(kept, neighbor);
+                    degrees[kept]++;
+                }
             }
+        }
 
-            // Store original adjacency list
-            Map<String, Set<String>> originalAdjacencyList = new HashMap<>();
-            for (String var : graph.getVariables()) {
-                originalAdjacencyList.put(var, new HashSet<>(graph.getNeighbors(var)));
+        private int find(int node) {
+            while (alias[node] != node) {
+                alias[node] = alias[alias[node]];
+                node = alias[node];
             }
+            return node;
+        }
 
-            while (!graph.getVariables().isEmpty()) {
-                String nodeToRemove = findRemovableNode();
-                if (nodeToRemove == null) {
-                    throw new RegisterAllocationException(
-                            "Cannot allocate with " + maxColors + " registers. Need at least " +
-                                    calculateMinimumRegisters() + " registers."
-                    );
+        /**
+         * @return the neighbors of the node that were not merged into others
+         */
+        private int countNeighbors(int node) {
+            int count = 0;
+            int[] neighbors = graph.getNeighbors(node);
+            for (int i = 0; i < graph.getDegree(node); i++) {
+                if (alias[neighbors[i]] == neighbors[i]) {
+                    count++;
                 }
-                removalStack.push(nodeToRemove);
-                graph.removeVariable(nodeToRemove);
             }
+            return count;
+        }
 
-            Map<String, Integer> allocation = new HashMap<>();
-
-            int nextAvailableRegister = reserveParameterRegisters();
+        private int calculateMinimumRegisters() {
+            int maxDegree = degrees.length - 1;
+            while (maxDegree > 0 && heads[maxDegree] == NONE) {
+                maxDegree--;
+            }
+            return maxDegree + 1;
+        }
 
-            while (!removalStack.isEmpty()) {
-                String variable = removalStack.pop();
-                int color = assignColor(variable, allocation, nextAvailableRegister, originalAdjacencyList);
-                allocation.put(variable, color);
+        private Set<Integer> getReservedRegisters() {
+            Set<Integer> reservedRegisters = new HashSet<>();
+            for (Map.Entry<String, Descriptor> entry : method.getVarTable().entrySet()) {
+                Descriptor desc = entry.getValue();
+                if (desc.getScope() == VarScope.PARAMETER || "this".equals(entry.getKey())) {
+                    reservedRegisters.add(desc.getVirtualReg());
+                }
             }
+            return reservedRegisters;
+        }
 
-            return allocation;
+        private void link(int node) {
+            int degree = degrees[node];
+            previous[node] = NONE;
+            next[node] = heads[degree];
+            if (heads[degree] != NONE) {
+                previous[heads[degree]] = node;
+            }
+            heads[degree] = node;
         }
 
-        private String findRemovableNode() {
-            for (String variable : graph.getVariables()) {
-                if (graph.getDegree(variable) < maxColors) {
-                    return variable;
-                }
+        private void unlink(int node) {
+            if (previous[node] != NONE) {
+                next[previous[node]] = next[node];
+            } else {
+                heads[degrees[node]] = next[node];
+            }
+            if (next[node] != NONE) {
+                previous[next[node]] = previous[node];
             }
-            return null;
         }
+    }
 
-        private int calculateMinimumRegisters() {
-            return graph.getVariables().stream()
-                    .mapToInt(graph::getDegree)
-                    .max()
-                    .orElse(0) + 1;
+    /**
+     * Linear scan (Poletto and Sarkar): the variables are numbered by the instructions in order, and each one is given
+     * a register when its live interval starts. No interference graph is built.
+     * <p>
+     * Intervals keep their lifetime holes (Traub et al.), so a register is reused by any variable that only lives in the
+     * holes of the others. Without them, the initializations at the top of each method would make every interval start
+     * there and overlap.
+     * <p>
+     * When it may spill, an interval that finds no register within the limit is spilled itself, and the method is
+     * allocated again once {@link SpillCode} has rewritten it, as with coloring.
+     */
+    private static class LinearScan {
+        private final Method method;
+        private final LiveVariables liveness;
+        private final int maxRegisters;
+        private final SpillCode spillCode;
+        private final Diagnostics diagnostics;
+        private final List<String> spilled;
+
+        /**
+         * @param spillCode gives the costs of spilling the variables, or null to never spill and fail instead
+         */
+        public LinearScan(Method method, LiveVariables liveness, int maxRegisters, SpillCode spillCode,
+                          Diagnostics diagnostics) {
+            this.method = method;
+            this.liveness = liveness;
+            this.maxRegisters = maxRegisters == 0 ? Integer.MAX_VALUE : maxRegisters;
+            this.spillCode = spillCode;
+            this.diagnostics = diagnostics;
+            this.spilled = new ArrayList<>();
+        }
+
+        /**
+         * @return the variables left without a register by the last allocation, to be spilled
+         */
+        public List<String> getSpilled() {
+            return spilled;
         }
 
-        private int reserveParameterRegisters() {
-            int nextRegister = 0;
+        public Map<String, Integer> allocate() throws RegisterAllocationException {
             Map<String, Descriptor> varTable = method.getVarTable();
 
+            // Sorted, so that the allocation does not depend on the order of the variable table
+            List<String> variables = new ArrayList<>();
             Set<Integer> reservedRegisters = new HashSet<>();
             for (Map.Entry<String, Descriptor> entry : varTable.entrySet()) {
                 Descriptor desc = entry.getValue();
                 if (desc.getScope() == VarScope.PARAMETER || "this".equals(entry.getKey())) {
                     reservedRegisters.add(desc.getVirtualReg());
+                } else if (desc.getScope() == VarScope.LOCAL) {
+                    variables.add(entry.getKey());
+                }
+            }
+            Collections.sort(variables);
+
+            List<List<int[]>> intervals = buildIntervals(variables);
+            double[] spillCosts = spillCode != null ? spillCode.getCosts(liveness, variables) : null;
+
+            // By start, variables that are never live last
+            Integer[] order = new Integer[variables.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingInt(i -> getStart(intervals.get(i))));
+
+            int[] hints = getCopySources(variables);
+            int[] chosenOf = new int[variables.size()];
+            Arrays.fill(chosenOf, -1);
+
+            Map<String, Integer> allocation = new HashMap<>();
+
+            // Ranges taken in each register, by start, and where the last one ends
+            List<Integer> registers = new ArrayList<>();
+            List<TreeMap<Integer, Integer>> occupied = new ArrayList<>();
+            List<Integer> lastEnds = new ArrayList<>();
+
+            for (int variable : order) {
+                List<int[]> interval = intervals.get(variable);
+
+                // The register of the variable it is copied from, if free, so that the copy can be dropped
+                int chosen = hints[variable] >= 0 ? chosenOf[hints[variable]] : -1;
+                if (chosen < 0 || !fits(interval, occupied.get(chosen), lastEnds.get(chosen))) {
+                    chosen = 0;
+                    while (chosen < registers.size()
+                            && !fits(interval, occupied.get(chosen), lastEnds.get(chosen))) {
+                        chosen++;
+                    }
                 }
+
+                if (chosen == registers.size()) {
+                    // Out of registers: the interval being placed is the one spilled, unless it cannot be
+                    if (spillCosts != null && registers.size() >= maxRegisters
+                            && Double.isFinite(spillCosts[variable])) {
+                        spilled.add(variables.get(variable));
+                        continue;
+                    }
+
+                    int register = registers.isEmpty() ? 0 : registers.get(registers.size() - 1) + 1;
+                    while (reservedRegisters.contains(register)) {
+                        register++;
+                    }
+                    registers.add(register);
+                    occupied.add(new TreeMap<>());
+                    lastEnds.add(-1);
+                }
+
+                for (int[] range : interval) {
+                    occupied.get(chosen).put(range[0], range[1]);
+                    lastEnds.set(chosen, Math.max(lastEnds.get(chosen), range[1]));
+                }
+                chosenOf[variable] = chosen;
+                allocation.put(variables.get(variable), registers.get(chosen));
             }
 
-            while (reservedRegisters.contains(nextRegister)) {
-                nextRegister++;
+            if (registers.size() > maxRegisters) {
+                throw new RegisterAllocationException(
+                        "Cannot allocate with " + maxRegisters + " registers. Linear scan needs " +
+                                registers.size() + " registers."
+                );
             }
 
-            System.out.println("Reserved registers: " + reservedRegisters);
-            System.out.println("Starting register allocation from register: " + nextRegister);
-            return nextRegister;
+            diagnostics.print(REGALLOC, () -> "Linear scan used " + registers.size() + " registers for "
+                    + (variables.size() - spilled.size()) + " variables, spilling " + spilled);
+
+            return allocation;
         }
 
-        private int assignColor(String variable, Map<String, Integer> allocation,
-                                int startRegister, Map<String, Set<String>> originalAdjacencyList) {
-            Set<String> neighbors = originalAdjacencyList.getOrDefault(variable, Collections.emptySet());
-            Set<Integer> usedColors = neighbors.stream()
-                    .filter(allocation::containsKey)
-                    .map(allocation::get)
-                    .collect(Collectors.toSet());
+        /**
+         * Ranges of positions where each variable is live, two positions per instruction, reads before writes, so that
+         * a copy's source and destination can share a register. Assignments of dead values take a position too.
+         */
+        private List<List<int[]>> buildIntervals(List<String> variables) {
+            // Variables of the liveness that are allocated here
+            int[] ids = new int[liveness.getVariables().size()];
+            Arrays.fill(ids, -1);
+            List<List<int[]>> intervals = new ArrayList<>();
+            for (int i = 0; i < variables.size(); i++) {
+                ids[liveness.getId(variables.get(i))] = i;
+                intervals.add(new ArrayList<>());
+            }
 
-            Map<String, Descriptor> varTable = method.getVarTable();
-            for (Map.Entry<String, Descriptor> entry : varTable.entrySet()) {
-                Descriptor desc = entry.getValue();
-                if (desc.getScope() == VarScope.PARAMETER || "this".equals(entry.getKey())) {
-                    usedColors.add(desc.getVirtualReg());
+            // From the last instruction up, so the ranges are built backwards
+            for (int block = liveness.getGraph().getExit() - 1; block >= 0; block--) {
+                liveness.forEachInstruction(block, (instruction, liveIn, liveOut) -> {
+                    int definition = liveness.getDefinition(instruction);
+                    if (definition >= 0) {
+                        extend(definition, 2 * instruction + 1, ids, intervals);
+                    }
+                    for (int variable = LiveVariables.nextVariable(liveOut, 0); variable >= 0;
+                         variable = LiveVariables.nextVariable(liveOut, variable + 1)) {
+                        extend(variable, 2 * instruction + 1, ids, intervals);
+                    }
+                    for (int variable = LiveVariables.nextVariable(liveIn, 0); variable >= 0;
+                         variable = LiveVariables.nextVariable(liveIn, variable + 1)) {
+                        extend(variable, 2 * instruction, ids, intervals);
+                    }
+                });
+            }
+
+            for (List<int[]> interval : intervals) {
+                Collections.reverse(interval);
+            }
+
+            return intervals;
+        }
+
+        /**
+         * @return for each variable, the last variable copied into it, -1 if none
+         */
+        private int[] getCopySources(List<String> variables) {
+            int[] sources = new int[variables.size()];
+            Arrays.fill(sources, -1);
+
+            for (int instruction = 0; instruction < liveness.getGraph().getInstructions().getExit(); instruction++) {
+                int source = liveness.getCopySource(instruction);
+                if (source < 0) {
+                    continue;
+                }
+
+                // The variables are sorted by name
+                int destination = Collections.binarySearch(variables,
+                        liveness.getVariables().get(liveness.getDefinition(instruction)));
+                int sourceIndex = Collections.binarySearch(variables, liveness.getVariables().get(source));
+                if (destination >= 0 && sourceIndex >= 0) {
+                    sources[destination] = sourceIndex;
                 }
             }
 
-            int color = startRegister;
-            while (usedColors.contains(color)) {
-                color++;
+            return sources;
+        }
+
+        private static void extend(int variable, int position, int[] ids, List<List<int[]>> intervals) {
+            int id = ids[variable];
+            if (id < 0) {
+                return;
+            }
+
+            List<int[]> interval = intervals.get(id);
+            int[] first = interval.isEmpty() ? null : interval.get(interval.size() - 1);
+            if (first != null && first[0] <= position + 1) {
+                first[0] = Math.min(first[0], position);
+            } else {
+                interval.add(new int[]{position, position});
+            }
+        }
+
+        private static int getStart(List<int[]> interval) {
+            return interval.isEmpty() ? Integer.MAX_VALUE : interval.get(0)[0];
+        }
+
+        private static boolean fits(List<int[]> interval, TreeMap<Integer, Integer> occupied, int lastEnd) {
+            if (interval.isEmpty() || getStart(interval) > lastEnd) {
+                return true;
+            }
+
+            for (int[] range : interval) {
+                // The last range taken that starts before this one ends is the only one that can overlap it
+                Map.Entry<Integer, Integer> before = occupied.floorEntry(range[1]);
+                if (before != null && before.getValue() >= range[0]) {
+                    return false;
+                }
             }
 
-            return color;
+            return true;
         }
     }
 }
\ No newline at end of file
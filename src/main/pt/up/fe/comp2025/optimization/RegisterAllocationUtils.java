@@ -2,6 +2,7 @@ package pt.up.fe.comp2025.optimization;
 
 import org.specs.comp.ollir.*;
 import org.specs.comp.ollir.inst.*;
+import pt.up.fe.comp2025.optimization.dataflow.LiveVariables;
 
 import java.util.*;
 
@@ -11,87 +12,55 @@ import java.util.*;
 public class RegisterAllocationUtils {
 
     /**
-     * Print detailed liveness analysis information for debugging
+     * Detailed liveness analysis information for debugging
      */
-    public static void printLivenessAnalysis(Method method,
-                                             Map<Instruction, Set<String>> liveIns,
-                                             Map<Instruction, Set<String>> liveOuts,
-                                             Map<Instruction, Set<String>> defSets,
-                                             Map<Instruction, Set<String>> useSets) {
-        System.out.println("=== Liveness Analysis for " + method.getMethodName() + " ===");
+    public static String formatLivenessAnalysis(Method method, LiveVariables liveness) {
+        int numInstructions = method.getInstructions().size();
+        List<List<String>> liveIns = new ArrayList<>(Collections.nCopies(numInstructions, null));
+        List<List<String>> liveOuts = new ArrayList<>(Collections.nCopies(numInstructions, null));
+
+        for (int block = 0; block < liveness.getGraph().getExit(); block++) {
+            liveness.forEachInstruction(block, (instruction, liveIn, liveOut) -> {
+                liveIns.set(instruction, liveness.toNames(liveIn));
+                liveOuts.set(instruction, liveness.toNames(liveOut));
+            });
+        }
+
+        List<String> variables = liveness.getVariables();
+        StringBuilder builder = new StringBuilder();
+        builder.append("=== Liveness Analysis for ").append(method.getMethodName()).append(" ===\n");
 
         int instIndex = 0;
         for (Instruction inst : method.getInstructions()) {
-            System.out.println("Instruction " + instIndex + ": " + inst);
-            System.out.println("  DEF: " + defSets.getOrDefault(inst, Collections.emptySet()));
-            System.out.println("  USE: " + useSets.getOrDefault(inst, Collections.emptySet()));
-            System.out.println("  IN:  " + liveIns.getOrDefault(inst, Collections.emptySet()));
-            System.out.println("  OUT: " + liveOuts.getOrDefault(inst, Collections.emptySet()));
-            System.out.println();
+            int definition = liveness.getDefinition(instIndex);
+            List<String> uses = Arrays.stream(liveness.getUses(instIndex)).mapToObj(variables::get).toList();
+
+            builder.append("Instruction ").append(instIndex).append(": ").append(inst).append("\n");
+            builder.append("  DEF: ").append(definition >= 0 ? List.of(variables.get(definition)) : List.of())
+                    .append("\n");
+            builder.append("  USE: ").append(uses).append("\n");
+            builder.append("  IN:  ").append(liveIns.get(instIndex)).append("\n");
+            builder.append("  OUT: ").append(liveOuts.get(instIndex)).append("\n");
+            builder.append("\n");
             instIndex++;
         }
-    }
 
-    /**
-     * Print interference graph for debugging
-     */
-    public static void printInterferenceGraph(Map<String, Set<String>> adjacencyList) {
-        System.out.println("=== Interference Graph ===");
-        for (Map.Entry<String, Set<String>> entry : adjacencyList.entrySet()) {
-            System.out.println(entry.getKey() + " interferes with: " + entry.getValue());
-        }
-        System.out.println();
+        builder.append("Blocks solved: ").append(liveness.getTransferCount()).append("\n");
+
+        return builder.toString();
     }
 
     /**
-     * Validate register allocation result
-     * Fixed: Only validate LOCAL variables that were supposed to be allocated
+     * Interference graph for debugging
      */
-    public static boolean validateAllocation(Method method, Map<String, Integer> allocation) {
-        System.out.println("=== Validating Register Allocation ===");
-
-        Map<String, Descriptor> varTable = method.getVarTable();
-        for (String varName : varTable.keySet()) {
-            Descriptor desc = varTable.get(varName);
-            if (desc.getScope() == VarScope.LOCAL && !"this".equals(varName)) {
-                if (!allocation.containsKey(varName)) {
-                    System.err.println("ERROR: Local variable " + varName + " not allocated a register");
-                    return false;
-                }
-            }
-        }
-
-        // Check for valid register numbers
-        for (Map.Entry<String, Integer> entry : allocation.entrySet()) {
-            Integer register = entry.getValue();
-            if (register < 0) {
-                System.err.println("ERROR: Invalid register " + register + " for variable " + entry.getKey());
-                return false;
-            }
-        }
-
-        // Check that registers are properly assigned
-        Set<Integer> reservedRegisters = new HashSet<>();
-        for (Map.Entry<String, Descriptor> entry : varTable.entrySet()) {
-            Descriptor desc = entry.getValue();
-            if (desc.getScope() == VarScope.PARAMETER || "this".equals(entry.getKey())) {
-                reservedRegisters.add(desc.getVirtualReg());
-            }
-        }
-
-        for (Map.Entry<String, Integer> entry : allocation.entrySet()) {
-            Integer register = entry.getValue();
-            if (reservedRegisters.contains(register)) {
-                System.err.println("ERROR: Allocated register " + register + " for variable " +
-                        entry.getKey() + " conflicts with reserved register");
-                return false;
-            }
+    public static String formatInterferenceGraph(Map<String, Set<String>> adjacencyList) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("=== Interference Graph ===\n");
+        for (Map.Entry<String, Set<String>> entry : adjacencyList.entrySet()) {
+            builder.append(entry.getKey()).append(" interferes with: ").append(entry.getValue()).append("\n");
         }
 
-        Set<Integer> allocatedRegisters = new HashSet<>(allocation.values());
-        System.out.println("Validation passed. Allocated registers: " + allocatedRegisters);
-        System.out.println("Reserved registers: " + reservedRegisters);
-        return true;
+        return builder.toString();
     }
 
     /**
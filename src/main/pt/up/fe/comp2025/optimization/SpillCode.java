@@ -0,0 +1,515 @@
+package pt.up.fe.comp2025.optimization;
+
+import org.specs.comp.ollir.ArrayOperand;
+import org.specs.comp.ollir.Descriptor;
+import org.specs.comp.ollir.Element;
+import org.specs.comp.ollir.LiteralElement;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.VarScope;
+import org.specs.comp.ollir.inst.ArrayLengthInstruction;
+import org.specs.comp.ollir.inst.AssignInstruction;
+import org.specs.comp.ollir.inst.CallInstruction;
+import org.specs.comp.ollir.inst.FieldInstruction;
+import org.specs.comp.ollir.inst.Instruction;
+import org.specs.comp.ollir.inst.InvokeSpecialInstruction;
+import org.specs.comp.ollir.inst.InvokeVirtualInstruction;
+import org.specs.comp.ollir.inst.NewInstruction;
+import org.specs.comp.ollir.inst.SingleOpInstruction;
+import org.specs.comp.ollir.type.ArrayType;
+import org.specs.comp.ollir.type.BuiltinKind;
+import org.specs.comp.ollir.type.BuiltinType;
+import org.specs.comp.ollir.type.ClassKind;
+import org.specs.comp.ollir.type.ClassType;
+import org.specs.comp.ollir.type.Type;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+import pt.up.fe.comp2025.optimization.dataflow.LiveVariables;
+import pt.up.fe.comp2025.optimization.dataflow.OllirOperands;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static pt.up.fe.comp2025.instrumentation.Diagnostics.Level.REGALLOC;
+
+/**
+ * Rewrites a method so that the variables {@link RegisterAllocation} could not fit in the registers are kept
+ * elsewhere.
+ * <p>
+ * A method has no memory of its own besides its locals, so spilled variables are kept in arrays created when the
+ * method starts, one element each: ints and booleans in an int array, references in an Object array, which the backend
+ * casts back when they are read. The int array is a reference too, and is spilled like any other, so only the Object
+ * array needs a register of its own. An access to the elements of a spilled array goes through the element it is
+ * kept in, {@code a[i]} becoming {@code references[j][i]}.
+ * <p>
+ * A spilled variable only ever assigned one constant is not kept at all, the constant is written where it is read
+ * (rematerialization). Any other is split at the basic blocks: in a block that accesses it in one instruction, the
+ * element of the array is read or assigned in place; in a block that accesses it more, it gets a new variable, loaded
+ * before it is first read and stored after it is last assigned if it is live after the block. These new variables are
+ * short and rarely spilled, if they are, they go back to the element of the array in place.
+ */
+public class SpillCode {
+
+    private static final String SPILLS = "spills";
+    private static final String REFERENCES = "references";
+
+    private static final int NONE = -1;
+
+    // Accesses in a loop weigh this many times more than outside of it, up to MAX_DEPTH loops
+    private static final double LOOP_WEIGHT = 10;
+    private static final int MAX_DEPTH = 8;
+
+    private static final Type INT = new BuiltinType(BuiltinKind.INT32);
+    private static final Type OBJECT = new ClassType(ClassKind.OBJECTREF, "Object");
+
+    private final Method method;
+    private final Diagnostics diagnostics;
+
+    // Name of the array of spilled ints and booleans and its size, null until a variable is kept there
+    private String spills;
+    private LiteralElement size;
+    private int numElements;
+
+    // Element of the array of references the array of ints is kept in once it is spilled itself
+    private int spillsElement;
+
+    // Name of the array of spilled references and its size, null until a variable is kept there
+    private String references;
+    private LiteralElement referencesSize;
+    private int numReferences;
+
+    // Variables that took the place of a spilled variable in a block -> element of the spilled variable
+    private final Map<String, Integer> pieces;
+
+    public SpillCode(Method method, Diagnostics diagnostics) {
+        this.method = method;
+        this.diagnostics = diagnostics;
+        this.pieces = new HashMap<>();
+        this.spillsElement = NONE;
+    }
+
+    /**
+     * @return what spilling each variable costs: its accesses, weighed by the loops they are in; nothing for constants,
+     * since writing a constant costs as much as reading a register; infinite for variables that cannot be spilled
+     */
+    public double[] getCosts(LiveVariables liveness, List<String> variables) {
+        var blocks = liveness.getGraph();
+        var depths = LoopDepth.compute(blocks);
+
+        var accesses = new double[liveness.getVariables().size()];
+        for (int instruction = 0; instruction < blocks.getInstructions().getExit(); instruction++) {
+            var depth = Math.min(depths[blocks.getBlockOf(instruction)], MAX_DEPTH);
+            var weight = Math.pow(LOOP_WEIGHT, depth);
+
+            var definition = liveness.getDefinition(instruction);
+            if (definition >= 0) {
+                accesses[definition] += weight;
+            }
+            for (var use : liveness.getUses(instruction)) {
+                accesses[use] += weight;
+            }
+        }
+
+        var constants = findConstants();
+        var costs = new double[variables.size()];
+        for (int i = 0; i < costs.length; i++) {
+            var name = variables.get(i);
+            var id = liveness.getId(name);
+
+            if (!isSpillable(name)) {
+                costs[i] = Double.POSITIVE_INFINITY;
+            } else if (!constants.containsKey(name) && id >= 0) {
+                costs[i] = accesses[id];
+            }
+        }
+
+        return costs;
+    }
+
+    /**
+     * Spills the variables, which are then no longer in the variable table.
+     *
+     * @param liveness the liveness the variables were chosen with, of the method as it is
+     */
+    public void spill(List<String> variables, LiveVariables liveness) {
+        var constants = findConstants();
+
+        // Block of each instruction, those added here take the block of the one they were added for
+        var blockOf = new IdentityHashMap<Instruction, Integer>();
+        var blocks = liveness.getGraph();
+        for (int instruction = 0; instruction < blocks.getInstructions().getExit(); instruction++) {
+            blockOf.put(blocks.getInstructions().getInstruction(instruction), blocks.getBlockOf(instruction));
+        }
+
+        for (var name : variables) {
+            var type = method.getVarTable().get(name).getVarType();
+
+            if (pieces.containsKey(name)) {
+                var element = pieces.remove(name);
+                diagnostics.print(REGALLOC, () -> "Spilling " + name + " to " + format(newElement(element, type)));
+                rewrite(name, blockOf, inst -> toElement(inst, name, element, type));
+            } else if (constants.containsKey(name)) {
+                var constant = constants.get(name);
+                diagnostics.print(REGALLOC, () -> "Rematerializing " + name + " as " + constant.getLiteral());
+                rewrite(name, blockOf, inst -> rematerialize(inst, name, constant));
+            } else {
+                var element = newElement(type);
+                if (name.equals(spills)) {
+                    spillsElement = element;
+                }
+
+                diagnostics.print(REGALLOC, () -> "Spilling " + name + " to " + format(newElement(element, type)));
+                split(name, element, type, liveness, blockOf);
+            }
+
+            method.getVarTable().remove(name);
+        }
+    }
+
+    /**
+     * @return the number of elements of the arrays of spilled variables
+     */
+    public int getNumElements() {
+        return numElements + numReferences;
+    }
+
+    private boolean isSpillable(String name) {
+        var descriptor = method.getVarTable().get(name);
+        return descriptor != null && descriptor.getScope() == VarScope.LOCAL && !name.equals(references);
+    }
+
+    private static boolean isReference(Type type) {
+        return !BuiltinType.is(type, BuiltinKind.INT32) && !BuiltinType.is(type, BuiltinKind.BOOLEAN);
+    }
+
+    /**
+     * @return the variables only ever assigned one constant, with it
+     */
+    private Map<String, LiteralElement> findConstants() {
+        Map<String, LiteralElement> constants = new HashMap<>();
+        Set<String> others = new HashSet<>();
+
+        for (var inst : method.getInstructions()) {
+            var definition = OllirOperands.getDefinition(inst);
+            if (definition == null) {
+                continue;
+            }
+
+            var name = definition.getName();
+            var constant = constants.get(name);
+            if (((AssignInstruction) inst).getRhs() instanceof SingleOpInstruction singleOp
+                    && singleOp.getSingleOperand() instanceof LiteralElement literal
+                    && (constant == null || constant.getLiteral().equals(literal.getLiteral()))) {
+                constants.put(name, literal);
+            } else {
+                others.add(name);
+            }
+        }
+
+        constants.keySet().removeAll(others);
+        return constants;
+    }
+
+    /**
+     * Splits the variable at the blocks, see the class.
+     */
+    private void split(String name, int element, Type type, LiveVariables liveness,
+                       Map<Instruction, Integer> blockOf) {
+        // Instructions that access the variable, by block, in order
+        Map<Integer, List<Instruction>> accesses = new LinkedHashMap<>();
+        for (var inst : method.getInstructions()) {
+            if (isAccess(inst, name)) {
+                accesses.computeIfAbsent(blockOf.get(inst), block -> new ArrayList<>()).add(inst);
+            }
+        }
+
+        Map<Instruction, List<Instruction>> rewritten = new IdentityHashMap<>();
+        for (var entry : accesses.entrySet()) {
+            var blockAccesses = entry.getValue();
+            if (blockAccesses.size() == 1) {
+                var inst = blockAccesses.get(0);
+                rewritten.put(inst, toElement(inst, name, element, type));
+                continue;
+            }
+
+            var piece = newVariable(name, type);
+            pieces.put(piece, element);
+
+            Instruction lastDefinition = null;
+            for (var inst : blockAccesses) {
+                var definition = OllirOperands.getDefinition(inst);
+                if (definition != null && definition.getName().equals(name)) {
+                    definition.setName(piece);
+                    lastDefinition = inst;
+                }
+                for (var use : OllirOperands.getUses(inst)) {
+                    if (use.getName().equals(name)) {
+                        use.setName(piece);
+                    }
+                }
+            }
+
+            var first = blockAccesses.get(0);
+            var isRead = OllirOperands.getUses(first).stream().anyMatch(use -> use.getName().equals(piece));
+            if (isRead) {
+                rewritten.put(first, new ArrayList<>(List.of(newCopy(new Operand(piece, type), newElement(element, type),
+                        type), first)));
+            }
+
+            var isLiveAfter = LiveVariables.contains(liveness.getOut(entry.getKey()), liveness.getId(name));
+            if (lastDefinition != null && isLiveAfter) {
+                var store = newCopy(newElement(element, type), new Operand(piece, type), type);
+                rewritten.computeIfAbsent(lastDefinition, inst -> new ArrayList<>(List.of(inst))).add(store);
+            }
+        }
+
+        replace(rewritten, blockOf);
+    }
+
+    /**
+     * @return the instruction reading and assigning the element of the array in place of the variable, nothing if
+     * that makes it copy the element into itself
+     */
+    private List<Instruction> toElement(Instruction inst, String name, int element, Type type) {
+        inst = toElementObjects(inst, name, element, type);
+        OllirOperands.replaceUses(inst, operand -> operand.getName().equals(name) ? newElement(element, type) : operand);
+
+        var definition = OllirOperands.getDefinition(inst);
+        var assign = inst instanceof AssignInstruction assignInst ? assignInst : null;
+        if (definition != null && definition.getName().equals(name)) {
+            inst = assign = new AssignInstruction(newElement(element, type), assign.getTypeOfAssign(), assign.getRhs());
+        }
+
+        var target = newElement(element, type);
+        if (assign != null && isElement(assign.getDest(), target)
+                && assign.getRhs() instanceof SingleOpInstruction singleOp
+                && isElement(singleOp.getSingleOperand(), target)) {
+            return List.of();
+        }
+
+        return List.of(inst);
+    }
+
+    /**
+     * Reads the element in place of the variable where {@link OllirOperands#replaceUses} keeps it: as the array of an
+     * access, which then goes through the element, and as the object of a field or of a call. The object of a call
+     * cannot be changed, so the call is created again.
+     *
+     * @return the instruction, or the one created in its place
+     */
+    private Instruction toElementObjects(Instruction inst, String name, int element, Type type) {
+        for (var use : OllirOperands.getUses(inst)) {
+            if (use instanceof ArrayOperand access && access.getName().equals(name)) {
+                var through = newElement(element, type);
+                access.setName(through.getName());
+                access.getIndexOperands().addAll(0, through.getIndexOperands());
+            }
+        }
+
+        if (inst instanceof AssignInstruction assign) {
+            var rhs = toElementObjects(assign.getRhs(), name, element, type);
+            return rhs == assign.getRhs()
+                    ? assign
+                    : new AssignInstruction(assign.getDest(), assign.getTypeOfAssign(), rhs);
+        }
+
+        if (inst instanceof FieldInstruction field && isVariable(field.getObject(), name)) {
+            var operands = new ArrayList<>(field.getOperands());
+            operands.set(0, newElement(element, type));
+            field.setOperands(operands);
+        } else if (inst instanceof CallInstruction call && isVariable(call.getCaller(), name)) {
+            var object = newElement(element, type);
+            if (call instanceof InvokeVirtualInstruction) {
+                return new InvokeVirtualInstruction(object, call.getMethodName(), call.getArguments(),
+                        call.getReturnType(), call.isIsolated());
+            } else if (call instanceof InvokeSpecialInstruction invokeSpecial) {
+                return new InvokeSpecialInstruction(object, call.getMethodName(),
+                        invokeSpecial.getSuperClass().orElse(null), call.getArguments(), call.getReturnType(),
+                        call.isIsolated());
+            } else if (call instanceof ArrayLengthInstruction) {
+                return new ArrayLengthInstruction(object, call.getReturnType());
+            }
+        }
+
+        return inst;
+    }
+
+    private static boolean isVariable(Element element, String name) {
+        return element instanceof Operand operand && !(operand instanceof ArrayOperand)
+                && operand.getName().equals(name);
+    }
+
+    private List<Instruction> rematerialize(Instruction inst, String name, LiteralElement constant) {
+        var definition = OllirOperands.getDefinition(inst);
+        if (definition != null && definition.getName().equals(name)) {
+            return List.of();
+        }
+
+        OllirOperands.replaceUses(inst, operand -> operand.getName().equals(name)
+                ? new LiteralElement(constant.getLiteral(), constant.getType()) : operand);
+        return List.of(inst);
+    }
+
+    /**
+     * Rewrites each instruction that accesses the variable.
+     */
+    private void rewrite(String name, Map<Instruction, Integer> blockOf,
+                         Function<Instruction, List<Instruction>> rewriter) {
+        Map<Instruction, List<Instruction>> rewritten = new IdentityHashMap<>();
+        for (var inst : method.getInstructions()) {
+            if (isAccess(inst, name)) {
+                rewritten.put(inst, rewriter.apply(inst));
+            }
+        }
+
+        replace(rewritten, blockOf);
+    }
+
+    /**
+     * Puts the instructions in place of the ones rewritten. The labels of each go to the first instruction that
+     * replaces it, or to the next instruction if it was removed.
+     */
+    private void replace(Map<Instruction, List<Instruction>> rewritten, Map<Instruction, Integer> blockOf) {
+        var instructions = method.getInstructions();
+
+        List<Instruction> result = new ArrayList<>(instructions.size());
+        Map<Instruction, Instruction> targets = new IdentityHashMap<>();
+        Instruction next = null;
+        for (int i = instructions.size() - 1; i >= 0; i--) {
+            var inst = instructions.get(i);
+            var replacement = rewritten.getOrDefault(inst, List.of(inst));
+
+            for (int j = replacement.size() - 1; j >= 0; j--) {
+                result.add(replacement.get(j));
+                blockOf.putIfAbsent(replacement.get(j), blockOf.get(inst));
+            }
+            if (!replacement.isEmpty()) {
+                next = replacement.get(0);
+            }
+            targets.put(inst, next);
+        }
+
+        for (var entry : method.getLabels().entrySet()) {
+            entry.setValue(targets.getOrDefault(entry.getValue(), entry.getValue()));
+        }
+        // Labels after the last instruction that is kept
+        method.getLabels().values().removeIf(inst -> inst == null);
+
+        instructions.clear();
+        for (int i = result.size() - 1; i >= 0; i--) {
+            instructions.add(result.get(i));
+        }
+    }
+
+    private static boolean isAccess(Instruction inst, String name) {
+        var definition = OllirOperands.getDefinition(inst);
+        if (definition != null && definition.getName().equals(name)) {
+            return true;
+        }
+
+        return OllirOperands.getUses(inst).stream().anyMatch(use -> use.getName().equals(name));
+    }
+
+    /**
+     * @return a new element of the array of spilled variables of the type, creating the array when the method starts
+     * if needed
+     */
+    private int newElement(Type type) {
+        if (isReference(type)) {
+            if (references == null) {
+                references = newName(REFERENCES);
+                referencesSize = new LiteralElement("0", INT);
+                // Before the int array, which may be kept in it
+                method.getInstructions().add(0, newArray(references, OBJECT, referencesSize));
+            }
+
+            referencesSize.setLiteral(Integer.toString(numReferences + 1));
+            return numReferences++;
+        }
+
+        if (spills == null) {
+            spills = newName(SPILLS);
+            size = new LiteralElement("0", INT);
+            method.getInstructions().add(references == null ? 0 : 1, newArray(spills, INT, size));
+        }
+
+        size.setLiteral(Integer.toString(numElements + 1));
+        return numElements++;
+    }
+
+    private AssignInstruction newArray(String name, Type elementType, LiteralElement length) {
+        var arrayType = new ArrayType(1);
+        arrayType.setElementType(elementType);
+
+        method.getVarTable().put(name, new Descriptor(VarScope.LOCAL, getNextRegister(), arrayType));
+
+        var newArray = new NewInstruction(new Operand("array", arrayType), new ArrayList<>(List.of(length)), arrayType,
+                false);
+        return new AssignInstruction(new Operand(name, arrayType), arrayType, newArray);
+    }
+
+    /**
+     * @return the given element of the array of spilled variables of the type
+     */
+    private ArrayOperand newElement(int element, Type type) {
+        if (isReference(type)) {
+            return new ArrayOperand(references, type, List.of(newIndex(element)));
+        }
+
+        if (spillsElement == NONE) {
+            return new ArrayOperand(spills, type, List.of(newIndex(element)));
+        }
+
+        return new ArrayOperand(references, type, List.of(newIndex(spillsElement), newIndex(element)));
+    }
+
+    private static LiteralElement newIndex(int index) {
+        return new LiteralElement(Integer.toString(index), INT);
+    }
+
+    private static boolean isElement(Element element, ArrayOperand target) {
+        return element instanceof ArrayOperand arrayOperand && arrayOperand.getName().equals(target.getName())
+                && format(arrayOperand).equals(format(target));
+    }
+
+    /**
+     * @return the name and the indexes of the access, indexes that are not literals as '?'
+     */
+    private static String format(ArrayOperand access) {
+        return access.getName() + access.getIndexOperands().stream()
+                .map(index -> "[" + (index instanceof LiteralElement literal ? literal.getLiteral() : "?") + "]")
+                .collect(Collectors.joining());
+    }
+
+    private String newVariable(String variable, Type type) {
+        var name = newName(variable);
+        method.getVarTable().put(name, new Descriptor(VarScope.LOCAL, getNextRegister(), type));
+        return name;
+    }
+
+    private String newName(String base) {
+        var name = base + "$" + 1;
+        for (int i = 2; method.getVarTable().containsKey(name); i++) {
+            name = base + "$" + i;
+        }
+        return name;
+    }
+
+    private int getNextRegister() {
+        return method.getVarTable().values().stream()
+                .mapToInt(Descriptor::getVirtualReg)
+                .max()
+                .orElse(-1) + 1;
+    }
+
+    private static AssignInstruction newCopy(Element dest, Element source, Type type) {
+        return new AssignInstruction(dest, type, new SingleOpInstruction(source));
+    }
+}
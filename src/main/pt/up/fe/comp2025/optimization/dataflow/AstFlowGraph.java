@@ -0,0 +1,171 @@
+package pt.up.fe.comp2025.optimization.dataflow;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.ast.Kind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static pt.up.fe.comp2025.ast.Kind.*;
+
+/**
+ * Control-flow graph of the body of a method, built from the AST.
+ * <p>
+ * The elements of a block are the nodes it evaluates, in order: simple statements (assignments, expression and
+ * return statements) and the conditions of if and while statements, which end the block. The entry and exit blocks
+ * are always 0 and 1, the exit block is empty. Statements after a return go to a block without predecessors.
+ */
+public class AstFlowGraph implements FlowGraph {
+
+    private static final int ENTRY = 0;
+    private static final int EXIT = 1;
+
+    private final List<List<JmmNode>> elements;
+    private final List<List<Integer>> successorLists;
+
+    private int[][] successors;
+    private int[][] predecessors;
+
+    private AstFlowGraph() {
+        this.elements = new ArrayList<>();
+        this.successorLists = new ArrayList<>();
+    }
+
+    public static AstFlowGraph build(JmmNode methodDecl) {
+        METHOD_DECL.checkOrThrow(methodDecl);
+
+        var graph = new AstFlowGraph();
+        graph.newBlock();
+        graph.newBlock();
+
+        var current = ENTRY;
+        for (var child : methodDecl.getChildren()) {
+            if (STMT.check(child)) {
+                current = graph.addStatement(child, current);
+            }
+        }
+        graph.addEdge(current, EXIT);
+
+        graph.link();
+        return graph;
+    }
+
+    /**
+     * @return the statements and conditions of the block, in evaluation order
+     */
+    public List<JmmNode> getElements(int block) {
+        return elements.get(block);
+    }
+
+    @Override
+    public int getNumBlocks() {
+        return elements.size();
+    }
+
+    @Override
+    public int getEntry() {
+        return ENTRY;
+    }
+
+    @Override
+    public int getExit() {
+        return EXIT;
+    }
+
+    @Override
+    public int[] getSuccessors(int block) {
+        return successors[block];
+    }
+
+    @Override
+    public int[] getPredecessors(int block) {
+        return predecessors[block];
+    }
+
+    /**
+     * @return the block where control continues after the statement
+     */
+    private int addStatement(JmmNode stmt, int current) {
+        var kind = Kind.of(stmt);
+
+        if (kind == BLOCK_STMT) {
+            for (var child : stmt.getChildren()) {
+                current = addStatement(child, current);
+            }
+            return current;
+        }
+
+        if (kind == IF_ELSE_STMT) {
+            elements.get(current).add(stmt.getChild(0));
+
+            var thenBlock = newBlock();
+            var elseBlock = newBlock();
+            addEdge(current, thenBlock);
+            addEdge(current, elseBlock);
+
+            var thenEnd = addStatement(stmt.getChild(1), thenBlock);
+            var elseEnd = addStatement(stmt.getChild(2), elseBlock);
+
+            var join = newBlock();
+            addEdge(thenEnd, join);
+            addEdge(elseEnd, join);
+            return join;
+        }
+
+        if (kind == WHILE_STMT) {
+            var header = newBlock();
+            addEdge(current, header);
+            elements.get(header).add(stmt.getChild(0));
+
+            var body = newBlock();
+            addEdge(header, body);
+            var bodyEnd = addStatement(stmt.getChild(1), body);
+            addEdge(bodyEnd, header);
+
+            var after = newBlock();
+            addEdge(header, after);
+            return after;
+        }
+
+        elements.get(current).add(stmt);
+
+        if (kind == RETURN_STMT) {
+            addEdge(current, EXIT);
+            return newBlock();
+        }
+
+        return current;
+    }
+
+    private int newBlock() {
+        elements.add(new ArrayList<>());
+        successorLists.add(new ArrayList<>());
+        return elements.size() - 1;
+    }
+
+    private void addEdge(int from, int to) {
+        successorLists.get(from).add(to);
+    }
+
+    private void link() {
+        var numBlocks = getNumBlocks();
+        var predecessorLists = new ArrayList<List<Integer>>(numBlocks);
+        for (int block = 0; block < numBlocks; block++) {
+            predecessorLists.add(new ArrayList<>());
+        }
+
+        successors = new int[numBlocks][];
+        for (int block = 0; block < numBlocks; block++) {
+            var blockSuccessors = successorLists.get(block);
+            successors[block] = blockSuccessors.stream().mapToInt(Integer::intValue).toArray();
+            for (var successor : blockSuccessors) {
+                predecessorLists.get(successor).add(block);
+            }
+        }
+
+        predecessors = new int[numBlocks][];
+        for (int block = 0; block < numBlocks; block++) {
+            predecessors[block] = predecessorLists.get(block).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+}
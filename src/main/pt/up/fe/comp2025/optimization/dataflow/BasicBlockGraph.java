@@ -0,0 +1,154 @@
+package pt.up.fe.comp2025.optimization.dataflow;
+
+/**
+ * Basic blocks of an {@link OllirFlowGraph}: runs of instructions that are only entered at the first one and only left
+ * at the last one.
+ * <p>
+ * Blocks are numbered in the order of their instructions, block b holds the instructions {@link #getFirst(int)} to
+ * {@link #getLast(int)}. As in the graph of instructions, {@link #getExit()} and {@link #getEntry()} come after the
+ * blocks and have no instructions.
+ */
+public class BasicBlockGraph implements FlowGraph {
+
+    private final OllirFlowGraph instructions;
+
+    // First instruction of each block, then the number of instructions
+    private final int[] firsts;
+    // Block of each instruction
+    private final int[] blocks;
+
+    private final int[][] successors;
+    private final int[][] predecessors;
+
+    private BasicBlockGraph(OllirFlowGraph instructions, int[] firsts, int[] blocks) {
+        this.instructions = instructions;
+        this.firsts = firsts;
+        this.blocks = blocks;
+        this.successors = new int[firsts.length + 1][];
+        this.predecessors = new int[firsts.length + 1][];
+    }
+
+    public static BasicBlockGraph build(OllirFlowGraph instructions) {
+        var numInstructions = instructions.getExit();
+
+        // An instruction starts a block if it is not only reached from the previous one, which only goes to it
+        var blocks = new int[numInstructions];
+        var firsts = new int[numInstructions + 1];
+        var numBlocks = 0;
+        for (int i = 0; i < numInstructions; i++) {
+            if (i == 0 || !isOnly(instructions.getPredecessors(i), i - 1)
+                    || !isOnly(instructions.getSuccessors(i - 1), i)) {
+                firsts[numBlocks++] = i;
+            }
+            blocks[i] = numBlocks - 1;
+        }
+        firsts[numBlocks] = numInstructions;
+
+        var firstsOfBlocks = new int[numBlocks + 1];
+        System.arraycopy(firsts, 0, firstsOfBlocks, 0, numBlocks + 1);
+
+        var graph = new BasicBlockGraph(instructions, firstsOfBlocks, blocks);
+        for (int block = 0; block < numBlocks; block++) {
+            var last = instructions.getSuccessors(graph.getLast(block));
+            var blockSuccessors = new int[last.length];
+            for (int i = 0; i < last.length; i++) {
+                blockSuccessors[i] = graph.getBlockOf(last[i]);
+            }
+            graph.successors[block] = blockSuccessors;
+        }
+        graph.successors[graph.getExit()] = new int[0];
+        graph.successors[graph.getEntry()] = new int[]{numBlocks > 0 ? 0 : graph.getExit()};
+
+        graph.link();
+        return graph;
+    }
+
+    public OllirFlowGraph getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * @return the first instruction of the block, in the numbering of {@link OllirFlowGraph}
+     */
+    public int getFirst(int block) {
+        return firsts[block];
+    }
+
+    /**
+     * @return the last instruction of the block, in the numbering of {@link OllirFlowGraph}
+     */
+    public int getLast(int block) {
+        return firsts[block + 1] - 1;
+    }
+
+    /**
+     * @return the block of an instruction, the entry and exit of {@link OllirFlowGraph} map to the entry and exit
+     */
+    public int getBlockOf(int instruction) {
+        if (instruction == instructions.getExit()) {
+            return getExit();
+        }
+
+        if (instruction == instructions.getEntry()) {
+            return getEntry();
+        }
+
+        return blocks[instruction];
+    }
+
+    /**
+     * @return false for the entry and exit blocks
+     */
+    public boolean isInstructions(int block) {
+        return block < getExit();
+    }
+
+    @Override
+    public int getNumBlocks() {
+        return successors.length;
+    }
+
+    @Override
+    public int getEntry() {
+        return firsts.length;
+    }
+
+    @Override
+    public int getExit() {
+        return firsts.length - 1;
+    }
+
+    @Override
+    public int[] getSuccessors(int block) {
+        return successors[block];
+    }
+
+    @Override
+    public int[] getPredecessors(int block) {
+        return predecessors[block];
+    }
+
+    private static boolean isOnly(int[] blocks, int block) {
+        return blocks.length == 1 && blocks[0] == block;
+    }
+
+    private void link() {
+        var counts = new int[getNumBlocks()];
+        for (var blockSuccessors : successors) {
+            for (var successor : blockSuccessors) {
+                counts[successor]++;
+            }
+        }
+
+        for (int block = 0; block < counts.length; block++) {
+            predecessors[block] = new int[counts[block]];
+            counts[block] = 0;
+        }
+
+        for (int block = 0; block < successors.length; block++) {
+            for (var successor : successors[block]) {
+                predecessors[successor][counts[successor]++] = block;
+            }
+        }
+    }
+}
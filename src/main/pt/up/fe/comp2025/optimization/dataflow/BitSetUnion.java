@@ -0,0 +1,32 @@
+package pt.up.fe.comp2025.optimization.dataflow;
+
+import java.util.BitSet;
+
+/**
+ * Sets of numbered items merged by union, such as the live variables of a block. Sets given to the solver are not
+ * changed, transfer functions must copy them.
+ */
+public class BitSetUnion implements Lattice<BitSet> {
+
+    private static final BitSet EMPTY = new BitSet();
+
+    @Override
+    public BitSet top() {
+        return EMPTY;
+    }
+
+    @Override
+    public BitSet meet(BitSet left, BitSet right) {
+        if (left.isEmpty()) {
+            return right;
+        }
+
+        if (right.isEmpty()) {
+            return left;
+        }
+
+        var result = (BitSet) left.clone();
+        result.or(right);
+        return result;
+    }
+}
@@ -0,0 +1,140 @@
+package pt.up.fe.comp2025.optimization.dataflow;
+
+import java.util.BitSet;
+
+/**
+ * Worklist solver for dataflow analyses over a {@link FlowGraph}.
+ * <p>
+ * Blocks are taken from the worklist in reverse postorder of the direction of the analysis, so that a block is
+ * usually processed after the blocks that flow into it. A block goes back to the worklist only when the output of
+ * one of the blocks that flow into it changes, blocks that are not affected are not processed again.
+ */
+public class DataflowSolver<V> {
+
+    public enum Direction {
+        FORWARD,
+        BACKWARD
+    }
+
+    private final FlowGraph graph;
+    private final Direction direction;
+    private final Lattice<V> lattice;
+    private final V boundary;
+    private final TransferFunction<V> transfer;
+    private final EdgeTransfer<V> edgeTransfer;
+
+    // Input and output of each block, in the direction of the analysis
+    private final Object[] inputs;
+    private final Object[] outputs;
+
+    private int transferCount;
+
+    /**
+     * @param boundary facts at the entry of the graph for forward analyses, at the exit for backward ones
+     */
+    public DataflowSolver(FlowGraph graph, Direction direction, Lattice<V> lattice, V boundary,
+                          TransferFunction<V> transfer) {
+        this(graph, direction, lattice, boundary, transfer, (from, to, output) -> output);
+    }
+
+    /**
+     * @param edgeTransfer applied to the output of a block before it is met into the input of each block it flows into
+     */
+    public DataflowSolver(FlowGraph graph, Direction direction, Lattice<V> lattice, V boundary,
+                          TransferFunction<V> transfer, EdgeTransfer<V> edgeTransfer) {
+        this.graph = graph;
+        this.direction = direction;
+        this.lattice = lattice;
+        this.boundary = boundary;
+        this.transfer = transfer;
+        this.edgeTransfer = edgeTransfer;
+        this.inputs = new Object[graph.getNumBlocks()];
+        this.outputs = new Object[graph.getNumBlocks()];
+    }
+
+    public DataflowSolver<V> solve() {
+        var order = ReversePostorder.computeAll(graph, direction);
+        var positions = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            positions[order[i]] = i;
+        }
+
+        for (int block = 0; block < outputs.length; block++) {
+            outputs[block] = lattice.top();
+        }
+
+        var start = isForward() ? graph.getEntry() : graph.getExit();
+
+        // Positions of the pending blocks, the first one is the next to process
+        var worklist = new BitSet(order.length);
+        worklist.set(0, order.length);
+
+        for (int position = worklist.nextSetBit(0); position >= 0; position = worklist.nextSetBit(0)) {
+            worklist.clear(position);
+            var block = order[position];
+
+            var input = block == start ? boundary : lattice.top();
+            for (var previous : getFlowPredecessors(block)) {
+                input = lattice.meet(input, edgeTransfer.apply(previous, block, getOutput(previous)));
+            }
+            inputs[block] = input;
+
+            var output = transfer.apply(block, input);
+            transferCount++;
+
+            if (output.equals(outputs[block])) {
+                continue;
+            }
+
+            outputs[block] = output;
+            for (var next : getFlowSuccessors(block)) {
+                worklist.set(positions[next]);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * @return facts at the start of the block
+     */
+    public V getIn(int block) {
+        return isForward() ? getInput(block) : getOutput(block);
+    }
+
+    /**
+     * @return facts at the end of the block
+     */
+    public V getOut(int block) {
+        return isForward() ? getOutput(block) : getInput(block);
+    }
+
+    /**
+     * @return how many times a transfer function was applied, for measuring how much work the solver did
+     */
+    public int getTransferCount() {
+        return transferCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V getInput(int block) {
+        return (V) inputs[block];
+    }
+
+    @SuppressWarnings("unchecked")
+    private V getOutput(int block) {
+        return (V) outputs[block];
+    }
+
+    private boolean isForward() {
+        return direction == Direction.FORWARD;
+    }
+
+    private int[] getFlowSuccessors(int block) {
+        return isForward() ? graph.getSuccessors(block) : graph.getPredecessors(block);
+    }
+
+    private int[] getFlowPredecessors(int block) {
+        return isForward() ? graph.getPredecessors(block) : graph.getSuccessors(block);
+    }
+}
@@ -0,0 +1,17 @@
+package pt.up.fe.comp2025.optimization.dataflow;
+
+/**
+ * Effect of an edge on the facts that flow along it, for analyses where the facts depend on the edge taken, such as
+ * the outcome of a branch.
+ */
+@FunctionalInterface
+public interface EdgeTransfer<V> {
+
+    /**
+     * @param from   block the facts come from, in the direction of the analysis
+     * @param to     block the facts go to
+     * @param output facts at the end of the block they come from
+     * @return facts that reach the other block; must be monotone in the output
+     */
+    V apply(int from, int to, V output);
+}
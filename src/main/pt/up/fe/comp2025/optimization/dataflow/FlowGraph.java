@@ -0,0 +1,17 @@
+package pt.up.fe.comp2025.optimization.dataflow;
+
+/**
+ * Control-flow graph seen by the {@link DataflowSolver}. Blocks are numbered from 0 to {@link #getNumBlocks()} - 1.
+ */
+public interface FlowGraph {
+
+    int getNumBlocks();
+
+    int getEntry();
+
+    int getExit();
+
+    int[] getSuccessors(int block);
+
+    int[] getPredecessors(int block);
+}
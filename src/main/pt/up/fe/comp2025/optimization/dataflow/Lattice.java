@@ -0,0 +1,13 @@
+package pt.up.fe.comp2025.optimization.dataflow;
+
+/**
+ * Values of a dataflow analysis. Values are compared with {@link Object#equals(Object)} to detect the fixed point and
+ * are never changed once given to the solver.
+ */
+public interface Lattice<V> extends Meet<V> {
+
+    /**
+     * @return the value of a block no path has reached yet, the identity of {@link #meet(Object, Object)}
+     */
+    V top();
+}
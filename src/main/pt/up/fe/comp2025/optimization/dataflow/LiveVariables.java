@@ -0,0 +1,333 @@
+package pt.up.fe.comp2025.optimization.dataflow;
+
+import org.specs.comp.ollir.Method;
+import pt.up.fe.comp2025.optimization.dataflow.DataflowSolver.Direction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Variables of an OLLIR method that are live, that is, read later before being assigned again, at the start and end of
+ * each basic block.
+ * <p>
+ * Variables are numbered from 0, in the order of their names, and sets of them are bitsets of 64 variables per
+ * {@code long}. The analysis runs on the {@link BasicBlockGraph}, taking the blocks from a worklist in reverse
+ * postorder from the exit, so that a block usually comes after the blocks it flows into. The sets are updated in place,
+ * without allocating while solving. The liveness of each instruction is only derived when asked for, see
+ * {@link #forEachInstruction}.
+ * <p>
+ * Liveness on other flow graphs, such as the ones of SSA, goes through
+ * {@link #solve(FlowGraph, BitSet[], BitSet[], EdgeTransfer)} instead.
+ * <p>
+ * The variables are the names of the variable table, except 'this'. Each method is analyzed as it is when
+ * {@link #analyze(Method)} is called.
+ */
+public class LiveVariables {
+
+    /**
+     * Receives the liveness of the instructions of a block, see {@link #forEachInstruction}.
+     */
+    public interface InstructionVisitor {
+        /**
+         * @param instruction the instruction, in the numbering of {@link OllirFlowGraph}
+         * @param liveIn      variables live before the instruction, only valid during the call
+         * @param liveOut     variables live after the instruction, only valid during the call
+         */
+        void visit(int instruction, long[] liveIn, long[] liveOut);
+    }
+
+    private static final int NO_VARIABLE = -1;
+
+    private final BasicBlockGraph graph;
+    private final List<String> variables;
+    private final Map<String, Integer> ids;
+    private final int words;
+
+    // Variable each instruction assigns, NO_VARIABLE if none, the variables it reads, and the variable it copies
+    private final int[] definitions;
+    private final int[][] uses;
+    private final int[] copySources;
+
+    // Of each block: read before assigned, assigned, live at the start and at the end
+    private final long[][] gens;
+    private final long[][] kills;
+    private final long[][] ins;
+    private final long[][] outs;
+
+    private int transferCount;
+
+    private LiveVariables(BasicBlockGraph graph, List<String> variables) {
+        this.graph = graph;
+        this.variables = variables;
+        this.ids = new HashMap<>();
+        for (int i = 0; i < variables.size(); i++) {
+            ids.put(variables.get(i), i);
+        }
+        this.words = (variables.size() + 63) / 64;
+
+        var numInstructions = graph.getInstructions().getExit();
+        this.definitions = new int[numInstructions];
+        this.uses = new int[numInstructions][];
+        this.copySources = new int[numInstructions];
+
+        var numBlocks = graph.getNumBlocks();
+        this.gens = new long[numBlocks][words];
+        this.kills = new long[numBlocks][words];
+        this.ins = new long[numBlocks][words];
+        this.outs = new long[numBlocks][words];
+    }
+
+    public static LiveVariables analyze(Method method) {
+        var variables = new ArrayList<String>();
+        for (var name : method.getVarTable().keySet()) {
+            if (!name.equals("this")) {
+                variables.add(name);
+            }
+        }
+        Collections.sort(variables);
+
+        var graph = BasicBlockGraph.build(OllirFlowGraph.build(method));
+        var liveness = new LiveVariables(graph, variables);
+        liveness.computeDefinitionsAndUses();
+        liveness.solve();
+        return liveness;
+    }
+
+    public BasicBlockGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return the names of the variables, by number
+     */
+    public List<String> getVariables() {
+        return Collections.unmodifiableList(variables);
+    }
+
+    /**
+     * @return the number of the variable, -1 if the name is not a variable
+     */
+    public int getId(String name) {
+        return ids.getOrDefault(name, NO_VARIABLE);
+    }
+
+    /**
+     * @return the variable the instruction assigns, -1 if none
+     */
+    public int getDefinition(int instruction) {
+        return definitions[instruction];
+    }
+
+    /**
+     * @return the variables the instruction reads
+     */
+    public int[] getUses(int instruction) {
+        return uses[instruction];
+    }
+
+    /**
+     * @return the variable the instruction copies into {@link #getDefinition(int)}, -1 if it is not a copy of a
+     * variable
+     */
+    public int getCopySource(int instruction) {
+        return copySources[instruction];
+    }
+
+    /**
+     * @return variables live at the start of the block, not to be changed
+     */
+    public long[] getIn(int block) {
+        return ins[block];
+    }
+
+    /**
+     * @return variables live at the end of the block, not to be changed
+     */
+    public long[] getOut(int block) {
+        return outs[block];
+    }
+
+    /**
+     * Derives the liveness of each instruction of the block from the liveness at its end, from the last instruction to
+     * the first.
+     */
+    public void forEachInstruction(int block, InstructionVisitor visitor) {
+        if (!graph.isInstructions(block)) {
+            return;
+        }
+
+        var live = outs[block].clone();
+        var liveOut = new long[words];
+
+        for (int i = graph.getLast(block); i >= graph.getFirst(block); i--) {
+            System.arraycopy(live, 0, liveOut, 0, words);
+            transfer(i, live);
+            visitor.visit(i, live, liveOut);
+        }
+    }
+
+    /**
+     * @return how many times a block was solved, for measuring how much work the analysis did
+     */
+    public int getTransferCount() {
+        return transferCount;
+    }
+
+    public static boolean contains(long[] set, int variable) {
+        return (set[variable >>> 6] & 1L << variable) != 0;
+    }
+
+    /**
+     * @return the first variable of the set from the given one on, -1 if none
+     */
+    public static int nextVariable(long[] set, int from) {
+        var word = from >>> 6;
+        if (word >= set.length) {
+            return NO_VARIABLE;
+        }
+
+        var bits = set[word] & -1L << from;
+        while (bits == 0) {
+            if (++word == set.length) {
+                return NO_VARIABLE;
+            }
+            bits = set[word];
+        }
+
+        return word * 64 + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * @return the names of the variables of the set, for debugging
+     */
+    public List<String> toNames(long[] set) {
+        var names = new ArrayList<String>();
+        for (int variable = nextVariable(set, 0); variable >= 0; variable = nextVariable(set, variable + 1)) {
+            names.add(variables.get(variable));
+        }
+        return names;
+    }
+
+    private void computeDefinitionsAndUses() {
+        var instructions = graph.getInstructions();
+
+        for (int i = 0; i < definitions.length; i++) {
+            var inst = instructions.getInstruction(i);
+
+            var definition = OllirOperands.getDefinition(inst);
+            definitions[i] = definition != null ? getId(definition.getName()) : NO_VARIABLE;
+
+            uses[i] = OllirOperands.getUses(inst).stream()
+                    .mapToInt(use -> getId(use.getName()))
+                    .filter(id -> id != NO_VARIABLE)
+                    .distinct()
+                    .toArray();
+
+            var copySource = OllirOperands.getCopySource(inst);
+            copySources[i] = copySource != null && definitions[i] != NO_VARIABLE
+                    ? getId(copySource.getName()) : NO_VARIABLE;
+        }
+
+        // From the last instruction up, a variable read in the block is only live at its start if not assigned below
+        for (int block = 0; block < graph.getExit(); block++) {
+            var gen = gens[block];
+            var kill = kills[block];
+
+            for (int i = graph.getLast(block); i >= graph.getFirst(block); i--) {
+                transfer(i, gen);
+                if (definitions[i] != NO_VARIABLE) {
+                    kill[definitions[i] >>> 6] |= 1L << definitions[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns the variables live after the instruction into the ones live before it.
+     */
+    private void transfer(int instruction, long[] live) {
+        var definition = definitions[instruction];
+        if (definition != NO_VARIABLE) {
+            live[definition >>> 6] &= ~(1L << definition);
+        }
+
+        for (var use : uses[instruction]) {
+            live[use >>> 6] |= 1L << use;
+        }
+    }
+
+    private void solve() {
+        var numBlocks = graph.getNumBlocks();
+
+        // Reverse postorder from the exit, then the blocks that never reach it, such as infinite loops
+        var order = ReversePostorder.computeAll(graph, Direction.BACKWARD);
+
+        var positions = new int[numBlocks];
+        for (int i = 0; i < numBlocks; i++) {
+            positions[order[i]] = i;
+        }
+
+        // Positions of the pending blocks, the first one is the next to process
+        var worklist = new BitSet(numBlocks);
+        worklist.set(0, numBlocks);
+
+        for (int position = worklist.nextSetBit(0); position >= 0; position = worklist.nextSetBit(0)) {
+            worklist.clear(position);
+            var block = order[position];
+
+            var out = outs[block];
+            Arrays.fill(out, 0);
+            for (var successor : graph.getSuccessors(block)) {
+                var successorIn = ins[successor];
+                for (int word = 0; word < words; word++) {
+                    out[word] |= successorIn[word];
+                }
+            }
+
+            var in = ins[block];
+            var gen = gens[block];
+            var kill = kills[block];
+            var changed = false;
+            for (int word = 0; word < words; word++) {
+                var live = gen[word] | out[word] & ~kill[word];
+                if (live != in[word]) {
+                    in[word] = live;
+                    changed = true;
+                }
+            }
+            transferCount++;
+
+            if (changed) {
+                for (var predecessor : graph.getPredecessors(block)) {
+                    worklist.set(positions[predecessor]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves liveness on any flow graph: the variables live at the start of a block are the ones it reads before
+     * assigning them, and the ones live at its end that it does not assign.
+     *
+     * @param gens  variables each block reads before assigning them
+     * @param kills variables each block assigns
+     * @param edges turns the variables live at the start of a block into the ones live at the end of a predecessor,
+     *              for reads that belong to the edge, such as the sources of phis
+     */
+    public static DataflowSolver<BitSet> solve(FlowGraph graph, BitSet[] gens, BitSet[] kills,
+                                               EdgeTransfer<BitSet> edges) {
+        var union = new BitSetUnion();
+
+        return new DataflowSolver<>(graph, Direction.BACKWARD, union, union.top(), (block, out) -> {
+            var in = (BitSet) out.clone();
+            in.andNot(kills[block]);
+            in.or(gens[block]);
+            return in;
+        }, edges).solve();
+    }
+}
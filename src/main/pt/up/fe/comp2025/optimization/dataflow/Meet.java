@@ -0,0 +1,10 @@
+package pt.up.fe.comp2025.optimization.dataflow;
+
+/**
+ * Combines the facts of the paths that join at a block. Must be commutative, associative and idempotent.
+ */
+@FunctionalInterface
+public interface Meet<V> {
+
+    V meet(V left, V right);
+}
@@ -0,0 +1,161 @@
+package pt.up.fe.comp2025.optimization.dataflow;
+
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import org.specs.comp.ollir.inst.GotoInstruction;
+import org.specs.comp.ollir.inst.Instruction;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Control-flow graph of the instructions of an OLLIR method, one block per instruction.
+ * <p>
+ * Block i is the instruction i of the method. Two blocks have no instruction: {@link #getExit()}, after the last
+ * instruction, where returns go, and {@link #getEntry()}, before the first one, so that the entry has no predecessors
+ * even when the first instruction is the target of a jump.
+ * <p>
+ * The graph is built from the instructions and labels of the method instead of {@link Method#buildCFG()}, which adds
+ * the edges again each time it is called and must be left for the passes that run after the instructions are
+ * rewritten.
+ */
+public class OllirFlowGraph implements FlowGraph {
+
+    private static final int NO_BLOCK = -1;
+
+    private final List<Instruction> instructions;
+
+    // Block of the label of each branch or goto, NO_BLOCK for other instructions
+    private final int[] targets;
+
+    private final int[][] successors;
+    private final int[][] predecessors;
+
+    private OllirFlowGraph(List<Instruction> instructions) {
+        this.instructions = instructions;
+        this.targets = new int[instructions.size()];
+        this.successors = new int[instructions.size() + 2][];
+        this.predecessors = new int[instructions.size() + 2][];
+    }
+
+    public static OllirFlowGraph build(Method method) {
+        var graph = new OllirFlowGraph(new ArrayList<>(method.getInstructions()));
+
+        var indexes = new IdentityHashMap<Instruction, Integer>();
+        for (int i = 0; i < graph.instructions.size(); i++) {
+            indexes.put(graph.instructions.get(i), i);
+        }
+
+        var exit = graph.getExit();
+        for (int i = 0; i < graph.instructions.size(); i++) {
+            var inst = graph.instructions.get(i);
+            var next = i + 1 < graph.instructions.size() ? i + 1 : exit;
+
+            graph.targets[i] = NO_BLOCK;
+            var label = getLabel(inst);
+            if (label != null) {
+                var target = indexes.get(method.getLabels().get(label));
+                if (target == null) {
+                    throw new RuntimeException("Label '" + label + "' of method " + method.getMethodName()
+                            + " is not on an instruction");
+                }
+                graph.targets[i] = target;
+            }
+
+            graph.successors[i] = switch (inst.getInstType()) {
+                case GOTO -> new int[]{graph.targets[i]};
+                case BRANCH -> graph.targets[i] == next ? new int[]{next} : new int[]{graph.targets[i], next};
+                case RETURN -> new int[]{exit};
+                default -> new int[]{next};
+            };
+        }
+        graph.successors[exit] = new int[0];
+        graph.successors[graph.getEntry()] = new int[]{graph.instructions.isEmpty() ? exit : 0};
+
+        graph.link();
+        return graph;
+    }
+
+    /**
+     * @return false for the entry and exit blocks
+     */
+    public boolean isInstruction(int block) {
+        return block < instructions.size();
+    }
+
+    public Instruction getInstruction(int block) {
+        return instructions.get(block);
+    }
+
+    /**
+     * @return the block a branch or goto jumps to
+     */
+    public int getTarget(int block) {
+        return targets[block];
+    }
+
+    /**
+     * @return the block that runs after the instruction when it does not jump
+     */
+    public int getFallthrough(int block) {
+        return block + 1;
+    }
+
+    @Override
+    public int getNumBlocks() {
+        return successors.length;
+    }
+
+    @Override
+    public int getEntry() {
+        return instructions.size() + 1;
+    }
+
+    @Override
+    public int getExit() {
+        return instructions.size();
+    }
+
+    @Override
+    public int[] getSuccessors(int block) {
+        return successors[block];
+    }
+
+    @Override
+    public int[] getPredecessors(int block) {
+        return predecessors[block];
+    }
+
+    private static String getLabel(Instruction inst) {
+        if (inst instanceof GotoInstruction gotoInst) {
+            return gotoInst.getLabel();
+        }
+
+        if (inst instanceof CondBranchInstruction branch) {
+            return branch.getLabel();
+        }
+
+        return null;
+    }
+
+    private void link() {
+        var counts = new int[getNumBlocks()];
+        for (var blockSuccessors : successors) {
+            for (var successor : blockSuccessors) {
+                counts[successor]++;
+            }
+        }
+
+        for (int block = 0; block < counts.length; block++) {
+            predecessors[block] = new int[counts[block]];
+            counts[block] = 0;
+        }
+
+        for (int block = 0; block < successors.length; block++) {
+            for (var successor : successors[block]) {
+                predecessors[successor][counts[successor]++] = block;
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package pt.up.fe.comp2025.optimization.dataflow;
+
+import org.specs.comp.ollir.ArrayOperand;
+import org.specs.comp.ollir.Element;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.inst.AssignInstruction;
+import org.specs.comp.ollir.inst.BinaryOpInstruction;
+import org.specs.comp.ollir.inst.CallInstruction;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import org.specs.comp.ollir.inst.GetFieldInstruction;
+import org.specs.comp.ollir.inst.Instruction;
+import org.specs.comp.ollir.inst.InvokeStaticInstruction;
+import org.specs.comp.ollir.inst.NewInstruction;
+import org.specs.comp.ollir.inst.PutFieldInstruction;
+import org.specs.comp.ollir.inst.ReturnInstruction;
+import org.specs.comp.ollir.inst.SingleOpInstruction;
+import org.specs.comp.ollir.inst.UnaryOpInstruction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Variables an OLLIR instruction writes and reads.
+ * <p>
+ * Only operands that name variables are returned: fields, the classes of static calls and of 'new' are left out even
+ * though they are operands too. Each occurrence of a variable is a different {@link Operand}, so renaming an operand
+ * renames that occurrence only. Names are not filtered, 'this' and names that are not in the variable table may be
+ * returned.
+ */
+public class OllirOperands {
+
+    private OllirOperands() {
+    }
+
+    /**
+     * @return the variable the instruction assigns, null if it assigns none; stores into arrays read the array
+     */
+    public static Operand getDefinition(Instruction inst) {
+        if (inst instanceof AssignInstruction assign && assign.getDest() instanceof Operand dest
+                && !(dest instanceof ArrayOperand)) {
+            return dest;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the variable read if the instruction only copies a variable into another, null otherwise
+     */
+    public static Operand getCopySource(Instruction inst) {
+        if (getDefinition(inst) != null && ((AssignInstruction) inst).getRhs() instanceof SingleOpInstruction singleOp
+                && singleOp.getSingleOperand() instanceof Operand source && !(source instanceof ArrayOperand)) {
+            return source;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the variables the instruction reads
+     */
+    public static List<Operand> getUses(Instruction inst) {
+        var uses = new ArrayList<Operand>();
+        addUses(inst, uses);
+        return uses;
+    }
+
+    /**
+     * Replaces each variable the instruction reads with what the function returns for it, the same operand to keep
+     * it. The arrays of array accesses and the objects of calls and fields are kept, only the indexes of the accesses
+     * are replaced.
+     */
+    public static void replaceUses(Instruction inst, Function<Operand, Element> replacement) {
+        if (inst instanceof AssignInstruction assign) {
+            if (assign.getDest() instanceof ArrayOperand arrayDest) {
+                replaceAll(arrayDest.getIndexOperands(), replacement);
+            }
+            replaceUses(assign.getRhs(), replacement);
+        } else if (inst instanceof SingleOpInstruction singleOp) {
+            singleOp.setSingleOperand(replace(singleOp.getSingleOperand(), replacement));
+        } else if (inst instanceof BinaryOpInstruction binaryOp) {
+            binaryOp.setLeftOperand(replace(binaryOp.getLeftOperand(), replacement));
+            binaryOp.setRightOperand(replace(binaryOp.getRightOperand(), replacement));
+        } else if (inst instanceof UnaryOpInstruction unaryOp) {
+            unaryOp.setOperand(replace(unaryOp.getOperand(), replacement));
+        } else if (inst instanceof CondBranchInstruction branch) {
+            replaceUses(branch.getCondition(), replacement);
+        } else if (inst instanceof ReturnInstruction returnInst) {
+            returnInst.getOperand().ifPresent(operand -> returnInst.setOperand(replace(operand, replacement)));
+        } else if (inst instanceof PutFieldInstruction putField) {
+            var operands = new ArrayList<>(putField.getOperands());
+            operands.set(2, replace(operands.get(2), replacement));
+            putField.setOperands(operands);
+        } else if (inst instanceof CallInstruction call) {
+            replaceAll(call.getArguments(), replacement);
+        }
+    }
+
+    private static void replaceAll(List<Element> elements, Function<Operand, Element> replacement) {
+        for (int i = 0; i < elements.size(); i++) {
+            elements.set(i, replace(elements.get(i), replacement));
+        }
+    }
+
+    private static Element replace(Element element, Function<Operand, Element> replacement) {
+        if (element instanceof ArrayOperand arrayOperand) {
+            replaceAll(arrayOperand.getIndexOperands(), replacement);
+            return element;
+        }
+
+        return element instanceof Operand operand ? replacement.apply(operand) : element;
+    }
+
+    private static void addUses(Instruction inst, List<Operand> uses) {
+        if (inst instanceof AssignInstruction assign) {
+            if (assign.getDest() instanceof ArrayOperand) {
+                addUse(assign.getDest(), uses);
+            }
+            addUses(assign.getRhs(), uses);
+        } else if (inst instanceof SingleOpInstruction singleOp) {
+            addUse(singleOp.getSingleOperand(), uses);
+        } else if (inst instanceof BinaryOpInstruction binaryOp) {
+            addUse(binaryOp.getLeftOperand(), uses);
+            addUse(binaryOp.getRightOperand(), uses);
+        } else if (inst instanceof UnaryOpInstruction unaryOp) {
+            addUse(unaryOp.getOperand(), uses);
+        } else if (inst instanceof CondBranchInstruction branch) {
+            addUses(branch.getCondition(), uses);
+        } else if (inst instanceof ReturnInstruction returnInst) {
+            returnInst.getOperand().ifPresent(operand -> addUse(operand, uses));
+        } else if (inst instanceof GetFieldInstruction getField) {
+            addUse(getField.getObject(), uses);
+        } else if (inst instanceof PutFieldInstruction putField) {
+            addUse(putField.getObject(), uses);
+            addUse(putField.getValue(), uses);
+        } else if (inst instanceof CallInstruction call) {
+            // The caller of static calls and of 'new' is a class
+            if (!(call instanceof InvokeStaticInstruction) && !(call instanceof NewInstruction)) {
+                addUse(call.getCaller(), uses);
+            }
+            for (var argument : call.getArguments()) {
+                addUse(argument, uses);
+            }
+        }
+    }
+
+    private static void addUse(Element element, List<Operand> uses) {
+        if (!(element instanceof Operand operand)) {
+            return;
+        }
+
+        uses.add(operand);
+        if (operand instanceof ArrayOperand arrayOperand) {
+            for (var index : arrayOperand.getIndexOperands()) {
+                addUse(index, uses);
+            }
+        }
+    }
+}
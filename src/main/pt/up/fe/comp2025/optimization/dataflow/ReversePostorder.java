@@ -0,0 +1,89 @@
+package pt.up.fe.comp2025.optimization.dataflow;
+
+import pt.up.fe.comp2025.optimization.dataflow.DataflowSolver.Direction;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Reverse postorder of the blocks of a {@link FlowGraph}, the order in which a block comes after the blocks that reach
+ * it, except along back edges.
+ */
+public class ReversePostorder {
+
+    private ReversePostorder() {
+    }
+
+    /**
+     * @param direction {@link Direction#FORWARD} to start at the entry and follow successors,
+     *                  {@link Direction#BACKWARD} to start at the exit and follow predecessors
+     * @return the blocks reached from the start, in reverse postorder
+     */
+    public static int[] compute(FlowGraph graph, Direction direction) {
+        var forward = direction == Direction.FORWARD;
+        var numBlocks = graph.getNumBlocks();
+        var postorder = new int[numBlocks];
+        var count = 0;
+
+        var visited = new BitSet(numBlocks);
+        // Iterative depth-first search, the next successor to visit of each block on the stack
+        var stack = new int[numBlocks];
+        var nextSuccessor = new int[numBlocks];
+        var depth = 0;
+
+        var start = forward ? graph.getEntry() : graph.getExit();
+        stack[depth++] = start;
+        visited.set(start);
+
+        while (depth > 0) {
+            var block = stack[depth - 1];
+            var successors = forward ? graph.getSuccessors(block) : graph.getPredecessors(block);
+
+            if (nextSuccessor[block] < successors.length) {
+                var next = successors[nextSuccessor[block]++];
+                if (!visited.get(next)) {
+                    visited.set(next);
+                    stack[depth++] = next;
+                }
+                continue;
+            }
+
+            postorder[count++] = block;
+            depth--;
+        }
+
+        var order = Arrays.copyOf(postorder, count);
+        for (int i = 0; i < count / 2; i++) {
+            var swap = order[i];
+            order[i] = order[count - 1 - i];
+            order[count - 1 - i] = swap;
+        }
+
+        return order;
+    }
+
+    /**
+     * Order for a worklist: {@link #compute(FlowGraph, Direction)}, followed by the blocks the start does not reach,
+     * such as infinite loops in a backward analysis.
+     *
+     * @return every block of the graph
+     */
+    public static int[] computeAll(FlowGraph graph, Direction direction) {
+        var numBlocks = graph.getNumBlocks();
+        var reached = compute(graph, direction);
+
+        var order = Arrays.copyOf(reached, numBlocks);
+        var count = reached.length;
+
+        var visited = new BitSet(numBlocks);
+        for (var block : reached) {
+            visited.set(block);
+        }
+
+        for (int block = visited.nextClearBit(0); block < numBlocks; block = visited.nextClearBit(block + 1)) {
+            order[count++] = block;
+        }
+
+        return order;
+    }
+}
@@ -0,0 +1,14 @@
+package pt.up.fe.comp2025.optimization.dataflow;
+
+/**
+ * Effect of a block on the facts that flow through it.
+ */
+@FunctionalInterface
+public interface TransferFunction<V> {
+
+    /**
+     * @param input facts at the start of the block, in the direction of the analysis
+     * @return facts at the end of the block; must be monotone in the input
+     */
+    V apply(int block, V input);
+}
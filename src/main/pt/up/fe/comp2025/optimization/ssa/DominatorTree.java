@@ -0,0 +1,193 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import pt.up.fe.comp2025.optimization.dataflow.DataflowSolver.Direction;
+import pt.up.fe.comp2025.optimization.dataflow.FlowGraph;
+import pt.up.fe.comp2025.optimization.dataflow.ReversePostorder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dominators and dominance frontiers of a {@link FlowGraph}, with the algorithm of Cooper, Harvey and Kennedy.
+ * <p>
+ * Block a dominates block b if every path from the entry to b goes through a. Blocks the entry does not reach have no
+ * dominators and are not in the tree.
+ */
+public class DominatorTree {
+
+    private static final int UNDEFINED = -1;
+
+    private final FlowGraph graph;
+    private final int[] order;
+
+    // Position of each block in reverse postorder, UNDEFINED if not reached
+    private final int[] positions;
+    private final int[] idoms;
+
+    private int[][] children;
+    private int[][] frontiers;
+
+    private DominatorTree(FlowGraph graph) {
+        this.graph = graph;
+        this.order = ReversePostorder.compute(graph, Direction.FORWARD);
+        this.positions = new int[graph.getNumBlocks()];
+        this.idoms = new int[graph.getNumBlocks()];
+
+        Arrays.fill(positions, UNDEFINED);
+        for (int i = 0; i < order.length; i++) {
+            positions[order[i]] = i;
+        }
+    }
+
+    public static DominatorTree build(FlowGraph graph) {
+        var tree = new DominatorTree(graph);
+        tree.computeDominators();
+        tree.computeChildren();
+        tree.computeFrontiers();
+        return tree;
+    }
+
+    /**
+     * @return the blocks the entry reaches, in reverse postorder
+     */
+    public int[] getOrder() {
+        return order;
+    }
+
+    public boolean isReachable(int block) {
+        return positions[block] != UNDEFINED;
+    }
+
+    /**
+     * @return the closest block that strictly dominates the block, -1 for the entry and unreachable blocks
+     */
+    public int getImmediateDominator(int block) {
+        return block == graph.getEntry() ? UNDEFINED : idoms[block];
+    }
+
+    /**
+     * @return the blocks the block immediately dominates
+     */
+    public int[] getChildren(int block) {
+        return children[block];
+    }
+
+    /**
+     * @return the blocks where the dominance of the block ends: it dominates a predecessor of them but not them
+     */
+    public int[] getFrontier(int block) {
+        return frontiers[block];
+    }
+
+    public boolean dominates(int dominator, int block) {
+        if (!isReachable(dominator) || !isReachable(block)) {
+            return false;
+        }
+
+        // Dominators come before the blocks they dominate in reverse postorder
+        while (positions[block] > positions[dominator]) {
+            block = idoms[block];
+        }
+
+        return block == dominator;
+    }
+
+    private void computeDominators() {
+        Arrays.fill(idoms, UNDEFINED);
+        var entry = graph.getEntry();
+        idoms[entry] = entry;
+
+        var changed = true;
+        while (changed) {
+            changed = false;
+
+            for (var block : order) {
+                if (block == entry) {
+                    continue;
+                }
+
+                var idom = UNDEFINED;
+                for (var predecessor : graph.getPredecessors(block)) {
+                    if (idoms[predecessor] == UNDEFINED) {
+                        continue;
+                    }
+                    idom = idom == UNDEFINED ? predecessor : intersect(predecessor, idom);
+                }
+
+                if (idoms[block] != idom) {
+                    idoms[block] = idom;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private int intersect(int left, int right) {
+        while (left != right) {
+            while (positions[left] > positions[right]) {
+                left = idoms[left];
+            }
+            while (positions[right] > positions[left]) {
+                right = idoms[right];
+            }
+        }
+
+        return left;
+    }
+
+    private void computeChildren() {
+        var counts = new int[graph.getNumBlocks()];
+        for (var block : order) {
+            var idom = getImmediateDominator(block);
+            if (idom != UNDEFINED) {
+                counts[idom]++;
+            }
+        }
+
+        children = new int[graph.getNumBlocks()][];
+        for (int block = 0; block < children.length; block++) {
+            children[block] = new int[counts[block]];
+            counts[block] = 0;
+        }
+
+        for (var block : order) {
+            var idom = getImmediateDominator(block);
+            if (idom != UNDEFINED) {
+                children[idom][counts[idom]++] = block;
+            }
+        }
+    }
+
+    private void computeFrontiers() {
+        var frontierLists = new ArrayList<List<Integer>>(graph.getNumBlocks());
+        for (int block = 0; block < graph.getNumBlocks(); block++) {
+            frontierLists.add(new ArrayList<>());
+        }
+
+        for (var block : order) {
+            var predecessors = graph.getPredecessors(block);
+            if (predecessors.length < 2) {
+                continue;
+            }
+
+            for (var predecessor : predecessors) {
+                if (!isReachable(predecessor)) {
+                    continue;
+                }
+
+                for (var runner = predecessor; runner != idoms[block]; runner = idoms[runner]) {
+                    var frontier = frontierLists.get(runner);
+                    if (frontier.isEmpty() || frontier.get(frontier.size() - 1) != block) {
+                        frontier.add(block);
+                    }
+                }
+            }
+        }
+
+        frontiers = new int[graph.getNumBlocks()][];
+        for (int block = 0; block < frontiers.length; block++) {
+            frontiers[block] = frontierLists.get(block).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+}
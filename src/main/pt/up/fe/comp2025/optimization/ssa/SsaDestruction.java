@@ -0,0 +1,563 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import org.specs.comp.ollir.ArrayOperand;
+import org.specs.comp.ollir.Descriptor;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.VarScope;
+import org.specs.comp.ollir.inst.AssignInstruction;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import org.specs.comp.ollir.inst.GotoInstruction;
+import org.specs.comp.ollir.inst.Instruction;
+import org.specs.comp.ollir.inst.SingleOpInstruction;
+import org.specs.comp.ollir.type.Type;
+import pt.up.fe.comp2025.optimization.dataflow.DataflowSolver;
+import pt.up.fe.comp2025.optimization.dataflow.LiveVariables;
+import pt.up.fe.comp2025.optimization.dataflow.OllirFlowGraph;
+import pt.up.fe.comp2025.optimization.dataflow.OllirOperands;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings a method out of SSA form, replacing the phis with copies.
+ * <p>
+ * Names whose values are never needed at the same time are first merged: the target of each phi with its sources
+ * (copy coalescing), and then the names of each variable with each other, so that the method gets back the variable
+ * names it had wherever optimizations did not make their values overlap. Names of the values of the variables when the
+ * method starts are never merged with each other, they keep their entries in the variable table. Names that could
+ * not get a variable name keep their SSA name and get a new entry in the variable table.
+ * <p>
+ * For each phi that is left, each predecessor copies its source to the target: before a goto, after other
+ * instructions, and on a new block at the end of the method for branches to blocks with other predecessors. The
+ * copies of an edge happen at the same time, they are ordered so no copy overwrites a value another still reads,
+ * breaking cycles with a temporary. Copies that end up copying a variable to itself are removed.
+ */
+class SsaDestruction {
+
+    private static final String EDGE_LABEL = "ssa_edge_";
+
+    private final SsaForm ssa;
+    private final Method method;
+    private final OllirFlowGraph graph;
+    private final DominatorTree dominators;
+    private final int numNames;
+
+    // Name assigned by each block, -1 if none
+    private final int[] definitions;
+    private final int[][] uses;
+    // Name copied by each block that copies a name to another, -1 for other blocks
+    private final int[] copySources;
+
+    private final BitSet[] interferences;
+
+    // Classes of merged names, by the name that represents them
+    private final int[] representatives;
+    private final BitSet[] members;
+    private final BitSet[] neighbors;
+
+    private int nextRegister;
+
+    SsaDestruction(SsaForm ssa) {
+        this.ssa = ssa;
+        this.method = ssa.getMethod();
+        this.graph = ssa.getGraph();
+        this.dominators = ssa.getDominators();
+        this.numNames = ssa.getNames().size();
+
+        this.definitions = new int[graph.getNumBlocks()];
+        this.uses = new int[graph.getNumBlocks()][];
+        this.copySources = new int[graph.getNumBlocks()];
+
+        this.interferences = new BitSet[numNames];
+        this.representatives = new int[numNames];
+        this.members = new BitSet[numNames];
+        this.neighbors = new BitSet[numNames];
+        for (int name = 0; name < numNames; name++) {
+            interferences[name] = new BitSet(numNames);
+            representatives[name] = name;
+        }
+
+        this.nextRegister = method.getVarTable().values().stream()
+                .mapToInt(Descriptor::getVirtualReg)
+                .max()
+                .orElse(-1) + 1;
+    }
+
+    /**
+     * @return how many copies were added
+     */
+    int apply() {
+        collectDefinitionsAndUses();
+        buildInterferences(solveLiveness());
+
+        for (int name = 0; name < numNames; name++) {
+            members[name] = new BitSet(numNames);
+            members[name].set(name);
+            neighbors[name] = (BitSet) interferences[name].clone();
+        }
+
+        coalescePhis();
+        var finalNames = nameClasses();
+
+        renameOperands(finalNames);
+        return rewrite(finalNames);
+    }
+
+    private void collectDefinitionsAndUses() {
+        for (int block = 0; block < graph.getNumBlocks(); block++) {
+            definitions[block] = -1;
+            uses[block] = new int[0];
+            copySources[block] = -1;
+
+            if (!graph.isInstruction(block) || !dominators.isReachable(block)) {
+                continue;
+            }
+
+            var inst = graph.getInstruction(block);
+            var definition = OllirOperands.getDefinition(inst);
+            if (definition != null) {
+                definitions[block] = getId(definition);
+            }
+
+            uses[block] = OllirOperands.getUses(inst).stream()
+                    .mapToInt(this::getId)
+                    .filter(id -> id >= 0)
+                    .toArray();
+
+            if (definitions[block] >= 0 && inst instanceof AssignInstruction assign
+                    && assign.getRhs() instanceof SingleOpInstruction singleOp
+                    && singleOp.getSingleOperand() instanceof Operand source && !(source instanceof ArrayOperand)) {
+                copySources[block] = getId(source);
+            }
+        }
+    }
+
+    private int getId(Operand operand) {
+        var id = ssa.findId(operand.getName());
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Liveness of the names, where a phi reads its sources at the end of the predecessors.
+     */
+    private DataflowSolver<BitSet> solveLiveness() {
+        var numBlocks = graph.getNumBlocks();
+        var gens = new BitSet[numBlocks];
+        var kills = new BitSet[numBlocks];
+
+        for (int block = 0; block < numBlocks; block++) {
+            gens[block] = new BitSet();
+            kills[block] = new BitSet();
+            for (var use : uses[block]) {
+                gens[block].set(use);
+            }
+            if (definitions[block] >= 0) {
+                kills[block].set(definitions[block]);
+            }
+
+            // Phis assign their targets at the start of the block, before anything in it is read
+            for (var phi : ssa.getPhis(block)) {
+                var target = ssa.findId(phi.getTarget());
+                gens[block].clear(target);
+                kills[block].set(target);
+            }
+        }
+
+        return LiveVariables.solve(graph, gens, kills, (block, predecessor, live) -> {
+            var phis = ssa.getPhis(block);
+            if (phis.isEmpty()) {
+                return live;
+            }
+
+            var index = SsaForm.indexOf(graph.getPredecessors(block), predecessor);
+            var output = (BitSet) live.clone();
+            for (var phi : phis) {
+                var source = phi.getSources()[index];
+                if (source != null) {
+                    output.set(ssa.findId(source));
+                }
+            }
+            return output;
+        });
+    }
+
+    /**
+     * Two names interfere if one is live where the other is assigned, except for the source of a copy.
+     */
+    private void buildInterferences(DataflowSolver<BitSet> liveness) {
+        for (var block : dominators.getOrder()) {
+            var definition = definitions[block];
+            if (definition >= 0) {
+                var live = liveness.getOut(block);
+                for (var name = live.nextSetBit(0); name >= 0; name = live.nextSetBit(name + 1)) {
+                    if (name != definition && name != copySources[block]) {
+                        addInterference(definition, name);
+                    }
+                }
+            }
+
+            // Phis assign their targets together at the start of the block
+            var phis = ssa.getPhis(block);
+            var live = liveness.getIn(block);
+            for (var phi : phis) {
+                var target = ssa.findId(phi.getTarget());
+                for (var name = live.nextSetBit(0); name >= 0; name = live.nextSetBit(name + 1)) {
+                    addInterference(target, name);
+                }
+                for (var other : phis) {
+                    if (other != phi) {
+                        addInterference(target, ssa.findId(other.getTarget()));
+                    }
+                }
+            }
+        }
+
+        // The values of the variables when the method starts are all assigned at the entry
+        var live = liveness.getOut(graph.getEntry());
+        for (var name = live.nextSetBit(0); name >= 0; name = live.nextSetBit(name + 1)) {
+            for (var other = live.nextSetBit(name + 1); other >= 0; other = live.nextSetBit(other + 1)) {
+                addInterference(name, other);
+            }
+        }
+    }
+
+    private void addInterference(int name, int other) {
+        interferences[name].set(other);
+        interferences[other].set(name);
+    }
+
+    private void coalescePhis() {
+        for (var block : dominators.getOrder()) {
+            for (var phi : ssa.getPhis(block)) {
+                var target = ssa.findId(phi.getTarget());
+                for (var source : phi.getSources()) {
+                    if (source != null) {
+                        merge(target, ssa.findId(source));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the classes of two names if no names of one interfere with names of the other.
+     */
+    private void merge(int name, int other) {
+        var left = find(name);
+        var right = find(other);
+        if (left == right || neighbors[left].intersects(members[right])) {
+            return;
+        }
+
+        // Each class has at most one value of a variable at the start of the method
+        if (getInitialValue(left) >= 0 && getInitialValue(right) >= 0) {
+            return;
+        }
+
+        representatives[right] = left;
+        members[left].or(members[right]);
+        neighbors[left].or(neighbors[right]);
+    }
+
+    private int find(int name) {
+        while (representatives[name] != name) {
+            representatives[name] = representatives[representatives[name]];
+            name = representatives[name];
+        }
+        return name;
+    }
+
+    /**
+     * @return the name in the class that is the value of a variable at the start of the method, -1 if none
+     */
+    private int getInitialValue(int representative) {
+        var name = members[representative].nextSetBit(0);
+        return name < ssa.getVariables().size() ? name : -1;
+    }
+
+    /**
+     * Gives each class the name of one of its variables, if no class with that name interferes with it.
+     */
+    private String[] nameClasses() {
+        var finalNames = new String[numNames];
+        // Names of the classes given each final name
+        var named = new HashMap<String, BitSet>();
+
+        var representativesInOrder = new LinkedHashSet<Integer>();
+        for (int name = 0; name < numNames; name++) {
+            representativesInOrder.add(find(name));
+        }
+
+        // Classes with the value of a variable at the start keep the name of the variable
+        for (var representative : representativesInOrder) {
+            var initialValue = getInitialValue(representative);
+            if (initialValue >= 0) {
+                assignName(ssa.getNames().get(initialValue), representative, finalNames, named);
+            }
+        }
+
+        for (var representative : representativesInOrder) {
+            if (getInitialValue(representative) >= 0) {
+                continue;
+            }
+
+            var classMembers = members[representative];
+            var first = classMembers.nextSetBit(0);
+            var type = getVariableType(ssa.getVariables().get(ssa.getVariableOf(first)));
+
+            String finalName = null;
+            for (var name = first; name >= 0 && finalName == null; name = classMembers.nextSetBit(name + 1)) {
+                var variable = ssa.getVariables().get(ssa.getVariableOf(name));
+                var sameName = named.get(variable);
+                if (getVariableType(variable).toString().equals(type.toString())
+                        && (sameName == null || !neighbors[representative].intersects(sameName))) {
+                    finalName = variable;
+                }
+            }
+
+            if (finalName == null) {
+                finalName = ssa.getNames().get(first);
+                addVariable(finalName, type);
+            }
+
+            assignName(finalName, representative, finalNames, named);
+        }
+
+        return finalNames;
+    }
+
+    private void assignName(String finalName, int representative, String[] finalNames, Map<String, BitSet> named) {
+        var classMembers = members[representative];
+        for (var name = classMembers.nextSetBit(0); name >= 0; name = classMembers.nextSetBit(name + 1)) {
+            finalNames[name] = finalName;
+        }
+
+        named.computeIfAbsent(finalName, key -> new BitSet(numNames)).or(classMembers);
+    }
+
+    private void renameOperands(String[] finalNames) {
+        for (var block : dominators.getOrder()) {
+            if (!graph.isInstruction(block)) {
+                continue;
+            }
+
+            var inst = graph.getInstruction(block);
+            var definition = OllirOperands.getDefinition(inst);
+            if (definition != null) {
+                rename(definition, finalNames);
+            }
+
+            for (var use : OllirOperands.getUses(inst)) {
+                rename(use, finalNames);
+            }
+        }
+    }
+
+    private void rename(Operand operand, String[] finalNames) {
+        var id = getId(operand);
+        if (id >= 0) {
+            operand.setName(finalNames[id]);
+        }
+    }
+
+    /**
+     * Adds the copies of the phis and removes the copies of a variable to itself, moving the labels with the
+     * instructions.
+     *
+     * @return how many copies were added
+     */
+    private int rewrite(String[] finalNames) {
+        var numInstructions = method.getInstructions().size();
+        var before = new ArrayList<List<Instruction>>(numInstructions);
+        var after = new ArrayList<List<Instruction>>(numInstructions);
+        for (int i = 0; i < numInstructions; i++) {
+            before.add(new ArrayList<>());
+            after.add(new ArrayList<>());
+        }
+        var atEntry = new ArrayList<Instruction>();
+        var edgeBlocks = new ArrayList<Instruction>();
+        var newLabels = new HashMap<String, Instruction>();
+
+        var added = 0;
+        var temporaries = new HashMap<String, String>();
+
+        for (var block : dominators.getOrder()) {
+            var phis = ssa.getPhis(block);
+            if (phis.isEmpty()) {
+                continue;
+            }
+
+            var predecessors = graph.getPredecessors(block);
+            for (int index = 0; index < predecessors.length; index++) {
+                var predecessor = predecessors[index];
+                if (!dominators.isReachable(predecessor)) {
+                    continue;
+                }
+
+                var copies = new ArrayList<String[]>();
+                for (var phi : phis) {
+                    var source = phi.getSources()[index];
+                    var target = finalNames[ssa.findId(phi.getTarget())];
+                    var sourceName = finalNames[ssa.findId(source)];
+                    if (!target.equals(sourceName)) {
+                        copies.add(new String[]{target, sourceName});
+                    }
+                }
+
+                var sequence = sequentialize(copies, temporaries);
+                if (sequence.isEmpty()) {
+                    continue;
+                }
+                added += sequence.size();
+
+                if (predecessor == graph.getEntry()) {
+                    atEntry.addAll(sequence);
+                    continue;
+                }
+
+                var inst = graph.getInstruction(predecessor);
+                if (inst instanceof GotoInstruction) {
+                    before.get(predecessor).addAll(sequence);
+                } else if (inst instanceof CondBranchInstruction branch && graph.getTarget(predecessor) == block) {
+                    var label = newLabel(newLabels);
+                    newLabels.put(label, sequence.get(0));
+
+                    if (graph.getFallthrough(predecessor) == block) {
+                        // Both edges of the branch go to the block
+                        after.get(predecessor).addAll(sequence);
+                    } else {
+                        edgeBlocks.addAll(sequence);
+                        edgeBlocks.add(new GotoInstruction(branch.getLabel()));
+                    }
+                    branch.setLabel(label);
+                } else {
+                    after.get(predecessor).addAll(sequence);
+                }
+            }
+        }
+
+        var instructions = method.getInstructions();
+        var labels = new IdentityHashMap<Instruction, List<String>>();
+        for (var entry : method.getLabels().entrySet()) {
+            labels.computeIfAbsent(entry.getValue(), key -> new ArrayList<>()).add(entry.getKey());
+        }
+
+        var rewritten = new ArrayList<>(atEntry);
+        var pendingLabels = new ArrayList<String>();
+
+        for (int i = 0; i < numInstructions; i++) {
+            var inst = instructions.get(i);
+            pendingLabels.addAll(labels.getOrDefault(inst, List.of()));
+
+            var kept = new ArrayList<>(before.get(i));
+            if (!isSelfCopy(i)) {
+                kept.add(inst);
+            }
+            kept.addAll(after.get(i));
+
+            if (!kept.isEmpty()) {
+                for (var label : pendingLabels) {
+                    newLabels.put(label, kept.get(0));
+                }
+                pendingLabels.clear();
+                rewritten.addAll(kept);
+            }
+        }
+        rewritten.addAll(edgeBlocks);
+
+        instructions.clear();
+        instructions.addAll(rewritten);
+        method.getLabels().clear();
+        method.getLabels().putAll(newLabels);
+
+        return added;
+    }
+
+    private boolean isSelfCopy(int block) {
+        if (!dominators.isReachable(block) || copySources[block] < 0) {
+            return false;
+        }
+
+        var inst = (AssignInstruction) graph.getInstruction(block);
+        var source = (Operand) ((SingleOpInstruction) inst.getRhs()).getSingleOperand();
+        return OllirOperands.getDefinition(inst).getName().equals(source.getName());
+    }
+
+    /**
+     * Orders copies that happen at the same time, copying a target before a later copy overwrites it.
+     *
+     * @param copies target and source of each copy, each target at most once
+     */
+    private List<Instruction> sequentialize(List<String[]> copies, Map<String, String> temporaries) {
+        var pending = new ArrayList<>(copies);
+        var sequence = new ArrayList<Instruction>();
+
+        while (!pending.isEmpty()) {
+            String[] ready = null;
+            for (var copy : pending) {
+                if (pending.stream().noneMatch(other -> other[1].equals(copy[0]))) {
+                    ready = copy;
+                    break;
+                }
+            }
+
+            if (ready != null) {
+                pending.remove(ready);
+                sequence.add(newCopy(ready[0], ready[1]));
+                continue;
+            }
+
+            // Every target is still read by another copy: they form cycles, save one target to break its cycle
+            var saved = pending.get(0)[0];
+            var type = getVariableType(saved);
+            var temporary = temporaries.computeIfAbsent(type.toString(), key -> newTemporary(saved, type));
+            sequence.add(newCopy(temporary, saved));
+            for (var copy : pending) {
+                if (copy[1].equals(saved)) {
+                    copy[1] = temporary;
+                }
+            }
+        }
+
+        return sequence;
+    }
+
+    private Instruction newCopy(String target, String source) {
+        var type = getVariableType(target);
+        return new AssignInstruction(new Operand(target, type), type, new SingleOpInstruction(new Operand(source, type)));
+    }
+
+    private String newTemporary(String variable, Type type) {
+        var name = variable + SsaForm.VERSION_SEPARATOR + "swap";
+        for (int i = 1; method.getVarTable().containsKey(name); i++) {
+            name = variable + SsaForm.VERSION_SEPARATOR + "swap" + i;
+        }
+
+        addVariable(name, type);
+        return name;
+    }
+
+    private String newLabel(Map<String, Instruction> newLabels) {
+        var count = newLabels.size();
+        var label = EDGE_LABEL + count;
+        while (method.getLabels().containsKey(label) || newLabels.containsKey(label)) {
+            label = EDGE_LABEL + ++count;
+        }
+
+        return label;
+    }
+
+    private void addVariable(String name, Type type) {
+        method.getVarTable().put(name, new Descriptor(VarScope.LOCAL, nextRegister++, type));
+    }
+
+    private Type getVariableType(String name) {
+        return method.getVarTable().get(name).getVarType();
+    }
+}
@@ -0,0 +1,429 @@
+package pt.up.fe.comp2025.optimization.ssa;
+
+import org.specs.comp.ollir.Method;
+import pt.up.fe.comp2025.optimization.dataflow.DataflowSolver;
+import pt.up.fe.comp2025.optimization.dataflow.LiveVariables;
+import pt.up.fe.comp2025.optimization.dataflow.OllirFlowGraph;
+import pt.up.fe.comp2025.optimization.dataflow.OllirOperands;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Static single assignment form of an OLLIR method: each variable is assigned in one place only.
+ * <p>
+ * The operands of the instructions are renamed in place. The value a variable has when the method starts keeps the
+ * name of the variable, each assignment gives it a new name, 'x$1', 'x$2', and so on. Where different names of a
+ * variable reach the same instruction, a {@link Phi} at that instruction picks the one of the path taken. OLLIR has no
+ * phi instructions, so phis are kept here, by the block of the instruction in {@link #getGraph()}. Phis are only placed
+ * where the variable is live (pruned SSA), following the dominance frontiers of the assignments (Cytron et al.).
+ * <p>
+ * Optimizations may change the instructions and the sources of the phis, but not the control flow or the labels.
+ * {@link #destruct()} then brings the method out of SSA form. Instructions the entry does not reach are not renamed.
+ * Names that are not in the variable table, and 'this', are not variables.
+ */
+public class SsaForm {
+
+    static final String VERSION_SEPARATOR = "$";
+
+    private final Method method;
+    private final OllirFlowGraph graph;
+    private final DominatorTree dominators;
+
+    // Variables renamed, a variable's id is also the id of the name of its value at the start of the method
+    private final List<String> variables;
+    private final Map<String, Integer> variableIds;
+
+    private final List<String> names;
+    private final Map<String, Integer> nameIds;
+    // Variable of each name
+    private final List<Integer> nameVariables;
+    private final List<Integer> definitions;
+    private final List<List<Integer>> uses;
+
+    // Phis of each block, null if none
+    private final List<List<Phi>> phis;
+
+    private boolean destructed;
+
+    private SsaForm(Method method) {
+        this.method = method;
+        this.graph = OllirFlowGraph.build(method);
+        this.dominators = DominatorTree.build(graph);
+        this.variables = new ArrayList<>();
+        this.variableIds = new HashMap<>();
+        this.names = new ArrayList<>();
+        this.nameIds = new HashMap<>();
+        this.nameVariables = new ArrayList<>();
+        this.definitions = new ArrayList<>();
+        this.uses = new ArrayList<>();
+        this.phis = new ArrayList<>(Collections.nCopies(graph.getNumBlocks(), null));
+
+        // Sorted, the variable table does not keep an order
+        method.getVarTable().keySet().stream()
+                .filter(name -> !name.equals("this"))
+                .sorted()
+                .forEach(name -> {
+                    variableIds.put(name, variables.size());
+                    variables.add(name);
+                    addName(name, variableIds.get(name), graph.getEntry());
+                });
+    }
+
+    /**
+     * Puts the method in SSA form.
+     */
+    public static SsaForm build(Method method) {
+        var ssa = new SsaForm(method);
+        ssa.placePhis();
+        ssa.rename();
+        return ssa;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public OllirFlowGraph getGraph() {
+        return graph;
+    }
+
+    public DominatorTree getDominators() {
+        return dominators;
+    }
+
+    /**
+     * @return the phis at the start of the block, in no particular order
+     */
+    public List<Phi> getPhis(int block) {
+        var blockPhis = phis.get(block);
+        return blockPhis != null ? blockPhis : Collections.emptyList();
+    }
+
+    /**
+     * @return the names of all variables, the names of their values when the method starts first
+     */
+    public List<String> getNames() {
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * @return the variable a name is a value of, null if it is not the name of a variable
+     */
+    public String getVariable(String name) {
+        var id = nameIds.get(name);
+        return id != null ? variables.get(nameVariables.get(id)) : null;
+    }
+
+    /**
+     * @return the block that assigns the name, the entry for the values of the variables when the method starts
+     */
+    public int getDefinition(String name) {
+        return definitions.get(getId(name));
+    }
+
+    /**
+     * Def-use chains, as built: blocks whose instruction reads the name, and blocks with a phi that has the name as a
+     * source.
+     */
+    public List<Integer> getUses(String name) {
+        return Collections.unmodifiableList(uses.get(getId(name)));
+    }
+
+    /**
+     * Brings the method out of SSA form, see {@link SsaDestruction}.
+     *
+     * @return how many copies were added to the method
+     */
+    public int destruct() {
+        if (destructed) {
+            throw new RuntimeException("Method " + method.getMethodName() + " is already out of SSA form");
+        }
+
+        var copies = new SsaDestruction(this).apply();
+
+        Collections.fill(phis, null);
+        destructed = true;
+        return copies;
+    }
+
+    List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return the id of the name, null if it is not the name of a variable
+     */
+    Integer findId(String name) {
+        return nameIds.get(name);
+    }
+
+    int getVariableOf(int nameId) {
+        return nameVariables.get(nameId);
+    }
+
+    private int getId(String name) {
+        var id = nameIds.get(name);
+        if (id == null) {
+            throw new RuntimeException("'" + name + "' is not a variable of method " + method.getMethodName());
+        }
+
+        return id;
+    }
+
+    private int addName(String name, int variable, int definition) {
+        var id = names.size();
+        names.add(name);
+        nameIds.put(name, id);
+        nameVariables.add(variable);
+        definitions.add(definition);
+        uses.add(new ArrayList<>());
+        return id;
+    }
+
+    /**
+     * Places phis at the dominance frontiers of the assignments of each variable, iterated, where the variable is live.
+     */
+    private void placePhis() {
+        var numBlocks = graph.getNumBlocks();
+        var definedIn = new ArrayList<List<Integer>>(variables.size());
+        for (int variable = 0; variable < variables.size(); variable++) {
+            definedIn.add(new ArrayList<>(List.of(graph.getEntry())));
+        }
+
+        for (var block : dominators.getOrder()) {
+            if (!graph.isInstruction(block)) {
+                continue;
+            }
+
+            var definition = OllirOperands.getDefinition(graph.getInstruction(block));
+            var variable = definition != null ? variableIds.get(definition.getName()) : null;
+            if (variable != null) {
+                definedIn.get(variable).add(block);
+            }
+        }
+
+        var liveness = solveLiveness();
+
+        for (int variable = 0; variable < variables.size(); variable++) {
+            var hasPhi = new BitSet(numBlocks);
+            var queued = new BitSet(numBlocks);
+            var worklist = new ArrayDeque<Integer>();
+            for (var block : definedIn.get(variable)) {
+                queued.set(block);
+                worklist.add(block);
+            }
+
+            while (!worklist.isEmpty()) {
+                var block = worklist.poll();
+                for (var frontier : dominators.getFrontier(block)) {
+                    if (hasPhi.get(frontier) || !liveness.getIn(frontier).get(variable)) {
+                        continue;
+                    }
+
+                    hasPhi.set(frontier);
+                    if (phis.get(frontier) == null) {
+                        phis.set(frontier, new ArrayList<>());
+                    }
+                    phis.get(frontier).add(new Phi(variables.get(variable),
+                            graph.getPredecessors(frontier).length));
+
+                    if (!queued.get(frontier)) {
+                        queued.set(frontier);
+                        worklist.add(frontier);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Liveness of the variables before renaming, to prune the phis.
+     */
+    private DataflowSolver<BitSet> solveLiveness() {
+        var numBlocks = graph.getNumBlocks();
+        var gens = new BitSet[numBlocks];
+        var kills = new BitSet[numBlocks];
+
+        for (int block = 0; block < numBlocks; block++) {
+            gens[block] = new BitSet();
+            kills[block] = new BitSet();
+            if (!graph.isInstruction(block)) {
+                continue;
+            }
+
+            var inst = graph.getInstruction(block);
+            var definition = OllirOperands.getDefinition(inst);
+            var defined = definition != null ? variableIds.get(definition.getName()) : null;
+            if (defined != null) {
+                kills[block].set(defined);
+            }
+
+            for (var use : OllirOperands.getUses(inst)) {
+                var variable = variableIds.get(use.getName());
+                if (variable != null) {
+                    gens[block].set(variable);
+                }
+            }
+        }
+
+        return LiveVariables.solve(graph, gens, kills, (from, to, live) -> live);
+    }
+
+    /**
+     * Renames the assignments and uses of the variables, walking the dominator tree with the current name of each
+     * variable on a stack.
+     */
+    private void rename() {
+        var numBlocks = graph.getNumBlocks();
+        var versions = new int[variables.size()];
+
+        var current = new ArrayList<ArrayDeque<Integer>>(variables.size());
+        for (int variable = 0; variable < variables.size(); variable++) {
+            var stack = new ArrayDeque<Integer>();
+            stack.push(variable);
+            current.add(stack);
+        }
+
+        // Variables each block pushed a name for, popped when leaving the block
+        var pushed = new ArrayList<List<Integer>>(Collections.nCopies(numBlocks, null));
+
+        // Iterative, the tree is as deep as the method is long; negative entries leave the block -entry - 1
+        var stack = new ArrayDeque<Integer>();
+        stack.push(graph.getEntry());
+
+        while (!stack.isEmpty()) {
+            int block = stack.pop();
+
+            if (block < 0) {
+                for (var variable : pushed.get(-block - 1)) {
+                    current.get(variable).pop();
+                }
+                continue;
+            }
+
+            var blockPushed = new ArrayList<Integer>();
+            renameBlock(block, versions, current, blockPushed);
+            pushed.set(block, blockPushed);
+
+            stack.push(-block - 1);
+            var children = dominators.getChildren(block);
+            for (int i = children.length - 1; i >= 0; i--) {
+                stack.push(children[i]);
+            }
+        }
+    }
+
+    private void renameBlock(int block, int[] versions, List<ArrayDeque<Integer>> current, List<Integer> pushed) {
+        for (var phi : getPhis(block)) {
+            var variable = variableIds.get(phi.getVariable());
+            var id = newName(variable, block, versions);
+            phi.target = names.get(id);
+            current.get(variable).push(id);
+            pushed.add(variable);
+        }
+
+        if (graph.isInstruction(block)) {
+            var inst = graph.getInstruction(block);
+
+            for (var use : OllirOperands.getUses(inst)) {
+                var variable = variableIds.get(use.getName());
+                if (variable != null) {
+                    int id = current.get(variable).peek();
+                    use.setName(names.get(id));
+                    uses.get(id).add(block);
+                }
+            }
+
+            var definition = OllirOperands.getDefinition(inst);
+            var variable = definition != null ? variableIds.get(definition.getName()) : null;
+            if (variable != null) {
+                var id = newName(variable, block, versions);
+                definition.setName(names.get(id));
+                current.get(variable).push(id);
+                pushed.add(variable);
+            }
+        }
+
+        for (var successor : graph.getSuccessors(block)) {
+            var index = indexOf(graph.getPredecessors(successor), block);
+            for (var phi : getPhis(successor)) {
+                int id = current.get(variableIds.get(phi.getVariable())).peek();
+                phi.sources[index] = names.get(id);
+                uses.get(id).add(successor);
+            }
+        }
+    }
+
+    private int newName(int variable, int definition, int[] versions) {
+        var original = variables.get(variable);
+
+        String name;
+        do {
+            name = original + VERSION_SEPARATOR + ++versions[variable];
+        } while (method.getVarTable().containsKey(name));
+
+        return addName(name, variable, definition);
+    }
+
+    static int indexOf(int[] blocks, int block) {
+        for (int i = 0; i < blocks.length; i++) {
+            if (blocks[i] == block) {
+                return i;
+            }
+        }
+
+        throw new RuntimeException("Block " + block + " is not in " + Arrays.toString(blocks));
+    }
+
+    /**
+     * Value of a variable that depends on the path taken to a block: the source of the predecessor the block was
+     * reached from.
+     */
+    public static class Phi {
+        private final String variable;
+        private final String[] sources;
+        private String target;
+
+        private Phi(String variable, int numPredecessors) {
+            this.variable = variable;
+            this.sources = new String[numPredecessors];
+        }
+
+        public String getVariable() {
+            return variable;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        /**
+         * @return the name each predecessor of the block gives, in the order of
+         * {@link OllirFlowGraph#getPredecessors(int)}; null for predecessors the entry does not reach. Optimizations
+         * may replace them.
+         */
+        public String[] getSources() {
+            return sources;
+        }
+
+        @Override
+        public String toString() {
+            var joined = new StringBuilder();
+            for (var source : sources) {
+                if (!joined.isEmpty()) {
+                    joined.append(", ");
+                }
+                joined.append(source != null ? source : "-");
+            }
+
+            return target + " = phi(" + joined + ")";
+        }
+    }
+}
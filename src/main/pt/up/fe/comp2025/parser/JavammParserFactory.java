@@ -0,0 +1,119 @@
+package pt.up.fe.comp2025.parser;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import pt.up.fe.comp2025.JavammLexer;
+import pt.up.fe.comp2025.JavammParser;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.Arrays;
+
+/**
+ * Creates lexers and parsers that share their prediction caches (DFA and {@link PredictionContextCache}), so that the
+ * adaptive prediction done for one file benefits every file compiled after it.
+ * <p>
+ * The caches are thread-safe, ANTLR synchronizes their updates. They can be filled in advance with {@link #warmUp()},
+ * and dropped with {@link #clear()}: they only grow, and every new construct seen in the input adds to them.
+ */
+public class JavammParserFactory {
+
+    private static final String WARM_UP_CORPUS = "pt/up/fe/comp2025/parser/warmup.jmm";
+
+    // Replaced as a whole when cleared, lexers and parsers already created keep the caches they started with
+    private static volatile Caches caches = new Caches();
+
+    public static JavammLexer newLexer(CharStream input) {
+        var current = caches;
+
+        var lexer = new JavammLexer(input);
+        lexer.setInterpreter(new LexerATNSimulator(lexer, JavammLexer._ATN, current.lexerDfa, current.lexerContexts));
+
+        return lexer;
+    }
+
+    public static JavammParser newParser(TokenStream tokens) {
+        var current = caches;
+
+        var parser = new JavammParser(tokens);
+        parser.setInterpreter(new ParserATNSimulator(parser, JavammParser._ATN, current.parserDfa,
+                current.parserContexts));
+
+        return parser;
+    }
+
+    /**
+     * Parses a bundled corpus, which exercises every rule of the grammar.
+     */
+    public static void warmUp() {
+        warmUp(SpecsIo.getResource(WARM_UP_CORPUS));
+    }
+
+    private static void warmUp(String code) {
+        var tokens = new CommonTokenStream(newLexer(new ANTLRInputStream(code)));
+        tokens.fill();
+
+        // Same prediction mode as the first attempt of JmmParserImpl, which is the one that fills the DFA
+        var parser = newParser(tokens);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+
+        try {
+            parser.program();
+        } catch (ParseCancellationException e) {
+            throw new RuntimeException("Could not parse the warm-up corpus", e);
+        }
+    }
+
+    /**
+     * Drops the prediction caches, the next parses start cold.
+     */
+    public static void clear() {
+        caches = new Caches();
+    }
+
+    /**
+     * @return number of DFA states in the caches, which is what grows with the inputs seen
+     */
+    public static int getCachedStates() {
+        var current = caches;
+        return countStates(current.lexerDfa) + countStates(current.parserDfa);
+    }
+
+    private static int countStates(DFA[] dfas) {
+        return Arrays.stream(dfas).mapToInt(dfa -> dfa.states.size()).sum();
+    }
+
+    private static class Caches {
+        private final DFA[] lexerDfa;
+        private final PredictionContextCache lexerContexts;
+        private final DFA[] parserDfa;
+        private final PredictionContextCache parserContexts;
+
+        private Caches() {
+            this.lexerDfa = newDfa(JavammLexer._ATN);
+            this.lexerContexts = new PredictionContextCache();
+            this.parserDfa = newDfa(JavammParser._ATN);
+            this.parserContexts = new PredictionContextCache();
+        }
+
+        private static DFA[] newDfa(ATN atn) {
+            var dfa = new DFA[atn.getNumberOfDecisions()];
+            for (int i = 0; i < dfa.length; i++) {
+                dfa[i] = new DFA(atn.getDecisionState(i), i);
+            }
+
+            return dfa;
+        }
+    }
+}
@@ -1,15 +1,31 @@
 package pt.up.fe.comp2025.parser;
 
 import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
 import pt.up.fe.comp.jmm.ast.antlr.AntlrParser;
+import pt.up.fe.comp.jmm.ast.antlr.JmmErrorListener;
+import pt.up.fe.comp.jmm.ast.antlr.JmmNodeCleanup;
 import pt.up.fe.comp.jmm.parser.JmmParser;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
 import pt.up.fe.comp.jmm.report.Stage;
-import pt.up.fe.comp2025.JavammLexer;
+import pt.up.fe.comp2025.CompilerConfig;
 import pt.up.fe.comp2025.JavammParser;
+import pt.up.fe.comp2025.ast.CompactAst;
+import pt.up.fe.comp2025.ast.KindNode;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+import pt.up.fe.comp2025.instrumentation.StageProfiler;
+import pt.up.fe.specs.util.SpecsSystem;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Map;
 
 /**
@@ -27,6 +43,12 @@ import java.util.Map;
 
 public class JmmParserImpl implements JmmParser {
 
+    static {
+        // The starting rule is found through SpecsSystem, which caches methods in a plain HashMap. Caching
+        // the default rule here keeps parsers running on several threads from modifying the map at the same time.
+        SpecsSystem.getMethod(JavammParser.class, "program");
+    }
+
     @Override
     public String getDefaultRule() {
         return "program";
@@ -34,32 +56,132 @@ public class JmmParserImpl implements JmmParser {
 
     @Override
     public JmmParserResult parse(String jmmCode, String startingRule, Map<String, String> config) {
+        // Convert code string into a character stream
+        return parse(new ANTLRInputStream(jmmCode), startingRule, config);
+    }
+
+    /**
+     * Parses the source file directly, without reading it into a String first (see {@link MappedCharStream}). The
+     * file is released before returning, the AST keeps no reference to it.
+     */
+    public JmmParserResult parse(File sourceFile, Map<String, String> config) {
+        CharStream input;
+        try {
+            input = StageProfiler.measure("map", () -> MappedCharStream.open(sourceFile));
+        } catch (RuntimeException e) {
+            return JmmParserResult.newError(Report.newError(Stage.SYNTATIC, -1, -1, e.getMessage(), e), config);
+        }
+
+        try {
+            return parse(input, getDefaultRule(), config);
+        } finally {
+            if (input instanceof MappedCharStream mapped) {
+                mapped.close();
+            }
+        }
+    }
+
+    public JmmParserResult parse(CharStream input, String startingRule, Map<String, String> config) {
 
         try {
-            // Convert code string into a character stream
-            var input = new ANTLRInputStream(jmmCode);
             // Transform characters into tokens using the lexer
-            var lex = new JavammLexer(input);
+            var lex = JavammParserFactory.newLexer(input);
             // Wrap lexer around a token stream
             var tokens = new CommonTokenStream(lex);
-            // Transforms tokens into a parse tree
-            var parser = new JavammParser(tokens);
+            // Transforms tokens into a parse tree, prediction caches are shared by every parse
+            var parser = JavammParserFactory.newParser(tokens);
 
 
-            // Convert ANTLR CST to JmmNode AST
-            var r = AntlrParser.parse(lex, parser, startingRule, config);
+            // Same steps as AntlrParser.parse, split so that each one can be measured on its own
+            lex.removeErrorListeners();
+            var lexerListener = new JmmErrorListener(Stage.LEXICAL);
+            lex.addErrorListener(lexerListener);
+
+            var parserListener = new JmmErrorListener(Stage.SYNTATIC);
+
+            StageProfiler.measure("lex", tokens::fill);
+            var parseTree = StageProfiler.measure("parseTree",
+                    () -> parseTwoStage(parser, tokens, parserListener, startingRule));
 
-            System.out.println("=== AST Dump ===");
-            if (r.getRootNode() != null) {
-                System.out.println("AST:\n" + r.getRootNode().toTree());
+            var reports = new ArrayList<Report>();
+            reports.addAll(lexerListener.getReports());
+            reports.addAll(parserListener.getReports());
+
+            if (reports.stream().anyMatch(report -> report.getType() == ReportType.ERROR)) {
+                return new JmmParserResult(null, reports, config);
             }
-            System.out.println("================");
 
-            return r;
+            // Convert ANTLR CST to JmmNode AST
+            var root = StageProfiler.measure("astConversion", () -> {
+                var ignoreList = AntlrParser.getIgnoreList(parser);
+
+                // Removing the ignored nodes needs a mutable tree
+                if (CompilerConfig.isCompactAst(config) && ignoreList.isEmpty()) {
+                    return CompactAst.fromParseTree(parseTree, parser).getRoot();
+                }
+
+                // Nodes that know their Kind, so that visitors do not look up kind strings
+                var node = KindNode.fromParseTree(parseTree, parser);
+
+                if (!ignoreList.isEmpty()) {
+                    new JmmNodeCleanup(ignoreList).visit(node);
+                }
+
+                return node;
+            });
+
+            Diagnostics.of(config).print(Diagnostics.Level.AST, () -> "AST:\n" + root.toTree());
+
+            return new JmmParserResult(root, reports, config);
 
         } catch (Exception e) {
             // There was an uncaught exception during parsing, create an error JmmParserResult without root node
             return JmmParserResult.newError(Report.newError(Stage.SYNTATIC, -1, -1, "Exception during parsing", e), config);
         }
     }
+
+    /**
+     * Parses with SLL prediction first, which is much faster on the left-recursive expression rule, and only falls
+     * back to full LL prediction when SLL fails.
+     * <p>
+     * SLL either produces the same parse tree as LL, or fails. The first attempt bails out at the first syntax error
+     * without reporting it, since the error may be an artifact of SLL. The second attempt reports errors as usual, so
+     * inputs with real syntax errors get the same reports as before.
+     */
+    private static ParseTree parseTwoStage(JavammParser parser, CommonTokenStream tokens,
+                                           JmmErrorListener parserListener, String startingRule) {
+
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+
+        try {
+            return StageProfiler.measure("sll", () -> (ParseTree) SpecsSystem.invoke(parser, startingRule));
+        } catch (RuntimeException e) {
+            if (!isBailOut(e)) {
+                throw e;
+            }
+        }
+
+        tokens.seek(0);
+        parser.reset();
+        parser.addErrorListener(parserListener);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+
+        return StageProfiler.measure("ll", () -> (ParseTree) SpecsSystem.invoke(parser, startingRule));
+    }
+
+    /**
+     * The rule is invoked through reflection, the exception of the bail-out strategy comes wrapped.
+     */
+    private static boolean isBailOut(Throwable exception) {
+        for (var cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ParseCancellationException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
 }
@@ -0,0 +1,213 @@
+package pt.up.fe.comp2025.parser;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+import sun.misc.Unsafe;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Character stream over the bytes of a source file, so that the lexer reads the file without first copying it to the
+ * heap as a String and then as a char array. Large files are memory-mapped, smaller ones are read into a byte array,
+ * which costs less than setting up a mapping.
+ * <p>
+ * Each byte is one character, which is only correct for ASCII files. Java-- tokens are ASCII, but comments may not be,
+ * so {@link #open(File)} checks the file and falls back to a decoded copy when needed. Behaves like
+ * {@link ANTLRInputStream} otherwise.
+ * <p>
+ * A mapping is only released by the garbage collector, and keeps the file locked on Windows until then. The stream
+ * must therefore be {@link #close() closed} once the tokens no longer need its text.
+ */
+public class MappedCharStream implements CharStream, AutoCloseable {
+
+    /**
+     * Files at least this large are mapped instead of read.
+     */
+    public static final int MIN_MAPPED_SIZE = 1 << 20;
+
+    private final ByteBuffer data;
+    private final int size;
+    private final String name;
+
+    // Index of the next character to consume
+    private int p;
+    private boolean closed;
+
+    private MappedCharStream(ByteBuffer data, String name) {
+        this.data = data;
+        this.size = data.limit();
+        this.name = name;
+        this.p = 0;
+    }
+
+    /**
+     * @return a stream over the bytes of the file, or over a decoded copy of the file if it is not ASCII
+     */
+    public static CharStream open(File file) {
+        ByteBuffer data;
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new RuntimeException("Source file '" + file + "' is too large");
+            }
+
+            // The mapping stays valid after the channel is closed
+            data = channel.size() >= MIN_MAPPED_SIZE
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    : read(channel);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read source file '" + file + "'", e);
+        }
+
+        if (!isAscii(data)) {
+            var input = new ANTLRInputStream(StandardCharsets.UTF_8.decode(data).toString());
+            input.name = file.getPath();
+            unmap(data);
+            return input;
+        }
+
+        return new MappedCharStream(data, file.getPath());
+    }
+
+    private static ByteBuffer read(FileChannel channel) throws IOException {
+        var data = ByteBuffer.allocate((int) channel.size());
+        while (data.hasRemaining() && channel.read(data) >= 0) {
+            // Reads until the buffer is full or the file ends
+        }
+
+        return data.flip();
+    }
+
+    /**
+     * Releases the mapping of the file, if any. The stream cannot be read afterwards, and neither can the text of the
+     * tokens that were lexed from it.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            unmap(data);
+        }
+    }
+
+    /**
+     * Unmaps the buffer now rather than when it is collected. The JDK has no public API for it before the
+     * foreign memory API, so this goes through sun.misc.Unsafe, and leaves the buffer to the collector if that fails.
+     */
+    private static void unmap(ByteBuffer data) {
+        if (!(data instanceof MappedByteBuffer)) {
+            return;
+        }
+
+        try {
+            var field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            ((Unsafe) field.get(null)).invokeCleaner(data);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Released when the buffer is collected
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Source file '" + name + "' was already closed");
+        }
+    }
+
+    private static boolean isAscii(ByteBuffer data) {
+        for (int i = 0; i < data.limit(); i++) {
+            if (data.get(i) < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public void consume() {
+        if (p >= size) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+
+        p++;
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 0) {
+            return 0; // undefined
+        }
+
+        if (i < 0) {
+            i++; // LA(-1) is the last character consumed
+            if (p + i - 1 < 0) {
+                return IntStream.EOF;
+            }
+        }
+
+        if (p + i - 1 >= size) {
+            return IntStream.EOF;
+        }
+
+        checkOpen();
+        return data.get(p + i - 1);
+    }
+
+    // The whole file is always available, there is nothing to keep for marks, as in ANTLRInputStream
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return p;
+    }
+
+    @Override
+    public void seek(int index) {
+        p = Math.min(Math.max(index, 0), size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return name;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        var start = interval.a;
+        var stop = Math.min(interval.b, size - 1);
+        if (start >= size || stop < start) {
+            return "";
+        }
+
+        checkOpen();
+        var bytes = new byte[stop - start + 1];
+        data.get(start, bytes);
+
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, size - 1));
+    }
+}
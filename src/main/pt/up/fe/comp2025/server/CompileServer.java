@@ -0,0 +1,173 @@
+package pt.up.fe.comp2025.server;
+
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.JmmCompiler;
+import pt.up.fe.comp2025.OutputWriter;
+import pt.up.fe.comp2025.instrumentation.CompilationProfile;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+import pt.up.fe.comp2025.parser.JavammParserFactory;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-lived compile server, so that many small compilations share one warm JVM.
+ * <p>
+ * Listens on the loopback interface only. Each connection carries one request, with a line-based protocol:
+ * <ul>
+ *     <li>request: the working directory of the client, followed by one command-line argument per line, followed by
+ *     an empty line;</li>
+ *     <li>response: the reports of the compilation, one per line, followed by a line 'EXIT &lt;code&gt;'.</li>
+ * </ul>
+ * The script 'jmmc' is a client for this protocol.
+ */
+public class CompileServer {
+
+    private static final String EXIT = "EXIT ";
+
+    private final int port;
+    private final JmmCompiler compiler;
+    private final ExecutorService workers;
+
+    private volatile ServerSocket serverSocket;
+    private volatile boolean stopped;
+
+    public CompileServer(int port) {
+        this.port = port;
+        this.compiler = new JmmCompiler();
+        this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Accepts requests until the process is terminated, or until {@link #stop()} is called.
+     */
+    public void run() {
+        // The first requests would otherwise pay for filling the prediction caches of the parser
+        JavammParserFactory.warmUp();
+
+        try (var serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            this.serverSocket = serverSocket;
+            if (stopped) {
+                return;
+            }
+
+            System.out.println("Compile server listening on " + serverSocket.getLocalSocketAddress());
+
+            while (!serverSocket.isClosed()) {
+                var client = serverSocket.accept();
+                workers.submit(() -> handle(client));
+            }
+        } catch (IOException e) {
+            // Closing the socket is how a stop interrupts the accept
+            if (stopped) {
+                return;
+            }
+            throw new RuntimeException("Could not run compile server on port " + port, e);
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Stops accepting requests, requests already accepted are still answered.
+     */
+    public void stop() {
+        stopped = true;
+
+        var socket = serverSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                System.err.println("Compile server: could not close socket: " + e.getMessage());
+            }
+        }
+    }
+
+    private void handle(Socket client) {
+        try (client;
+             var in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+             var out = new PrintStream(client.getOutputStream(), true, StandardCharsets.UTF_8)) {
+
+            var workingDir = in.readLine();
+            var args = new ArrayList<String>();
+            String line;
+            while ((line = in.readLine()) != null && !line.isEmpty()) {
+                args.add(line);
+            }
+
+            out.println(EXIT + compile(workingDir, args, out));
+        } catch (IOException e) {
+            System.err.println("Compile server: could not answer request: " + e.getMessage());
+        }
+    }
+
+    private int compile(String workingDir, List<String> args, PrintStream out) {
+        try {
+            var config = CompilerConfig.parseArgs(resolveArgs(workingDir, args));
+            if (CompilerConfig.isServer(config) || CompilerConfig.getBatchInputs(config).isPresent()) {
+                throw new RuntimeException("Options '-s' and '-b' are not allowed in a compile request");
+            }
+
+            var inputFile = CompilerConfig.getInputFile(config).orElseThrow();
+            // The diagnostics ('-v') go to the client, along with the reports
+            var diagnostics = Diagnostics.of(CompilerConfig.getDiagnostics(config), out);
+            var result = Diagnostics.using(diagnostics, () -> compiler.compile(inputFile, config));
+
+            for (Report report : result.getReports()) {
+                out.println(report);
+            }
+
+            CompilerConfig.getOutputDir(config).ifPresent(outputDir -> OutputWriter.write(result, outputDir));
+            CompilerConfig.getProfileFile(config).ifPresent(profileFile ->
+                    SpecsIo.write(profileFile, CompilationProfile.toJson(List.of(result.getProfile().orElseThrow()))));
+
+            return result.isSuccess() ? 0 : 1;
+        } catch (RuntimeException e) {
+            out.println("Compile server: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    /**
+     * Input and output paths are relative to the client, not to the server, including the default paths of options
+     * given without a value.
+     */
+    private static String[] resolveArgs(String workingDir, List<String> args) {
+        var pathPrefixes = List.of("-i=", "-d=", "-c=", "-p=");
+        var defaultPaths = Map.of(
+                "-c", CompilerConfig.DEFAULT_CACHE_DIR,
+                "-p", CompilerConfig.DEFAULT_PROFILE_FILE);
+
+        return args.stream()
+                .map(arg -> defaultPaths.containsKey(arg) ? arg + "=" + defaultPaths.get(arg) : arg)
+                .map(arg -> {
+                    var prefix = pathPrefixes.stream().filter(arg::startsWith).findFirst();
+                    if (workingDir == null || prefix.isEmpty()) {
+                        return arg;
+                    }
+
+                    var file = new File(arg.substring(prefix.get().length()));
+                    if (file.isAbsolute()) {
+                        return arg;
+                    }
+
+                    return prefix.get() + new File(workingDir, file.getPath()).getAbsolutePath();
+                })
+                .toArray(String[]::new);
+    }
+}
@@ -2,6 +2,7 @@ package pt.up.fe.comp2025.symboltable;
 
 import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp2025.ast.ExprTypeTable;
 import pt.up.fe.comp2025.ast.TypeUtils;
 import pt.up.fe.specs.util.SpecsCheck;
 import pt.up.fe.specs.util.exceptions.NotImplementedException;
@@ -19,6 +20,8 @@ public class JmmSymbolTable extends AJmmSymbolTable {
     private final Map<String, List<Symbol>> params;
     private final Map<String, List<Symbol>> locals;
     private final List<String> imports;
+    private final SymbolIndex index;
+    private final ExprTypeTable exprTypes;
 
 
     public JmmSymbolTable(String className,
@@ -38,6 +41,9 @@ public class JmmSymbolTable extends AJmmSymbolTable {
         this.params = params;
         this.locals = locals;
         this.imports = imports;
+        // Built once, the analysis resolves every variable reference through it
+        this.index = SymbolIndex.build(fields, params, locals, imports);
+        this.exprTypes = new ExprTypeTable();
     }
 
     @Override
@@ -84,6 +90,42 @@ public class JmmSymbolTable extends AJmmSymbolTable {
         return result != null ? result : Collections.emptyList();
     }
 
+    /**
+     * Resolves a name used in the body of a method, looking in the locals, then in the parameters, then in the fields.
+     *
+     * @return the symbol the name refers to, or empty if it is not a variable (it may still be an imported class)
+     */
+    public Optional<ScopedSymbol> resolve(String methodSignature, String name) {
+        return Optional.ofNullable(index.resolve(methodSignature, name));
+    }
+
+    public Optional<ScopedSymbol> getLocalVariable(String methodSignature, String name) {
+        return Optional.ofNullable(index.getLocal(methodSignature, name));
+    }
+
+    public Optional<ScopedSymbol> getParameter(String methodSignature, String name) {
+        return Optional.ofNullable(index.getParameter(methodSignature, name));
+    }
+
+    public Optional<ScopedSymbol> getField(String name) {
+        return Optional.ofNullable(index.getField(name));
+    }
+
+    /**
+     * @param simpleName name of a class, without the package
+     * @return true if a class with the given name is imported
+     */
+    public boolean isImportedClass(String simpleName) {
+        return index.isImportedClass(simpleName);
+    }
+
+    /**
+     * Types of the expressions of the AST this table was built from, shared by the analysis and the OLLIR generation.
+     */
+    public ExprTypeTable getExprTypes() {
+        return exprTypes;
+    }
+
     @Override
     public String toString() {
         return print();
@@ -63,9 +63,7 @@ public class JmmSymbolTableBuilder {
 
     private boolean hasValidReturnType(JmmNode method) {
         return method.getChildren().stream()
-                .anyMatch(node -> node.getKind().equals("Var")
-                        || node.getKind().equals("VarArray")
-                        || node.getKind().equals("VarArgs"));
+                .anyMatch(node -> Kind.check(node, VAR, VAR_ARRAY, VAR_ARGS));
     }
 
     private String extractMethodName(JmmNode method) {
@@ -84,9 +82,7 @@ public class JmmSymbolTableBuilder {
 
             if (hasValidReturnType(method)) {
                 JmmNode returnTypeNode = method.getChildren().stream()
-                        .filter(node -> node.getKind().equals("Var")
-                                || node.getKind().equals("VarArray")
-                                || node.getKind().equals("VarArgs"))
+                        .filter(node -> Kind.check(node, VAR, VAR_ARRAY, VAR_ARGS))
                         .findFirst()
                         .orElseThrow(() -> new NotImplementedException("Expected a valid return type for method: " + methodName));
 
@@ -105,7 +101,7 @@ public class JmmSymbolTableBuilder {
             String methodName = extractMethodName(method);
             List<Symbol> paramsList = new ArrayList<>();
 
-            for (JmmNode param : method.getChildren("ParamExp")) {
+            for (JmmNode param : method.getChildren(PARAM_EXP)) {
                 JmmNode typeNode = param.getChild(0);
                 paramsList.add(new Symbol(TypeUtils.convertType(typeNode), param.get("name")));
             }
@@ -132,13 +128,6 @@ public class JmmSymbolTableBuilder {
             }
         }
 
-        paramsMap.forEach((method, vars) -> {
-            System.out.println("  Method: " + method);
-            for (var var : vars) {
-                System.out.println("    Param: " + var.getName() + " : " + var.getType().print());
-            }
-        });
-
         return paramsMap;
     }
 
@@ -165,13 +154,6 @@ public class JmmSymbolTableBuilder {
             }
         }
 
-        localsMap.forEach((method, vars) -> {
-            System.out.println("  Method: " + method);
-            for (var var : vars) {
-                System.out.println("    Local: " + var.getName() + " : " + var.getType().print());
-            }
-        });
-
         return localsMap;
     }
 
@@ -186,7 +168,7 @@ public class JmmSymbolTableBuilder {
     private static List<String> buildImports(JmmNode root) {
         List<String> imports = new ArrayList<>();
         for (JmmNode child : root.getChildren()) {
-            if ("ImportStmt".equals(child.getKind())) {
+            if (IMPORT_STMT.check(child)) {
                 StringBuilder importBuilder = new StringBuilder();
                 importBuilder.append(child.get("ID"));
                 for (JmmNode subNode : child.getChildren()) {
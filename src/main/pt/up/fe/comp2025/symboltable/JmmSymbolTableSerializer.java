@@ -0,0 +1,121 @@
+package pt.up.fe.comp2025.symboltable;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts symbol tables to and from JSON.
+ * <p>
+ * Only the declarations are kept, attributes added to the table or to its types are not serialized.
+ */
+public class JmmSymbolTableSerializer {
+
+    public static String toJson(SymbolTable table) {
+        var json = new JsonObject();
+
+        json.addProperty("className", table.getClassName());
+        json.addProperty("super", table.getSuper());
+        json.add("imports", toJsonStrings(table.getImports()));
+        json.add("fields", toJsonSymbols(table.getFields()));
+
+        var methods = new JsonArray();
+        for (var method : table.getMethods()) {
+            var methodJson = new JsonObject();
+            methodJson.addProperty("name", method);
+            methodJson.add("returnType", toJsonType(table.getReturnType(method)));
+            methodJson.add("params", toJsonSymbols(table.getParameters(method)));
+            methodJson.add("locals", toJsonSymbols(table.getLocalVariables(method)));
+            methods.add(methodJson);
+        }
+        json.add("methods", methods);
+
+        return json.toString();
+    }
+
+    public static JmmSymbolTable fromJson(String jsonString) {
+        var json = JsonParser.parseString(jsonString).getAsJsonObject();
+
+        var className = json.get("className").getAsString();
+        var extendedClass = json.get("super").isJsonNull() ? null : json.get("super").getAsString();
+        var imports = fromJsonStrings(json.getAsJsonArray("imports"));
+        var fields = fromJsonSymbols(json.getAsJsonArray("fields"));
+
+        List<String> methods = new ArrayList<>();
+        Map<String, Type> returnTypes = new HashMap<>();
+        Map<String, List<Symbol>> params = new HashMap<>();
+        Map<String, List<Symbol>> locals = new HashMap<>();
+        for (var methodElement : json.getAsJsonArray("methods")) {
+            var methodJson = methodElement.getAsJsonObject();
+            var method = methodJson.get("name").getAsString();
+
+            methods.add(method);
+            returnTypes.put(method, fromJsonType(methodJson.get("returnType")));
+            params.put(method, fromJsonSymbols(methodJson.getAsJsonArray("params")));
+            locals.put(method, fromJsonSymbols(methodJson.getAsJsonArray("locals")));
+        }
+
+        return new JmmSymbolTable(className, extendedClass, fields, methods, returnTypes, params, locals, imports);
+    }
+
+    private static JsonArray toJsonStrings(List<String> strings) {
+        var json = new JsonArray();
+        strings.forEach(json::add);
+        return json;
+    }
+
+    private static List<String> fromJsonStrings(JsonArray json) {
+        List<String> strings = new ArrayList<>();
+        json.forEach(element -> strings.add(element.getAsString()));
+        return strings;
+    }
+
+    private static JsonElement toJsonType(Type type) {
+        if (type == null) {
+            return JsonNull.INSTANCE;
+        }
+
+        var json = new JsonObject();
+        json.addProperty("name", type.getName());
+        json.addProperty("isArray", type.isArray());
+        return json;
+    }
+
+    private static Type fromJsonType(JsonElement element) {
+        if (element.isJsonNull()) {
+            return null;
+        }
+
+        var json = element.getAsJsonObject();
+        return new Type(json.get("name").getAsString(), json.get("isArray").getAsBoolean());
+    }
+
+    private static JsonArray toJsonSymbols(List<Symbol> symbols) {
+        var json = new JsonArray();
+        for (var symbol : symbols) {
+            var symbolJson = toJsonType(symbol.getType()).getAsJsonObject();
+            symbolJson.addProperty("symbol", symbol.getName());
+            json.add(symbolJson);
+        }
+        return json;
+    }
+
+    private static List<Symbol> fromJsonSymbols(JsonArray json) {
+        List<Symbol> symbols = new ArrayList<>();
+        for (var element : json) {
+            var symbolJson = element.getAsJsonObject();
+            symbols.add(new Symbol(fromJsonType(symbolJson), symbolJson.get("symbol").getAsString()));
+        }
+        return symbols;
+    }
+}
@@ -0,0 +1,54 @@
+package pt.up.fe.comp2025.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+/**
+ * A symbol together with where it is declared.
+ */
+public class ScopedSymbol {
+
+    public enum Scope {
+        LOCAL,
+        PARAMETER,
+        FIELD
+    }
+
+    private final Symbol symbol;
+    private final Scope scope;
+    private final int slot;
+
+    public ScopedSymbol(Symbol symbol, Scope scope, int slot) {
+        this.symbol = symbol;
+        this.scope = scope;
+        this.slot = slot;
+    }
+
+    public Symbol getSymbol() {
+        return symbol;
+    }
+
+    public String getName() {
+        return symbol.getName();
+    }
+
+    public Type getType() {
+        return symbol.getType();
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * @return the position of the symbol in the list of locals, parameters or fields it belongs to
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public String toString() {
+        return scope + " " + slot + " " + symbol;
+    }
+}
@@ -0,0 +1,116 @@
+package pt.up.fe.comp2025.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp2025.symboltable.ScopedSymbol.Scope;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hash indexes over the symbols of a class, so that a name is resolved with at most one lookup per scope instead of
+ * scanning the locals, the parameters and the fields. The fields are indexed once, for every method.
+ * <p>
+ * When a list declares the same name twice, the first declaration is indexed, like a linear scan would find it.
+ */
+class SymbolIndex {
+
+    /**
+     * Names declared in a method, locals shadow parameters, enclosed by the scope of the class.
+     */
+    private static class MethodScope {
+        private final Map<String, ScopedSymbol> params;
+        private final Map<String, ScopedSymbol> locals;
+        private final Map<String, ScopedSymbol> classScope;
+
+        private MethodScope(Map<String, ScopedSymbol> params, Map<String, ScopedSymbol> locals,
+                            Map<String, ScopedSymbol> classScope) {
+            this.params = params;
+            this.locals = locals;
+            this.classScope = classScope;
+        }
+
+        private ScopedSymbol resolve(String name) {
+            var symbol = locals.get(name);
+            if (symbol == null) {
+                symbol = params.get(name);
+            }
+            return symbol != null ? symbol : classScope.get(name);
+        }
+    }
+
+    // The scope of the class, shared by the scopes of every method
+    private final Map<String, ScopedSymbol> fields;
+    private final Map<String, MethodScope> methods;
+
+    // Simple names of the imported classes
+    private final Set<String> importedClasses;
+
+    private SymbolIndex(Map<String, ScopedSymbol> fields, Map<String, MethodScope> methods,
+                        Set<String> importedClasses) {
+        this.fields = fields;
+        this.methods = methods;
+        this.importedClasses = importedClasses;
+    }
+
+    static SymbolIndex build(List<Symbol> fields,
+                             Map<String, List<Symbol>> params,
+                             Map<String, List<Symbol>> locals,
+                             List<String> imports) {
+
+        var fieldIndex = index(fields, Scope.FIELD);
+
+        Map<String, MethodScope> methods = new HashMap<>();
+        var methodNames = new HashSet<>(params.keySet());
+        methodNames.addAll(locals.keySet());
+        for (var method : methodNames) {
+            var methodParams = index(params.getOrDefault(method, Collections.emptyList()), Scope.PARAMETER);
+            var methodLocals = index(locals.getOrDefault(method, Collections.emptyList()), Scope.LOCAL);
+            methods.put(method, new MethodScope(methodParams, methodLocals, fieldIndex));
+        }
+
+        Set<String> importedClasses = new HashSet<>();
+        for (var importName : imports) {
+            importedClasses.add(importName.substring(importName.lastIndexOf('.') + 1));
+        }
+
+        return new SymbolIndex(fieldIndex, methods, importedClasses);
+    }
+
+    private static Map<String, ScopedSymbol> index(List<Symbol> symbols, Scope scope) {
+        Map<String, ScopedSymbol> index = new HashMap<>();
+
+        for (int slot = 0; slot < symbols.size(); slot++) {
+            var symbol = symbols.get(slot);
+            index.putIfAbsent(symbol.getName(), new ScopedSymbol(symbol, scope, slot));
+        }
+
+        return index;
+    }
+
+    ScopedSymbol resolve(String method, String name) {
+        var scope = methods.get(method);
+        return scope != null ? scope.resolve(name) : fields.get(name);
+    }
+
+    ScopedSymbol getLocal(String method, String name) {
+        var scope = methods.get(method);
+        return scope != null ? scope.locals.get(name) : null;
+    }
+
+    ScopedSymbol getParameter(String method, String name) {
+        var scope = methods.get(method);
+        return scope != null ? scope.params.get(name) : null;
+    }
+
+    ScopedSymbol getField(String name) {
+        return fields.get(name);
+    }
+
+    boolean isImportedClass(String simpleName) {
+        return importedClasses.contains(simpleName);
+    }
+}
@@ -0,0 +1,87 @@
+package pt.up.fe.comp2025.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2025.symboltable.ScopedSymbol.Scope;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Name lookups of the analysis over any {@link SymbolTable}.
+ * <p>
+ * A {@link JmmSymbolTable} answers them from its hashed index. Other tables are scanned through the methods of the
+ * interface, where a missing list counts as empty.
+ */
+public class SymbolLookup {
+
+    private SymbolLookup() {
+    }
+
+    /**
+     * Resolves a name used in the body of a method, looking in the locals, then in the parameters, then in the fields.
+     *
+     * @return the symbol the name refers to, or empty if it is not a variable (it may still be an imported class)
+     */
+    public static Optional<ScopedSymbol> resolve(SymbolTable table, String methodSignature, String name) {
+        if (table instanceof JmmSymbolTable jmmTable) {
+            return jmmTable.resolve(methodSignature, name);
+        }
+
+        return getLocalVariable(table, methodSignature, name)
+                .or(() -> getParameter(table, methodSignature, name))
+                .or(() -> getField(table, name));
+    }
+
+    public static Optional<ScopedSymbol> getLocalVariable(SymbolTable table, String methodSignature, String name) {
+        if (table instanceof JmmSymbolTable jmmTable) {
+            return jmmTable.getLocalVariable(methodSignature, name);
+        }
+
+        return find(table.getLocalVariables(methodSignature), name, Scope.LOCAL);
+    }
+
+    public static Optional<ScopedSymbol> getParameter(SymbolTable table, String methodSignature, String name) {
+        if (table instanceof JmmSymbolTable jmmTable) {
+            return jmmTable.getParameter(methodSignature, name);
+        }
+
+        return find(table.getParameters(methodSignature), name, Scope.PARAMETER);
+    }
+
+    public static Optional<ScopedSymbol> getField(SymbolTable table, String name) {
+        if (table instanceof JmmSymbolTable jmmTable) {
+            return jmmTable.getField(name);
+        }
+
+        return find(table.getFields(), name, Scope.FIELD);
+    }
+
+    /**
+     * @param simpleName name of a class, without the package
+     * @return true if a class with the given name is imported
+     */
+    public static boolean isImportedClass(SymbolTable table, String simpleName) {
+        if (table instanceof JmmSymbolTable jmmTable) {
+            return jmmTable.isImportedClass(simpleName);
+        }
+
+        var imports = table.getImports();
+        return imports != null && imports.stream()
+                .anyMatch(importName -> importName.substring(importName.lastIndexOf('.') + 1).equals(simpleName));
+    }
+
+    private static Optional<ScopedSymbol> find(List<Symbol> symbols, String name, Scope scope) {
+        if (symbols == null) {
+            return Optional.empty();
+        }
+
+        for (int slot = 0; slot < symbols.size(); slot++) {
+            if (symbols.get(slot).getName().equals(name)) {
+                return Optional.of(new ScopedSymbol(symbols.get(slot), scope, slot));
+            }
+        }
+
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,58 @@
+package pt.up.fe.comp;
+
+import pt.up.fe.comp2025.optimization.dataflow.FlowGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flow graph given by the successors of each block, with block 0 as the entry and block 1 as the exit.
+ */
+public class ArrayFlowGraph implements FlowGraph {
+
+    private final int[][] successors;
+    private final int[][] predecessors;
+
+    public ArrayFlowGraph(int[][] successors) {
+        this.successors = successors;
+
+        List<List<Integer>> predecessorLists = new ArrayList<>();
+        for (int block = 0; block < successors.length; block++) {
+            predecessorLists.add(new ArrayList<>());
+        }
+        for (int block = 0; block < successors.length; block++) {
+            for (var successor : successors[block]) {
+                predecessorLists.get(successor).add(block);
+            }
+        }
+
+        this.predecessors = predecessorLists.stream()
+                .map(blocks -> blocks.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+    }
+
+    @Override
+    public int getNumBlocks() {
+        return successors.length;
+    }
+
+    @Override
+    public int getEntry() {
+        return 0;
+    }
+
+    @Override
+    public int getExit() {
+        return 1;
+    }
+
+    @Override
+    public int[] getSuccessors(int block) {
+        return successors[block];
+    }
+
+    @Override
+    public int[] getPredecessors(int block) {
+        return predecessors[block];
+    }
+}
@@ -0,0 +1,168 @@
+package pt.up.fe.comp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp2025.CompilationResult;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.JmmCompiler;
+import pt.up.fe.comp2025.cache.ArtifactCache;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compilations that reuse the artifacts of a previous one, see {@link ArtifactCache}.
+ */
+public class ArtifactCacheTest {
+
+    private static final String CODE = SpecsIo.getResource("pt/up/fe/comp/cp2/ollir/arithmetic/Arithmetic_add.jmm");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(String name, String code) throws IOException {
+        var file = new File(folder.getRoot(), name);
+        SpecsIo.write(file, code);
+        return file;
+    }
+
+    private Map<String, String> getConfig(File inputFile, String... options) {
+        var args = Stream.concat(
+                Stream.of("-i=" + inputFile.getPath(), "-c=" + new File(folder.getRoot(), "cache").getPath()),
+                Stream.of(options));
+        return CompilerConfig.parseArgs(args.toArray(String[]::new));
+    }
+
+    private static CompilationResult compile(File inputFile, Map<String, String> config) {
+        return new JmmCompiler().compile(inputFile, config);
+    }
+
+    @Test
+    public void secondCompilationIsAHit() throws IOException {
+        var input = write("Simple.jmm", CODE);
+        var config = getConfig(input);
+
+        var compiled = compile(input, config);
+        assertTrue(compiled.isSuccess());
+        assertFalse(compiled.isCached());
+
+        var cached = compile(input, config);
+        assertTrue(cached.isSuccess());
+        assertTrue(cached.isCached());
+        assertTrue(cached.getParserResult().isEmpty());
+
+        assertEquals(compiled.getOllirCode(), cached.getOllirCode());
+        assertEquals(compiled.getJasminResult().orElseThrow().getJasminCode(),
+                cached.getJasminResult().orElseThrow().getJasminCode());
+
+        var table = cached.getSymbolTable().orElseThrow();
+        assertEquals("CompileArithmetic", table.getClassName());
+        assertEquals(compiled.getSymbolTable().orElseThrow().getMethods(), table.getMethods());
+        assertEquals(compiled.getSymbolTable().orElseThrow().getLocalVariables("foo"), table.getLocalVariables("foo"));
+    }
+
+    @Test
+    public void allocatedOllirIsStored() throws IOException {
+        var input = write("Spill.jmm", """
+                class Spill {
+                    public int foo(int n) {
+                        int a;
+                        int b;
+                        int c;
+                        a = n + 1;
+                        b = n + 2;
+                        c = n + 3;
+                        return a + b + c;
+                    }
+                }
+                """);
+        var config = getConfig(input, "-r=1");
+
+        // The variables that do not fit in one register are spilled to an array
+        var compiled = compile(input, config);
+        assertTrue(compiled.isSuccess());
+        assertTrue(compiled.getOllirCode().orElseThrow().contains("spills$1"));
+
+        var cached = compile(input, config);
+        assertTrue(cached.isCached());
+        assertEquals(compiled.getOllirCode(), cached.getOllirCode());
+    }
+
+    @Test
+    public void codeAndOptionsAreTheKey() throws IOException {
+        var input = write("Simple.jmm", CODE);
+        compile(input, getConfig(input));
+
+        // Same code in another file
+        var copy = write("Copy.jmm", CODE);
+        assertTrue(compile(copy, getConfig(copy)).isCached());
+
+        // Options that change the generated code
+        assertFalse(compile(input, getConfig(input, "-o")).isCached());
+        assertFalse(compile(input, getConfig(input, "-r=0")).isCached());
+        assertTrue(compile(input, getConfig(input, "-o")).isCached());
+
+        // Other code
+        write("Simple.jmm", CODE.replace("b = 2;", "b = 3;"));
+        var changed = compile(input, getConfig(input));
+        assertFalse(changed.isCached());
+        assertTrue(changed.getOllirCode().orElseThrow().contains("3.i32"));
+    }
+
+    @Test
+    public void changedImportsInvalidate() throws IOException {
+        var code = "import Helper;\n" + CODE;
+        var input = write("Simple.jmm", code);
+        var helper = write("Helper.jmm", "class Helper {\n}\n");
+        var config = getConfig(input);
+
+        compile(input, config);
+        assertTrue(compile(input, config).isCached());
+
+        SpecsIo.write(helper, "class Helper {\n    int value;\n}\n");
+        assertFalse(compile(input, config).isCached());
+        assertTrue(compile(input, config).isCached());
+
+        // Imports that are not next to the input are not tracked
+        assertTrue(helper.delete());
+        assertFalse(compile(input, config).isCached());
+        assertTrue(compile(input, config).isCached());
+    }
+
+    @Test
+    public void onlyCleanCompilationsAreStored() throws IOException {
+        var input = write("Wrong.jmm", CODE.replace("return a + b;", "return a + c;"));
+        var config = getConfig(input);
+
+        var first = compile(input, config);
+        assertFalse(first.isSuccess());
+
+        var second = compile(input, config);
+        assertFalse(second.isCached());
+        assertEquals(first.getReports().toString(), second.getReports().toString());
+    }
+
+    @Test
+    public void damagedEntriesAreReplaced() throws IOException {
+        var input = write("Simple.jmm", CODE);
+        var config = getConfig(input);
+        compile(input, config);
+
+        var entries = SpecsIo.getFilesRecursive(new File(folder.getRoot(), "cache"), "json");
+        assertEquals(1, entries.size());
+        SpecsIo.write(entries.get(0), "{\"className\": ");
+
+        var recompiled = compile(input, config);
+        assertTrue(recompiled.isSuccess());
+        assertFalse(recompiled.isCached());
+        assertTrue(compile(input, config).isCached());
+    }
+}
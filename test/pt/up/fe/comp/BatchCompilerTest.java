@@ -0,0 +1,97 @@
+package pt.up.fe.comp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp2025.CompilationResult;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.JmmCompiler;
+import pt.up.fe.comp2025.batch.BatchCompiler;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compiling many files at the same time, see {@link BatchCompiler}.
+ */
+public class BatchCompilerTest {
+
+    private static final String CODE = SpecsIo.getResource("pt/up/fe/comp/cp2/ollir/arithmetic/Arithmetic_add.jmm");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Map<String, String> getConfig(int threads) {
+        Map<String, String> config = new HashMap<>();
+        config.put(ConfigOptions.getThreads(), String.valueOf(threads));
+        return config;
+    }
+
+    /**
+     * Overflows the stack on the files named 'Deep', as the visitors would on a deeply nested input.
+     */
+    private static class OverflowingCompiler extends JmmCompiler {
+        @Override
+        public CompilationResult compile(File inputFile, Map<String, String> config) {
+            if (inputFile.getName().startsWith("Deep")) {
+                throw new StackOverflowError();
+            }
+            return super.compile(inputFile, config);
+        }
+    }
+
+    private List<File> writeInputs(File inputDir, int count) {
+        var files = new ArrayList<File>();
+        for (int i = 0; i < count; i++) {
+            var name = (i % 3 == 1 ? "Deep" : "Simple") + i;
+            var file = new File(inputDir, name + ".jmm");
+            SpecsIo.write(file, CODE.replace("class CompileArithmetic", "class " + name));
+            files.add(file);
+        }
+        return files;
+    }
+
+    @Test
+    public void everyFileHasAnEntry() throws Exception {
+        var inputDir = folder.newFolder("inputs");
+        var outputDir = folder.newFolder("outputs");
+        var files = writeInputs(inputDir, 6);
+
+        var summary = new BatchCompiler(getConfig(2)).compile(files, inputDir, outputDir);
+
+        assertEquals(6, summary.getEntries().size());
+        assertEquals(0, summary.getFailures());
+        assertTrue(new File(outputDir, "Deep1.j").isFile());
+    }
+
+    @Test
+    public void errorsFailOnlyTheirFile() throws Exception {
+        var inputDir = folder.newFolder("inputs");
+        var outputDir = folder.newFolder("outputs");
+        var files = writeInputs(inputDir, 6);
+
+        // A single worker, so the submitting thread also compiles files once the queue is full
+        for (var threads : new int[]{1, 3}) {
+            var summary = new BatchCompiler(new OverflowingCompiler(), getConfig(threads))
+                    .compile(files, inputDir, outputDir);
+
+            assertEquals(6, summary.getEntries().size());
+            assertEquals(2, summary.getFailures());
+
+            for (var entry : summary.getEntries()) {
+                assertEquals(entry.getInput(), entry.getInput().startsWith("Deep"), !entry.isSuccess());
+                if (!entry.isSuccess()) {
+                    assertFalse(entry.getReports().isEmpty());
+                }
+            }
+        }
+    }
+}
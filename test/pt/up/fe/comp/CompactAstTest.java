@@ -0,0 +1,91 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.ast.CompactAst;
+import pt.up.fe.comp2025.ast.CompactNode;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The compact AST must look the same as the regular AST to the rest of the compiler.
+ */
+public class CompactAstTest {
+
+    private static Map<String, String> getConfig(boolean compactAst) {
+        return TestCorpus.getConfig(ConfigOptions.getCompactAst(), compactAst);
+    }
+
+    @Test
+    public void sameTreeAndReports() {
+        for (var input : TestCorpus.getSemanticAnalysisFiles()) {
+            var code = SpecsIo.read(input);
+
+            var regular = TestUtils.parse(code, getConfig(false));
+            var compact = TestUtils.parse(code, getConfig(true));
+            if (regular.getRootNode() == null) {
+                continue;
+            }
+
+            assertTrue(compact.getRootNode() instanceof CompactNode);
+            assertEquals(input.getName(), regular.getRootNode().toTree(), compact.getRootNode().toTree());
+            assertEquals(input.getName(), TestUtils.analyse(regular).getReports().toString(),
+                    TestUtils.analyse(compact).getReports().toString());
+        }
+    }
+
+    @Test
+    public void navigation() {
+        var code = new ProgramGenerator(2).methods(10).generate();
+        var regular = TestUtils.parse(code).getRootNode();
+        var compact = CompactAst.fromJmmNode(regular).getRoot();
+
+        assertEquals(regular.getDescendants().size(), compact.getDescendants().size());
+        assertEquals(regular.toTree(), compact.toTree());
+
+        compact.getDescendantsStream().forEach(node -> {
+            var parent = node.getParent();
+            assertSame(node, parent.getChild(node.getIndexOfSelf()));
+            assertEquals(node.getLine(), node.getInteger("lineStart", -1));
+        });
+    }
+
+    @Test
+    public void mutableCopy() {
+        var code = SpecsIo.getResource("pt/up/fe/comp/cp2/ollir/arithmetic/Arithmetic_add.jmm");
+        var compact = TestUtils.parse(code, getConfig(true)).getRootNode();
+
+        compact.getChild(0).put("checked", "true");
+        assertEquals("true", compact.getChild(0).get("checked"));
+
+        JmmNode copy = ((CompactNode) compact).getAst().toJmmNode();
+        assertEquals(compact.toTree(), copy.toTree());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void readOnlyStructure() {
+        var code = SpecsIo.getResource("pt/up/fe/comp/cp2/ollir/arithmetic/Arithmetic_add.jmm");
+        var compact = TestUtils.parse(code, getConfig(true)).getRootNode();
+
+        compact.getChild(0).delete();
+    }
+
+    @Test
+    public void optimizedBackend() {
+        var code = SpecsIo.getResource("pt/up/fe/comp/cp2/ollir/arithmetic/Arithmetic_add.jmm");
+
+        var regularConfig = getConfig(false);
+        regularConfig.put(ConfigOptions.getOptimize(), "true");
+        var compactConfig = getConfig(true);
+        compactConfig.put(ConfigOptions.getOptimize(), "true");
+
+        assertEquals(TestUtils.optimize(code, regularConfig).getOllirCode(),
+                TestUtils.optimize(code, compactConfig).getOllirCode());
+    }
+}
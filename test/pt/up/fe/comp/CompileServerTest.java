@@ -0,0 +1,179 @@
+package pt.up.fe.comp;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.server.CompileServer;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Requests sent to a running compile server, with the protocol of 'jmmc', see {@link CompileServer}.
+ */
+public class CompileServerTest {
+
+    private static final String CODE = SpecsIo.getResource("pt/up/fe/comp/cp2/ollir/arithmetic/Arithmetic_add.jmm");
+
+    // Warming up the parser comes before listening
+    private static final long CONNECT_TIMEOUT_MILLIS = 30_000;
+
+    private static CompileServer server;
+    private static Thread serverThread;
+    private static int port;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        try (var socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+
+        server = new CompileServer(port);
+        serverThread = new Thread(server::run, "compile-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    @AfterClass
+    public static void stopServer() throws InterruptedException {
+        server.stop();
+        serverThread.join(CONNECT_TIMEOUT_MILLIS);
+    }
+
+    private static Socket connect() throws IOException, InterruptedException {
+        var deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+        while (true) {
+            try {
+                return new Socket(InetAddress.getLoopbackAddress(), port);
+            } catch (ConnectException e) {
+                if (System.currentTimeMillis() > deadline || !serverThread.isAlive()) {
+                    throw e;
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    /**
+     * @return the lines of the response, the last one being 'EXIT &lt;code&gt;'
+     */
+    private static List<String> request(File workingDir, String... args) throws IOException, InterruptedException {
+        try (var socket = connect();
+             var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             var out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+
+            out.println(workingDir.getAbsolutePath());
+            for (var arg : args) {
+                out.println(arg);
+            }
+            out.println();
+
+            var lines = new ArrayList<String>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+            }
+
+            return lines;
+        }
+    }
+
+    private static String getExit(List<String> response) {
+        assertFalse(response.isEmpty());
+        return response.get(response.size() - 1);
+    }
+
+    @Test
+    public void compilesRelativeToTheClient() throws Exception {
+        var workingDir = folder.newFolder("client");
+        SpecsIo.write(new File(workingDir, "Simple.jmm"), CODE);
+
+        var response = request(workingDir, "-i=Simple.jmm", "-d=out");
+
+        assertEquals(List.of("EXIT 0"), response);
+        assertTrue(new File(workingDir, "out/CompileArithmetic.j").isFile());
+        assertTrue(new File(workingDir, "out/CompileArithmetic.class").isFile());
+    }
+
+    @Test
+    public void reportsErrorsOfTheInput() throws Exception {
+        var workingDir = folder.newFolder("client");
+        SpecsIo.write(new File(workingDir, "Wrong.jmm"), CODE.replace("return a + b;", "return a + c;"));
+
+        var response = request(workingDir, "-i=Wrong.jmm", "-d=out");
+
+        assertEquals("EXIT 1", getExit(response));
+        assertTrue(response.toString(), response.size() > 1);
+        assertFalse(new File(workingDir, "out").exists());
+    }
+
+    @Test
+    public void defaultPathsAreRelativeToTheClient() throws Exception {
+        var workingDir = folder.newFolder("client");
+        SpecsIo.write(new File(workingDir, "Simple.jmm"), CODE);
+
+        assertEquals(List.of("EXIT 0"), request(workingDir, "-i=Simple.jmm", "-c", "-p"));
+
+        assertTrue(new File(workingDir, CompilerConfig.DEFAULT_CACHE_DIR).isDirectory());
+        assertTrue(new File(workingDir, CompilerConfig.DEFAULT_PROFILE_FILE).isFile());
+    }
+
+    @Test
+    public void diagnosticsGoToTheClient() throws Exception {
+        var workingDir = folder.newFolder("client");
+        SpecsIo.write(new File(workingDir, "Simple.jmm"), CODE);
+
+        var stdout = System.out;
+        var serverOutput = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(serverOutput, true));
+        List<String> response;
+        try {
+            response = request(workingDir, "-i=Simple.jmm", "-v=ast");
+        } finally {
+            System.setOut(stdout);
+        }
+
+        assertEquals("EXIT 0", getExit(response));
+        assertTrue(response.toString(), response.contains("AST:"));
+        assertFalse(serverOutput.toString(), serverOutput.toString().contains("AST:"));
+    }
+
+    @Test
+    public void rejectsInvalidRequests() throws Exception {
+        var workingDir = folder.newFolder("client");
+
+        var batch = request(workingDir, "-b=.");
+        assertEquals("EXIT 2", getExit(batch));
+        assertTrue(batch.get(0), batch.get(0).startsWith("Compile server: "));
+
+        var missing = request(workingDir, "-i=Missing.jmm");
+        assertEquals("EXIT 2", getExit(missing));
+
+        // The server keeps answering after a bad request
+        SpecsIo.write(new File(workingDir, "Simple.jmm"), CODE);
+        assertEquals(List.of("EXIT 0"), request(workingDir, "-i=Simple.jmm"));
+    }
+}
@@ -0,0 +1,161 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import org.specs.comp.ollir.LiteralElement;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.inst.AssignInstruction;
+import org.specs.comp.ollir.inst.BinaryOpInstruction;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import org.specs.comp.ollir.inst.Instruction;
+import pt.up.fe.comp2025.CompilationResult;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.optimization.OllirPrinter;
+import pt.up.fe.comp2025.optimization.dataflow.DataflowSolver;
+import pt.up.fe.comp2025.optimization.dataflow.DataflowSolver.Direction;
+import pt.up.fe.comp2025.optimization.dataflow.FlowGraph;
+import pt.up.fe.comp2025.optimization.dataflow.Lattice;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The worklist solver and the constant propagations built on it.
+ */
+public class DataflowTest {
+
+    // 0 -> 2 -> 3 -> 4 -> 1, with 4 -> 3 looping back and 2 -> 4 skipping 3
+    private static final FlowGraph GRAPH = new ArrayFlowGraph(new int[][]{{2}, {}, {3, 4}, {4}, {3, 1}});
+
+    // Blocks that may run before a point, or after it for backward analyses
+    private static final Lattice<Set<Integer>> BLOCKS = new Lattice<>() {
+        @Override
+        public Set<Integer> top() {
+            return Set.of();
+        }
+
+        @Override
+        public Set<Integer> meet(Set<Integer> left, Set<Integer> right) {
+            var union = new TreeSet<>(left);
+            union.addAll(right);
+            return union;
+        }
+    };
+
+    private static Set<Integer> withBlock(int block, Set<Integer> input) {
+        var output = new TreeSet<>(input);
+        output.add(block);
+        return output;
+    }
+
+    @Test
+    public void forwardAndBackward() {
+        var forward = new DataflowSolver<>(GRAPH, Direction.FORWARD, BLOCKS, Set.of(), DataflowTest::withBlock)
+                .solve();
+
+        assertEquals(Set.of(0, 2, 3, 4), forward.getIn(3));
+        assertEquals(Set.of(0, 2, 3, 4), forward.getIn(4));
+        assertEquals(Set.of(0, 2, 3, 4), forward.getIn(1));
+        assertEquals(Set.of(0, 2, 3, 4, 1), forward.getOut(1));
+
+        var backward = new DataflowSolver<>(GRAPH, Direction.BACKWARD, BLOCKS, Set.of(), DataflowTest::withBlock)
+                .solve();
+
+        assertEquals(Set.of(3, 4, 1), backward.getOut(2));
+        assertEquals(Set.of(0, 2, 3, 4, 1), backward.getIn(0));
+    }
+
+    @Test
+    public void unaffectedBlocksAreNotRevisited() {
+        var solver = new DataflowSolver<>(GRAPH, Direction.FORWARD, BLOCKS, Set.of(), DataflowTest::withBlock)
+                .solve();
+
+        // One visit per block, plus the loop: 3 and 4 see the output of 4 and stabilize
+        assertTrue("Expected at most 7 visits, got " + solver.getTransferCount(), solver.getTransferCount() <= 7);
+    }
+
+    private static Map<String, String> getOptimizeConfig() {
+        Map<String, String> config = new HashMap<>();
+        config.put(ConfigOptions.getOptimize(), "true");
+        return config;
+    }
+
+    private static String optimize(String methods) {
+        var code = "class Constants {\n" + methods + "\npublic static void main(String[] args) {\n}\n}";
+        // The class unit is rewritten in place
+        return OllirPrinter.print(TestUtils.optimize(code, getOptimizeConfig()).getOllirClass());
+    }
+
+    @Test
+    public void branches() {
+        var differ = optimize("public int foo(boolean c) { int a; a = 1; if (c) { a = 2; } else { c = false; }"
+                + " return a; }");
+        assertTrue(differ, differ.contains("ret.i32 a.i32"));
+
+        var same = optimize("public int foo(boolean c) { int a; if (c) { a = 2; } else { a = 1 + 1; }"
+                + " return a * 3; }");
+        assertTrue(same, same.contains("ret.i32 6.i32"));
+    }
+
+    @Test
+    public void loopsAndUpdates() {
+        var invariant = optimize("public int foo(int n) { int k; int s; k = 4; s = 0;"
+                + " while (s < n) { s = s + k; } return s; }");
+        assertTrue(invariant, invariant.contains("s.i32 +.i32 4.i32"));
+        assertTrue(invariant, invariant.contains("ret.i32 s.i32"));
+
+        var postfix = optimize("public int foo() { int i; i = 1; i++; return i; }");
+        assertTrue(postfix, postfix.contains("ret.i32 2.i32"));
+    }
+
+    private static final String PRUNED_BRANCH = "class Pruned {\n"
+            + "public int foo(int n) { int c; int k; int s; int i; c = 1; k = 0; s = 0; i = 0;"
+            + " while (i < n) { if (c == 1) { k = 4; } else { k = 5; } s = s + k; i = i + 1; } return s; }\n"
+            + "public static void main(String[] args) { }\n}";
+
+    @Test
+    public void branchesNeverTakenAreRemoved() {
+        var foo = TestUtils.optimize(PRUNED_BRANCH, getOptimizeConfig()).getOllirClass().getMethods().stream()
+                .filter(method -> method.getMethodName().equals("foo"))
+                .findFirst().orElseThrow();
+        var code = toString(foo);
+
+        // Only the condition of the loop is left
+        assertEquals(code, 1, foo.getInstructions().stream().filter(CondBranchInstruction.class::isInstance).count());
+        assertFalse(code, code.contains("LiteralElement: 5.INT32"));
+
+        // k is the same in every iteration of the loop
+        assertTrue(code, foo.getInstructions().stream()
+                .filter(AssignInstruction.class::isInstance)
+                .map(inst -> ((AssignInstruction) inst).getRhs())
+                .anyMatch(rhs -> rhs instanceof BinaryOpInstruction binaryOp
+                        && binaryOp.getRightOperand() instanceof LiteralElement literal
+                        && literal.getLiteral().equals("4")));
+    }
+
+    @Test
+    public void ollirCodeIsPrintedAfterRewrites() {
+        var ollirResult = TestUtils.optimize(PRUNED_BRANCH, getOptimizeConfig());
+        var result = new CompilationResult(null, null, ollirResult, null, new ArrayList<>());
+        var code = result.getOllirCode().orElseThrow();
+
+        // The code is that of the rewritten class unit, without the branch that assigns 5
+        assertFalse(code, code.contains("5.i32"));
+        assertEquals(OllirPrinter.print(ollirResult.getOllirClass()), code);
+    }
+
+    private static String toString(Method method) {
+        var code = new StringBuilder();
+        for (Instruction inst : method.getInstructions()) {
+            method.getLabels(inst).forEach(label -> code.append(label).append(":\n"));
+            code.append(inst).append("\n");
+        }
+        return code.toString();
+    }
+}
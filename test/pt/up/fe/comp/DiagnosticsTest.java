@@ -0,0 +1,120 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+import pt.up.fe.comp2025.instrumentation.Diagnostics.Level;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Debug output selected with '-v', see {@link Diagnostics}.
+ */
+public class DiagnosticsTest {
+
+    private static Map<String, String> getConfig(String levels) {
+        Map<String, String> config = new HashMap<>();
+        config.put(ConfigOptions.getDiagnostics(), levels);
+        return config;
+    }
+
+    @Test
+    public void parseLevels() {
+        assertEquals(EnumSet.noneOf(Level.class), CompilerConfig.getDiagnostics(new HashMap<>()));
+        assertEquals(EnumSet.of(Level.AST, Level.OLLIR), CompilerConfig.getDiagnostics(getConfig("ast,ollir")));
+        assertEquals(EnumSet.allOf(Level.class), CompilerConfig.getDiagnostics(getConfig("true")));
+
+        try {
+            CompilerConfig.getDiagnostics(getConfig("ast,tokens"));
+            fail("Expected an unrecognized level");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("tokens"));
+        }
+    }
+
+    @Test
+    public void disabledLevelBuildsNothing() {
+        var output = new ByteArrayOutputStream();
+        var diagnostics = Diagnostics.of(EnumSet.of(Level.AST), new PrintStream(output, true));
+
+        diagnostics.print(Level.AST, () -> "ast");
+        diagnostics.print(Level.OLLIR, () -> {
+            throw new AssertionError("Message of a disabled level was built");
+        });
+
+        assertTrue(diagnostics.isEnabled(Level.AST));
+        assertFalse(diagnostics.isEnabled(Level.OLLIR));
+        assertEquals("ast" + System.lineSeparator(), output.toString());
+    }
+
+    @Test
+    public void quietByDefault() {
+        var code = SpecsIo.getResource("pt/up/fe/comp/cp2/ollir/arithmetic/Arithmetic_add.jmm");
+
+        var stdout = System.out;
+        var output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true));
+        try {
+            Map<String, String> config = new HashMap<>();
+            config.put(ConfigOptions.getOptimize(), "true");
+            config.put(ConfigOptions.getRegister(), "0");
+
+            TestUtils.noErrors(TestUtils.backend(code, config));
+        } finally {
+            System.setOut(stdout);
+        }
+
+        assertEquals("", output.toString());
+    }
+
+    @Test
+    public void keptOncePerLevels() {
+        var diagnostics = Diagnostics.of(getConfig("ast,ollir"));
+
+        // Options that enable the same levels share the diagnostics
+        assertSame(diagnostics, Diagnostics.of(getConfig("ast,ollir")));
+        assertSame(diagnostics, Diagnostics.of(getConfig("ollir, ast")));
+        assertSame(Diagnostics.none(), Diagnostics.of(new HashMap<>()));
+        assertTrue(diagnostics.isEnabled(Level.OLLIR));
+        assertFalse(Diagnostics.of(getConfig("ast")).isEnabled(Level.OLLIR));
+
+        // Kept diagnostics still print to the standard output of the moment
+        var stdout = System.out;
+        var output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true));
+        try {
+            diagnostics.print(Level.AST, () -> "ast");
+        } finally {
+            System.setOut(stdout);
+        }
+
+        assertEquals("ast" + System.lineSeparator(), output.toString());
+    }
+
+    @Test
+    public void semanticErrorsAreOnlyReported() {
+        var stdout = System.out;
+        var output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true));
+        try {
+            var result = TestUtils.analyse("class Errors { public int foo() { return undeclared; } }");
+            assertFalse(result.getReports().isEmpty());
+        } finally {
+            System.setOut(stdout);
+        }
+
+        assertEquals("", output.toString());
+    }
+}
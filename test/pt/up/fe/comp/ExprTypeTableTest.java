@@ -0,0 +1,156 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.ast.ExprTypeTable;
+import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+import pt.up.fe.comp2025.optimization.ConstantPropagation;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp2025.ast.Kind.BINARY_EXPR;
+import static pt.up.fe.comp2025.ast.Kind.EXPR;
+import static pt.up.fe.comp2025.ast.Kind.INTEGER_LITERAL;
+import static pt.up.fe.comp2025.ast.Kind.METHOD_DECL;
+
+/**
+ * Types of the expressions memoized in the symbol table, see {@link ExprTypeTable}.
+ */
+public class ExprTypeTableTest {
+
+    private static final String METHOD = "foo";
+
+    private static final String CODE = """
+            class Types {
+                public int foo(int x) {
+                    int a;
+                    int b;
+                    boolean c;
+                    a = 5;
+                    b = (20 - a) * x + a;
+                    c = b < x && true;
+                    return b;
+                }
+            }
+            """;
+
+    private static JmmSemanticsResult analyse() {
+        var semantics = TestUtils.analyse(CODE);
+        TestUtils.noErrors(semantics);
+        return semantics;
+    }
+
+    private static List<JmmNode> getExprs(JmmNode root) {
+        return root.getDescendantsAndSelfStream().filter(EXPR::check).toList();
+    }
+
+    private static JmmNode getMethod(JmmSemanticsResult semantics) {
+        return semantics.getRootNode().getDescendants(METHOD_DECL.getNodeName()).get(0);
+    }
+
+    /**
+     * The top binary expression of the assignment to 'b'.
+     */
+    private static JmmNode getSum(JmmSemanticsResult semantics) {
+        return getExprs(semantics.getRootNode()).stream()
+                .filter(expr -> BINARY_EXPR.check(expr) && expr.get("op").equals("+"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Map<JmmNode, Type> typeAll(TypeUtils types, JmmNode root) {
+        var typed = new IdentityHashMap<JmmNode, Type>();
+        for (var expr : getExprs(root)) {
+            typed.put(expr, types.getExprType(expr, METHOD));
+        }
+        return typed;
+    }
+
+    @Test
+    public void typesAreComputedOnce() {
+        var semantics = analyse();
+        var table = (JmmSymbolTable) semantics.getSymbolTable();
+        var exprTypes = table.getExprTypes();
+        var types = new TypeUtils(table);
+
+        exprTypes.clear();
+        var sum = getSum(semantics);
+        var typed = typeAll(types, sum);
+        assertEquals(getExprs(sum).size(), exprTypes.size());
+
+        // Asking again reuses the same instances, nothing is computed again
+        for (var expr : getExprs(sum)) {
+            assertSame(typed.get(expr), types.getExprType(expr, METHOD));
+        }
+        assertEquals(getExprs(sum).size(), exprTypes.size());
+
+        // Only for the method the type was computed in
+        assertNull(exprTypes.get(sum, "bar"));
+    }
+
+    @Test
+    public void invalidateDropsSubtreeAndAncestors() {
+        var semantics = analyse();
+        var table = (JmmSymbolTable) semantics.getSymbolTable();
+        var exprTypes = table.getExprTypes();
+        var method = getMethod(semantics);
+        typeAll(new TypeUtils(table), method);
+
+        // 20 - a, below (20 - a) * x, below the sum
+        var difference = getExprs(method).stream()
+                .filter(expr -> BINARY_EXPR.check(expr) && expr.get("op").equals("-"))
+                .findFirst()
+                .orElseThrow();
+        var product = difference.getParent().getParent();
+        var sum = getSum(semantics);
+        var x = product.getChild(1);
+
+        exprTypes.invalidate(difference);
+
+        for (var expr : getExprs(difference)) {
+            assertNull(expr.toString(), exprTypes.get(expr, METHOD));
+        }
+        for (var ancestor = difference.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            assertNull(ancestor.toString(), exprTypes.get(ancestor, METHOD));
+        }
+        assertNull(exprTypes.get(sum, METHOD));
+
+        // Neither below nor above the node
+        assertNotNull(exprTypes.get(x, METHOD));
+    }
+
+    @Test
+    public void typesAfterRewritesMatchFreshAnalysis() {
+        var semantics = analyse();
+        var table = (JmmSymbolTable) semantics.getSymbolTable();
+        var method = getMethod(semantics);
+        var types = new TypeUtils(table);
+        typeAll(types, method);
+
+        // Propagation replaces 'a' with 5 and folds 20 - 5, invalidating what it replaces
+        assertTrue(new ConstantPropagation(method, table, Diagnostics.none()).apply());
+        assertTrue(getExprs(method).stream()
+                .anyMatch(expr -> INTEGER_LITERAL.check(expr) && expr.get("value").equals("15")));
+
+        var memoized = typeAll(types, method);
+
+        table.getExprTypes().clear();
+        var fresh = typeAll(types, method);
+
+        assertEquals(fresh.size(), memoized.size());
+        for (var expr : fresh.keySet()) {
+            assertEquals(expr.toString(), fresh.get(expr), memoized.get(expr));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.analysis.AnalysisVisitor;
+import pt.up.fe.comp2025.analysis.FusedAnalysis;
+import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2025.analysis.passes.*;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Several analysis passes in a single traversal must behave as if each pass traversed the AST on its own, see
+ * {@link FusedAnalysis}.
+ */
+public class FusedAnalysisTest {
+
+    /**
+     * Records the nodes it visits, and throws at the given visit if asked to.
+     */
+    private static class RecordingPass extends AnalysisVisitor {
+
+        private final int failAt;
+        final List<String> visited = new ArrayList<>();
+
+        RecordingPass(int failAt) {
+            this.failAt = failAt;
+        }
+
+        @Override
+        public void buildVisitor() {
+            addVisit(Kind.METHOD_DECL, this::record);
+            addVisit(Kind.VAR_REF_EXPR, this::record);
+            addVisit(Kind.BINARY_EXPR, this::record);
+        }
+
+        private Void record(JmmNode node, SymbolTable table) {
+            if (visited.size() == failAt) {
+                throw new IllegalStateException("Failed on purpose");
+            }
+            visited.add(node.getKind() + "@" + node.getLine() + ":" + node.getColumn());
+            return null;
+        }
+    }
+
+    private static List<AnalysisVisitor> buildPasses() {
+        return List.of(new DuplicateCheck(), new UndeclaredVariable(), new VariableDeclarationOrderCheck(),
+                new VoidTypeVariableCheck(), new BinaryOperationCheck(), new ArrayArithmeticCheck(),
+                new ArrayAccessCombinedCheck(), new MethodVerificationVisitor(), new AssignmentTypeCheck(),
+                new ConditionCheck(), new ArrayInitializerUsageCheck(), new VarargsCheck(),
+                new StaticMethodFieldAccessCheck(), new ReturnTypeCheck());
+    }
+
+    private static JmmSemanticsResult buildSymbolTable(String code) {
+        var parserResult = TestUtils.parse(code);
+        if (parserResult.getRootNode() == null) {
+            return null;
+        }
+
+        return new JmmAnalysisImpl().buildSymbolTable(parserResult);
+    }
+
+    @Test
+    public void sameReportsAsSeparateTraversals() {
+        for (var input : TestCorpus.getSemanticAnalysisFiles()) {
+            var semantics = buildSymbolTable(SpecsIo.read(input));
+            if (semantics == null) {
+                continue;
+            }
+
+            var root = semantics.getRootNode();
+            var table = semantics.getSymbolTable();
+
+            var fused = new FusedAnalysis(buildPasses(), table).analyze(root);
+            var separate = buildPasses();
+
+            assertEquals(separate.size(), fused.size());
+            for (int i = 0; i < separate.size(); i++) {
+                var message = input.getName() + ", " + separate.get(i).getClass().getSimpleName();
+
+                RuntimeException failure = null;
+                List<?> reports;
+                try {
+                    reports = separate.get(i).analyze(root, table);
+                } catch (RuntimeException e) {
+                    failure = e;
+                    reports = List.of();
+                }
+
+                assertEquals(message, failure == null, fused.get(i).getFailure() == null);
+                if (failure == null) {
+                    assertEquals(message, reports.toString(), fused.get(i).getReports().toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void passesSeeThePreorder() {
+        var semantics = buildSymbolTable(new ProgramGenerator(4).methods(5).generate());
+        var root = semantics.getRootNode();
+        var table = semantics.getSymbolTable();
+
+        var alone = new RecordingPass(-1);
+        alone.analyze(root, table);
+
+        var first = new RecordingPass(-1);
+        var second = new RecordingPass(-1);
+        new FusedAnalysis(List.of(first, second), table).analyze(root);
+
+        assertFalse(alone.visited.isEmpty());
+        assertEquals(alone.visited, first.visited);
+        assertEquals(alone.visited, second.visited);
+    }
+
+    @Test
+    public void failingPassStopsAlone() {
+        var semantics = buildSymbolTable(new ProgramGenerator(4).methods(5).generate());
+        var root = semantics.getRootNode();
+        var table = semantics.getSymbolTable();
+
+        var failing = new RecordingPass(3);
+        var other = new RecordingPass(-1);
+        var results = new FusedAnalysis(List.of(failing, other), table).analyze(root);
+
+        assertEquals("Failed on purpose", results.get(0).getFailure().getMessage());
+        assertFalse(results.get(0).hasErrors());
+        assertEquals(3, failing.visited.size());
+
+        assertNull(results.get(1).getFailure());
+        var alone = new RecordingPass(-1);
+        alone.analyze(root, table);
+        assertEquals(alone.visited, other.visited);
+    }
+
+    @Test
+    public void skippedSubtreesAreNotVisited() {
+        var semantics = buildSymbolTable(new ProgramGenerator(4).methods(5).generate());
+        var root = semantics.getRootNode();
+
+        var pass = new RecordingPass(-1);
+        var results = new FusedAnalysis(List.of(pass), semantics.getSymbolTable())
+                .analyze(List.of(root), Kind.METHOD_DECL::check);
+
+        assertTrue(pass.visited.toString(), pass.visited.isEmpty());
+        assertFalse(results.get(0).isSkipped());
+        assertEquals(0, results.get(0).getWallNanos());
+    }
+}
@@ -0,0 +1,92 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp2025.ConfigOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compiles programs from {@link ProgramGenerator}, to check that the whole compiler copes with inputs of every shape
+ * and to see how the stages grow with the size of the input.
+ */
+public class GeneratedProgramsTest {
+
+    private static Map<String, String> getConfig(boolean optimize, int registers) {
+        Map<String, String> config = new HashMap<>();
+        config.put(ConfigOptions.getOptimize(), String.valueOf(optimize));
+        config.put(ConfigOptions.getRegister(), String.valueOf(registers));
+        return config;
+    }
+
+    private static JasminResult compile(ProgramGenerator generator, Map<String, String> config) {
+        var result = TestUtils.backend(generator.generate(), config);
+        TestUtils.noErrors(result);
+        return result;
+    }
+
+    /**
+     * Only for programs with few methods, methods call the ones before them so running time grows quickly.
+     */
+    private static void compileAndRun(ProgramGenerator generator, Map<String, String> config) {
+        compile(generator, config).run();
+    }
+
+    @Test
+    public void sameSeedSameProgram() {
+        assertEquals(new ProgramGenerator(7).generate(), new ProgramGenerator(7).generate());
+    }
+
+    @Test
+    public void defaultShape() {
+        for (long seed = 0; seed < 5; seed++) {
+            compile(new ProgramGenerator(seed), getConfig(false, -1));
+        }
+    }
+
+    @Test
+    public void deepNesting() {
+        compileAndRun(new ProgramGenerator(1).methods(3).nestingDepth(5), getConfig(false, -1));
+    }
+
+    @Test
+    public void deepExpressions() {
+        compile(new ProgramGenerator(2).methods(3).expressionDepth(6), getConfig(false, -1));
+    }
+
+    @Test
+    public void manyLocals() {
+        compileAndRun(new ProgramGenerator(3).methods(3).locals(40), getConfig(false, -1));
+    }
+
+    @Test
+    public void arrayHeavy() {
+        compileAndRun(new ProgramGenerator(4).methods(3).arrayHeavy(true), getConfig(false, -1));
+    }
+
+    @Test
+    public void optimized() {
+        compileAndRun(new ProgramGenerator(5).methods(3), getConfig(true, 0));
+    }
+
+    @Test
+    public void tightRegisters() {
+        // Generated classes have no main, running them only loads and verifies them
+        var output = compile(new ProgramGenerator(3).methods(3).locals(40), getConfig(false, 1)).run();
+        assertFalse(output, output.contains("VerifyError"));
+    }
+
+    @Test
+    public void targetLines() {
+        var generator = new ProgramGenerator(6).lines(1000);
+        var lines = generator.generate().lines().count();
+        assertTrue("Expected about 1000 lines, got " + lines, lines >= 1000 && lines < 1200);
+
+        compile(generator, getConfig(false, -1));
+    }
+}
@@ -0,0 +1,91 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.ast.CompactNode;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.KindDispatch;
+import pt.up.fe.comp2025.ast.KindNode;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Visits dispatched on {@link Kind} must find the same method as the lookup by the hierarchy of the node.
+ */
+public class KindDispatchTest {
+
+    @Test
+    public void kindsMatchHierarchies() {
+        var inputs = TestCorpus.getSemanticAnalysisFiles();
+
+        for (var compactAst : List.of(false, true)) {
+            var config = TestCorpus.getConfig(ConfigOptions.getCompactAst(), compactAst);
+
+            for (var input : inputs) {
+                var root = TestUtils.parse(SpecsIo.read(input), config).getRootNode();
+                if (root == null) {
+                    continue;
+                }
+
+                root.getDescendantsAndSelfStream().forEach(node -> {
+                    // The kind is resolved when the node is created
+                    assertTrue(node instanceof KindNode || node instanceof CompactNode);
+
+                    var kind = Kind.of(node);
+                    assertNotNull(node.getKind(), kind);
+                    assertEquals(kind.getHierarchy(), node.getHierarchy());
+                    // Same instance, see KindNode
+                    assertSame(kind.getNodeName(), node.getKind());
+                });
+            }
+        }
+    }
+
+    @Test
+    public void dispatchFollowsParents() {
+        var dispatch = new KindDispatch<Void, String>();
+        dispatch.setDefault((node, data) -> "default");
+        dispatch.put(Kind.EXPR.getNodeName(), (node, data) -> "expr");
+        dispatch.put(Kind.BINARY_EXPR.getNodeName(), (node, data) -> "binary");
+
+        assertEquals("binary", visit(dispatch, new JmmNodeImpl(Kind.BINARY_EXPR.getHierarchy())));
+        assertEquals("expr", visit(dispatch, new JmmNodeImpl(Kind.INTEGER_LITERAL.getHierarchy())));
+        assertEquals("default", visit(dispatch, new JmmNodeImpl(Kind.RETURN_STMT.getHierarchy())));
+
+        // Left to the lookup by hierarchy
+        assertNull(dispatch.get(new JmmNodeImpl(List.of("Unknown", "Expr"))));
+    }
+
+    @Test
+    public void registeredExcludesDefault() {
+        var dispatch = new KindDispatch<Void, String>();
+        dispatch.setDefault((node, data) -> "default");
+        dispatch.put(Kind.EXPR.getNodeName(), (node, data) -> "expr");
+        dispatch.put("Unknown", (node, data) -> "unknown");
+
+        assertEquals("expr", visit(dispatch.getRegistered(new JmmNodeImpl(Kind.BINARY_EXPR.getHierarchy()))));
+        assertNull(dispatch.getRegistered(new JmmNodeImpl(Kind.RETURN_STMT.getHierarchy())));
+
+        // Kinds outside the enum are found too
+        assertEquals("unknown", visit(dispatch.getRegistered(new JmmNodeImpl(List.of("Unknown", "Expr")))));
+        assertEquals("expr", visit(dispatch.getRegistered(new JmmNodeImpl(List.of("Other", "Expr")))));
+    }
+
+    private static String visit(BiFunction<JmmNode, Void, String> visit) {
+        return visit.apply(null, null);
+    }
+
+    private static String visit(KindDispatch<Void, String> dispatch, JmmNode node) {
+        return dispatch.get(node).apply(node, null);
+    }
+}
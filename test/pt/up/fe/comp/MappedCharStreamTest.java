@@ -0,0 +1,113 @@
+package pt.up.fe.comp;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.comp2025.parser.MappedCharStream;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Parsing a source file straight from its bytes, see {@link MappedCharStream}, must give what parsing its code does.
+ */
+public class MappedCharStreamTest {
+
+    private static final String CODE = SpecsIo.getResource("pt/up/fe/comp/cp2/ollir/arithmetic/Arithmetic_add.jmm");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Map<String, String> getConfig(boolean compactAst) {
+        return TestCorpus.getConfig(ConfigOptions.getCompactAst(), compactAst);
+    }
+
+    private static void assertSameParse(String name, File file, boolean compactAst) {
+        var code = SpecsIo.read(file);
+        var fromFile = new JmmParserImpl().parse(file, getConfig(compactAst));
+        var fromCode = TestUtils.parse(code, getConfig(compactAst));
+
+        assertEquals(name, fromCode.getReports().toString(), fromFile.getReports().toString());
+        assertEquals(name, toTree(fromCode), toTree(fromFile));
+    }
+
+    private static String toTree(JmmParserResult result) {
+        return result.getRootNode() == null ? null : result.getRootNode().toTree();
+    }
+
+    private File write(String name, String code) throws IOException {
+        var file = folder.newFile(name);
+        Files.writeString(file.toPath(), code, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    public void sameAsParsingTheCode() {
+        var inputs = TestCorpus.getSemanticAnalysisFiles();
+
+        for (var compactAst : new boolean[]{false, true}) {
+            for (var input : inputs) {
+                assertSameParse(input.getName(), input, compactAst);
+            }
+        }
+    }
+
+    @Test
+    public void nonAsciiFallsBackToDecoding() throws IOException {
+        var file = write("Accents.jmm", "// Comentário com acentuação\n" + CODE);
+
+        assertTrue(MappedCharStream.open(file) instanceof ANTLRInputStream);
+        assertSameParse(file.getName(), file, false);
+    }
+
+    @Test
+    public void largeFilesAreMappedAndReleased() throws IOException {
+        // Padded with a comment past the size from which files are mapped
+        var padding = "// " + "x".repeat(1000) + "\n";
+        var file = write("Large.jmm", padding.repeat(MappedCharStream.MIN_MAPPED_SIZE / padding.length() + 1) + CODE);
+
+        assertSameParse(file.getName(), file, false);
+        assertSameParse(file.getName(), file, true);
+
+        var stream = (MappedCharStream) MappedCharStream.open(file);
+        assertEquals(file.length(), stream.size());
+        assertEquals('/', stream.LA(1));
+
+        stream.close();
+        try {
+            stream.LA(1);
+            fail("Expected the stream to be closed");
+        } catch (IllegalStateException e) {
+            assertNotNull(e.getMessage());
+        }
+
+        // Nothing holds the file anymore
+        assertTrue(file.delete());
+    }
+
+    @Test
+    public void smallFilesAreRead() throws IOException {
+        var file = write("Small.jmm", CODE);
+
+        var stream = MappedCharStream.open(file);
+        assertTrue(stream instanceof MappedCharStream);
+        assertEquals(CODE.length(), stream.size());
+
+        // Nothing to release, closing does not prevent reading the file again
+        ((MappedCharStream) stream).close();
+        assertSameParse(file.getName(), file, false);
+    }
+}
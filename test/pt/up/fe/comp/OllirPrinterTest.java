@@ -0,0 +1,85 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.optimization.OllirPrinter;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Printing a class unit back to OLLIR code, see {@link OllirPrinter}.
+ */
+public class OllirPrinterTest {
+
+    private static final String JASMIN = "test/pt/up/fe/comp/cp3/jasmin/";
+
+    /**
+     * The Jasmin code, with the numbers the backend appends to the labels it creates left out.
+     */
+    private static String getJasminCode(OllirResult ollirResult) {
+        return TestUtils.backend(ollirResult).getJasminCode().replaceAll("_\\d{6,}", "_");
+    }
+
+    @Test
+    public void printedCodeParsesToTheSameClass() {
+        var inputs = SpecsIo.getFilesRecursive(new File(JASMIN), "ollir");
+        assertTrue(inputs.size() > 0);
+
+        for (var input : inputs) {
+            var original = new OllirResult(SpecsIo.read(input), Collections.emptyMap());
+            var printed = OllirPrinter.print(original.getOllirClass());
+            var reparsed = new OllirResult(printed, Collections.emptyMap());
+
+            // Printing again gives the same code, and both generate the same bytecode
+            assertEquals(input.getName(), printed, OllirPrinter.print(reparsed.getOllirClass()));
+            assertEquals(input.getName(), getJasminCode(original), getJasminCode(reparsed));
+        }
+    }
+
+    @Test
+    public void printsEveryKindOfInstruction() {
+        var code = """
+                import io;
+                Kinds extends Object {
+                    .field private count.i32 := 3;
+                    .construct Kinds().V {
+                        invokespecial(this, "<init>").V;
+                    }
+                    .method public varargs sum(values.array.i32).i32 {
+                        n.i32 :=.i32 arraylength(values.array.i32).i32;
+                        first.i32 :=.i32 values[0.i32].i32;
+                        values[1.i32].i32 :=.i32 first.i32 *.i32 -2.i32;
+                        flag.bool :=.bool !.bool 0.bool;
+                        if (n.i32 <.bool 2.i32) goto small;
+                        c.i32 :=.i32 getfield(this, count.i32).i32;
+                        putfield(this, count.i32, c.i32).V;
+                        k.Kinds :=.Kinds new(Kinds).Kinds;
+                        invokespecial(k.Kinds, "<init>").V;
+                        s.String :=.String ldc("text").String;
+                        invokevirtual(k.Kinds, "sum", values.array.i32).i32;
+                        goto done;
+                    small:
+                        invokestatic(io, "println", first.i32).V;
+                    done:
+                        ret.i32 n.i32;
+                    }
+                }
+                """;
+
+        var printed = OllirPrinter.print(new OllirResult(code, Collections.emptyMap()).getOllirClass());
+
+        assertEquals(printed, OllirPrinter.print(new OllirResult(printed, Collections.emptyMap()).getOllirClass()));
+        assertTrue(printed, printed.contains(".field private count.i32 := 3;"));
+        assertTrue(printed, printed.contains(".method public varargs sum(values.array.i32).i32 {"));
+        assertTrue(printed, printed.contains("values[1.i32].i32 :=.i32 first.i32 *.i32 -2.i32;"));
+        assertTrue(printed, printed.contains("if (n.i32 <.bool 2.i32) goto small;"));
+        assertTrue(printed, printed.contains("putfield(this.Kinds, count.i32, c.i32).V;"));
+        assertTrue(printed, printed.contains("s.String :=.String ldc(\"text\").String;"));
+        assertTrue(printed, printed.contains("small:\n"));
+    }
+}
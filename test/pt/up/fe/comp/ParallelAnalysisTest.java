@@ -0,0 +1,61 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static pt.up.fe.comp.TestCorpus.SEMANTIC_ANALYSIS;
+
+/**
+ * Semantic analysis must report the same problems whether methods are analysed in parallel or not.
+ */
+public class ParallelAnalysisTest {
+
+    private static Map<String, String> getConfig(boolean parallelMethods) {
+        return TestCorpus.getConfig(ConfigOptions.getParallelMethods(), parallelMethods);
+    }
+
+    private static List<String> analyse(String code, boolean parallelMethods) {
+        return TestUtils.analyse(code, getConfig(parallelMethods)).getReports().stream()
+                .map(report -> report.getType() + " " + report.getLine() + ":" + report.getColumn() + " "
+                        + report.getMessage())
+                .sorted()
+                .toList();
+    }
+
+    @Test
+    public void sameReportsAsSequential() {
+        for (var input : TestCorpus.getSemanticAnalysisFiles()) {
+            var code = SpecsIo.read(input);
+            assertEquals(input.getName(), analyse(code, false), analyse(code, true));
+        }
+    }
+
+    @Test
+    public void manyMethods() {
+        var code = new ProgramGenerator(3).methods(200).generate();
+
+        var reports = analyse(code, true);
+        assertEquals(analyse(code, false), reports);
+        assertEquals(0, reports.size());
+    }
+
+    @Test
+    public void reportsSortedByPosition() {
+        var code = SpecsIo.getResource(SEMANTIC_ANALYSIS + "VarNotDeclared.jmm");
+
+        var reports = TestUtils.analyse(code, getConfig(true)).getReports();
+        TestUtils.mustFail(reports);
+
+        var sorted = reports.stream()
+                .sorted(Comparator.comparingInt(Report::getLine).thenComparingInt(Report::getColumn))
+                .toList();
+        assertEquals(sorted, reports);
+    }
+}
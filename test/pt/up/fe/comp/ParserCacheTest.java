@@ -0,0 +1,40 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp2025.parser.JavammParserFactory;
+import pt.up.fe.specs.util.SpecsIo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Prediction caches shared by the parsers, see {@link JavammParserFactory}.
+ */
+public class ParserCacheTest {
+
+    @Test
+    public void warmUpFillsCaches() {
+        JavammParserFactory.clear();
+        assertEquals(0, JavammParserFactory.getCachedStates());
+
+        JavammParserFactory.warmUp();
+        var warmStates = JavammParserFactory.getCachedStates();
+        assertTrue(warmStates > 0);
+
+        JavammParserFactory.clear();
+        assertEquals(0, JavammParserFactory.getCachedStates());
+    }
+
+    @Test
+    public void sameAstWarmAndCold() {
+        var code = SpecsIo.getResource("pt/up/fe/comp/cp2/ollir/arithmetic/Arithmetic_add.jmm");
+
+        JavammParserFactory.clear();
+        var cold = TestUtils.parse(code).getRootNode().toTree();
+
+        JavammParserFactory.warmUp();
+        var warm = TestUtils.parse(code).getRootNode().toTree();
+
+        assertEquals(cold, warm);
+    }
+}
@@ -0,0 +1,210 @@
+package pt.up.fe.comp;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.analysis.AnalysisPass;
+import pt.up.fe.comp2025.analysis.AnalysisVisitor;
+import pt.up.fe.comp2025.analysis.FusedAnalysis.PassResult;
+import pt.up.fe.comp2025.analysis.PassScheduler;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Analysis passes run by levels of their dependencies, see {@link PassScheduler}.
+ */
+public class PassSchedulerTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private static final JmmSemanticsResult SEMANTICS = TestUtils.analyse(
+            SpecsIo.getResource("pt/up/fe/comp/cp2/ollir/arithmetic/Arithmetic_add.jmm"));
+
+    // Ticks at every visit of every pass, to tell which visits came first
+    private static final AtomicInteger CLOCK = new AtomicInteger();
+
+    @AfterClass
+    public static void shutdown() {
+        POOL.shutdown();
+    }
+
+    /**
+     * Records when it visited the first and last method, and reports an error on each method if asked to.
+     */
+    private abstract static class RecordingPass extends AnalysisVisitor {
+
+        private final boolean fails;
+        int first = -1;
+        int last = -1;
+
+        RecordingPass(boolean fails) {
+            this.fails = fails;
+        }
+
+        @Override
+        public void buildVisitor() {
+            addVisit(Kind.METHOD_DECL, this::visitMethodDecl);
+        }
+
+        private Void visitMethodDecl(JmmNode method, SymbolTable table) {
+            last = CLOCK.incrementAndGet();
+            if (first < 0) {
+                first = last;
+            }
+            if (fails) {
+                addReport(newError(method, "Failed on purpose"));
+            }
+            return null;
+        }
+
+        boolean hasRun() {
+            return first >= 0;
+        }
+    }
+
+    private static class First extends RecordingPass {
+        First(boolean fails) {
+            super(fails);
+        }
+    }
+
+    private static class Throwing extends AnalysisVisitor {
+        @Override
+        public void buildVisitor() {
+            addVisit(Kind.METHOD_DECL, (method, table) -> {
+                throw new RuntimeException("Thrown on purpose");
+            });
+        }
+    }
+
+    private static class Second extends RecordingPass {
+        Second(boolean fails) {
+            super(fails);
+        }
+    }
+
+    private static class AfterFirst extends RecordingPass {
+        AfterFirst() {
+            super(false);
+        }
+
+        @Override
+        public List<Class<? extends AnalysisPass>> getDependencies() {
+            return List.of(First.class);
+        }
+    }
+
+    private static class AfterBoth extends RecordingPass {
+        AfterBoth() {
+            super(false);
+        }
+
+        @Override
+        public List<Class<? extends AnalysisPass>> getDependencies() {
+            return List.of(AfterFirst.class, Second.class);
+        }
+    }
+
+    private static class AfterThrowing extends RecordingPass {
+        AfterThrowing() {
+            super(false);
+        }
+
+        @Override
+        public List<Class<? extends AnalysisPass>> getDependencies() {
+            return List.of(Throwing.class);
+        }
+    }
+
+    private static List<PassResult> run(List<AnalysisVisitor> passes) {
+        var results = new PassScheduler(POOL).run(passes, SEMANTICS.getRootNode(), SEMANTICS.getSymbolTable());
+
+        assertEquals(passes.size(), results.size());
+        for (int i = 0; i < passes.size(); i++) {
+            assertSame(passes.get(i), results.get(i).getPass());
+        }
+
+        return results;
+    }
+
+    @Test
+    public void dependentsRunAfterTheirDependencies() {
+        var first = new First(false);
+        var second = new Second(false);
+        var afterFirst = new AfterFirst();
+        var afterBoth = new AfterBoth();
+
+        run(List.of(first, afterFirst, second, afterBoth));
+
+        assertTrue(afterFirst.first > first.last);
+        assertTrue(afterFirst.first > second.last);
+        assertTrue(afterBoth.first > afterFirst.last);
+    }
+
+    @Test
+    public void resultsInPassOrder() {
+        // More passes per level than threads, so the passes of a level are split among threads in turns
+        var passes = List.<AnalysisVisitor>of(new Second(false), new First(true), new Second(false), new Second(true),
+                new Second(false), new Second(false));
+
+        var results = run(passes);
+
+        for (int i = 0; i < passes.size(); i++) {
+            assertEquals(i == 1 || i == 3, results.get(i).hasErrors());
+        }
+    }
+
+    @Test
+    public void skipsPassesWhoseDependenciesFailed() {
+        var first = new First(true);
+        var second = new Second(false);
+        var afterFirst = new AfterFirst();
+        var afterBoth = new AfterBoth();
+
+        var results = run(List.of(first, second, afterFirst, afterBoth));
+
+        assertTrue(results.get(0).hasErrors());
+        assertFalse(results.get(1).isSkipped());
+        assertTrue(second.hasRun());
+
+        // Skipped in turn, its dependency did not run either
+        assertTrue(results.get(2).isSkipped());
+        assertTrue(results.get(3).isSkipped());
+        assertFalse(afterFirst.hasRun());
+        assertFalse(afterBoth.hasRun());
+    }
+
+    @Test
+    public void dependentsOfAThrowingPassStillRun() {
+        var afterThrowing = new AfterThrowing();
+
+        var results = run(List.of(new Throwing(), afterThrowing));
+
+        assertNotNull(results.get(0).getFailure());
+        assertFalse(results.get(1).isSkipped());
+        assertTrue(afterThrowing.hasRun());
+    }
+
+    @Test
+    public void dependencyMustComeFirst() {
+        try {
+            run(List.of(new AfterFirst(), new First(false)));
+            fail("Expected the dependency to be out of order");
+        } catch (RuntimeException e) {
+            assertEquals("Analysis pass 'AfterFirst' depends on 'First', which must come before it", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package pt.up.fe.comp;
+
+import java.util.Random;
+
+/**
+ * Generates valid Java-- programs of any size, for scaling tests and benchmarks.
+ * <p>
+ * Programs are a single class with int methods that only use their parameters, their locals and calls to methods
+ * generated before them. Every loop runs a fixed number of times and every array index is a constant within the
+ * bounds of the array, so the programs also terminate when executed. The same seed always produces the same program.
+ */
+public class ProgramGenerator {
+
+    private static final String CLASS_NAME = "Generated";
+    private static final int ARRAY_LENGTH = 16;
+    private static final int LOOP_ITERATIONS = 3;
+    private static final int MAX_LITERAL = 100;
+
+    private final long seed;
+
+    private int methods = 10;
+    private int lines = 0;
+    private int statementsPerMethod = 20;
+    private int locals = 4;
+    private int nestingDepth = 2;
+    private int expressionDepth = 2;
+    private boolean arrayHeavy = false;
+
+    private Random random;
+    private StringBuilder code;
+    private int indentation;
+    private int lineCount;
+    private int currentMethod;
+
+    public ProgramGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public ProgramGenerator methods(int methods) {
+        this.methods = methods;
+        this.lines = 0;
+        return this;
+    }
+
+    /**
+     * Instead of a fixed number of methods, adds methods until the program has at least the given number of lines.
+     */
+    public ProgramGenerator lines(int lines) {
+        this.lines = lines;
+        return this;
+    }
+
+    /**
+     * Top-level statements of each method, each 'while' and 'if' adds statements of its own.
+     */
+    public ProgramGenerator statementsPerMethod(int statementsPerMethod) {
+        this.statementsPerMethod = statementsPerMethod;
+        return this;
+    }
+
+    /**
+     * Number of int locals of each method, there is always also one boolean and one int array.
+     */
+    public ProgramGenerator locals(int locals) {
+        this.locals = Math.max(1, locals);
+        return this;
+    }
+
+    /**
+     * Maximum nesting of 'while' and 'if' statements.
+     */
+    public ProgramGenerator nestingDepth(int nestingDepth) {
+        this.nestingDepth = nestingDepth;
+        return this;
+    }
+
+    /**
+     * Maximum depth of the operator trees in expressions.
+     */
+    public ProgramGenerator expressionDepth(int expressionDepth) {
+        this.expressionDepth = expressionDepth;
+        return this;
+    }
+
+    /**
+     * Favours array accesses and array assignments over plain int locals.
+     */
+    public ProgramGenerator arrayHeavy(boolean arrayHeavy) {
+        this.arrayHeavy = arrayHeavy;
+        return this;
+    }
+
+    public String generate() {
+        random = new Random(seed);
+        code = new StringBuilder();
+        indentation = 0;
+        lineCount = 0;
+
+        line("class " + CLASS_NAME + " {");
+        indentation++;
+
+        for (currentMethod = 0; lines > 0 ? lineCount < lines : currentMethod < methods; currentMethod++) {
+            line("");
+            method();
+        }
+
+        line("");
+        main();
+
+        indentation--;
+        line("}");
+
+        return code.toString();
+    }
+
+    private void method() {
+        line("public int m" + currentMethod + "(int p, int[] q) {");
+        indentation++;
+
+        // Declarations
+        for (int i = 0; i < locals; i++) {
+            line("int v" + i + ";");
+        }
+        for (int depth = 0; depth < nestingDepth; depth++) {
+            line("int w" + depth + ";");
+        }
+        line("boolean b;");
+        line("int[] a;");
+
+        // Every local is defined before any statement reads it
+        for (int i = 0; i < locals; i++) {
+            line("v" + i + " = " + random.nextInt(MAX_LITERAL) + ";");
+        }
+        line("b = " + random.nextBoolean() + ";");
+        line("a = new int[" + ARRAY_LENGTH + "];");
+
+        for (int i = 0; i < statementsPerMethod; i++) {
+            statement(0);
+        }
+
+        line("return " + intExpr(expressionDepth) + ";");
+
+        indentation--;
+        line("}");
+    }
+
+    private void main() {
+        line("public static void main(String[] args) {");
+        indentation++;
+
+        line(CLASS_NAME + " g;");
+        line("int r;");
+        line("g = new " + CLASS_NAME + "();");
+        if (currentMethod > 0) {
+            line("r = g.m" + (currentMethod - 1) + "(1, new int[" + ARRAY_LENGTH + "]);");
+        }
+
+        indentation--;
+        line("}");
+    }
+
+    private void statement(int depth) {
+        var choice = random.nextInt(10);
+        var canNest = depth < nestingDepth;
+
+        if (canNest && choice == 0) {
+            whileStatement(depth);
+        } else if (canNest && choice == 1) {
+            ifStatement(depth);
+        } else if (choice < (arrayHeavy ? 7 : 3)) {
+            arrayStatement();
+        } else if (choice == 9) {
+            line("b = " + boolExpr(expressionDepth) + ";");
+        } else {
+            line(intLocal() + " = " + intExpr(expressionDepth) + ";");
+        }
+    }
+
+    /**
+     * Stores into array elements are not supported by the compiler, so arrays are only replaced as a whole.
+     */
+    private void arrayStatement() {
+        if (random.nextBoolean()) {
+            line("a = new int[" + ARRAY_LENGTH + "];");
+        } else {
+            line("a = q;");
+        }
+    }
+
+    private void whileStatement(int depth) {
+        // Each nesting level has its own counter, which the body never assigns
+        var counter = "w" + depth;
+
+        line(counter + " = 0;");
+        line("while (" + counter + " < " + LOOP_ITERATIONS + ") {");
+        indentation++;
+        block(depth + 1);
+        line(counter + " = " + counter + " + 1;");
+        indentation--;
+        line("}");
+    }
+
+    private void ifStatement(int depth) {
+        line("if (" + boolExpr(expressionDepth) + ") {");
+        indentation++;
+        block(depth + 1);
+        indentation--;
+        line("} else {");
+        indentation++;
+        block(depth + 1);
+        indentation--;
+        line("}");
+    }
+
+    private void block(int depth) {
+        var statements = 1 + random.nextInt(3);
+        for (int i = 0; i < statements; i++) {
+            statement(depth);
+        }
+    }
+
+    private String intExpr(int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            return intLeaf();
+        }
+
+        var choice = random.nextInt(8);
+
+        // Calls only go to methods generated before, so there is no recursion
+        if (choice == 0 && currentMethod > 0) {
+            return "this.m" + random.nextInt(currentMethod) + "(" + intExpr(depth - 1) + ", a)";
+        }
+
+        if (choice == 1) {
+            return "(" + intExpr(depth - 1) + ")";
+        }
+
+        var op = switch (random.nextInt(3)) {
+            case 0 -> " + ";
+            case 1 -> " - ";
+            default -> " * ";
+        };
+
+        return intExpr(depth - 1) + op + intExpr(depth - 1);
+    }
+
+    private String intLeaf() {
+        var choice = random.nextInt(arrayHeavy ? 4 : 8);
+
+        return switch (choice) {
+            case 0 -> "a[" + arrayIndex() + "]";
+            case 1 -> "q.length";
+            case 2 -> "p";
+            case 3 -> String.valueOf(random.nextInt(MAX_LITERAL));
+            default -> intLocal();
+        };
+    }
+
+    private String boolExpr(int depth) {
+        if (depth == 0) {
+            return random.nextBoolean() ? "b" : intLeaf() + " < " + intLeaf();
+        }
+
+        return switch (random.nextInt(4)) {
+            case 0 -> boolExpr(depth - 1) + " && " + boolExpr(depth - 1);
+            case 1 -> "!(" + boolExpr(depth - 1) + ")";
+            default -> intExpr(depth - 1) + " < " + intExpr(depth - 1);
+        };
+    }
+
+    private String intLocal() {
+        return "v" + random.nextInt(locals);
+    }
+
+    private String arrayIndex() {
+        return String.valueOf(random.nextInt(ARRAY_LENGTH));
+    }
+
+    private void line(String line) {
+        if (!line.isEmpty()) {
+            code.append("    ".repeat(indentation));
+        }
+
+        code.append(line).append("\n");
+        lineCount++;
+    }
+}
@@ -0,0 +1,558 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.JmmCompiler;
+import pt.up.fe.comp2025.RegisterAllocator;
+import pt.up.fe.comp2025.instrumentation.Diagnostics;
+import pt.up.fe.comp2025.instrumentation.Diagnostics.Level;
+import pt.up.fe.comp2025.optimization.InterferenceGraph;
+import pt.up.fe.comp2025.optimization.LoopDepth;
+import pt.up.fe.comp2025.optimization.RegisterAllocation;
+import pt.up.fe.comp2025.optimization.dataflow.LiveVariables;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Register allocation with '-r', by each of the allocators of '-l'.
+ */
+public class RegisterAllocationTest {
+
+    private static final String REGALLOC = "pt/up/fe/comp/cp2/optimizations/reg_alloc/regalloc.jmm";
+
+    private static Map<String, String> getConfig(int maxRegisters, RegisterAllocator allocator) {
+        Map<String, String> config = new HashMap<>();
+        config.put(ConfigOptions.getRegister(), Integer.toString(maxRegisters));
+        config.put(ConfigOptions.getRegisterAllocator(), allocator.getOption());
+        return config;
+    }
+
+    private static final String LOOP = """
+            import ioPlus;
+            Loop {
+                .construct Loop().V {
+                    invokespecial(this, "<init>").V;
+                }
+
+                .method public static main(args.array.String).V {
+                    i.i32 :=.i32 0.i32;
+                    s.i32 :=.i32 0.i32;
+                loop:
+                    s.i32 :=.i32 s.i32 +.i32 i.i32;
+                    i.i32 :=.i32 i.i32 +.i32 1.i32;
+                    if (i.i32 <.bool 3.i32) goto loop;
+                    invokestatic(ioPlus, "printResult", s.i32).V;
+                    ret.V;
+                }
+            }
+            """;
+
+    // The index of an array store is read, as is the array
+    private static final String ARRAYS = """
+            import ioPlus;
+            Arrays {
+                .construct Arrays().V {
+                    invokespecial(this, "<init>").V;
+                }
+
+                .method public static main(args.array.String).V {
+                    i.i32 :=.i32 1.i32;
+                    v.i32 :=.i32 5.i32;
+                    a.array.i32 :=.array.i32 new(array, 3.i32).array.i32;
+                    a[i.i32].i32 :=.i32 v.i32;
+                    x.i32 :=.i32 a[i.i32].i32;
+                    invokestatic(ioPlus, "printResult", x.i32).V;
+                    ret.V;
+                }
+            }
+            """;
+
+    // The loop starts at a copy of s, and i is incremented through a temporary
+    private static final String COPIES = """
+            import ioPlus;
+            Copies {
+                .construct Copies().V {
+                    invokespecial(this, "<init>").V;
+                }
+
+                .method public static main(args.array.String).V {
+                    i.i32 :=.i32 0.i32;
+                    s.i32 :=.i32 0.i32;
+                loop:
+                    t.i32 :=.i32 s.i32;
+                    s.i32 :=.i32 t.i32 +.i32 i.i32;
+                    tmp0.i32 :=.i32 i.i32 +.i32 1.i32;
+                    i.i32 :=.i32 tmp0.i32;
+                    if (i.i32 <.bool 3.i32) goto loop;
+                    invokestatic(ioPlus, "printResult", s.i32).V;
+                    ret.V;
+                }
+            }
+            """;
+
+    // a, b, i, k and s are live together in the loop, k is a constant
+    private static final String PRESSURE = """
+            import ioPlus;
+            Pressure {
+                .construct Pressure().V {
+                    invokespecial(this, "<init>").V;
+                }
+
+                .method public static main(args.array.String).V {
+                    i.i32 :=.i32 0.i32;
+                    s.i32 :=.i32 0.i32;
+                    a.i32 :=.i32 1.i32;
+                    b.i32 :=.i32 2.i32;
+                    k.i32 :=.i32 7.i32;
+                loop:
+                    a.i32 :=.i32 a.i32 +.i32 i.i32;
+                    b.i32 :=.i32 b.i32 +.i32 a.i32;
+                    s.i32 :=.i32 s.i32 +.i32 b.i32;
+                    s.i32 :=.i32 s.i32 +.i32 k.i32;
+                    i.i32 :=.i32 i.i32 +.i32 1.i32;
+                    if (i.i32 <.bool 5.i32) goto loop;
+                    x.i32 :=.i32 a.i32 +.i32 b.i32;
+                    x.i32 :=.i32 x.i32 +.i32 s.i32;
+                    invokestatic(ioPlus, "printResult", x.i32).V;
+                    ret.V;
+                }
+            }
+            """;
+
+    /**
+     * A method with more variables than {@link RegisterAllocation#LINEAR_SCAN_THRESHOLD}, a loop over a chain of
+     * temporaries that only live from one instruction to the next.
+     */
+    private static String getLargeMethod() {
+        return getLargeMethod(RegisterAllocation.LINEAR_SCAN_THRESHOLD + 44);
+    }
+
+    private static String getLargeMethod(int numTemps) {
+        var code = new StringBuilder("""
+                import ioPlus;
+                Large {
+                    .construct Large().V {
+                        invokespecial(this, "<init>").V;
+                    }
+
+                    .method public static main(args.array.String).V {
+                        i.i32 :=.i32 0.i32;
+                        s.i32 :=.i32 0.i32;
+                    loop:
+                        t0.i32 :=.i32 i.i32 +.i32 1.i32;
+                """);
+        for (int i = 1; i < numTemps; i++) {
+            code.append("t").append(i).append(".i32 :=.i32 t").append(i - 1).append(".i32 +.i32 1.i32;\n");
+        }
+        code.append("s.i32 :=.i32 s.i32 +.i32 t").append(numTemps - 1).append(".i32;\n");
+        code.append("""
+                        i.i32 :=.i32 i.i32 +.i32 1.i32;
+                        if (i.i32 <.bool 3.i32) goto loop;
+                        invokestatic(ioPlus, "printResult", s.i32).V;
+                        ret.V;
+                    }
+                }
+                """);
+
+        return code.toString();
+    }
+
+    @Test
+    public void linearScanSharesRegistersOfCopies() {
+        var optimized = CpUtils.getOllirResult(SpecsIo.getResource(REGALLOC), getConfig(1, RegisterAllocator.LINEAR_SCAN),
+                true);
+
+        var method = CpUtils.getMethod(optimized, "soManyRegisters");
+        assertEquals(3, CpUtils.countRegisters(method));
+
+        var varTable = method.getVarTable();
+        var aReg = varTable.get("a").getVirtualReg();
+        assertEquals(aReg, varTable.get("b").getVirtualReg());
+        assertEquals(aReg, varTable.get("c").getVirtualReg());
+        assertEquals(aReg, varTable.get("d").getVirtualReg());
+    }
+
+    @Test
+    public void largeMethodsUseLinearScan() {
+        var code = getLargeMethod();
+        var expected = TestUtils.backend(new OllirResult(code, Collections.emptyMap())).run();
+
+        var ollirResult = new OllirResult(code, Collections.emptyMap());
+        var output = new ByteArrayOutputStream();
+        var diagnostics = Diagnostics.of(EnumSet.of(Level.REGALLOC), new PrintStream(output, true));
+        new RegisterAllocation(ollirResult, 0, RegisterAllocator.AUTO, diagnostics).allocateRegisters();
+
+        assertTrue(output.toString().contains("with linear scan"));
+
+        // args, i, s and one register for the whole chain of temporaries
+        var method = CpUtils.getMethod(ollirResult, "main");
+        assertEquals(4, CpUtils.countRegisters(method));
+
+        assertEquals(expected, TestUtils.backend(ollirResult).run());
+    }
+
+    @Test
+    public void allocatorsAgreeOnBehaviour() {
+        var code = getLargeMethod();
+
+        var coloring = new OllirResult(code, getConfig(0, RegisterAllocator.COLORING));
+        new RegisterAllocation(coloring, 0, RegisterAllocator.COLORING, Diagnostics.none()).allocateRegisters();
+
+        var linearScan = new OllirResult(code, getConfig(0, RegisterAllocator.LINEAR_SCAN));
+        new RegisterAllocation(linearScan, 0, RegisterAllocator.LINEAR_SCAN, Diagnostics.none()).allocateRegisters();
+
+        assertEquals(CpUtils.countRegisters(CpUtils.getMethod(coloring, "main")),
+                CpUtils.countRegisters(CpUtils.getMethod(linearScan, "main")));
+        assertEquals(TestUtils.backend(coloring).run(), TestUtils.backend(linearScan).run());
+    }
+
+    @Test
+    public void livenessOfBlocks() {
+        var method = CpUtils.getMethod(new OllirResult(LOOP, Collections.emptyMap()), "main");
+        var liveness = LiveVariables.analyze(method);
+        var graph = liveness.getGraph();
+
+        // Before the loop, the loop, after the loop
+        assertEquals(3, graph.getExit());
+        assertEquals(2, graph.getFirst(1));
+        assertEquals(4, graph.getLast(1));
+
+        assertEquals(List.of(), liveness.toNames(liveness.getIn(0)));
+        assertEquals(List.of("i", "s"), liveness.toNames(liveness.getOut(0)));
+        assertEquals(List.of("i", "s"), liveness.toNames(liveness.getIn(1)));
+        assertEquals(List.of("s"), liveness.toNames(liveness.getIn(2)));
+
+        // In reverse postorder from the exit, the loop is solved twice and the other blocks once
+        assertEquals(graph.getNumBlocks() + 1, liveness.getTransferCount());
+    }
+
+    @Test
+    public void inPlaceLivenessMatchesSolver() {
+        for (var code : List.of(LOOP, ARRAYS, COPIES, PRESSURE, getLargeMethod())) {
+            var liveness = LiveVariables.analyze(CpUtils.getMethod(new OllirResult(code, Collections.emptyMap()), "main"));
+            var graph = liveness.getGraph();
+
+            var gens = new BitSet[graph.getNumBlocks()];
+            var kills = new BitSet[graph.getNumBlocks()];
+            for (int block = 0; block < graph.getNumBlocks(); block++) {
+                gens[block] = new BitSet();
+                kills[block] = new BitSet();
+                if (!graph.isInstructions(block)) {
+                    continue;
+                }
+
+                for (int i = graph.getLast(block); i >= graph.getFirst(block); i--) {
+                    var definition = liveness.getDefinition(i);
+                    if (definition >= 0) {
+                        gens[block].clear(definition);
+                        kills[block].set(definition);
+                    }
+                    for (var use : liveness.getUses(i)) {
+                        gens[block].set(use);
+                    }
+                }
+            }
+
+            var solver = LiveVariables.solve(graph, gens, kills, (from, to, live) -> live);
+            for (int block = 0; block < graph.getNumBlocks(); block++) {
+                assertEquals(solver.getIn(block), BitSet.valueOf(liveness.getIn(block)));
+                assertEquals(solver.getOut(block), BitSet.valueOf(liveness.getOut(block)));
+            }
+        }
+    }
+
+    @Test
+    public void arrayIndexesAreLive() {
+        var expected = TestUtils.backend(new OllirResult(ARRAYS, Collections.emptyMap())).run();
+
+        for (var allocator : List.of(RegisterAllocator.COLORING, RegisterAllocator.LINEAR_SCAN)) {
+            var ollirResult = new OllirResult(ARRAYS, Collections.emptyMap());
+            new RegisterAllocation(ollirResult, 0, allocator, Diagnostics.none()).allocateRegisters();
+
+            var varTable = CpUtils.getMethod(ollirResult, "main").getVarTable();
+            assertNotEquals(varTable.get("i").getVirtualReg(), varTable.get("v").getVirtualReg());
+            assertEquals(expected, TestUtils.backend(ollirResult).run());
+        }
+    }
+
+    @Test
+    public void interferenceQueries() {
+        var graph = new InterferenceGraph(List.of("a", "b", "c"));
+        graph.addEdge(2, 0);
+        graph.addEdge(0, 2);
+        graph.addEdge(1, 1);
+
+        assertTrue(graph.interferes(0, 2));
+        assertTrue(graph.interferes(2, 0));
+        assertFalse(graph.interferes(0, 1));
+        assertFalse(graph.interferes(1, 1));
+        assertEquals(1, graph.getDegree(0));
+        assertEquals(0, graph.getDegree(1));
+        assertEquals(2, graph.getNode("c"));
+    }
+
+    @Test
+    public void interferenceOfLiveVariables() {
+        var method = CpUtils.getMethod(new OllirResult(LOOP, Collections.emptyMap()), "main");
+        var graph = InterferenceGraph.build(LiveVariables.analyze(method), List.of("i", "s"));
+        assertTrue(graph.interferes(graph.getNode("i"), graph.getNode("s")));
+
+        // Each variable is copied into the next one, none of them are live together
+        var optimized = CpUtils.getOllirResult(SpecsIo.getResource(REGALLOC), Collections.emptyMap(), true);
+        method = CpUtils.getMethod(optimized, "soManyRegisters");
+        graph = InterferenceGraph.build(LiveVariables.analyze(method), List.of("a", "b", "c", "d"));
+        for (int node = 0; node < graph.getNumNodes(); node++) {
+            assertEquals(0, graph.getDegree(node));
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void coloringScalesToThousandsOfTemporaries() {
+        var code = getLargeMethod(2000);
+        var expected = TestUtils.backend(new OllirResult(code, Collections.emptyMap())).run();
+
+        var ollirResult = new OllirResult(code, Collections.emptyMap());
+        new RegisterAllocation(ollirResult, 4, RegisterAllocator.COLORING, Diagnostics.none()).allocateRegisters();
+
+        assertEquals(4, CpUtils.countRegisters(CpUtils.getMethod(ollirResult, "main")));
+        assertEquals(expected, TestUtils.backend(ollirResult).run());
+    }
+
+    @Test
+    public void copiesShareRegistersAndAreRemoved() {
+        var expected = TestUtils.backend(new OllirResult(COPIES, Collections.emptyMap())).run();
+
+        for (var allocator : List.of(RegisterAllocator.COLORING, RegisterAllocator.LINEAR_SCAN)) {
+            var ollirResult = new OllirResult(COPIES, Collections.emptyMap());
+            new RegisterAllocation(ollirResult, 2, allocator, Diagnostics.none()).allocateRegisters();
+
+            var method = CpUtils.getMethod(ollirResult, "main");
+            var varTable = method.getVarTable();
+            assertEquals(varTable.get("s").getVirtualReg(), varTable.get("t").getVirtualReg());
+            assertEquals(varTable.get("i").getVirtualReg(), varTable.get("tmp0").getVirtualReg());
+
+            // Both copies are gone, the loop now starts at the sum
+            assertEquals(7, method.getInstructions().size());
+            assertTrue(method.getLabels().get("loop").toString().contains("ADD"));
+
+            var jasminResult = TestUtils.backend(ollirResult);
+            assertTrue(jasminResult.getJasminCode().contains("iinc"));
+            assertEquals(expected, jasminResult.run());
+        }
+    }
+
+    @Test
+    public void spillsToFitAnyBudget() {
+        var expected = TestUtils.backend(new OllirResult(PRESSURE, Collections.emptyMap())).run();
+
+        for (var allocator : List.of(RegisterAllocator.COLORING, RegisterAllocator.LINEAR_SCAN)) {
+            for (int maxRegisters = 1; maxRegisters <= 5; maxRegisters++) {
+                var ollirResult = new OllirResult(PRESSURE, Collections.emptyMap());
+                new RegisterAllocation(ollirResult, maxRegisters, allocator, Diagnostics.none()).allocateRegisters();
+
+                // args is a parameter, it is not in the budget
+                var method = CpUtils.getMethod(ollirResult, "main");
+                assertTrue(allocator + " -r=" + maxRegisters, CpUtils.countRegisters(method) <= maxRegisters + 1);
+                assertEquals(allocator + " -r=" + maxRegisters, expected, TestUtils.backend(ollirResult).run());
+            }
+        }
+    }
+
+    // Three arrays are live at the same time, and arrays are not spilled
+    private static final String REFERENCES = """
+            import ioPlus;
+            References {
+                .construct References().V {
+                    invokespecial(this, "<init>").V;
+                }
+
+                .method public size(x.array.i32).i32 {
+                    s.i32 :=.i32 arraylength(x.array.i32).i32;
+                    ret.i32 s.i32;
+                }
+
+                .method public static main(args.array.String).V {
+                    a.array.i32 :=.array.i32 new(array, 1.i32).array.i32;
+                    b.array.i32 :=.array.i32 new(array, 2.i32).array.i32;
+                    c.array.i32 :=.array.i32 new(array, 3.i32).array.i32;
+                    o.References :=.References new(References).References;
+                    invokespecial(o.References, "<init>").V;
+                    a[0.i32].i32 :=.i32 4.i32;
+                    b[1.i32].i32 :=.i32 a[0.i32].i32;
+                    x.i32 :=.i32 arraylength(a.array.i32).i32;
+                    y.i32 :=.i32 invokevirtual(o.References, "size", b.array.i32).i32;
+                    z.i32 :=.i32 arraylength(c.array.i32).i32;
+                    w.i32 :=.i32 b[1.i32].i32;
+                    invokestatic(ioPlus, "printResult", x.i32).V;
+                    invokestatic(ioPlus, "printResult", y.i32).V;
+                    invokestatic(ioPlus, "printResult", z.i32).V;
+                    invokestatic(ioPlus, "printResult", w.i32).V;
+                    ret.V;
+                }
+            }
+            """;
+
+    @Test
+    public void referencesAreSpilled() {
+        var expected = TestUtils.backend(new OllirResult(REFERENCES, Collections.emptyMap())).run();
+
+        for (var allocator : List.of(RegisterAllocator.COLORING, RegisterAllocator.LINEAR_SCAN)) {
+            var ollirResult = new OllirResult(REFERENCES, getConfig(1, allocator));
+            var output = new ByteArrayOutputStream();
+            var diagnostics = Diagnostics.of(EnumSet.of(Level.REGALLOC), new PrintStream(output, true));
+            var errors = new RegisterAllocation(ollirResult, 1, allocator, diagnostics).allocateRegisters();
+
+            assertTrue(errors.toString(), errors.isEmpty());
+            assertTrue(output.toString().contains("Spilling o to references$1["));
+
+            // args and the array of references, which keeps the array of ints too
+            assertEquals(2, CpUtils.countRegisters(CpUtils.getMethod(ollirResult, "main")));
+            assertEquals(expected, TestUtils.backend(ollirResult).run());
+        }
+    }
+
+    @Test
+    public void spilledReferencesCompile() {
+        var code = """
+                class References {
+                    public int foo() {
+                        int[] a;
+                        int[] b;
+                        References c;
+                        a = new int[1];
+                        b = new int[2];
+                        c = new References();
+                        return a.length + b.length + c.bar(a);
+                    }
+
+                    public int bar(int[] x) {
+                        return x.length;
+                    }
+                }
+                """;
+        var result = new JmmCompiler().compile(code, getConfig(1, RegisterAllocator.COLORING));
+
+        assertTrue(result.getReports().toString(), result.isSuccess());
+        assertTrue(result.getOllirCode().orElseThrow().contains("references$1"));
+
+        // The class has no main, running it only loads and verifies it
+        var output = result.getJasminResult().orElseThrow().run();
+        assertFalse(output, output.contains("VerifyError"));
+    }
+
+    @Test
+    public void onlyAutoFallsBackToColoring() {
+        // Chosen with '-l', linear scan spills on its own
+        var expected = TestUtils.backend(new OllirResult(PRESSURE, Collections.emptyMap())).run();
+        var ollirResult = new OllirResult(PRESSURE, Collections.emptyMap());
+        var output = new ByteArrayOutputStream();
+        var diagnostics = Diagnostics.of(EnumSet.of(Level.REGALLOC), new PrintStream(output, true));
+        new RegisterAllocation(ollirResult, 2, RegisterAllocator.LINEAR_SCAN, diagnostics).allocateRegisters();
+
+        assertFalse(output.toString().contains("Falling back to graph coloring"));
+        assertFalse(output.toString().contains("=== Interference Graph ==="));
+        assertTrue(CpUtils.countRegisters(CpUtils.getMethod(ollirResult, "main")) <= 3);
+        assertEquals(expected, TestUtils.backend(ollirResult).run());
+
+        // Chosen by size, coloring takes over when the intervals do not fit
+        var large = new OllirResult(getLargeMethod(), Collections.emptyMap());
+        output.reset();
+        new RegisterAllocation(large, 2, RegisterAllocator.AUTO, diagnostics).allocateRegisters();
+
+        assertTrue(output.toString().contains("Falling back to graph coloring"));
+    }
+
+    @Test
+    public void constantsAreRematerializedFirst() {
+        var ollirResult = new OllirResult(PRESSURE, Collections.emptyMap());
+        var output = new ByteArrayOutputStream();
+        var diagnostics = Diagnostics.of(EnumSet.of(Level.REGALLOC), new PrintStream(output, true));
+        new RegisterAllocation(ollirResult, 4, RegisterAllocator.COLORING, diagnostics).allocateRegisters();
+
+        // Writing 7 where k is read frees a register for the others, nothing goes to memory
+        var varTable = CpUtils.getMethod(ollirResult, "main").getVarTable();
+        assertFalse(varTable.containsKey("k"));
+        assertTrue(varTable.keySet().stream().noneMatch(name -> name.startsWith("spills")));
+        assertTrue(output.toString().contains("Rematerializing k as 7"));
+    }
+
+    @Test
+    public void spillsOutsideLoopsFirst() {
+        // p is live in the loop but only accessed outside of it
+        var code = """
+                import ioPlus;
+                Outside {
+                    .construct Outside().V {
+                        invokespecial(this, "<init>").V;
+                    }
+
+                    .method public static main(args.array.String).V {
+                        i.i32 :=.i32 0.i32;
+                        s.i32 :=.i32 0.i32;
+                        p.i32 :=.i32 s.i32 +.i32 3.i32;
+                        p.i32 :=.i32 p.i32 +.i32 1.i32;
+                        p.i32 :=.i32 p.i32 *.i32 2.i32;
+                    loop:
+                        s.i32 :=.i32 s.i32 +.i32 i.i32;
+                        i.i32 :=.i32 i.i32 +.i32 1.i32;
+                        if (i.i32 <.bool 5.i32) goto loop;
+                        x.i32 :=.i32 s.i32 +.i32 p.i32;
+                        invokestatic(ioPlus, "printResult", x.i32).V;
+                        ret.V;
+                    }
+                }
+                """;
+        var expected = TestUtils.backend(new OllirResult(code, Collections.emptyMap())).run();
+
+        var ollirResult = new OllirResult(code, Collections.emptyMap());
+        var output = new ByteArrayOutputStream();
+        var diagnostics = Diagnostics.of(EnumSet.of(Level.REGALLOC), new PrintStream(output, true));
+        new RegisterAllocation(ollirResult, 2, RegisterAllocator.COLORING, diagnostics).allocateRegisters();
+
+        var spills = output.toString().lines().filter(line -> line.startsWith("Spilling ")).toList();
+        assertTrue(spills.get(0), spills.get(0).startsWith("Spilling p "));
+        assertEquals(expected, TestUtils.backend(ollirResult).run());
+    }
+
+    @Test
+    public void loopDepths() {
+        var method = CpUtils.getMethod(new OllirResult(LOOP, Collections.emptyMap()), "main");
+        var graph = LiveVariables.analyze(method).getGraph();
+        var depths = LoopDepth.compute(graph);
+
+        assertEquals(0, depths[0]);
+        assertEquals(1, depths[1]);
+        assertEquals(0, depths[2]);
+    }
+
+    @Test
+    public void parseAllocator() {
+        assertEquals(RegisterAllocator.AUTO, CompilerConfig.getRegisterAllocator(new HashMap<>()));
+        assertEquals(RegisterAllocator.LINEAR_SCAN, CompilerConfig.getRegisterAllocator(getConfig(0, RegisterAllocator.LINEAR_SCAN)));
+
+        Map<String, String> config = new HashMap<>();
+        config.put(ConfigOptions.getRegisterAllocator(), "greedy");
+        try {
+            CompilerConfig.getRegisterAllocator(config);
+            fail("Expected an unrecognized allocator");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("greedy"));
+        }
+    }
+}
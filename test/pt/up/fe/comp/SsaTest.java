@@ -0,0 +1,176 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.inst.AssignInstruction;
+import org.specs.comp.ollir.inst.Instruction;
+import org.specs.comp.ollir.inst.SingleOpInstruction;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.optimization.dataflow.FlowGraph;
+import pt.up.fe.comp2025.optimization.dataflow.OllirOperands;
+import pt.up.fe.comp2025.optimization.ssa.DominatorTree;
+import pt.up.fe.comp2025.optimization.ssa.SsaForm;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Building and destroying the SSA form of OLLIR methods.
+ */
+public class SsaTest {
+
+    // 0 -> 2 -> {3, 4} -> 5 -> 1, with 5 -> 2 looping back
+    private static final FlowGraph GRAPH = new ArrayFlowGraph(new int[][]{{2}, {}, {3, 4}, {5}, {5}, {2, 1}});
+
+    // a and b swap 3 times, the copies through t become a swap of the phis once propagated
+    private static final String SWAP = """
+            import ioPlus;
+            Swap {
+                .construct Swap().V {
+                    invokespecial(this, "<init>").V;
+                }
+
+                .method public static main(args.array.String).V {
+                    a.i32 :=.i32 1.i32;
+                    b.i32 :=.i32 2.i32;
+                    i.i32 :=.i32 0.i32;
+                loop:
+                    t.i32 :=.i32 a.i32;
+                    a.i32 :=.i32 b.i32;
+                    b.i32 :=.i32 t.i32;
+                    i.i32 :=.i32 i.i32 +.i32 1.i32;
+                    if (i.i32 <.bool 3.i32) goto loop;
+                    invokestatic(ioPlus, "printResult", a.i32).V;
+                    invokestatic(ioPlus, "printResult", b.i32).V;
+                    ret.V;
+                }
+            }
+            """;
+
+    private static final int LOOP = 3;
+
+    @Test
+    public void dominators() {
+        var tree = DominatorTree.build(GRAPH);
+
+        assertEquals(2, tree.getImmediateDominator(3));
+        assertEquals(2, tree.getImmediateDominator(5));
+        assertEquals(5, tree.getImmediateDominator(1));
+        assertTrue(tree.dominates(2, 1));
+        assertTrue(!tree.dominates(3, 5));
+
+        assertArrayEquals(new int[]{5}, tree.getFrontier(3));
+        assertArrayEquals(new int[]{2}, tree.getFrontier(5));
+        assertArrayEquals(new int[]{2}, tree.getFrontier(2));
+    }
+
+    @Test
+    public void phisWhereValuesMeet() {
+        var method = getMain(new OllirResult(SWAP, Collections.emptyMap()));
+        var ssa = SsaForm.build(method);
+
+        // t is assigned before it is read in the loop, it needs no phi
+        var phis = new HashMap<String, Set<String>>();
+        for (var phi : ssa.getPhis(LOOP)) {
+            phis.put(phi.getVariable(), new HashSet<>(Arrays.asList(phi.getSources())));
+        }
+        assertEquals(Set.of("a", "b", "i"), phis.keySet());
+        assertEquals(Set.of("a$1", "a$3"), phis.get("a"));
+
+        // Each name is assigned once
+        var assigned = new HashSet<String>();
+        ssa.getPhis(LOOP).forEach(phi -> assigned.add(phi.getTarget()));
+        for (var inst : method.getInstructions()) {
+            var definition = OllirOperands.getDefinition(inst);
+            if (definition != null) {
+                assertTrue(definition.getName(), assigned.add(definition.getName()));
+            }
+        }
+
+        assertEquals(LOOP, ssa.getDefinition(ssa.getPhis(LOOP).get(0).getTarget()));
+    }
+
+    @Test
+    public void roundTripKeepsTheMethod() {
+        var method = getMain(new OllirResult(SWAP, Collections.emptyMap()));
+        var original = toStrings(method.getInstructions());
+
+        var ssa = SsaForm.build(method);
+        assertEquals(0, ssa.destruct());
+
+        assertEquals(original, toStrings(method.getInstructions()));
+    }
+
+    @Test
+    public void swappedPhisRunTheSame() {
+        var expected = TestUtils.backend(new OllirResult(SWAP, Collections.emptyMap())).run();
+
+        var ollirResult = new OllirResult(SWAP, Collections.emptyMap());
+        var method = getMain(ollirResult);
+        var ssa = SsaForm.build(method);
+        propagateCopies(ssa);
+
+        assertTrue(ssa.destruct() > 0);
+        assertTrue(method.getVarTable().keySet().stream().anyMatch(name -> name.contains("swap")));
+
+        assertEquals(expected, TestUtils.backend(ollirResult).run());
+    }
+
+    private static Method getMain(OllirResult ollirResult) {
+        return ollirResult.getOllirClass().getMethods().stream()
+                .filter(method -> method.getMethodName().equals("main"))
+                .findFirst().orElseThrow();
+    }
+
+    private static List<String> toStrings(List<Instruction> instructions) {
+        return instructions.stream().map(Object::toString).toList();
+    }
+
+    /**
+     * Replaces the uses of names copied from other names with the original ones, which only SSA form allows.
+     */
+    private static void propagateCopies(SsaForm ssa) {
+        var method = ssa.getMethod();
+
+        Map<String, String> copies = new HashMap<>();
+        for (var inst : method.getInstructions()) {
+            if (inst instanceof AssignInstruction assign && assign.getRhs() instanceof SingleOpInstruction singleOp
+                    && singleOp.getSingleOperand() instanceof Operand source
+                    && ssa.getVariable(source.getName()) != null) {
+                copies.put(((Operand) assign.getDest()).getName(), source.getName());
+            }
+        }
+
+        for (var inst : method.getInstructions()) {
+            for (var use : OllirOperands.getUses(inst)) {
+                use.setName(resolve(copies, use.getName()));
+            }
+        }
+
+        for (int block = 0; block < ssa.getGraph().getNumBlocks(); block++) {
+            for (var phi : ssa.getPhis(block)) {
+                var sources = phi.getSources();
+                for (int i = 0; i < sources.length; i++) {
+                    sources[i] = resolve(copies, sources[i]);
+                }
+            }
+        }
+    }
+
+    private static String resolve(Map<String, String> copies, String name) {
+        while (copies.containsKey(name)) {
+            name = copies.get(name);
+        }
+        return name;
+    }
+}
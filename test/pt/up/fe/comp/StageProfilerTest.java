@@ -0,0 +1,137 @@
+package pt.up.fe.comp;
+
+import com.google.gson.JsonParser;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.JmmCompiler;
+import pt.up.fe.comp2025.instrumentation.CompilationProfile;
+import pt.up.fe.comp2025.instrumentation.StageProfiler;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Time and memory spent in each stage of a compilation, see {@link StageProfiler}.
+ */
+public class StageProfilerTest {
+
+    private static final String CODE = SpecsIo.getResource("pt/up/fe/comp/cp2/ollir/arithmetic/Arithmetic_add.jmm");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void stopProfiling() {
+        if (StageProfiler.isActive()) {
+            StageProfiler.stop();
+        }
+    }
+
+    private static List<String> getPaths(CompilationProfile profile, int depth) {
+        return profile.getStages().stream()
+                .filter(stage -> stage.getDepth() == depth)
+                .map(CompilationProfile.StageTiming::getPath)
+                .toList();
+    }
+
+    @Test
+    public void nestedStagesKeepTheStartOrder() {
+        StageProfiler.start("input");
+        var value = StageProfiler.measure("outer", () -> StageProfiler.measure("inner", () -> 42));
+        StageProfiler.measure("next", () -> {
+        });
+        StageProfiler.record("accumulated", 1000);
+        var profile = StageProfiler.stop();
+
+        assertEquals(42, (int) value);
+        assertEquals("input", profile.getInput());
+        assertEquals(List.of("outer", "outer/inner", "next", "accumulated"),
+                profile.getStages().stream().map(CompilationProfile.StageTiming::getPath).toList());
+        assertEquals(List.of("outer", "next", "accumulated"), getPaths(profile, 0));
+
+        var outer = profile.getStages().get(0);
+        var inner = profile.getStages().get(1);
+        assertTrue(outer.getWallNanos() >= inner.getWallNanos());
+
+        // Only the wall time is known for recorded stages
+        var accumulated = profile.getStages().get(3);
+        assertEquals(1000, accumulated.getWallNanos());
+        assertEquals(-1, accumulated.getCpuNanos());
+        assertEquals(-1, accumulated.getAllocatedBytes());
+    }
+
+    @Test
+    public void failedStagesAreMeasured() {
+        StageProfiler.start("input");
+        try {
+            StageProfiler.measure("failing", () -> {
+                throw new IllegalArgumentException("on purpose");
+            });
+            fail("Expected the exception of the stage");
+        } catch (IllegalArgumentException e) {
+            assertEquals("on purpose", e.getMessage());
+        }
+
+        assertEquals(List.of("failing"), getPaths(StageProfiler.stop(), 0));
+    }
+
+    @Test
+    public void onlyTheProfiledThreadIsMeasured() throws Exception {
+        // Without a profile, stages just run
+        assertFalse(StageProfiler.isActive());
+        assertEquals("ran", StageProfiler.measure("unprofiled", () -> "ran"));
+        try {
+            StageProfiler.stop();
+            fail("Expected no profile to stop");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("No compilation"));
+        }
+
+        StageProfiler.start("input");
+        var otherThread = CompletableFuture.supplyAsync(() -> StageProfiler.measure("elsewhere",
+                StageProfiler::isActive)).get();
+        StageProfiler.measure("here", () -> {
+        });
+
+        assertFalse(otherThread);
+        assertEquals(List.of("here"), getPaths(StageProfiler.stop(), 0));
+    }
+
+    @Test
+    public void compilationHasEveryStage() throws Exception {
+        var input = new File(folder.getRoot(), "Simple.jmm");
+        SpecsIo.write(input, CODE);
+        var config = CompilerConfig.parseArgs(new String[]{"-i=" + input.getPath(), "-p"});
+
+        var result = new JmmCompiler().compile(input, config);
+        assertTrue(result.isSuccess());
+        assertFalse(StageProfiler.isActive());
+
+        var profile = result.getProfile().orElseThrow();
+        assertEquals(input.getAbsolutePath(), profile.getInput());
+        assertEquals(List.of("parse", "semantics", "optimizeAst", "ollir", "optimizeOllir", "jasmin"),
+                getPaths(profile, 0));
+        assertTrue(getPaths(profile, 1).containsAll(List.of("parse/lex", "parse/parseTree", "semantics/symbolTable")));
+        assertTrue(getPaths(profile, 2).contains("parse/parseTree/sll"));
+
+        var json = JsonParser.parseString(CompilationProfile.toJson(List.of(profile))).getAsJsonObject();
+        var compilations = json.getAsJsonArray("compilations");
+        assertEquals(1, compilations.size());
+        assertEquals(profile.getStages().size(),
+                compilations.get(0).getAsJsonObject().getAsJsonArray("stages").size());
+
+        // Not profiled unless asked for
+        var unprofiled = new JmmCompiler().compile(input, CompilerConfig.parseArgs(new String[]{"-i=" + input}));
+        assertTrue(unprofiled.getProfile().isEmpty());
+    }
+}
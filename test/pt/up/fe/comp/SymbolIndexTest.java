@@ -0,0 +1,163 @@
+package pt.up.fe.comp;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2025.symboltable.AJmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.ScopedSymbol.Scope;
+import pt.up.fe.comp2025.symboltable.SymbolLookup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Names resolved through the scopes of the symbol table, locals before parameters before fields.
+ */
+public class SymbolIndexTest {
+
+    private static final String CODE = """
+            import a.b.Imported;
+            class Scopes {
+                int a;
+                boolean b;
+                int c;
+                public int foo(boolean a, int d) {
+                    int[] b;
+                    return d;
+                }
+                public int bar() {
+                    return c;
+                }
+            }
+            """;
+
+    private static JmmSymbolTable getTable() {
+        return (JmmSymbolTable) TestUtils.analyse(CODE).getSymbolTable();
+    }
+
+    @Test
+    public void innerScopesShadowOuterOnes() {
+        var table = getTable();
+
+        assertEquals(Scope.PARAMETER, table.resolve("foo", "a").orElseThrow().getScope());
+        assertEquals(Scope.LOCAL, table.resolve("foo", "b").orElseThrow().getScope());
+        assertTrue(table.resolve("foo", "b").orElseThrow().getType().isArray());
+        assertEquals(Scope.FIELD, table.resolve("foo", "c").orElseThrow().getScope());
+        assertEquals(1, table.resolve("foo", "d").orElseThrow().getSlot());
+
+        // Shadowed, not replaced
+        assertEquals(Scope.FIELD, table.getField("a").orElseThrow().getScope());
+        assertFalse(table.getLocalVariable("foo", "a").isPresent());
+        assertFalse(table.getParameter("foo", "b").isPresent());
+    }
+
+    @Test
+    public void everyMethodSeesTheFields() {
+        var table = getTable();
+
+        for (var method : new String[]{"foo", "bar", "unknown"}) {
+            assertEquals(method, Scope.FIELD, table.resolve(method, "c").orElseThrow().getScope());
+        }
+        assertEquals(Scope.FIELD, table.resolve("bar", "a").orElseThrow().getScope());
+        assertFalse(table.resolve("bar", "d").isPresent());
+
+        assertTrue(table.isImportedClass("Imported"));
+        assertFalse(table.isImportedClass("b"));
+    }
+
+    /**
+     * Another implementation of the symbol table, with none of the lookups of {@link JmmSymbolTable}.
+     */
+    private static class PlainTable extends AJmmSymbolTable {
+        private final SymbolTable table;
+
+        PlainTable(SymbolTable table) {
+            this.table = table;
+        }
+
+        @Override
+        public List<String> getImports() {
+            return table.getImports();
+        }
+
+        @Override
+        public String getClassName() {
+            return table.getClassName();
+        }
+
+        @Override
+        public String getSuper() {
+            return table.getSuper();
+        }
+
+        @Override
+        public List<Symbol> getFields() {
+            return table.getFields();
+        }
+
+        @Override
+        public List<String> getMethods() {
+            return table.getMethods();
+        }
+
+        @Override
+        public Type getReturnType(String methodSignature) {
+            return table.getReturnType(methodSignature);
+        }
+
+        // Unknown methods have no parameters, rather than an empty list
+        @Override
+        public List<Symbol> getParameters(String methodSignature) {
+            return table.getMethods().contains(methodSignature) ? table.getParameters(methodSignature) : null;
+        }
+
+        @Override
+        public List<Symbol> getLocalVariables(String methodSignature) {
+            return table.getMethods().contains(methodSignature) ? table.getLocalVariables(methodSignature) : null;
+        }
+    }
+
+    @Test
+    public void otherTablesAreScanned() {
+        var table = new PlainTable(getTable());
+
+        assertEquals(Scope.PARAMETER, SymbolLookup.resolve(table, "foo", "a").orElseThrow().getScope());
+        assertEquals(Scope.LOCAL, SymbolLookup.resolve(table, "foo", "b").orElseThrow().getScope());
+        assertEquals(Scope.FIELD, SymbolLookup.resolve(table, "unknown", "c").orElseThrow().getScope());
+        assertEquals(1, SymbolLookup.resolve(table, "foo", "d").orElseThrow().getSlot());
+        assertFalse(SymbolLookup.resolve(table, "bar", "d").isPresent());
+
+        assertTrue(SymbolLookup.isImportedClass(table, "Imported"));
+        assertFalse(SymbolLookup.isImportedClass(table, "b"));
+    }
+
+    @Test
+    public void analysisAcceptsOtherTables() {
+        var semantics = TestUtils.analyse("""
+                class Undeclared {
+                    public int foo() {
+                        return e;
+                    }
+                }
+                """);
+        var plain = new JmmSemanticsResult(semantics.getRootNode(), new PlainTable(semantics.getSymbolTable()),
+                new ArrayList<>(), semantics.getConfig());
+
+        var reports = new JmmAnalysisImpl().semanticAnalysis(plain).getReports();
+
+        var errors = reports.stream().filter(report -> report.getType() == ReportType.ERROR).toList();
+        assertEquals(1, errors.size());
+        assertEquals("Variable 'e' does not exist.", errors.get(0).getMessage());
+        assertNull(errors.get(0).getException().orElse(null));
+    }
+}
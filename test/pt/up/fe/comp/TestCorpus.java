@@ -0,0 +1,41 @@
+package pt.up.fe.comp;
+
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Inputs and options shared by the tests that compare two ways of compiling the same code.
+ */
+public class TestCorpus {
+
+    /**
+     * Resource folder of the semantic analysis checkpoint, whose inputs (valid and invalid) cover most of the
+     * language.
+     */
+    public static final String SEMANTIC_ANALYSIS = "pt/up/fe/comp/cp1/semanticanalysis/";
+
+    /**
+     * @return the '.jmm' files of the semantic analysis checkpoint, never empty
+     */
+    public static List<File> getSemanticAnalysisFiles() {
+        var inputs = SpecsIo.getFiles(new File("test/" + SEMANTIC_ANALYSIS), "jmm");
+        assertFalse("Expected inputs in " + SEMANTIC_ANALYSIS, inputs.isEmpty());
+
+        return inputs;
+    }
+
+    /**
+     * @return a modifiable config with only the given option set
+     */
+    public static Map<String, String> getConfig(String option, boolean enabled) {
+        Map<String, String> config = new HashMap<>();
+        config.put(option, String.valueOf(enabled));
+        return config;
+    }
+}
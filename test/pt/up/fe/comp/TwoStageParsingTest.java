@@ -0,0 +1,96 @@
+package pt.up.fe.comp;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ast.antlr.AntlrParser;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp2025.JavammLexer;
+import pt.up.fe.comp2025.JavammParser;
+import pt.up.fe.comp2025.instrumentation.CompilationProfile;
+import pt.up.fe.comp2025.instrumentation.StageProfiler;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Parsing with SLL prediction first must give the same trees and reports as parsing with full LL prediction only,
+ * see {@link pt.up.fe.comp2025.parser.JmmParserImpl}.
+ */
+public class TwoStageParsingTest {
+
+    private static final String CODE = SpecsIo.getResource("pt/up/fe/comp/cp2/ollir/arithmetic/Arithmetic_add.jmm");
+
+    /**
+     * The parse the compiler did before SLL prediction was tried first.
+     */
+    private static JmmParserResult parseLL(String code) {
+        var lexer = new JavammLexer(new ANTLRInputStream(code));
+        var parser = new JavammParser(new CommonTokenStream(lexer));
+        return AntlrParser.parse(lexer, parser, "program", new HashMap<>());
+    }
+
+    private static String toTree(JmmParserResult result) {
+        return result.getRootNode() == null ? null : result.getRootNode().toTree();
+    }
+
+    private static void assertSameParse(String name, String code) {
+        var expected = parseLL(code);
+        var actual = TestUtils.parse(code);
+
+        assertEquals(name, expected.getReports().toString(), actual.getReports().toString());
+        assertEquals(name, toTree(expected), toTree(actual));
+    }
+
+    /**
+     * @return the prediction stages the parse went through, 'sll' and then 'll' if SLL failed
+     */
+    private static List<String> getPredictionStages(String code) {
+        StageProfiler.start("input");
+        TestUtils.parse(code);
+        return StageProfiler.stop().getStages().stream()
+                .map(CompilationProfile.StageTiming::getPath)
+                .filter(path -> path.startsWith("parseTree/"))
+                .toList();
+    }
+
+    @Test
+    public void sameAsFullPrediction() {
+        for (var input : TestCorpus.getSemanticAnalysisFiles()) {
+            assertSameParse(input.getName(), SpecsIo.read(input));
+        }
+
+        assertSameParse("generated", new ProgramGenerator(6).methods(10).expressionDepth(8).generate());
+    }
+
+    @Test
+    public void syntaxErrorsAreReportedOnce() {
+        var inputs = List.of(
+                CODE.replace("a = 1;", "a = 1"),
+                CODE.replace("return a + b;", "return a + ;"),
+                CODE.replace("int foo()", "int foo("),
+                CODE.replace("b = 2;", "b = (2 * a;"),
+                CODE + "}");
+
+        for (var code : inputs) {
+            var result = TestUtils.parse(code);
+            assertNull(code, result.getRootNode());
+            assertFalse(code, result.getReports().isEmpty());
+
+            assertSameParse(code, code);
+            assertEquals(List.of("parseTree/sll", "parseTree/ll"), getPredictionStages(code));
+        }
+    }
+
+    @Test
+    public void validInputsOnlyNeedSll() {
+        assertNotNull(TestUtils.parse(CODE).getRootNode());
+        assertEquals(List.of("parseTree/sll"), getPredictionStages(CODE));
+    }
+}
@@ -18,6 +18,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.junit.Assert.*;
@@ -214,6 +215,22 @@ public class OllirTest {
         CpUtils.assertEquals("Method return type", "int[]", CpUtils.toString(method.getReturnType()), result);
     }
 
+    /*checks that only int and boolean locals start as 0, since a reference-typed 0 does not load as null*/
+    @Test
+    public void basicReferenceLocals() {
+        var result = getOllirResult("basic/BasicReferenceLocals.jmm");
+
+        var method = CpUtils.getMethod(result, "func");
+
+        for (var assign : CpUtils.getInstructions(AssignInstruction.class, method)) {
+            if (assign.getRhs() instanceof SingleOpInstruction copy && copy.getSingleOperand() instanceof LiteralElement) {
+                var kind = CpUtils.toString(assign.getDest().getType());
+                CpUtils.assertTrue("Literal assigned to a local of type " + kind,
+                        kind.equals("int") || kind.equals("bool"), result);
+            }
+        }
+    }
+
     @Test
     public void arithmeticSimpleAdd() {
         var ollirResult = getOllirResult("arithmetic/Arithmetic_add.jmm");
@@ -241,6 +258,33 @@ public class OllirTest {
 
     }
 
+    @Test
+    public void arithmeticNested() {
+        var result = getOllirResult("arithmetic/Arithmetic_nested.jmm");
+
+        var method = CpUtils.getMethod(result, "func");
+
+        // Each operator is generated once, so the temporaries are numbered without gaps
+        var temporaries = CpUtils.getInstructions(AssignInstruction.class, method).stream()
+                .map(assign -> ((Operand) assign.getDest()).getName())
+                .filter(name -> name.startsWith("tmp"))
+                .collect(Collectors.toSet());
+        var expected = IntStream.range(0, 9).mapToObj(i -> "tmp" + i).collect(Collectors.toSet());
+
+        CpUtils.assertEquals("Temporaries of the expression", expected, temporaries, result);
+    }
+
+    @Test
+    public void arithmeticNot() {
+        var result = getOllirResult("arithmetic/Arithmetic_not.jmm");
+
+        var method = CpUtils.getMethod(result, "func");
+
+        // The operands are locals of 'func', so the result types must be looked up in it
+        CpUtils.assertNumberOfOperations(OperationType.NOTB, 2, method, result);
+        CpUtils.assertHasOperation(OperationType.LTH, method, result);
+    }
+
     @Test
     public void controlFlowIfSimpleSingleGoTo() {
 